@@ -0,0 +1,124 @@
+package benchmark;
+
+import course.Course;
+import course.CourseManager;
+import output.Output;
+import persistence.WriteAheadLog;
+import registration.EnrollmentResult;
+import registration.RegistrationManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cohort enrollment: one enroll call per student versus one enrollAll batch.
+ *
+ * Each invocation enrolls a fresh cohort into its own course, journaling to
+ * a write-ahead log in a temporary file, so the comparison includes the
+ * per-call durable write that batching removes. Creating the course and
+ * the cohort is not timed.
+ *
+ * Build with mvn -Pjmh package, then run:
+ *   java -jar target/benchmarks.jar BatchEnrollmentBenchmark [-p cohort=2000]
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchEnrollmentBenchmark {
+    @Param({"2000"})
+    private int cohort;
+
+    private Path file;
+    private WriteAheadLog journal;
+    private CourseManager courses;
+    private RegistrationManager registrations;
+    private List<String[]> pairs;
+    private int round;
+
+    /**
+     * Opens the temporary journal and the stores that write to it.
+     *
+     * @throws IOException If the journal cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("batch-enroll", ".log");
+        journal = new WriteAheadLog(file);
+        courses = new CourseManager();
+        courses.setOutput(Output.QUIET);
+        registrations = new RegistrationManager(courses);
+        registrations.setOutput(Output.QUIET);
+        registrations.setJournal(journal);
+    }
+
+    /**
+     * Adds a new course with a seat for every student of a new cohort.
+     */
+    @Setup(Level.Invocation)
+    public void newCohort() {
+        String courseId = courses.generateCourseId();
+        courses.addCourse(new Course(courseId, "Cohort " + round, "Teacher", "12 weeks", "Benchmark", cohort));
+        pairs = new ArrayList<>(cohort);
+        for (int i = 0; i < cohort; i++) {
+            pairs.add(new String[] {"S-" + round + "-" + i, courseId});
+        }
+        round++;
+    }
+
+    /**
+     * Closes and deletes the temporary journal.
+     *
+     * @throws IOException If the journal cannot be closed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int oneByOne() {
+        int enrolled = 0;
+        for (String[] pair : pairs) {
+            enrolled += registrations.enroll(pair[0], pair[1]).isEnrolled() ? 1 : 0;
+        }
+        return check(enrolled);
+    }
+
+    @Benchmark
+    public int asOneBatch() {
+        int enrolled = 0;
+        for (EnrollmentResult result : registrations.enrollAll(pairs)) {
+            enrolled += result.isEnrolled() ? 1 : 0;
+        }
+        return check(enrolled);
+    }
+
+    private int check(int enrolled) {
+        if (enrolled != cohort) {
+            throw new IllegalStateException("Error: enrolled " + enrolled + " of " + cohort);
+        }
+        return enrolled;
+    }
+}
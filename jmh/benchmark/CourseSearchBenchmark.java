@@ -0,0 +1,155 @@
+package benchmark;
+
+import course.Course;
+import course.CourseManager;
+import output.Output;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of course search over a large synthetic catalog.
+ *
+ * Builds a catalog from a fixed vocabulary, then times random one- to
+ * three-word queries, each word cut to a prefix of at least three letters
+ * as a user typing would produce. Also times the incremental index
+ * maintenance done by updateCourse, and by addCourse and removeCourse as a
+ * pair so the catalog keeps its size.
+ *
+ * Build with mvn -Pjmh package, then run, for example:
+ *   java -jar target/benchmarks.jar CourseSearchBenchmark -p courses=50000 -p topK=10
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CourseSearchBenchmark {
+    private static final int QUERIES = 20_000;
+
+    private static final String[] SUBJECTS = {
+        "algorithms", "databases", "networks", "compilers", "graphics", "security", "statistics",
+        "calculus", "physics", "chemistry", "biology", "economics", "accounting", "marketing",
+        "philosophy", "history", "literature", "linguistics", "psychology", "sociology",
+        "programming", "robotics", "architecture", "design", "music", "photography", "finance",
+        "geometry", "astronomy", "genetics", "ecology", "journalism", "law", "ethics", "medicine",
+    };
+    private static final String[] LEVELS = {
+        "introduction", "intro", "advanced", "applied", "modern", "foundations", "topics", "seminar",
+        "principles", "theory", "practice", "workshop", "special", "honors", "graduate",
+    };
+    private static final String[] NAMES = {
+        "ahmad", "smith", "khan", "garcia", "chen", "muller", "rossi", "silva", "ali", "kim",
+        "nguyen", "patel", "johnson", "brown", "lopez", "wilson", "hassan", "tanaka", "ivanov", "okafor",
+    };
+    private static final String[] FILLER = {
+        "students", "learn", "core", "concepts", "through", "projects", "labs", "lectures", "case",
+        "studies", "with", "emphasis", "on", "real", "world", "problems", "and", "hands", "skills",
+        "analysis", "methods", "tools", "research", "team", "writing", "data", "systems", "models",
+    };
+
+    @Param({"50000"})
+    private int courses;
+
+    @Param({"10"})
+    private int topK;
+
+    private CourseManager catalog;
+    private String[] queries;
+    private String[] courseIds;
+    private Random random;
+    private int next;
+
+    /**
+     * Builds the catalog and the queries.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(42);
+        catalog = new CourseManager();
+        catalog.setOutput(Output.QUIET);
+        courseIds = new String[courses];
+        for (int i = 0; i < courses; i++) {
+            courseIds[i] = "C-" + (100_001 + i);
+            catalog.restoreCourse(randomCourse(random, courseIds[i], i));
+        }
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomQuery(random);
+        }
+    }
+
+    @Benchmark
+    public List<Course> searchCourses() {
+        return catalog.searchCourses(queries[next++ % QUERIES], topK);
+    }
+
+    @Benchmark
+    public Object updateCourse() {
+        Course c = catalog.getCourseById(courseIds[next++ % courses]);
+        return catalog.updateCourse(c.getId(), c.getName(), c.getTeacher(), c.getDuration(),
+                c.getDescription() + " updated syllabus");
+    }
+
+    @Benchmark
+    public Object addAndRemoveCourse() {
+        Course c = randomCourse(random, catalog.generateCourseId(), courses + next++);
+        catalog.addCourse(c);
+        return catalog.removeCourse(c.getId());
+    }
+
+    /**
+     * Builds a course from the vocabulary.
+     *
+     * @param random The random source
+     * @param id The course ID
+     * @param serial A number that keeps the name unique
+     * @return The course
+     */
+    private static Course randomCourse(Random random, String id, int serial) {
+        String name = pick(random, LEVELS) + " " + pick(random, SUBJECTS) + " " + serial;
+        String teacher = "Dr. " + pick(random, NAMES);
+        StringBuilder description = new StringBuilder();
+        for (int w = 0; w < 20; w++) {
+            description.append(w % 7 == 0 ? pick(random, SUBJECTS) : pick(random, FILLER)).append(' ');
+        }
+        return new Course(id, name, teacher, "12 weeks", description.toString().trim(), 0);
+    }
+
+    /**
+     * Builds a query of one to three words, each cut to a prefix of at least three letters.
+     *
+     * @param random The random source
+     * @return The query
+     */
+    private static String randomQuery(Random random) {
+        String[][] sources = {SUBJECTS, LEVELS, NAMES, FILLER};
+        int words = 1 + random.nextInt(3);
+        StringBuilder query = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            String word = pick(random, sources[w == 0 ? 0 : random.nextInt(sources.length)]);
+            int length = Math.min(word.length(), 3 + random.nextInt(Math.max(1, word.length() - 2)));
+            query.append(word, 0, length).append(' ');
+        }
+        return query.toString().trim();
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
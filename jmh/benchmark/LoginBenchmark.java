@@ -0,0 +1,108 @@
+package benchmark;
+
+import common.Ids;
+import common.PasswordHasher;
+import student.Student;
+import student.StudentManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the indexed, hashed login path.
+ *
+ * Compares a linear scan with plaintext comparison (the previous login),
+ * an indexed login that misses the verified-login cache and pays the full
+ * PBKDF2 cost, and an indexed login for a hot set of students that hits
+ * the cache. Every student shares one precomputed hash so the fixture
+ * builds quickly; each login still verifies against it in full on a miss.
+ *
+ * Build with mvn -Pjmh package, then run:
+ *   java -jar target/benchmarks.jar LoginBenchmark [-p students=100000]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public abstract class LoginBenchmark {
+    private static final String PASSWORD = "secret123";
+    private static final int HOT_STUDENTS = 1_000;
+
+    @Param({"100000"})
+    private int students;
+
+    private StudentManager manager;
+    private String[] emails;
+    private Student[] plaintext;
+
+    /**
+     * Every benchmark with one caller.
+     */
+    @Threads(1)
+    public static class SingleThreaded extends LoginBenchmark {
+    }
+
+    /**
+     * Every benchmark with one caller per processor.
+     */
+    @Threads(Threads.MAX)
+    public static class Contended extends LoginBenchmark {
+    }
+
+    /**
+     * Builds the hashed store, a plaintext copy of it for the old scan, and warms the cache for the hot set.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new StudentManager();
+        String hash = PasswordHasher.hash(PASSWORD);
+        emails = new String[students];
+        plaintext = new Student[students];
+        for (int i = 0; i < students; i++) {
+            emails[i] = "student" + i + "@uni.edu";
+            manager.restoreStudent(new Student(Ids.format("S-2025-", i + 1, 3), "Student " + i, emails[i], hash));
+            plaintext[i] = new Student(Ids.format("S-2025-", i + 1, 3), "Student " + i, emails[i], PASSWORD);
+        }
+        for (int i = 0; i < HOT_STUDENTS; i++) {
+            manager.login(emails[i], PASSWORD);
+        }
+    }
+
+    @Benchmark
+    public Student linearScanPlaintext() {
+        String email = emails[ThreadLocalRandom.current().nextInt(students)];
+        for (Student s : plaintext) {
+            if (s.getEmail().equalsIgnoreCase(email) && s.getPassword().equals(PASSWORD)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Student indexedCacheMiss() {
+        // Random students beyond the cache capacity almost always miss
+        return manager.login(emails[ThreadLocalRandom.current().nextInt(students)], PASSWORD);
+    }
+
+    @Benchmark
+    public Student indexedCacheHit() {
+        return manager.login(emails[ThreadLocalRandom.current().nextInt(HOT_STUDENTS)], PASSWORD);
+    }
+}
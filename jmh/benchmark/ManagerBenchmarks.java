@@ -0,0 +1,170 @@
+package benchmark;
+
+import common.Ids;
+import common.PasswordHasher;
+import course.Course;
+import course.CourseManager;
+import output.Output;
+import registration.RegistrationManager;
+import student.Student;
+import student.StudentManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput baseline for the manager hot paths.
+ *
+ * Each benchmark runs against a fresh fixture of 1k, 100k and 1M students,
+ * courses and registrations, once in SingleThreaded and once in Contended,
+ * which runs as many threads as there are processors. The student and
+ * course stores are not thread-safe, so their write benchmarks serialize
+ * callers on the manager, which is what the contended variant then
+ * measures. The managers' messages are printed to a discarding stream, so
+ * formatting them is still measured. Every student shares one precomputed
+ * password hash, so no login pays for upgrading a legacy plaintext password
+ * and every size measures the same login path.
+ *
+ * Build with mvn -Pjmh package, then run, for example:
+ *   java -Xmx3g -jar target/benchmarks.jar ManagerBenchmarks
+ *   java -Xmx3g -jar target/benchmarks.jar "ManagerBenchmarks.*login" -p size=1000,100000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public abstract class ManagerBenchmarks {
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private static final Output DISCARDED = line -> DISCARD.println(line);
+    private static final String PASSWORD = "secret123";
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private StudentManager students;
+    private CourseManager courses;
+    private RegistrationManager registrations;
+    private String[] studentIds;
+    private String[] emails;
+    private String[] courseIds;
+    private final AtomicLong unique = new AtomicLong();
+
+    /**
+     * Every benchmark with one caller.
+     */
+    @Threads(1)
+    public static class SingleThreaded extends ManagerBenchmarks {
+    }
+
+    /**
+     * Every benchmark with one caller per processor.
+     */
+    @Threads(Threads.MAX)
+    public static class Contended extends ManagerBenchmarks {
+    }
+
+    /**
+     * Builds the fixture: size students, size courses and size registrations.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        students = new StudentManager();
+        courses = new CourseManager();
+        registrations = new RegistrationManager(courses);
+        students.setOutput(DISCARDED);
+        courses.setOutput(DISCARDED);
+        registrations.setOutput(DISCARDED);
+        studentIds = new String[size];
+        emails = new String[size];
+        courseIds = new String[size];
+        String hash = PasswordHasher.hash(PASSWORD);
+        for (int i = 0; i < size; i++) {
+            studentIds[i] = Ids.format("S-2025-", i + 1, 3);
+            emails[i] = "student" + i + "@uni.edu";
+            students.restoreStudent(new Student(studentIds[i], "Student " + i, emails[i], hash));
+            courseIds[i] = "C-" + (1001 + i);
+            courses.restoreCourse(new Course(courseIds[i], "Course " + i, "Teacher " + (i % 500),
+                    "12 weeks", "Benchmark course"));
+        }
+        for (int i = 0; i < size; i++) {
+            registrations.enroll(studentIds[i], courseIds[(int) ((i * 7L) % size)]);
+        }
+    }
+
+    @Benchmark
+    public Student login() {
+        return students.login(emails[ThreadLocalRandom.current().nextInt(size)], PASSWORD);
+    }
+
+    @Benchmark
+    public Object registerStudent() {
+        long n = unique.incrementAndGet();
+        synchronized (students) {
+            return students.registerStudent(new Student(students.generateStudentId(), "New " + n,
+                    "new" + n + "@uni.edu", "secret" + n));
+        }
+    }
+
+    @Benchmark
+    public Course getCourseById() {
+        return courses.getCourseById(randomCourse());
+    }
+
+    @Benchmark
+    public Object addCourse() {
+        long n = unique.incrementAndGet();
+        synchronized (courses) {
+            return courses.addCourse(new Course(courses.generateCourseId(), "New Course " + n, "Teacher",
+                    "8 weeks", "Added by benchmark"));
+        }
+    }
+
+    @Benchmark
+    public Object registerStudentToCourse() {
+        return registrations.registerStudentToCourse(randomStudent(), randomCourse());
+    }
+
+    @Benchmark
+    public RegistrationManager viewStudentRegistrations() {
+        registrations.viewStudentRegistrations(randomStudent());
+        return registrations;
+    }
+
+    @Benchmark
+    public long getEnrollmentCount() {
+        return registrations.getEnrollmentCount(randomCourse());
+    }
+
+    @Benchmark
+    public List<?> getTopCoursesByEnrollment() {
+        return registrations.getTopCoursesByEnrollment(10);
+    }
+
+    private String randomStudent() {
+        return studentIds[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    private String randomCourse() {
+        return courseIds[ThreadLocalRandom.current().nextInt(size)];
+    }
+}
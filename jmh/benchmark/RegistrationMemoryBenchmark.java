@@ -0,0 +1,83 @@
+package benchmark;
+
+import registration.ColumnarRegistrationStore;
+import registration.Registration;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+/**
+ * Compares the heap used by ArrayList&lt;Registration&gt; with ColumnarRegistrationStore.
+ * Student and course ID strings are shared between rows, as they are when
+ * registrations are created from existing Student and Course objects.
+ *
+ * Not a JMH benchmark: it reports heap use rather than time. Build with
+ * mvn -Pjmh package, then run:
+ *   java -Xmx2g -cp target/benchmarks.jar benchmark.RegistrationMemoryBenchmark [rows]
+ */
+public class RegistrationMemoryBenchmark {
+    private static final int STUDENTS = 50_000;
+    private static final int COURSES = 2_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional row count (default 1,000,000)
+     */
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] studentIds = new String[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            studentIds[i] = String.format("S-2025-%03d", i + 1);
+        }
+        String[] courseIds = new String[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            courseIds[i] = "C-" + (1001 + i);
+        }
+        LocalDate start = LocalDate.of(2025, 1, 6);
+
+        long baseline = usedHeap();
+        ArrayList<Registration> list = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            list.add(new Registration(String.format("R-%04d", i + 1), studentIds[i % STUDENTS],
+                    courseIds[(i * 7) % COURSES], start.plusDays(i % 30)));
+        }
+        long listBytes = usedHeap() - baseline;
+        Registration probe = list.get(rows / 2);
+        list = null;
+
+        baseline = usedHeap();
+        ColumnarRegistrationStore store = new ColumnarRegistrationStore();
+        for (int i = 0; i < rows; i++) {
+            store.add(i + 1, studentIds[i % STUDENTS], courseIds[(i * 7) % COURSES], start.plusDays(i % 30));
+        }
+        store.seal();
+        long storeBytes = usedHeap() - baseline;
+
+        if (!store.get(store.findRow(rows / 2 + 1)).toString().equals(probe.toString())) {
+            throw new IllegalStateException("Error: columnar row does not match the original registration");
+        }
+
+        System.out.println("Rows:                     " + rows);
+        System.out.printf("ArrayList<Registration>:  %,d bytes (%.1f bytes/row)%n", listBytes, (double) listBytes / rows);
+        System.out.printf("ColumnarRegistrationStore: %,d bytes (%.1f bytes/row)%n", storeBytes, (double) storeBytes / rows);
+        System.out.printf("Reduction:                %.1fx%n", (double) listBytes / storeBytes);
+    }
+
+    /**
+     * Measures live heap after encouraging a full collection.
+     * @return The bytes currently in use
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -2,7 +2,34 @@ import student.*;
 import course.*;
 import registration.*;
 import admin.*;
+import api.ApiServer;
+import common.Ids;
+import events.AuditTrail;
+import events.EventBus;
+import events.EventCounters;
+import events.Notifications;
+import importer.BulkImporter;
+import importer.ImportReport;
+import metrics.Metrics;
+import output.AsyncConsole;
+import output.Output;
+import persistence.PersistenceManager;
+import session.SessionManager;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import javax.management.JMException;
 
 /**
  * Main class for the Course Registration System.
@@ -11,33 +38,94 @@ import java.util.Scanner;
  *
  * Features:
  * - Student Portal: Registration, Login, Course Enrollment, Profile Management
- * - Admin Portal: Course Management, Student Management, Registration Monitoring
+ * - Admin Portal: Course Management, Student Management, Registration Monitoring, Metrics
  */
 public class Main {
-    static Scanner sc = new Scanner(System.in);
+    // Prompts and messages are written by a background thread; reading input waits for them first
+    static AsyncConsole console = new AsyncConsole(new FileOutputStream(FileDescriptor.out));
+    static Scanner sc = new Scanner(console.flushBeforeRead(System.in));
     static StudentManager studentManager = new StudentManager();
     static CourseManager courseManager = new CourseManager();
-    static RegistrationManager registrationManager = new RegistrationManager();
+    static RegistrationManager registrationManager = new RegistrationManager(courseManager);
     static AdminManager adminManager = new AdminManager();
-    static Student loggedInStudent = null;
-    static Admin loggedInAdmin = null;
+    static PersistenceManager persistenceManager = new PersistenceManager(Paths.get("data"),
+            studentManager, courseManager, registrationManager, adminManager);
+    static final int PAGE_SIZE = 20;
+    static final int TOP_COURSES = 10;
+    static SessionManager sessionManager = new SessionManager();
+    static final int DEFAULT_API_PORT = 8080;
+    static EventBus eventBus = new EventBus();
+    static Notifications notifications = new Notifications();
+    static AuditTrail auditTrail;
+
+    static {
+        // Deleting a student or course also deletes its registrations
+        studentManager.setRemovalListener(registrationManager::removeStudentRegistrations);
+        courseManager.setRemovalListener(registrationManager::removeCourseRegistrations);
+        // Rescheduling a course moves its meeting times in every enrolled student's timetable
+        courseManager.setScheduleListener(registrationManager::rescheduleCourse);
+        // Every change is published to the event bus; counters and notices are kept on its threads
+        eventBus.subscribe("counters", EventBus.DEFAULT_BATCH_SIZE, new EventCounters());
+        eventBus.subscribe("notifications", EventBus.DEFAULT_BATCH_SIZE, notifications);
+        studentManager.setEvents(eventBus);
+        courseManager.setEvents(eventBus);
+        registrationManager.setEvents(eventBus);
+        studentManager.setOutput(console);
+        courseManager.setOutput(console);
+        registrationManager.setOutput(console);
+        adminManager.setOutput(console);
+        // Queued messages still reach the screen if the program exits without shutdown()
+        Runtime.getRuntime().addShutdownHook(new Thread(console::flush, "console-flush"));
+        registerMetrics();
+    }
+
+    /**
+     * Registers the entity-count gauges and publishes the metrics registry over JMX.
+     * Gauges are only read when metrics are viewed, never on the hot path.
+     */
+    static void registerMetrics() {
+        Metrics.gauge("students.count", () -> studentManager.getAllStudents().size());
+        Metrics.gauge("courses.count", () -> courseManager.getAllCourses().size());
+        Metrics.gauge("admins.count", () -> adminManager.getAllAdmins().size());
+        Metrics.gauge("registrations.count", () -> registrationManager.getRegistrationCount());
+        Metrics.gauge("sessions.active", () -> sessionManager.size());
+        Metrics.gauge("events.lag", () -> eventBus.getLag());
+        try {
+            Metrics.registerMBean();
+        } catch (JMException e) {
+            console.println("Error: Could not publish metrics over JMX (" + e.getMessage() + ").");
+        }
+    }
 
     /**
      * Main method - Entry point of the application.
      * Displays the main menu and handles user choices between Student and Admin portals.
      *
-     * @param args Command line arguments (not used)
+     * @param args Command line arguments; "--serve [port]" starts the HTTP API instead of the menu
      */
     public static void main(String[] args) {
-        System.out.println("\n========================================");
-        System.out.println("   COURSE REGISTRATION SYSTEM");
-        System.out.println("========================================\n");
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_API_PORT);
+            return;
+        }
+
+        console.println("\n========================================");
+        console.println("   COURSE REGISTRATION SYSTEM");
+        console.println("========================================\n");
+
+        try {
+            persistenceManager.open();
+        } catch (IOException e) {
+            console.println("Error: Could not load saved data (" + e.getMessage() + "). Changes will not be saved.\n");
+        }
+        startAuditTrail();
 
         while (true) {
-            System.out.println("1. Student Portal");
-            System.out.println("2. Admin Portal");
-            System.out.println("3. Exit");
-            System.out.print("Choose an option: ");
+            checkpointIfDue();
+            console.println("1. Student Portal");
+            console.println("2. Admin Portal");
+            console.println("3. Exit");
+            console.print("Choose an option: ");
 
             try {
                 int choice = sc.nextInt();
@@ -51,18 +139,139 @@ public class Main {
                         adminPortal();
                         break;
                     case 3:
-                        System.out.println("\nThank you for using Course Registration System!");
+                        console.println("\nThank you for using Course Registration System!");
+                        shutdown();
                         System.exit(0);
                     default:
-                        System.out.println("Error: Invalid choice! Please try again.\n");
+                        console.println("Error: Invalid choice! Please try again.\n");
                 }
             } catch (Exception e) {
-                System.out.println("Error: Please enter a valid number.\n");
+                console.println("Error: Please enter a valid number.\n");
                 sc.nextLine();
             }
         }
     }
 
+    /**
+     * Writes a snapshot if the change log has grown large enough.
+     * Runs on the menu thread, which owns every student, course and admin change.
+     */
+    static void checkpointIfDue() {
+        try {
+            persistenceManager.maybeCheckpoint();
+        } catch (IOException e) {
+            console.println("Error: Could not write snapshot (" + e.getMessage() + ").");
+        }
+    }
+
+    /**
+     * Serves the HTTP API on localhost until "quit" is entered.
+     * Snapshots are taken in the background while holding the API's store lock.
+     *
+     * @param port The port to listen on
+     */
+    static void serve(int port) {
+        try {
+            persistenceManager.open();
+        } catch (IOException e) {
+            console.println("Error: Could not load saved data (" + e.getMessage() + "). Changes will not be saved.");
+        }
+        startAuditTrail();
+        // API callers read the returned results, so the managers skip building messages altogether
+        studentManager.setOutput(Output.QUIET);
+        courseManager.setOutput(Output.QUIET);
+        registrationManager.setOutput(Output.QUIET);
+        adminManager.setOutput(Output.QUIET);
+        ensureDefaultAdmin();
+
+        ApiServer server;
+        try {
+            server = new ApiServer(new InetSocketAddress("127.0.0.1", port), studentManager, courseManager,
+                    registrationManager, adminManager, sessionManager);
+        } catch (IOException e) {
+            console.println("Error: Could not start the API server (" + e.getMessage() + ").");
+            shutdown();
+            return;
+        }
+        ScheduledExecutorService checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "api-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpoints.scheduleWithFixedDelay(() -> {
+            server.getStoreLock().writeLock().lock();
+            try {
+                checkpointIfDue();
+            } finally {
+                server.getStoreLock().writeLock().unlock();
+            }
+        }, 10, 10, TimeUnit.SECONDS);
+
+        server.start();
+        console.println("Success: API listening on http://127.0.0.1:" + server.getPort() + "/api/ using "
+                + server.getExecutorDescription() + ". Type quit to stop.");
+        while (sc.hasNextLine() && !sc.nextLine().trim().equalsIgnoreCase("quit")) {
+            // Keep serving until asked to stop
+        }
+
+        server.close();
+        checkpoints.shutdownNow();
+        shutdown();
+    }
+
+    /**
+     * Starts appending every published event to data/audit.log.
+     * Loading saved data publishes nothing, so only changes made from now on are audited.
+     */
+    static void startAuditTrail() {
+        try {
+            auditTrail = new AuditTrail(Paths.get("data", "audit.log"));
+            eventBus.subscribe("audit", EventBus.DEFAULT_BATCH_SIZE, auditTrail);
+        } catch (IOException e) {
+            console.println("Error: Could not open the audit log (" + e.getMessage()
+                    + "). Changes will not be audited.");
+        }
+    }
+
+    /**
+     * Flushes and closes the data files before the application exits.
+     * The event bus is drained first so the audit log is complete, and the
+     * console last so every message reaches the screen.
+     */
+    static void shutdown() {
+        sessionManager.close();
+        eventBus.close();
+        if (auditTrail != null) {
+            try {
+                auditTrail.close();
+            } catch (IOException e) {
+                console.println("Error: Could not close the audit log (" + e.getMessage() + ").");
+            }
+        }
+        try {
+            persistenceManager.close();
+        } catch (IOException e) {
+            console.println("Error: Could not close saved data (" + e.getMessage() + ").");
+        }
+        console.close();
+    }
+
+    /**
+     * Shows a paged listing one page at a time until the pages run out or the user stops.
+     *
+     * @param view Prints the page after the given cursor and returns the next cursor, or null at the end
+     */
+    static void browse(UnaryOperator<String> view) {
+        String cursor = view.apply(null);
+        while (cursor != null) {
+            console.print("Press Enter for more, or q to stop: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            cursor = view.apply(cursor);
+        }
+    }
+
     // ==================== STUDENT PORTAL ====================
 
     /**
@@ -71,11 +280,11 @@ public class Main {
      */
     static void studentPortal() {
         while (true) {
-            System.out.println("\n========== STUDENT PORTAL ==========");
-            System.out.println("1. Register");
-            System.out.println("2. Login");
-            System.out.println("3. Back");
-            System.out.print("Choose an option: ");
+            console.println("\n========== STUDENT PORTAL ==========");
+            console.println("1. Register");
+            console.println("2. Login");
+            console.println("3. Back");
+            console.print("Choose an option: ");
 
             try {
                 int choice = sc.nextInt();
@@ -91,10 +300,10 @@ public class Main {
                     case 3:
                         return;
                     default:
-                        System.out.println("Error: Invalid choice! Please try again.\n");
+                        console.println("Error: Invalid choice! Please try again.\n");
                 }
             } catch (Exception e) {
-                System.out.println("Error: Please enter a valid number.\n");
+                console.println("Error: Please enter a valid number.\n");
                 sc.nextLine();
             }
         }
@@ -105,14 +314,14 @@ public class Main {
      * Collects student information and creates a new student account.
      */
     static void studentRegister() {
-        System.out.println("\n========== STUDENT REGISTRATION ==========");
-        System.out.print("Enter name: ");
+        console.println("\n========== STUDENT REGISTRATION ==========");
+        console.print("Enter name: ");
         String name = sc.nextLine().trim();
 
-        System.out.print("Enter email: ");
+        console.print("Enter email: ");
         String email = sc.nextLine().trim();
 
-        System.out.print("Enter password (min 6 characters): ");
+        console.print("Enter password (min 6 characters): ");
         String password = sc.nextLine();
 
         String studentId = studentManager.generateStudentId();
@@ -125,150 +334,212 @@ public class Main {
      * Authenticates student credentials and provides access to student dashboard.
      */
     static void studentLogin() {
-        System.out.println("\n========== STUDENT LOGIN ==========");
-        System.out.print("Enter email: ");
+        console.println("\n========== STUDENT LOGIN ==========");
+        console.print("Enter email: ");
         String email = sc.nextLine().trim();
 
-        System.out.print("Enter password: ");
+        console.print("Enter password: ");
         String password = sc.nextLine();
 
-        loggedInStudent = studentManager.login(email, password);
-        if (loggedInStudent != null) {
-            System.out.println("Success: Login successful! Welcome " + loggedInStudent.getName());
-            studentDashboard();
+        Student student = studentManager.login(email, password);
+        if (student != null) {
+            console.println("Success: Login successful! Welcome " + student.getName());
+            studentDashboard(sessionManager.openStudentSession(student));
         } else {
-            System.out.println("Error: Invalid email or password!");
+            console.println("Error: Invalid email or password!");
         }
     }
 
     /**
      * Student Dashboard - Main menu after successful login.
      * Provides options for course viewing, enrollment, profile management, and logout.
+     * Each choice is made on behalf of the session, which ends after it has been idle too long.
+     *
+     * @param token The student's session token
      */
-    static void studentDashboard() {
-        while (loggedInStudent != null) {
-            System.out.println("\n========== STUDENT DASHBOARD ==========");
-            System.out.println("Welcome, " + loggedInStudent.getName());
-            System.out.println("1. View Available Courses");
-            System.out.println("2. Enroll in Course");
-            System.out.println("3. View My Enrollments");
-            System.out.println("4. Update Profile");
-            System.out.println("5. Logout");
-            System.out.print("Choose an option: ");
+    static void studentDashboard(String token) {
+        Student student = sessionManager.getStudent(token);
+        while (student != null) {
+            checkpointIfDue();
+            console.println("\n========== STUDENT DASHBOARD ==========");
+            console.println("Welcome, " + student.getName());
+            for (String notice : notifications.take(student.getId())) {
+                console.println("Notice: " + notice);
+            }
+            console.println("1. View Available Courses");
+            console.println("2. Enroll in Course");
+            console.println("3. View My Enrollments");
+            console.println("4. Update Profile");
+            console.println("5. Search Courses");
+            console.println("6. Logout");
+            console.print("Choose an option: ");
 
             try {
                 int choice = sc.nextInt();
                 sc.nextLine();
 
+                student = sessionManager.getStudent(token);
+                if (student == null) {
+                    break;
+                }
+
                 switch (choice) {
                     case 1:
-                        courseManager.viewCourses();
+                        browse(cursor -> courseManager.viewCourses(cursor, PAGE_SIZE));
                         break;
                     case 2:
-                        enrollInCourse();
+                        enrollInCourse(student);
                         break;
                     case 3:
-                        registrationManager.viewStudentRegistrations(loggedInStudent.getId());
+                        registrationManager.viewStudentRegistrations(student.getId());
                         break;
                     case 4:
-                        updateStudentProfile();
+                        updateStudentProfile(student);
                         break;
                     case 5:
-                        loggedInStudent = null;
-                        System.out.println("Success: Logged out successfully!\n");
+                        searchCourses();
+                        break;
+                    case 6:
+                        sessionManager.logout(token);
+                        console.println("Success: Logged out successfully!\n");
                         return;
                     default:
-                        System.out.println("Error: Invalid choice! Please try again.\n");
+                        console.println("Error: Invalid choice! Please try again.\n");
                 }
             } catch (Exception e) {
-                System.out.println("Error: Please enter a valid number.\n");
+                console.println("Error: Please enter a valid number.\n");
                 sc.nextLine();
             }
         }
+        console.println("Error: Your session has expired. Please log in again.\n");
+    }
+
+    /**
+     * Searches courses by name, teacher or description and prints the best matches.
+     */
+    static void searchCourses() {
+        console.println("\n========== SEARCH COURSES ==========");
+        console.print("Enter search words (e.g. intro prog): ");
+        String query = sc.nextLine().trim();
+        if (query.isEmpty()) {
+            console.println("Error: Search cannot be empty!");
+            return;
+        }
+        courseManager.viewSearchResults(query, PAGE_SIZE);
     }
 
     /**
      * Handles course enrollment for the logged-in student.
      * Allows student to select and enroll in available courses.
+     *
+     * @param student The logged-in student
      */
-    static void enrollInCourse() {
-        System.out.println("\n========== ENROLL IN COURSE ==========");
-        courseManager.viewCourses();
-
-        System.out.print("Enter course ID to enroll: ");
-        String courseId = sc.nextLine().trim();
+    static void enrollInCourse(Student student) {
+        console.println("\n========== ENROLL IN COURSE ==========");
+        browse(cursor -> courseManager.viewCourses(cursor, PAGE_SIZE));
+
+        console.print("Enter course ID to enroll (separate several with commas): ");
+        List<String> courseIds = readIdList();
+        if (courseIds.size() > 1) {
+            List<String[]> pairs = new ArrayList<>(courseIds.size());
+            for (String courseId : courseIds) {
+                pairs.add(new String[] {student.getId(), courseId});
+            }
+            registrationManager.registerBatch(pairs);
+            return;
+        }
 
-        Course course = courseManager.getCourseById(courseId);
+        Course course = courseIds.isEmpty() ? null : courseManager.getCourseById(courseIds.get(0));
         if (course != null) {
-            registrationManager.registerStudentToCourse(loggedInStudent.getId(), courseId);
+            registrationManager.registerStudentToCourse(student.getId(), course.getId());
         } else {
-            System.out.println("Error: Course not found!");
+            console.println("Error: Course not found!");
         }
     }
 
     /**
      * Handles student profile updates.
      * Allows student to update name and email.
+     *
+     * @param student The logged-in student
      */
-    static void updateStudentProfile() {
-        System.out.println("\n========== UPDATE PROFILE ==========");
-        System.out.print("Enter new name: ");
+    static void updateStudentProfile(Student student) {
+        console.println("\n========== UPDATE PROFILE ==========");
+        console.print("Enter new name: ");
         String name = sc.nextLine().trim();
 
-        System.out.print("Enter new email: ");
+        console.print("Enter new email: ");
         String email = sc.nextLine().trim();
 
-        studentManager.updateStudent(loggedInStudent.getId(), name, email);
-        loggedInStudent = studentManager.getStudentById(loggedInStudent.getId());
+        studentManager.updateStudent(student.getId(), name, email);
     }
 
     // ==================== ADMIN PORTAL ====================
 
     /**
-     * Admin Portal - Authentication and login for admin users.
-     * Creates a default admin on first run.
+     * Creates the default admin on first run.
      */
-    static void adminPortal() {
-        // Initialize default admin on first run
+    static void ensureDefaultAdmin() {
         if (!adminManager.hasAdmin()) {
             adminManager.addAdmin(new Admin("A-001", "admin", "admin123"));
-            System.out.println("\n[System] Default admin created. Username: admin | Password: admin123\n");
+            console.println("\n[System] Default admin created. Username: admin | Password: admin123\n");
         }
+    }
 
-        System.out.println("\n========== ADMIN LOGIN ==========");
-        System.out.print("Enter admin username: ");
+    /**
+     * Admin Portal - Authentication and login for admin users.
+     * Creates a default admin on first run.
+     */
+    static void adminPortal() {
+        ensureDefaultAdmin();
+
+        console.println("\n========== ADMIN LOGIN ==========");
+        console.print("Enter admin username: ");
         String username = sc.nextLine().trim();
 
-        System.out.print("Enter admin password: ");
+        console.print("Enter admin password: ");
         String password = sc.nextLine();
 
-        loggedInAdmin = adminManager.loginAdmin(username, password);
-        if (loggedInAdmin != null) {
-            System.out.println("Success: Admin login successful!");
-            adminDashboard();
+        Admin admin = adminManager.loginAdmin(username, password);
+        if (admin != null) {
+            console.println("Success: Admin login successful!");
+            adminDashboard(sessionManager.openAdminSession(admin));
         } else {
-            System.out.println("Error: Invalid username or password!");
+            console.println("Error: Invalid username or password!");
         }
     }
 
     /**
      * Admin Dashboard - Main menu after successful admin login.
      * Provides options for managing courses, students, and registrations.
+     * Each choice is made on behalf of the session, which ends after it has been idle too long.
+     *
+     * @param token The admin's session token
      */
-    static void adminDashboard() {
-        while (loggedInAdmin != null) {
-            System.out.println("\n========== ADMIN DASHBOARD ==========");
-            System.out.println("Welcome Admin!");
-            System.out.println("1. Manage Courses");
-            System.out.println("2. Manage Students");
-            System.out.println("3. View All Registrations");
-            System.out.println("4. Logout");
-            System.out.print("Choose an option: ");
+    static void adminDashboard(String token) {
+        Admin admin = sessionManager.getAdmin(token);
+        while (admin != null) {
+            checkpointIfDue();
+            console.println("\n========== ADMIN DASHBOARD ==========");
+            console.println("Welcome Admin!");
+            console.println("1. Manage Courses");
+            console.println("2. Manage Students");
+            console.println("3. View All Registrations");
+            console.println("4. Bulk Import from CSV");
+            console.println("5. Enrollment Statistics");
+            console.println("6. View Metrics");
+            console.println("7. Logout");
+            console.print("Choose an option: ");
 
             try {
                 int choice = sc.nextInt();
                 sc.nextLine();
 
+                admin = sessionManager.getAdmin(token);
+                if (admin == null) {
+                    break;
+                }
+
                 switch (choice) {
                     case 1:
                         manageCourses();
@@ -277,20 +548,50 @@ public class Main {
                         manageStudents();
                         break;
                     case 3:
-                        registrationManager.viewRegistrations();
+                        browse(cursor -> registrationManager.viewRegistrations(cursor, PAGE_SIZE));
                         break;
                     case 4:
-                        loggedInAdmin = null;
-                        System.out.println("Success: Logged out successfully!\n");
+                        bulkImport();
+                        break;
+                    case 5:
+                        enrollmentStatistics();
+                        break;
+                    case 6:
+                        console.print(Metrics.dump());
+                        break;
+                    case 7:
+                        sessionManager.logout(token);
+                        console.println("Success: Logged out successfully!\n");
                         return;
                     default:
-                        System.out.println("Error: Invalid choice! Please try again.\n");
+                        console.println("Error: Invalid choice! Please try again.\n");
                 }
             } catch (Exception e) {
-                System.out.println("Error: Please enter a valid number.\n");
+                console.println("Error: Please enter a valid number.\n");
                 sc.nextLine();
             }
         }
+        console.println("Error: Your session has expired. Please log in again.\n");
+    }
+
+    /**
+     * Shows the fullest courses, then optionally one course's roster.
+     * Both come from the per-course counters and indexes, so they stay
+     * quick however many registrations exist.
+     */
+    static void enrollmentStatistics() {
+        registrationManager.viewTopCourses(TOP_COURSES);
+        console.print("Enter a course ID to see its roster (or press Enter to go back): ");
+        String courseId = sc.nextLine().trim();
+        if (courseId.isEmpty()) {
+            return;
+        }
+        Course course = courseManager.getCourseById(courseId);
+        if (course == null) {
+            console.println("Error: Course not found!");
+            return;
+        }
+        browse(cursor -> registrationManager.viewCourseRoster(course.getId(), cursor, PAGE_SIZE));
     }
 
     /**
@@ -299,13 +600,15 @@ public class Main {
      */
     static void manageCourses() {
         while (true) {
-            System.out.println("\n========== MANAGE COURSES ==========");
-            System.out.println("1. Add Course");
-            System.out.println("2. View All Courses");
-            System.out.println("3. Update Course");
-            System.out.println("4. Delete Course");
-            System.out.println("5. Back");
-            System.out.print("Choose an option: ");
+            console.println("\n========== MANAGE COURSES ==========");
+            console.println("1. Add Course");
+            console.println("2. View All Courses");
+            console.println("3. Update Course");
+            console.println("4. Delete Course");
+            console.println("5. Enroll Students in Bulk");
+            console.println("6. Check Schedule Conflicts");
+            console.println("7. Back");
+            console.print("Choose an option: ");
 
             try {
                 int choice = sc.nextInt();
@@ -316,7 +619,7 @@ public class Main {
                         addCourse();
                         break;
                     case 2:
-                        courseManager.viewCourses();
+                        browse(cursor -> courseManager.viewCourses(cursor, PAGE_SIZE));
                         break;
                     case 3:
                         updateCourse();
@@ -325,12 +628,18 @@ public class Main {
                         deleteCourse();
                         break;
                     case 5:
+                        enrollCohort();
+                        break;
+                    case 6:
+                        registrationManager.viewTermConflicts();
+                        break;
+                    case 7:
                         return;
                     default:
-                        System.out.println("Error: Invalid choice! Please try again.\n");
+                        console.println("Error: Invalid choice! Please try again.\n");
                 }
             } catch (Exception e) {
-                System.out.println("Error: Please enter a valid number.\n");
+                console.println("Error: Please enter a valid number.\n");
                 sc.nextLine();
             }
         }
@@ -341,22 +650,39 @@ public class Main {
      * Collects course information and creates a new course entry.
      */
     static void addCourse() {
-        System.out.println("\n========== ADD COURSE ==========");
+        console.println("\n========== ADD COURSE ==========");
         String courseId = courseManager.generateCourseId();
 
-        System.out.print("Enter course name: ");
+        console.print("Enter course name: ");
         String name = sc.nextLine().trim();
 
-        System.out.print("Enter teacher name: ");
+        console.print("Enter teacher name: ");
         String teacher = sc.nextLine().trim();
 
-        System.out.print("Enter duration (e.g., 3 months): ");
+        console.print("Enter duration (e.g., 3 months): ");
         String duration = sc.nextLine().trim();
 
-        System.out.print("Enter description: ");
+        console.print("Enter description: ");
         String description = sc.nextLine().trim();
 
-        Course course = new Course(courseId, name, teacher, duration, description);
+        console.print("Enter max seats (0 for unlimited): ");
+        int maxSeats = sc.nextInt();
+        sc.nextLine();
+
+        console.print("Enter meeting times (e.g., Mon 09:00-10:30, Wed 09:00-10:30; blank for none): ");
+        String times = sc.nextLine().trim();
+
+        console.print("Enter prerequisite course IDs (comma-separated, blank for none): ");
+        String prerequisites = sc.nextLine().trim();
+
+        Course course;
+        try {
+            course = new Course(courseId, name, teacher, duration, description, maxSeats,
+                    MeetingSlot.parseSchedule(times), Ids.split(prerequisites));
+        } catch (IllegalArgumentException e) {
+            console.println("Error: " + e.getMessage());
+            return;
+        }
         courseManager.addCourse(course);
     }
 
@@ -365,31 +691,55 @@ public class Main {
      * Allows admin to modify course information.
      */
     static void updateCourse() {
-        System.out.println("\n========== UPDATE COURSE ==========");
-        courseManager.viewCourses();
+        console.println("\n========== UPDATE COURSE ==========");
+        browse(cursor -> courseManager.viewCourses(cursor, PAGE_SIZE));
 
-        System.out.print("Enter course ID to update: ");
+        console.print("Enter course ID to update: ");
         String courseId = sc.nextLine().trim();
 
         Course course = courseManager.getCourseById(courseId);
         if (course == null) {
-            System.out.println("Error: Course not found!");
+            console.println("Error: Course not found!");
             return;
         }
 
-        System.out.print("Enter new course name: ");
+        console.print("Enter new course name: ");
         String name = sc.nextLine().trim();
 
-        System.out.print("Enter new teacher name: ");
+        console.print("Enter new teacher name: ");
         String teacher = sc.nextLine().trim();
 
-        System.out.print("Enter new duration: ");
+        console.print("Enter new duration: ");
         String duration = sc.nextLine().trim();
 
-        System.out.print("Enter new description: ");
+        console.print("Enter new description: ");
         String description = sc.nextLine().trim();
 
-        courseManager.updateCourse(courseId, name, teacher, duration, description);
+        console.print("Enter new meeting times (blank to keep, \"none\" to clear): ");
+        String times = sc.nextLine().trim();
+        List<MeetingSlot> schedule = null;
+        if (times.equalsIgnoreCase("none")) {
+            schedule = new ArrayList<>();
+        } else if (!times.isEmpty()) {
+            try {
+                schedule = MeetingSlot.parseSchedule(times);
+            } catch (IllegalArgumentException e) {
+                console.println("Error: " + e.getMessage());
+                return;
+            }
+        }
+
+        console.print("Enter new prerequisite course IDs (blank to keep, \"none\" to clear): ");
+        String prerequisites = sc.nextLine().trim();
+
+        List<String> prerequisiteIds = null;
+        if (prerequisites.equalsIgnoreCase("none")) {
+            prerequisiteIds = new ArrayList<>();
+        } else if (!prerequisites.isEmpty()) {
+            prerequisiteIds = Ids.split(prerequisites);
+        }
+
+        courseManager.updateCourse(courseId, name, teacher, duration, description, schedule, prerequisiteIds);
     }
 
     /**
@@ -397,10 +747,10 @@ public class Main {
      * Allows admin to remove a course by ID.
      */
     static void deleteCourse() {
-        System.out.println("\n========== DELETE COURSE ==========");
-        courseManager.viewCourses();
+        console.println("\n========== DELETE COURSE ==========");
+        browse(cursor -> courseManager.viewCourses(cursor, PAGE_SIZE));
 
-        System.out.print("Enter course ID to delete: ");
+        console.print("Enter course ID to delete: ");
         String courseId = sc.nextLine().trim();
 
         courseManager.removeCourse(courseId);
@@ -412,12 +762,13 @@ public class Main {
      */
     static void manageStudents() {
         while (true) {
-            System.out.println("\n========== MANAGE STUDENTS ==========");
-            System.out.println("1. View All Students");
-            System.out.println("2. Update Student");
-            System.out.println("3. Delete Student");
-            System.out.println("4. Back");
-            System.out.print("Choose an option: ");
+            console.println("\n========== MANAGE STUDENTS ==========");
+            console.println("1. View All Students");
+            console.println("2. Update Student");
+            console.println("3. Delete Student");
+            console.println("4. Delete Students in Bulk");
+            console.println("5. Back");
+            console.print("Choose an option: ");
 
             try {
                 int choice = sc.nextInt();
@@ -425,7 +776,7 @@ public class Main {
 
                 switch (choice) {
                     case 1:
-                        studentManager.viewAllStudents();
+                        browse(cursor -> studentManager.viewAllStudents(cursor, PAGE_SIZE));
                         break;
                     case 2:
                         updateStudent();
@@ -434,12 +785,15 @@ public class Main {
                         deleteStudent();
                         break;
                     case 4:
+                        deleteStudents();
+                        break;
+                    case 5:
                         return;
                     default:
-                        System.out.println("Error: Invalid choice! Please try again.\n");
+                        console.println("Error: Invalid choice! Please try again.\n");
                 }
             } catch (Exception e) {
-                System.out.println("Error: Please enter a valid number.\n");
+                console.println("Error: Please enter a valid number.\n");
                 sc.nextLine();
             }
         }
@@ -450,22 +804,22 @@ public class Main {
      * Allows admin to modify student name and email.
      */
     static void updateStudent() {
-        System.out.println("\n========== UPDATE STUDENT ==========");
-        studentManager.viewAllStudents();
+        console.println("\n========== UPDATE STUDENT ==========");
+        browse(cursor -> studentManager.viewAllStudents(cursor, PAGE_SIZE));
 
-        System.out.print("Enter student ID to update: ");
+        console.print("Enter student ID to update: ");
         String studentId = sc.nextLine().trim();
 
         Student student = studentManager.getStudentById(studentId);
         if (student == null) {
-            System.out.println("Error: Student not found!");
+            console.println("Error: Student not found!");
             return;
         }
 
-        System.out.print("Enter new name: ");
+        console.print("Enter new name: ");
         String name = sc.nextLine().trim();
 
-        System.out.print("Enter new email: ");
+        console.print("Enter new email: ");
         String email = sc.nextLine().trim();
 
         studentManager.updateStudent(studentId, name, email);
@@ -476,12 +830,112 @@ public class Main {
      * Allows admin to remove a student by ID.
      */
     static void deleteStudent() {
-        System.out.println("\n========== DELETE STUDENT ==========");
-        studentManager.viewAllStudents();
+        console.println("\n========== DELETE STUDENT ==========");
+        browse(cursor -> studentManager.viewAllStudents(cursor, PAGE_SIZE));
 
-        System.out.print("Enter student ID to delete: ");
+        console.print("Enter student ID to delete: ");
         String studentId = sc.nextLine().trim();
 
         studentManager.removeStudent(studentId);
+        sessionManager.endSessionsFor(studentId);
+    }
+
+    /**
+     * Deletes many students at once, such as a graduating cohort.
+     * Allows admin to enter a comma-separated list of student IDs.
+     */
+    static void deleteStudents() {
+        console.println("\n========== DELETE STUDENTS IN BULK ==========");
+        console.print("Enter student IDs separated by commas: ");
+        List<String> ids = readIdList();
+        if (ids.isEmpty()) {
+            console.println("Error: No student IDs entered!");
+            return;
+        }
+
+        for (Student s : studentManager.removeStudents(ids)) {
+            sessionManager.endSessionsFor(s.getId());
+        }
+    }
+
+    /**
+     * Enrolls a cohort of students into one course as a single batch.
+     * Unknown student IDs are reported and left out of the batch.
+     */
+    static void enrollCohort() {
+        console.println("\n========== ENROLL STUDENTS IN BULK ==========");
+        console.print("Enter course ID: ");
+        Course course = courseManager.getCourseById(sc.nextLine().trim());
+        if (course == null) {
+            console.println("Error: Course not found!");
+            return;
+        }
+        console.print("Enter student IDs separated by commas: ");
+        List<String[]> pairs = new ArrayList<>();
+        for (String studentId : readIdList()) {
+            if (studentManager.getStudentById(studentId) == null) {
+                console.println("Error: Student not found: " + studentId);
+            } else {
+                pairs.add(new String[] {studentId, course.getId()});
+            }
+        }
+        if (pairs.isEmpty()) {
+            console.println("Error: No students to enroll!");
+            return;
+        }
+        registrationManager.registerBatch(pairs);
+    }
+
+    /**
+     * Reads one line of comma-separated IDs, skipping blanks.
+     * @return The trimmed IDs in the order entered
+     */
+    static List<String> readIdList() {
+        List<String> ids = new ArrayList<>();
+        for (String id : sc.nextLine().split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Bulk-imports students, courses or registrations from a CSV file.
+     * Prints a summary and writes any rejected rows to a report file next to the input.
+     */
+    static void bulkImport() {
+        console.println("\n========== BULK IMPORT ==========");
+        console.println("1. Students (name,email,password)");
+        console.println("2. Courses (name,teacher,duration,description,maxSeats)");
+        console.println("3. Registrations (studentId,courseId)");
+        console.print("Choose what to import: ");
+        int choice = sc.nextInt();
+        sc.nextLine();
+        if (choice < 1 || choice > 3) {
+            console.println("Error: Invalid choice!");
+            return;
+        }
+
+        console.print("Enter CSV file path: ");
+        Path file = Paths.get(sc.nextLine().trim());
+        try (BulkImporter importer = new BulkImporter(studentManager, courseManager, registrationManager)) {
+            ImportReport report;
+            if (choice == 1) {
+                report = importer.importStudents(file);
+            } else if (choice == 2) {
+                report = importer.importCourses(file);
+            } else {
+                report = importer.importRegistrations(file);
+            }
+            console.println("Success: " + report);
+            if (!report.getRejected().isEmpty()) {
+                Path rejects = file.resolveSibling(file.getFileName() + ".rejected.csv");
+                report.writeRejected(rejects);
+                console.println("Rejected rows written to " + rejects);
+            }
+        } catch (IOException e) {
+            console.println("Error: Import failed (" + e.getMessage() + ").");
+        }
     }
-}
\ No newline at end of file
+}
@@ -40,7 +40,7 @@ public class Admin {
 
     /**
      * Gets the admin password.
-     * @return The admin password
+     * @return The stored password hash, or a legacy plaintext password not yet upgraded
      */
     public String getPassword() {
         return password;
@@ -1,13 +1,60 @@
 package admin;
 
-import java.util.ArrayList;
+import common.CredentialCache;
+import common.EntityStore;
+import common.Page;
+import common.PasswordHasher;
+import common.Result;
+import metrics.Metrics;
+import metrics.Operation;
+import output.Output;
+import persistence.Journal;
+import persistence.LogRecord;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.stream.Stream;
 
 /**
  * Manages all admin operations in the Course Registration System.
  * This class handles admin registration, authentication, and management.
+ * Admins are kept in an EntityStore in the order they were added and indexed
+ * by username, and passwords are stored as salted hashes with a small cache
+ * of recently verified logins. Every public operation is timed into the
+ * process-wide Metrics registry.
  */
 public class AdminManager {
-    private ArrayList<Admin> admins = new ArrayList<>();
+    private static final int LOGIN_CACHE_SIZE = 64;
+    private static final long LOGIN_CACHE_TTL_MILLIS = 15 * 60 * 1000L;
+
+    private static final Operation ADD = Metrics.operation("admin.addAdmin");
+    private static final Operation LOGIN = Metrics.operation("admin.loginAdmin");
+    private static final Operation LIST = Metrics.operation("admin.listAdmins");
+    private static final Operation GET_BY_ID = Metrics.operation("admin.getAdminById", Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation REMOVE = Metrics.operation("admin.removeAdmin");
+
+    private final EntityStore<Admin> admins = new EntityStore<>(Admin::getId);
+    private final HashMap<String, Admin> byName = new HashMap<>();
+    private final CredentialCache verifiedLogins = new CredentialCache(LOGIN_CACHE_SIZE, LOGIN_CACHE_TTL_MILLIS);
+    private volatile Journal journal = Journal.NONE;
+    private volatile Output output = Output.STDOUT;
+
+    /**
+     * Sets the journal that records every admin change.
+     * @param journal The journal to append to
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets where messages for the user are printed; Output.QUIET for callers
+     * that only read the returned Result.
+     * @param output The output to print to
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+    }
 
     /**
      * Checks if any admin exists in the system.
@@ -20,49 +67,138 @@ public class AdminManager {
     /**
      * Adds a new admin to the system.
      * Prevents duplicate admin usernames.
+     * The plaintext password on the admin is replaced by its hash.
      *
      * @param admin The admin object to add
+     * @return SUCCESS, or DUPLICATE for a taken name or ID
      */
-    public void addAdmin(Admin admin) {
-        for (Admin a : admins) {
-            if (a.getName().equals(admin.getName())) {
-                System.out.println("Error: Admin already exists!");
-                return;
+    public Result addAdmin(Admin admin) {
+        long start = ADD.start();
+        boolean ok = false;
+        try {
+            if (byName.containsKey(admin.getName()) || admins.get(admin.getId()) != null) {
+                output.println("Error: Admin already exists!");
+                return Result.DUPLICATE;
             }
+            admin.setPassword(PasswordHasher.hash(admin.getPassword()));
+            journalAdmin(admin);
+            admins.add(admin);
+            byName.put(admin.getName(), admin);
+            ok = true;
+            output.println("Success: Admin added successfully!");
+            return Result.SUCCESS;
+        } finally {
+            ADD.record(start, ok);
         }
-        admins.add(admin);
-        System.out.println("Success: Admin added successfully!");
+    }
+
+    /**
+     * Checks whether an admin's stored password predates hashing, in which
+     * case a successful login rehashes it and journals the admin.
+     *
+     * @param name The admin username
+     * @return true if the admin exists and has a plaintext password, false otherwise
+     */
+    public boolean hasLegacyPassword(String name) {
+        Admin a = name == null ? null : byName.get(name);
+        return a != null && !PasswordHasher.isHash(a.getPassword());
     }
 
     /**
      * Authenticates admin login credentials.
+     * A legacy plaintext password is upgraded to a hash on its first successful login.
      *
      * @param name The admin username
      * @param password The admin password
      * @return The Admin object if credentials are valid, null otherwise
      */
     public Admin loginAdmin(String name, String password) {
-        for (Admin a : admins) {
-            if (a.getName().equals(name) && a.getPassword().equals(password)) {
+        long start = LOGIN.start();
+        Admin result = null;
+        try {
+            Admin a = name == null ? null : byName.get(name);
+            if (a == null || password == null) {
+                return null;
+            }
+            String stored = a.getPassword();
+            if (verifiedLogins.matches(name, password, stored)) {
+                result = a;
                 return a;
             }
+            if (!PasswordHasher.verify(password, stored)) {
+                return null;
+            }
+            if (!PasswordHasher.isHash(stored)) {
+                String hash = PasswordHasher.hash(password);
+                journal.append(new LogRecord(LogRecord.Type.ADMIN_PUT, a.getId(), a.getName(), hash));
+                a.setPassword(hash);
+            }
+            verifiedLogins.put(name, password, a.getPassword());
+            result = a;
+            return a;
+        } finally {
+            LOGIN.record(start, result != null);
         }
-        return null;
     }
 
     /**
-     * Displays all admins in the system.
+     * Displays one page of admins.
+     * The header is printed with the first page and the footer with the last.
+     *
+     * @param afterId The cursor returned by the previous call, or null for the first page
+     * @param limit The maximum number of admins to print
+     * @return The cursor for the next page, or null if there are no more admins
      */
-    public void viewAllAdmins() {
-        if (admins.isEmpty()) {
-            System.out.println("Error: No admins found.");
-            return;
+    public String viewAllAdmins(String afterId, int limit) {
+        Page<Admin> page = listAdmins(afterId, limit);
+        if (!output.isEnabled()) {
+            return page.getNextCursor();
+        }
+        if (page.getItems().isEmpty()) {
+            if (afterId == null) {
+                output.println("Error: No admins found.");
+            }
+            return null;
         }
-        System.out.println("\n========== ALL ADMINS ==========");
-        for (Admin a : admins) {
-            System.out.println("ID: " + a.getId() + " | Name: " + a.getName());
+        if (afterId == null) {
+            output.println("\n========== ALL ADMINS ==========");
         }
-        System.out.println("================================\n");
+        for (Admin a : page.getItems()) {
+            output.println("ID: " + a.getId() + " | Name: " + a.getName());
+        }
+        if (!page.hasNext()) {
+            output.println("================================\n");
+        }
+        return page.getNextCursor();
+    }
+
+    /**
+     * Lists one page of admins in the order they were added.
+     * Admin IDs are chosen freely rather than issued in order, so the cursor
+     * is located through the store's ID index rather than by key order.
+     *
+     * @param afterId The cursor returned with the previous page, or null for the first page
+     * @param limit The maximum number of admins on the page
+     * @return The page of admins
+     */
+    public Page<Admin> listAdmins(String afterId, int limit) {
+        long start = LIST.start();
+        boolean ok = false;
+        try {
+            Page<Admin> page = Page.of(admins.after(afterId), limit, Admin::getId);
+            ok = true;
+            return page;
+        } finally {
+            LIST.record(start, ok);
+        }
+    }
+
+    /**
+     * Streams every admin in the order they were added, without copying the store.
+     * @return A lazy stream over the live admins
+     */
+    public Stream<Admin> streamAdmins() {
+        return admins.stream();
     }
 
     /**
@@ -72,27 +208,61 @@ public class AdminManager {
      * @return The Admin object if found, null otherwise
      */
     public Admin getAdminById(String id) {
-        for (Admin a : admins) {
-            if (a.getId().equals(id)) {
-                return a;
-            }
-        }
-        return null;
+        long start = GET_BY_ID.start();
+        Admin a = admins.get(id);
+        GET_BY_ID.record(start, a != null);
+        return a;
     }
 
     /**
      * Removes an admin from the system.
      *
      * @param id The admin ID to remove
+     * @return SUCCESS, or NOT_FOUND for an unknown admin
      */
-    public void removeAdmin(String id) {
-        for (Admin a : admins) {
-            if (a.getId().equals(id)) {
-                admins.remove(a);
-                System.out.println("Success: Admin removed successfully!");
-                return;
+    public Result removeAdmin(String id) {
+        long start = REMOVE.start();
+        Admin a = null;
+        try {
+            a = admins.get(id);
+            if (a == null) {
+                output.println("Error: Admin not found!");
+                return Result.NOT_FOUND;
             }
+            journal.append(new LogRecord(LogRecord.Type.ADMIN_DELETE, a.getId()));
+            admins.remove(id);
+            byName.remove(a.getName(), a);
+            verifiedLogins.invalidate(a.getName());
+            output.println("Success: Admin removed successfully!");
+            return Result.SUCCESS;
+        } finally {
+            REMOVE.record(start, a != null);
         }
-        System.out.println("Error: Admin not found!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves all admins in the order they were added.
+     * @return A read-only view of every admin
+     */
+    public Collection<Admin> getAllAdmins() {
+        return admins.values();
+    }
+
+    /**
+     * Restores a previously persisted admin without validation, output or journaling.
+     *
+     * @param admin The admin to restore
+     */
+    public void restoreAdmin(Admin admin) {
+        admins.add(admin);
+        byName.put(admin.getName(), admin);
+    }
+
+    /**
+     * Appends the full state of an admin to the journal.
+     * @param admin The added or updated admin
+     */
+    private void journalAdmin(Admin admin) {
+        journal.append(new LogRecord(LogRecord.Type.ADMIN_PUT, admin.getId(), admin.getName(), admin.getPassword()));
+    }
+}
@@ -0,0 +1,943 @@
+package api;
+
+import admin.Admin;
+import admin.AdminManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import common.Page;
+import common.Result;
+import course.Course;
+import course.CourseManager;
+import course.MeetingSlot;
+import registration.ConcurrentRegistrationService;
+import registration.EnrollmentCount;
+import registration.EnrollmentResult;
+import registration.Registration;
+import registration.RegistrationManager;
+import registration.ScheduleConflict;
+import session.Session;
+import session.SessionManager;
+import student.Student;
+import student.StudentManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local HTTP/JSON API over the managers, built on the JDK's HttpServer.
+ *
+ * Each request runs on its own virtual thread when the JVM supports them
+ * (Java 21+), and on a bounded platform thread pool otherwise. The student,
+ * course and admin stores are not thread-safe, so requests read them under
+ * a shared lock and change them under an exclusive one; enrollments go
+ * through ConcurrentRegistrationService and only need the shared lock.
+ * Fetching and listing courses takes no lock at all, since the course
+ * catalog publishes an immutable version for every change.
+ *
+ * Authenticated requests carry "Authorization: Bearer &lt;token&gt;" with a
+ * token from one of the login endpoints. All routes live under /api:
+ *
+ * POST   /api/login/student      {email, password}            -> token
+ * POST   /api/login/admin        {name, password}             -> token
+ * POST   /api/logout
+ * GET    /api/courses?after=&amp;limit=                       -> page of courses
+ * GET    /api/courses?q=&amp;limit=                           -> best matches for a text search
+ * GET    /api/courses?sort=enrollment&amp;limit=   admin       -> fullest courses with their counts
+ * GET    /api/courses/{id}
+ * POST   /api/courses            admin {name, teacher, duration, description, maxSeats, schedule, prerequisites}
+ * PUT    /api/courses/{id}       admin {name, teacher, duration, description, schedule, prerequisites}
+ *                                 (fields other than name may be omitted to keep them)
+ * DELETE /api/courses/{id}       admin
+ * POST   /api/students           {name, email, password}      -> sign up
+ * GET    /api/students?after=&amp;limit=   admin
+ * GET    /api/students/{id}      admin or the student
+ * PUT    /api/students/{id}      admin or the student {name, email}
+ * DELETE /api/students/{id}      admin
+ * GET    /api/enrollments        the student's enrollments, or a page of all for an admin
+ * GET    /api/enrollments?courseId=&amp;after=&amp;limit=   admin -> page of one course's roster
+ * POST   /api/enrollments        {courseId} (admins also pass studentId)
+ * POST   /api/enrollments/batch  {courseIds} (admins also pass studentIds) -> one result per pair
+ * GET    /api/enrollments/conflicts   admin                  -> every clash of meeting times
+ * DELETE /api/enrollments/{id}   admin or the enrolled student; 409 while a course that requires it is held
+ *
+ * A schedule is text such as "Mon 09:00-10:30, Wed 09:00-10:30".
+ * Prerequisites are comma-separated course IDs; enrolling requires holding all of them.
+ */
+public class ApiServer implements AutoCloseable {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int FALLBACK_THREADS = 256;
+    private static final int BACKLOG = 16_384;
+    private static final int MAX_IDLE_CONNECTIONS = 65_536;
+
+    private static final Logger LOG = Logger.getLogger(ApiServer.class.getName());
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final RegistrationManager registrationManager;
+    private final AdminManager adminManager;
+    private final ConcurrentRegistrationService enrollments;
+    private final SessionManager sessions;
+    private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Signals a request that cannot be completed, with the HTTP status to report.
+     */
+    static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A status code and JSON body.
+     */
+    private static final class Response {
+        private final int status;
+        private final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Constructor to create a new ApiServer. Call start to begin serving.
+     *
+     * @param address The address to bind, such as 127.0.0.1:8080 (port 0 picks a free port)
+     * @param studentManager The student store
+     * @param courseManager The course store
+     * @param registrationManager The registration store
+     * @param adminManager The admin store
+     * @param sessions The session manager that issues and resolves tokens
+     * @throws IOException If the address cannot be bound
+     */
+    public ApiServer(InetSocketAddress address, StudentManager studentManager, CourseManager courseManager,
+                     RegistrationManager registrationManager, AdminManager adminManager,
+                     SessionManager sessions) throws IOException {
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.registrationManager = registrationManager;
+        this.adminManager = adminManager;
+        this.enrollments = new ConcurrentRegistrationService(registrationManager);
+        this.sessions = sessions;
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+            Thread t = new Thread(r, "api-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        // Responses go out as a header write and a body write; without TCP_NODELAY the
+        // second waits on the client's delayed ACK. The JDK server also closes keep-alive
+        // connections beyond 200 idle ones, which turns every request into a reconnect
+        // under many clients. Both settings are read once, when the server class loads.
+        setDefaultProperty("sun.net.httpserver.nodelay", "true");
+        setDefaultProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+        this.server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the bound port.
+     * @return The port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Describes how requests are executed.
+     * @return "virtual threads" or the size of the fallback pool
+     */
+    public String getExecutorDescription() {
+        return virtualThreads ? "virtual threads" : FALLBACK_THREADS + " platform threads";
+    }
+
+    /**
+     * Gets the lock that guards the student, course and admin stores.
+     * Course lookups by ID and listings do not take it; the course catalog
+     * publishes immutable versions for them.
+     * Hold the write lock to change those stores or checkpoint from outside the server.
+     *
+     * @return The store lock
+     */
+    public ReadWriteLock getStoreLock() {
+        return storeLock;
+    }
+
+    /**
+     * Stops the server, giving in-flight requests a moment to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets a system property unless the user has already set it.
+     *
+     * @param name The property name
+     * @param value The default value
+     */
+    private static void setDefaultProperty(String name, String value) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, value);
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the running JVM provides one.
+     * Looked up reflectively so the code still compiles and runs on Java 11 and 17.
+     *
+     * @return The executor, or null on JVMs without virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    // ==================== DISPATCH ====================
+
+    /**
+     * Handles one HTTP exchange: routes it, then writes the JSON response.
+     *
+     * @param exchange The exchange
+     * @throws IOException If the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            response = route(exchange);
+        } catch (ApiException e) {
+            response = new Response(e.status, Json.object().put("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            response = new Response(400, Json.object().put("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            // The details stay in the server log; clients learn nothing about the internals
+            LOG.log(Level.SEVERE, "Failed to handle " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI().getRawPath(), e);
+            response = new Response(500, Json.object().put("error", "Internal error"));
+        }
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (response.body == null) {
+                exchange.sendResponseHeaders(response.status, -1);
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            Json.write(sb, response.body);
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Dispatches a request to its endpoint.
+     *
+     * @param exchange The exchange
+     * @return The response
+     * @throws IOException If the request body cannot be read
+     */
+    private Response route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        // getPath has already decoded the segments; decoding them again would misread '%' and '+'
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        String resource = path[0];
+        String id = path.length > 1 ? path[1] : null;
+        if (path.length > 2) {
+            throw new ApiException(404, "Not found");
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        switch (resource) {
+            case "login":
+                requireMethod(method, "POST");
+                if ("student".equals(id)) {
+                    return loginStudent(readBody(exchange));
+                }
+                if ("admin".equals(id)) {
+                    return loginAdmin(readBody(exchange));
+                }
+                break;
+            case "logout":
+                requireMethod(method, "POST");
+                sessions.logout(bearerToken(exchange));
+                return new Response(204, null);
+            case "courses":
+                if (id == null) {
+                    if (method.equals("GET") && "enrollment".equals(query.get("sort"))) {
+                        requireAdmin(exchange);
+                        return topCourses(query);
+                    }
+                    if (method.equals("GET")) {
+                        return listCourses(query);
+                    }
+                    requireMethod(method, "POST");
+                    requireAdmin(exchange);
+                    return addCourse(readBody(exchange));
+                }
+                switch (method) {
+                    case "GET":
+                        return getCourse(id);
+                    case "PUT":
+                        requireAdmin(exchange);
+                        return updateCourse(id, readBody(exchange));
+                    case "DELETE":
+                        requireAdmin(exchange);
+                        return removeCourse(id);
+                    default:
+                        throw new ApiException(405, "Method not allowed");
+                }
+            case "students":
+                if (id == null) {
+                    if (method.equals("POST")) {
+                        return registerStudent(readBody(exchange));
+                    }
+                    requireMethod(method, "GET");
+                    requireAdmin(exchange);
+                    return listStudents(query);
+                }
+                switch (method) {
+                    case "GET":
+                        requireSelfOrAdmin(exchange, id);
+                        return getStudent(id);
+                    case "PUT":
+                        requireSelfOrAdmin(exchange, id);
+                        return updateStudent(id, readBody(exchange));
+                    case "DELETE":
+                        requireAdmin(exchange);
+                        return removeStudent(id);
+                    default:
+                        throw new ApiException(405, "Method not allowed");
+                }
+            case "enrollments":
+                Session session = requireSession(exchange);
+                if (id == null) {
+                    if (method.equals("GET")) {
+                        return listEnrollments(session, query);
+                    }
+                    requireMethod(method, "POST");
+                    return enroll(session, readBody(exchange));
+                }
+                if ("batch".equals(id)) {
+                    requireMethod(method, "POST");
+                    return enrollBatch(session, readBody(exchange));
+                }
+                if ("conflicts".equals(id)) {
+                    requireMethod(method, "GET");
+                    requireAdmin(exchange);
+                    return termConflicts();
+                }
+                requireMethod(method, "DELETE");
+                return drop(session, id);
+            default:
+                break;
+        }
+        throw new ApiException(404, "Not found");
+    }
+
+    // ==================== AUTH ====================
+
+    private Response loginStudent(Map<String, String> body) {
+        String email = body.get("email");
+        Student student;
+        Lock lock = storeLock.readLock();
+        lock.lock();
+        try {
+            if (studentManager.hasLegacyPassword(email)) {
+                // Upgrading a plaintext password changes the student and journals it
+                lock.unlock();
+                lock = storeLock.writeLock();
+                lock.lock();
+            }
+            student = studentManager.login(email, body.get("password"));
+        } finally {
+            lock.unlock();
+        }
+        if (student == null) {
+            throw new ApiException(401, "Invalid email or password");
+        }
+        return new Response(200, Json.object()
+                .put("token", sessions.openStudentSession(student))
+                .put("student", studentJson(student)));
+    }
+
+    private Response loginAdmin(Map<String, String> body) {
+        String name = body.get("name");
+        Admin admin;
+        Lock lock = storeLock.readLock();
+        lock.lock();
+        try {
+            if (adminManager.hasLegacyPassword(name)) {
+                // Upgrading a plaintext password changes the admin and journals it
+                lock.unlock();
+                lock = storeLock.writeLock();
+                lock.lock();
+            }
+            admin = adminManager.loginAdmin(name, body.get("password"));
+        } finally {
+            lock.unlock();
+        }
+        if (admin == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        return new Response(200, Json.object()
+                .put("token", sessions.openAdminSession(admin))
+                .put("adminId", admin.getId()));
+    }
+
+    // ==================== COURSES ====================
+
+    private Response listCourses(Map<String, String> query) {
+        String text = query.get("q");
+        if (text != null) {
+            storeLock.readLock().lock();
+            try {
+                List<Object> items = new ArrayList<>();
+                for (Course c : courseManager.searchCourses(text, pageSize(query))) {
+                    items.add(courseJson(c));
+                }
+                return new Response(200, Json.object().put("items", items).put("next", null));
+            } finally {
+                storeLock.readLock().unlock();
+            }
+        }
+        // Pages come from an immutable catalog version, so browsing never waits for course edits
+        Page<Course> page = courseManager.listCourses(query.get("after"), pageSize(query));
+        List<Object> items = new ArrayList<>(page.getItems().size());
+        for (Course c : page.getItems()) {
+            items.add(courseJson(c));
+        }
+        return new Response(200, Json.object().put("items", items).put("next", page.getNextCursor()));
+    }
+
+    private Response topCourses(Map<String, String> query) {
+        List<Object> items = new ArrayList<>();
+        for (EnrollmentCount c : registrationManager.getTopCoursesByEnrollment(pageSize(query))) {
+            items.add(Json.object().put("courseId", c.getCourseId()).put("enrolled", c.getCount()));
+        }
+        return new Response(200, Json.object().put("items", items).put("next", null));
+    }
+
+    private Response getCourse(String id) {
+        return new Response(200, courseJson(requireCourse(id)));
+    }
+
+    private Response addCourse(Map<String, String> body) {
+        String name = requireField(body, "name");
+        int maxSeats = intField(body, "maxSeats", 0);
+        if (maxSeats < 0) {
+            throw new ApiException(400, "Seat limit cannot be negative");
+        }
+        List<MeetingSlot> schedule = scheduleField(body);
+        storeLock.writeLock().lock();
+        try {
+            List<String> prerequisites = prerequisitesField(body);
+            Course course = new Course(courseManager.generateCourseId(), name, body.get("teacher"),
+                    body.get("duration"), body.get("description"), maxSeats,
+                    schedule == null ? Collections.emptyList() : schedule,
+                    prerequisites == null ? Collections.emptyList() : prerequisites);
+            requireSaved(courseManager.addCourse(course), "Course already exists");
+            return new Response(201, courseJson(course));
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private Response updateCourse(String id, Map<String, String> body) {
+        String name = requireField(body, "name");
+        List<MeetingSlot> schedule = scheduleField(body);
+        storeLock.writeLock().lock();
+        try {
+            Course course = requireCourse(id);
+            List<String> prerequisites = prerequisitesField(body);
+            if (prerequisites != null) {
+                String cycle = courseManager.findPrerequisiteCycle(course.getId(), prerequisites);
+                if (cycle != null) {
+                    throw new ApiException(409, cycle.equals(course.getId())
+                            ? "A course cannot be its own prerequisite"
+                            : "Course " + cycle + " already requires " + course.getId());
+                }
+            }
+            // Omitted fields keep their current values, as schedule and prerequisites do
+            Result result = courseManager.updateCourse(course.getId(), name,
+                    body.getOrDefault("teacher", course.getTeacher()),
+                    body.getOrDefault("duration", course.getDuration()),
+                    body.getOrDefault("description", course.getDescription()), schedule, prerequisites);
+            requireSaved(result, "Course with this name already exists");
+            // The edit published a new copy of the course
+            return new Response(200, courseJson(courseManager.getCourseById(course.getId())));
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private Response removeCourse(String id) {
+        storeLock.writeLock().lock();
+        try {
+            if (courseManager.removeCourse(id) == Result.NOT_FOUND) {
+                throw new ApiException(404, "Course not found");
+            }
+            return new Response(204, null);
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    // ==================== STUDENTS ====================
+
+    private Response registerStudent(Map<String, String> body) {
+        String name = requireField(body, "name");
+        String email = requireField(body, "email");
+        String password = requireField(body, "password");
+        if (!StudentManager.isValidEmail(email)) {
+            throw new ApiException(400, "Invalid email format");
+        }
+        if (!StudentManager.isValidPassword(password)) {
+            throw new ApiException(400, "Password must be at least 6 characters long");
+        }
+        storeLock.writeLock().lock();
+        try {
+            Student student = new Student(studentManager.generateStudentId(), name, email, password);
+            if (studentManager.registerStudent(student) == Result.DUPLICATE) {
+                throw new ApiException(409, "Student with this email already exists");
+            }
+            return new Response(201, studentJson(student));
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private Response listStudents(Map<String, String> query) {
+        storeLock.readLock().lock();
+        try {
+            Page<Student> page = studentManager.listStudents(query.get("after"), pageSize(query));
+            List<Object> items = new ArrayList<>(page.getItems().size());
+            for (Student s : page.getItems()) {
+                items.add(studentJson(s));
+            }
+            return new Response(200, Json.object().put("items", items).put("next", page.getNextCursor()));
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private Response getStudent(String id) {
+        storeLock.readLock().lock();
+        try {
+            return new Response(200, studentJson(requireStudent(id)));
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private Response updateStudent(String id, Map<String, String> body) {
+        String name = requireField(body, "name");
+        String email = requireField(body, "email");
+        if (!StudentManager.isValidEmail(email)) {
+            throw new ApiException(400, "Invalid email format");
+        }
+        storeLock.writeLock().lock();
+        try {
+            Student student = requireStudent(id);
+            if (studentManager.updateStudent(id, name, email) == Result.DUPLICATE) {
+                throw new ApiException(409, "Email already in use");
+            }
+            return new Response(200, studentJson(student));
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private Response removeStudent(String id) {
+        storeLock.writeLock().lock();
+        try {
+            if (studentManager.removeStudent(id) == Result.NOT_FOUND) {
+                throw new ApiException(404, "Student not found");
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+        sessions.endSessionsFor(id);
+        return new Response(204, null);
+    }
+
+    // ==================== ENROLLMENTS ====================
+
+    private Response listEnrollments(Session session, Map<String, String> query) {
+        List<Object> items = new ArrayList<>();
+        if (session.getRole() == Session.Role.STUDENT) {
+            for (Registration r : registrationManager.getStudentRegistrations(session.getPrincipalId())) {
+                items.add(registrationJson(r));
+            }
+            return new Response(200, Json.object().put("items", items).put("next", null));
+        }
+        String courseId = query.get("courseId");
+        Page<Registration> page = courseId != null
+                ? registrationManager.listCourseRoster(courseId, query.get("after"), pageSize(query))
+                : registrationManager.listRegistrations(query.get("after"), pageSize(query));
+        for (Registration r : page.getItems()) {
+            items.add(registrationJson(r));
+        }
+        return new Response(200, Json.object().put("items", items).put("next", page.getNextCursor()));
+    }
+
+    private Response enroll(Session session, Map<String, String> body) {
+        String courseId = requireField(body, "courseId");
+        String studentId = session.getRole() == Session.Role.STUDENT
+                ? session.getPrincipalId() : requireField(body, "studentId");
+        storeLock.readLock().lock();
+        try {
+            requireStudent(studentId);
+            EnrollmentResult result = enrollments.enroll(studentId, courseId);
+            switch (result.getStatus()) {
+                case ENROLLED:
+                    return new Response(201, registrationJson(result.getRegistration()));
+                case WAITLISTED:
+                    return new Response(202, Json.object().put("waitlisted", true)
+                            .put("courseId", result.getCourseId()));
+                case COURSE_NOT_FOUND:
+                    throw new ApiException(404, "Course not found");
+                case MISSING_PREREQUISITES:
+                    // The status is the verdict; the list only adds detail
+                    List<String> missing = enrollments.findMissingPrerequisites(studentId, result.getCourseId());
+                    throw new ApiException(409, missing.isEmpty() ? result.getStatus().getMessage()
+                            : "Missing prerequisites: " + String.join(", ", missing));
+                case SCHEDULE_CONFLICT:
+                    String clash = enrollments.findScheduleConflict(studentId, result.getCourseId());
+                    throw new ApiException(409, clash == null ? result.getStatus().getMessage()
+                            : "Meeting times clash with course " + clash);
+                default:
+                    throw new ApiException(409, result.getStatus().getMessage());
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private Response enrollBatch(Session session, Map<String, String> body) {
+        List<String> courseIds = idList(requireField(body, "courseIds"));
+        List<String> studentIds = session.getRole() == Session.Role.STUDENT
+                ? List.of(session.getPrincipalId()) : idList(requireField(body, "studentIds"));
+        if ((long) courseIds.size() * studentIds.size() > MAX_BATCH_SIZE) {
+            throw new ApiException(400, "A batch may hold at most " + MAX_BATCH_SIZE + " enrollments");
+        }
+        storeLock.readLock().lock();
+        try {
+            for (String studentId : studentIds) {
+                requireStudent(studentId);
+            }
+            List<String[]> pairs = new ArrayList<>(courseIds.size() * studentIds.size());
+            for (String courseId : courseIds) {
+                // Known courses go in under their canonical ID so they map to the right lock stripe
+                Course course = courseManager.getCourseById(courseId);
+                String resolved = course == null ? courseId : course.getId();
+                for (String studentId : studentIds) {
+                    pairs.add(new String[] {studentId, resolved});
+                }
+            }
+            List<Object> items = new ArrayList<>(pairs.size());
+            for (EnrollmentResult result : enrollments.enrollAll(pairs)) {
+                Registration r = result.getRegistration();
+                items.add(Json.object()
+                        .put("studentId", result.getStudentId())
+                        .put("courseId", result.getCourseId())
+                        .put("status", result.getStatus().name())
+                        .put("registrationId", r == null ? null : r.getId()));
+            }
+            return new Response(200, Json.object().put("items", items));
+        } finally {
+            storeLock.readLock().unlock();
+        }
+    }
+
+    private Response termConflicts() {
+        List<Object> items = new ArrayList<>();
+        storeLock.readLock().lock();
+        try {
+            for (ScheduleConflict c : registrationManager.findTermConflicts()) {
+                items.add(Json.object()
+                        .put("studentId", c.getStudentId())
+                        .put("courseId", c.getCourseId())
+                        .put("otherCourseId", c.getOtherCourseId())
+                        .put("slot", c.getSlot().toString()));
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        return new Response(200, Json.object().put("items", items));
+    }
+
+    private Response drop(Session session, String registrationId) {
+        Registration r = registrationManager.getRegistrationById(registrationId);
+        if (r == null || (session.getRole() == Session.Role.STUDENT
+                && !r.getStudentId().equals(session.getPrincipalId()))) {
+            throw new ApiException(404, "Registration not found");
+        }
+        storeLock.readLock().lock();
+        try {
+            Result result = enrollments.drop(registrationId);
+            if (result == Result.NOT_FOUND) {
+                throw new ApiException(404, "Registration not found");
+            }
+            if (result == Result.HAS_DEPENDENTS) {
+                List<String> dependents = new ArrayList<>();
+                for (Registration d : registrationManager.findDependentRegistrations(r.getStudentId(),
+                        r.getCourseId())) {
+                    dependents.add(d.getId() + " (" + d.getCourseId() + ")");
+                }
+                throw new ApiException(409, "Drop the registrations that require this course first: "
+                        + String.join(", ", dependents));
+            }
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        return new Response(204, null);
+    }
+
+    // ==================== HELPERS ====================
+
+    private Session requireSession(HttpExchange exchange) {
+        Session session = sessions.resolve(bearerToken(exchange));
+        if (session == null) {
+            throw new ApiException(401, "Login required");
+        }
+        return session;
+    }
+
+    private void requireAdmin(HttpExchange exchange) {
+        if (requireSession(exchange).getRole() != Session.Role.ADMIN) {
+            throw new ApiException(403, "Admin access required");
+        }
+    }
+
+    private void requireSelfOrAdmin(HttpExchange exchange, String studentId) {
+        Session session = requireSession(exchange);
+        if (session.getRole() != Session.Role.ADMIN && !session.getPrincipalId().equals(studentId)) {
+            throw new ApiException(403, "Access denied");
+        }
+    }
+
+    private Course requireCourse(String id) {
+        Course course = courseManager.getCourseById(id);
+        if (course == null) {
+            throw new ApiException(404, "Course not found");
+        }
+        return course;
+    }
+
+    /**
+     * Turns a course change the catalog rejected into an error response.
+     * The handlers check what they can first, for better messages; this
+     * covers anything CourseManager rejects that they did not foresee.
+     *
+     * @param result The outcome of the change
+     * @param duplicateMessage The message for a taken name
+     * @throws ApiException If the change was not made
+     */
+    private static void requireSaved(Result result, String duplicateMessage) {
+        switch (result) {
+            case SUCCESS:
+                return;
+            case DUPLICATE:
+                throw new ApiException(409, duplicateMessage);
+            case CONFLICT:
+                throw new ApiException(409, "Prerequisites would form a cycle");
+            case NOT_FOUND:
+                throw new ApiException(404, "Course or prerequisite not found");
+            default:
+                throw new ApiException(400, "Invalid course");
+        }
+    }
+
+    private Student requireStudent(String id) {
+        Student student = studentManager.getStudentById(id);
+        if (student == null) {
+            throw new ApiException(404, "Student not found");
+        }
+        return student;
+    }
+
+    private static void requireMethod(String actual, String expected) {
+        if (!actual.equals(expected)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static String requireField(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new ApiException(400, "Missing field: " + name);
+        }
+        return value.trim();
+    }
+
+    private static int intField(Map<String, String> body, String name, int defaultValue) {
+        String value = body.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Field " + name + " must be a whole number");
+        }
+    }
+
+    private static List<MeetingSlot> scheduleField(Map<String, String> body) {
+        String value = body.get("schedule");
+        if (value == null) {
+            return null;
+        }
+        try {
+            return MeetingSlot.parseSchedule(value);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+    }
+
+    private List<String> prerequisitesField(Map<String, String> body) {
+        String value = body.get("prerequisites");
+        if (value == null) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>();
+        for (String id : idList(value)) {
+            Course prerequisite = courseManager.getCourseById(id);
+            if (prerequisite == null) {
+                throw new ApiException(400, "Prerequisite course not found: " + id);
+            }
+            ids.add(prerequisite.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> idList(String value) {
+        List<String> ids = new ArrayList<>();
+        for (String id : value.split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    private static int pageSize(Map<String, String> query) {
+        int limit = intField(query, "limit", DEFAULT_PAGE_SIZE);
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ApiException(400, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return header.substring("Bearer ".length()).trim();
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return text.trim().isEmpty() ? new HashMap<>() : Json.parseObject(text);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Json.Obj courseJson(Course c) {
+        return Json.object()
+                .put("id", c.getId())
+                .put("name", c.getName())
+                .put("teacher", c.getTeacher())
+                .put("duration", c.getDuration())
+                .put("description", c.getDescription())
+                .put("maxSeats", c.getMaxSeats())
+                .put("seatsTaken", c.getSeatsTaken())
+                .put("schedule", MeetingSlot.formatSchedule(c.getSchedule()))
+                .put("prerequisites", c.getPrerequisites());
+    }
+
+    private static Json.Obj studentJson(Student s) {
+        return Json.object()
+                .put("id", s.getId())
+                .put("name", s.getName())
+                .put("email", s.getEmail());
+    }
+
+    private static Json.Obj registrationJson(Registration r) {
+        return Json.object()
+                .put("id", r.getId())
+                .put("studentId", r.getStudentId())
+                .put("courseId", r.getCourseId())
+                .put("date", r.getDate().toString());
+    }
+}
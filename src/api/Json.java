@@ -0,0 +1,266 @@
+package api;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the HTTP API.
+ * Writes objects, arrays, strings, numbers, booleans and null, and parses
+ * the flat request bodies the API accepts: a single object whose values are
+ * strings, numbers, booleans or null.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Builds one JSON object, preserving insertion order.
+     */
+    static final class Obj {
+        private final LinkedHashMap<String, Object> fields = new LinkedHashMap<>();
+
+        /**
+         * Adds a field.
+         *
+         * @param name The field name
+         * @param value A String, Number, Boolean, Obj, Collection or null
+         * @return This object, for chaining
+         */
+        Obj put(String name, Object value) {
+            fields.put(name, value);
+            return this;
+        }
+
+        /**
+         * Serializes the object.
+         * @return The JSON text
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            write(sb, this);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Creates an empty object builder.
+     * @return A new Obj
+     */
+    static Obj object() {
+        return new Obj();
+    }
+
+    /**
+     * Appends a value as JSON.
+     *
+     * @param sb The output
+     * @param value A String, Number, Boolean, Obj, Collection or null
+     */
+    static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            writeString(sb, (String) value);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Obj) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> e : ((Obj) value).fields.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                writeString(sb, e.getKey());
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            boolean first = true;
+            for (Object item : (Collection<?>) value) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                write(sb, item);
+            }
+            sb.append(']');
+        } else {
+            writeString(sb, value.toString());
+        }
+    }
+
+    /**
+     * Appends a quoted, escaped string.
+     *
+     * @param sb The output
+     * @param s The string
+     */
+    private static void writeString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Parses a flat JSON object.
+     * Numbers and booleans are returned as their text; null becomes a Java null.
+     *
+     * @param text The JSON text
+     * @return The fields by name
+     * @throws IllegalArgumentException If the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, String> fields = new LinkedHashMap<>();
+        p.skipWhitespace();
+        p.expect('{');
+        p.skipWhitespace();
+        if (p.peek() == '}') {
+            p.pos++;
+        } else {
+            while (true) {
+                p.skipWhitespace();
+                String name = p.readString();
+                p.skipWhitespace();
+                p.expect(':');
+                p.skipWhitespace();
+                fields.put(name, p.readScalar());
+                p.skipWhitespace();
+                if (p.peek() == ',') {
+                    p.pos++;
+                } else {
+                    p.expect('}');
+                    break;
+                }
+            }
+        }
+        p.skipWhitespace();
+        if (p.pos != text.length()) {
+            throw new IllegalArgumentException("Unexpected content after JSON object");
+        }
+        return fields;
+    }
+
+    /**
+     * Cursor over JSON text.
+     */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(pos);
+        }
+
+        void expect(char c) {
+            if (peek() != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at position " + pos);
+            }
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = peek();
+                pos++;
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = peek();
+                pos++;
+                switch (e) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Bad unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(e);
+                }
+            }
+        }
+
+        String readScalar() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String token = text.substring(start, pos);
+            if (token.isEmpty() || c == '{' || c == '[') {
+                throw new IllegalArgumentException("Expected a string, number, boolean or null at position " + start);
+            }
+            return token.equals("null") ? null : token;
+        }
+    }
+}
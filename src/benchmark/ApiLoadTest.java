@@ -0,0 +1,350 @@
+package benchmark;
+
+import admin.Admin;
+import admin.AdminManager;
+import api.ApiServer;
+import common.Ids;
+import course.Course;
+import course.CourseManager;
+import registration.RegistrationManager;
+import session.SessionManager;
+import student.Student;
+import student.StudentManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop latency test for the HTTP API.
+ *
+ * Each simulated client keeps exactly one request in flight: it sends the
+ * next request as soon as the previous response arrives. Most requests read
+ * a course page or a single course; every fifth request enrolls the client's
+ * student in a random course. Latency is measured per request from send to
+ * the end of the response body and reported as percentiles.
+ *
+ * Without a URL the test starts an in-process server seeded with courses and
+ * one logged-in student per client. Against a running server (--url) only the
+ * read requests are sent; --listen starts just the seeded server for that. At
+ * 10k clients, run the two in separate JVMs so each side needs only one file
+ * descriptor per client (ulimit -n must still exceed the client count).
+ *
+ * Run with: java -Xmx2g -cp out benchmark.ApiLoadTest
+ *           [--clients 10000] [--requests 20] [--courses 1000]
+ *           [--url http://127.0.0.1:8080 | --listen 8080]
+ */
+public class ApiLoadTest {
+    private static final PrintStream REPORT = System.out;
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Optional flags; see the class comment
+     * @throws Exception If the in-process server cannot start or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        int clients = 10_000;
+        int requestsPerClient = 20;
+        int courseCount = 1_000;
+        String url = null;
+        int listenPort = -1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--clients":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "--requests":
+                    requestsPerClient = Integer.parseInt(value);
+                    break;
+                case "--courses":
+                    courseCount = Integer.parseInt(value);
+                    break;
+                case "--url":
+                    url = value;
+                    break;
+                case "--listen":
+                    listenPort = Integer.parseInt(value);
+                    break;
+                default:
+                    REPORT.println("Error: Unknown option " + args[i]);
+                    return;
+            }
+        }
+
+        // The managers print to the console; keep the report readable
+        System.setOut(DISCARD);
+        ApiServer server = null;
+        String[] tokens = null;
+        String[] courseIds = new String[courseCount];
+        for (int i = 0; i < courseCount; i++) {
+            courseIds[i] = "C-" + (1001 + i);
+        }
+        if (listenPort >= 0) {
+            server = startServer(listenPort, clients, courseIds, new SessionManager(), new String[clients]);
+            REPORT.println("Serving seeded data on http://127.0.0.1:" + server.getPort() + " using "
+                    + server.getExecutorDescription() + "; close stdin to stop");
+            while (System.in.read() >= 0) {
+                // Serve until stdin closes
+            }
+            server.close();
+            return;
+        }
+        if (url == null) {
+            SessionManager sessions = new SessionManager();
+            tokens = new String[clients];
+            server = startServer(0, clients, courseIds, sessions, tokens);
+            url = "http://127.0.0.1:" + server.getPort();
+            REPORT.println("Started in-process server on " + url + " using " + server.getExecutorDescription());
+        }
+
+        try {
+            run(url, clients, requestsPerClient, courseIds, tokens);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Starts a server seeded with the given courses and one student session per client.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @param clients The number of clients
+     * @param courseIds The course IDs to create
+     * @param sessions The session manager for the server
+     * @param tokens Receives one session token per client
+     * @return The started server
+     * @throws IOException If the server cannot bind
+     */
+    private static ApiServer startServer(int port, int clients, String[] courseIds, SessionManager sessions,
+                                         String[] tokens) throws IOException {
+        StudentManager students = new StudentManager();
+        CourseManager courses = new CourseManager();
+        RegistrationManager registrations = new RegistrationManager(courses);
+        AdminManager admins = new AdminManager();
+        admins.restoreAdmin(new Admin("A-001", "admin", "admin123"));
+        for (int i = 0; i < courseIds.length; i++) {
+            courses.restoreCourse(new Course(courseIds[i], "Course " + i, "Teacher " + (i % 50),
+                    "12 weeks", "Load test course", 200));
+        }
+        for (int i = 0; i < clients; i++) {
+            Student s = new Student(Ids.format("S-2025-", i + 1, 3), "Client " + i,
+                    "client" + i + "@uni.edu", "secret" + i);
+            students.restoreStudent(s);
+            tokens[i] = sessions.openStudentSession(s);
+        }
+        ApiServer server = new ApiServer(new InetSocketAddress("127.0.0.1", port), students, courses,
+                registrations, admins, sessions);
+        server.start();
+        return server;
+    }
+
+    /**
+     * One simulated client: a keep-alive connection with at most one request in flight.
+     */
+    private static final class Client {
+        private final String token;
+        private final SocketChannel channel;
+        private ByteBuffer out;
+        private final ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        private int remaining;
+        private long sentAt;
+
+        Client(String token, SocketChannel channel, int remaining) {
+            this.token = token;
+            this.channel = channel;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Drives every client to completion and prints the latency report.
+     * A single selector thread runs all the connections, so the load
+     * generator adds little latency of its own even with 10k clients.
+     *
+     * @param url The server base URL
+     * @param clients The number of concurrent clients
+     * @param requestsPerClient The number of requests each client sends
+     * @param courseIds The course IDs to read and enroll in
+     * @param tokens One session token per client, or null to send only reads
+     * @throws IOException If the selector cannot be opened
+     */
+    private static void run(String url, int clients, int requestsPerClient, String[] courseIds, String[] tokens)
+            throws IOException {
+        URI base = URI.create(url);
+        InetSocketAddress address = new InetSocketAddress(base.getHost(), base.getPort());
+        String host = base.getHost() + ":" + base.getPort();
+        long[] latencies = new long[clients * requestsPerClient];
+        int recorded = 0;
+        int errors = 0;
+        int active = 0;
+
+        long begin = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            for (int c = 0; c < clients; c++) {
+                try {
+                    SocketChannel channel = SocketChannel.open();
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    Client client = new Client(tokens == null ? null : tokens[c], channel, requestsPerClient);
+                    channel.connect(address);
+                    channel.register(selector, SelectionKey.OP_CONNECT, client);
+                    active++;
+                } catch (IOException e) {
+                    errors += requestsPerClient;
+                }
+            }
+
+            while (active > 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            client.channel.finishConnect();
+                            send(key, client, host, courseIds);
+                        } else if (key.isWritable()) {
+                            client.channel.write(client.out);
+                            if (!client.out.hasRemaining()) {
+                                key.interestOps(SelectionKey.OP_READ);
+                            }
+                        } else if (key.isReadable()) {
+                            if (client.channel.read(client.in) < 0) {
+                                throw new IOException("Connection closed by server");
+                            }
+                            int status = completeResponse(client.in);
+                            if (status == 0) {
+                                continue;
+                            }
+                            latencies[recorded++] = System.nanoTime() - client.sentAt;
+                            if (status >= 500) {
+                                errors++;
+                            }
+                            if (--client.remaining == 0) {
+                                key.cancel();
+                                client.channel.close();
+                                active--;
+                            } else {
+                                send(key, client, host, courseIds);
+                            }
+                        }
+                    } catch (IOException e) {
+                        errors += client.remaining;
+                        key.cancel();
+                        client.channel.close();
+                        active--;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        REPORT.println(String.format("%-10s %10s %8s %12s %10s %10s %10s %10s",
+                "Clients", "Requests", "Errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        REPORT.println(String.format("%-10d %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f",
+                clients, recorded, errors, recorded * 1e9 / elapsed,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                recorded == 0 ? 0 : sorted[recorded - 1] / 1e6));
+    }
+
+    /**
+     * Starts the client's next request and records when it was sent.
+     *
+     * @param key The client's selection key
+     * @param client The client
+     * @param host The Host header value
+     * @param courseIds The course IDs to choose from
+     * @throws IOException If the request cannot be written
+     */
+    private static void send(SelectionKey key, Client client, String host, String[] courseIds) throws IOException {
+        client.out = ByteBuffer.wrap(nextRequest(host, client.token, courseIds, client.remaining)
+                .getBytes(StandardCharsets.US_ASCII));
+        client.in.clear();
+        client.sentAt = System.nanoTime();
+        client.channel.write(client.out);
+        key.interestOps(client.out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    /**
+     * Checks whether the buffer holds a complete response.
+     * The server always sends Content-Length, or no body at all for 204.
+     *
+     * @param in The bytes read so far, in write mode
+     * @return The status code, or 0 if more bytes are needed
+     */
+    private static int completeResponse(ByteBuffer in) {
+        String head = new String(in.array(), 0, in.position(), StandardCharsets.US_ASCII);
+        int headerEnd = head.indexOf("\r\n\r\n");
+        if (headerEnd < 0) {
+            return 0;
+        }
+        int length = 0;
+        int at = head.toLowerCase(Locale.ROOT).indexOf("content-length:");
+        if (at >= 0 && at < headerEnd) {
+            length = Integer.parseInt(head.substring(at + "content-length:".length(),
+                    head.indexOf("\r\n", at)).trim());
+        }
+        if (in.position() < headerEnd + 4 + length) {
+            return 0;
+        }
+        return Integer.parseInt(head.substring(9, 12));
+    }
+
+    /**
+     * Builds the next request for a client.
+     *
+     * @param host The Host header value
+     * @param token The client's session token, or null for anonymous reads
+     * @param courseIds The course IDs to choose from
+     * @param remaining The client's remaining request count, used to spread the mix
+     * @return The raw HTTP/1.1 request
+     */
+    private static String nextRequest(String host, String token, String[] courseIds, int remaining) {
+        String courseId = courseIds[ThreadLocalRandom.current().nextInt(courseIds.length)];
+        if (token != null && remaining % 5 == 0) {
+            String body = "{\"courseId\":\"" + courseId + "\"}";
+            return "POST /api/enrollments HTTP/1.1\r\nHost: " + host
+                    + "\r\nAuthorization: Bearer " + token
+                    + "\r\nContent-Type: application/json\r\nContent-Length: " + body.length()
+                    + "\r\n\r\n" + body;
+        }
+        String path = remaining % 2 == 0 ? "/api/courses?limit=20&after=" + courseId : "/api/courses/" + courseId;
+        return "GET " + path + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n";
+    }
+
+    /**
+     * Reads a percentile from sorted nanosecond latencies.
+     *
+     * @param sorted The latencies in ascending order
+     * @param fraction The percentile as a fraction, such as 0.99
+     * @return The latency in milliseconds
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,130 @@
+package benchmark;
+
+import course.Course;
+import course.CourseManager;
+import output.Output;
+import registration.ConcurrentRegistrationService;
+import registration.EnrollmentResult;
+import registration.Registration;
+import registration.RegistrationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Contention stress test for course seat reservation.
+ * Thousands of students race for a handful of seats through the lock-free
+ * manager path and through the striped service; the run fails if a course is
+ * ever oversold or if freed seats are not handed out in waitlist order.
+ *
+ * Run with: java -cp out benchmark.SeatContentionStressTest
+ */
+public class SeatContentionStressTest {
+    private static final int THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int STUDENTS = 10_000;
+    private static final int SEATS = 100;
+    private static final int ROUNDS = 20;
+
+    /**
+     * Runs the stress test.
+     *
+     * @param args Command line arguments (not used)
+     * @throws Exception If a worker thread fails
+     */
+    public static void main(String[] args) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 1; round <= ROUNDS; round++) {
+                runRound(pool, round, false);
+                runRound(pool, round, true);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.println("Success: " + ROUNDS + " rounds passed with " + THREADS + " threads.");
+    }
+
+    /**
+     * Runs one race for the seats of a single course.
+     *
+     * @param pool The worker pool
+     * @param round The round number, used in output only
+     * @param striped true to enroll through ConcurrentRegistrationService, false to call the manager directly
+     * @throws Exception If a worker thread fails
+     */
+    private static void runRound(ExecutorService pool, int round, boolean striped) throws Exception {
+        CourseManager courseManager = new CourseManager();
+        RegistrationManager registrationManager = new RegistrationManager(courseManager);
+        // Only the round checks and the final verdict are printed
+        courseManager.setOutput(Output.QUIET);
+        registrationManager.setOutput(Output.QUIET);
+        ConcurrentRegistrationService service = new ConcurrentRegistrationService(registrationManager);
+        Course course = new Course("C-1", "Stress", "Teacher", "1 month", "Seat race", SEATS);
+        courseManager.addCourse(course);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int worker = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                int won = 0;
+                for (int i = worker; i < STUDENTS; i += THREADS) {
+                    String studentId = "S-" + i;
+                    EnrollmentResult result = striped
+                            ? service.enroll(studentId, course.getId())
+                            : registrationManager.enroll(studentId, course.getId());
+                    if (result.isEnrolled()) {
+                        won++;
+                    }
+                }
+                return won;
+            }));
+        }
+        start.countDown();
+
+        int won = 0;
+        for (Future<Integer> f : results) {
+            won += f.get();
+        }
+        String mode = striped ? "striped" : "lock-free";
+        check(won == SEATS, mode + " round " + round + ": " + won + " enrollments for " + SEATS + " seats");
+        check(course.getSeatsTaken() == SEATS, mode + " round " + round + ": seat counter is " + course.getSeatsTaken());
+        check(registrationManager.getCourseRegistrations(course.getId()).size() == SEATS,
+                mode + " round " + round + ": roster size mismatch");
+        check(registrationManager.getEnrollmentCount(course.getId()) == SEATS,
+                mode + " round " + round + ": enrollment counter is " + registrationManager.getEnrollmentCount(course.getId()));
+
+        List<String> waitlist = registrationManager.getWaitlist(course.getId());
+        check(waitlist.size() == STUDENTS - SEATS, mode + " round " + round + ": waitlist has " + waitlist.size());
+
+        // Free ten seats and verify they go to the first ten waiting students
+        List<Registration> roster = new ArrayList<>(registrationManager.getCourseRegistrations(course.getId()));
+        for (int i = 0; i < 10; i++) {
+            service.drop(roster.get(i).getId());
+        }
+        for (int i = 0; i < 10; i++) {
+            check(registrationManager.isEnrolled(waitlist.get(i), course.getId()),
+                    mode + " round " + round + ": waitlist promotion out of order");
+        }
+        check(course.getSeatsTaken() == SEATS, mode + " round " + round + ": seats lost during promotion");
+        check(registrationManager.getEnrollmentCount(course.getId()) == SEATS,
+                mode + " round " + round + ": enrollment counter drifted during promotion");
+    }
+
+    /**
+     * Fails the run with a message if a condition does not hold.
+     *
+     * @param condition The condition to check
+     * @param message The failure message
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Error: " + message);
+        }
+    }
+}
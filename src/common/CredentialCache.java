@@ -0,0 +1,146 @@
+package common;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of recently verified logins.
+ *
+ * After a password has passed the full PBKDF2 check, the cache remembers
+ * an HMAC of it under a random per-process key, so a repeat login with the
+ * same password costs one HMAC instead of thousands of hash iterations.
+ * Entries are tied to the stored credential they were verified against, so
+ * a password change invalidates them, and they expire after a fixed time.
+ * The least recently used entry is evicted when the cache is full.
+ * The cache is safe to share between threads.
+ */
+public class CredentialCache {
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * One verified login.
+     */
+    private static final class Entry {
+        private final String stored;
+        private final byte[] digest;
+        private final long expiresAt;
+
+        Entry(String stored, byte[] digest, long expiresAt) {
+            this.stored = stored;
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final long ttlNanos;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Constructor to create a new CredentialCache.
+     *
+     * @param capacity The maximum number of cached logins
+     * @param ttlMillis How long a verified login stays cached
+     */
+    public CredentialCache(int capacity, long ttlMillis) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CredentialCache.Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Checks a password against a cached verification.
+     *
+     * @param account The normalized account key, such as a lowercase email
+     * @param password The plaintext password being presented
+     * @param stored The account's current stored credential
+     * @return true if the same password was recently verified against the same credential
+     */
+    public boolean matches(String account, String password, String stored) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(account);
+            if (entry == null) {
+                return false;
+            }
+            if (!entry.stored.equals(stored) || System.nanoTime() - entry.expiresAt > 0) {
+                entries.remove(account);
+                return false;
+            }
+        }
+        return MessageDigest.isEqual(entry.digest, digest(password));
+    }
+
+    /**
+     * Records a successful full verification.
+     *
+     * @param account The normalized account key
+     * @param password The verified plaintext password
+     * @param stored The credential it was verified against
+     */
+    public void put(String account, String password, String stored) {
+        Entry entry = new Entry(stored, digest(password), System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(account, entry);
+        }
+    }
+
+    /**
+     * Forgets any cached login for an account.
+     * @param account The normalized account key
+     */
+    public void invalidate(String account) {
+        synchronized (entries) {
+            entries.remove(account);
+        }
+    }
+
+    /**
+     * Gets the number of cached logins, including any not yet found to be expired.
+     * @return The entry count
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Computes the keyed digest of a password.
+     *
+     * @param password The plaintext password
+     * @return The HMAC bytes
+     */
+    private byte[] digest(String password) {
+        return macs.get().doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a MAC initialized with this cache's key.
+     * @return A ready MAC instance
+     */
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package common;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Slot-based entity storage with constant-time lookup and deletion.
+ *
+ * Entities live in an array of slots, in insertion order or, when an order
+ * is given, in key order. A hash index maps each key to its slot. Removing
+ * an entity only clears its slot, leaving a tombstone, so no search and no
+ * array shift is needed. Once tombstones outnumber live entities the slots
+ * are compacted in one pass; spread over the removals that caused it, each
+ * removal stays O(1).
+ *
+ * A tombstone keeps its key until compaction, so a keyset cursor that names
+ * a just-deleted entity still finds its place. Not thread-safe; the owning
+ * manager serializes access.
+ *
+ * StudentManager and AdminManager keep their entities here. Courses used to
+ * as well, but CourseCatalog now publishes immutable CatalogSnapshot
+ * versions that readers use without a lock. A store that changes its slots
+ * in place cannot be shared between versions, so courses have left it.
+ *
+ * @param <T> The type of the stored entities
+ */
+public class EntityStore<T> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+    private final Function<T, String> keyOf;
+    private final Comparator<String> order;
+    private final HashMap<String, Integer> slotOf = new HashMap<>();
+    private Object[] slots = new Object[INITIAL_CAPACITY];
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int end;
+    private int live;
+    private int generation;
+
+    /**
+     * Constructor to create a store that keeps entities in insertion order.
+     *
+     * @param keyOf Extracts the unique key of an entity
+     */
+    public EntityStore(Function<T, String> keyOf) {
+        this(keyOf, null);
+    }
+
+    /**
+     * Constructor to create a store that keeps entities sorted by key.
+     * Keys that arrive in order are appended; an out-of-order key is
+     * inserted at its position, which shifts the later slots.
+     *
+     * @param keyOf Extracts the unique key of an entity
+     * @param order The key order, or null for insertion order
+     */
+    public EntityStore(Function<T, String> keyOf, Comparator<String> order) {
+        this.keyOf = keyOf;
+        this.order = order;
+    }
+
+    /**
+     * Adds an entity.
+     *
+     * @param entity The entity to add
+     * @throws IllegalArgumentException If an entity with the same key is already stored
+     */
+    public void add(T entity) {
+        String key = keyOf.apply(entity);
+        if (slotOf.containsKey(key)) {
+            throw new IllegalArgumentException("Duplicate key: " + key);
+        }
+        if (order != null && end > 0 && order.compare(key, keys[end - 1]) < 0) {
+            insertSorted(key, entity);
+            return;
+        }
+        ensureCapacity(end + 1);
+        slots[end] = entity;
+        keys[end] = key;
+        slotOf.put(key, end);
+        end++;
+        live++;
+    }
+
+    /**
+     * Finds an entity by key.
+     *
+     * @param key The entity key
+     * @return The entity, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String key) {
+        Integer slot = key == null ? null : slotOf.get(key);
+        return slot == null ? null : (T) slots[slot];
+    }
+
+    /**
+     * Removes an entity by key, leaving a tombstone in its slot.
+     *
+     * @param key The entity key
+     * @return The removed entity, or null if not found
+     */
+    public T remove(String key) {
+        T removed = clear(key);
+        if (removed != null) {
+            compactIfSparse();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes many entities at once. Missing keys are ignored.
+     *
+     * @param keysToRemove The keys of the entities to remove
+     * @return The removed entities, in the order their keys were given
+     */
+    public List<T> removeAll(Collection<String> keysToRemove) {
+        List<T> removed = new ArrayList<>();
+        for (String key : keysToRemove) {
+            T entity = clear(key);
+            if (entity != null) {
+                removed.add(entity);
+            }
+        }
+        compactIfSparse();
+        return removed;
+    }
+
+    /**
+     * Squeezes out every tombstone, keeping the remaining entities in order.
+     * Invalidates iterators that were open at the time.
+     */
+    public void compact() {
+        if (live == end) {
+            return;
+        }
+        int to = 0;
+        for (int from = 0; from < end; from++) {
+            if (slots[from] != null) {
+                if (to != from) {
+                    slots[to] = slots[from];
+                    keys[to] = keys[from];
+                    slotOf.put(keys[to], to);
+                }
+                to++;
+            }
+        }
+        Arrays.fill(slots, to, end, null);
+        Arrays.fill(keys, to, end, null);
+        end = to;
+        generation++;
+        if (slots.length > INITIAL_CAPACITY && end < slots.length / 4) {
+            int capacity = Math.max(INITIAL_CAPACITY, end * 2);
+            slots = Arrays.copyOf(slots, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+    }
+
+    /**
+     * Gets the number of stored entities.
+     * @return The live entity count
+     */
+    public int size() {
+        return live;
+    }
+
+    /**
+     * Checks whether the store is empty.
+     * @return true if no entities are stored, false otherwise
+     */
+    public boolean isEmpty() {
+        return live == 0;
+    }
+
+    /**
+     * Gets the number of slots held by removed entities, awaiting compaction.
+     * @return The tombstone count
+     */
+    public int tombstones() {
+        return end - live;
+    }
+
+    /**
+     * Returns every entity in store order.
+     * @return A read-only live view; its iterators fail if the store is compacted
+     */
+    public Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return iteratorFrom(0);
+            }
+
+            @Override
+            public int size() {
+                return live;
+            }
+        };
+    }
+
+    /**
+     * Streams every entity in store order without copying.
+     * @return A lazy stream over the live entities
+     */
+    public Stream<T> stream() {
+        return values().stream();
+    }
+
+    /**
+     * Iterates the entities that follow a key, in store order.
+     * With a key order the position is found by binary search and the key
+     * need not be stored; in insertion order an unknown key yields nothing.
+     *
+     * @param afterKey The key to start after, or null to start at the first entity
+     * @return An iterator over the remaining entities
+     */
+    public Iterator<T> after(String afterKey) {
+        if (afterKey == null) {
+            return iteratorFrom(0);
+        }
+        if (order != null) {
+            return iteratorFrom(upperBound(afterKey));
+        }
+        Integer slot = slotOf.get(afterKey);
+        if (slot == null) {
+            slot = tombstoneSlot(afterKey);
+        }
+        return iteratorFrom(slot == null ? end : slot + 1);
+    }
+
+    /**
+     * Clears the slot of an entity without compacting.
+     *
+     * @param key The entity key
+     * @return The removed entity, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    private T clear(String key) {
+        Integer slot = key == null ? null : slotOf.remove(key);
+        if (slot == null) {
+            return null;
+        }
+        T entity = (T) slots[slot];
+        slots[slot] = null;
+        live--;
+        return entity;
+    }
+
+    /**
+     * Compacts once tombstones outnumber live entities.
+     */
+    private void compactIfSparse() {
+        int dead = end - live;
+        if (dead >= MIN_TOMBSTONES_TO_COMPACT && dead > live) {
+            compact();
+        }
+    }
+
+    /**
+     * Inserts an entity at its key position, shifting later slots up by one.
+     *
+     * @param key The entity key
+     * @param entity The entity
+     */
+    private void insertSorted(String key, T entity) {
+        compact();
+        int at = upperBound(key);
+        ensureCapacity(end + 1);
+        System.arraycopy(slots, at, slots, at + 1, end - at);
+        System.arraycopy(keys, at, keys, at + 1, end - at);
+        slots[at] = entity;
+        keys[at] = key;
+        end++;
+        live++;
+        for (int i = at; i < end; i++) {
+            slotOf.put(keys[i], i);
+        }
+        generation++;
+    }
+
+    /**
+     * Finds the first slot whose key sorts after the given one.
+     * Tombstones keep their keys, so the slot keys stay sorted.
+     *
+     * @param key The key to search past
+     * @return The slot index, or end if every key sorts at or before it
+     */
+    private int upperBound(String key) {
+        int low = 0;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(keys[mid], key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the tombstone left by a removed key, for insertion-ordered cursors.
+     *
+     * @param key The removed key
+     * @return The slot, or null if the key has been compacted away or never existed
+     */
+    private Integer tombstoneSlot(String key) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (slots[i] == null && key.equals(keys[i])) {
+                return i;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Grows the slot arrays to hold at least the given number of slots.
+     * @param capacity The required capacity
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > slots.length) {
+            int grown = Math.max(capacity, slots.length * 2);
+            slots = Arrays.copyOf(slots, grown);
+            keys = Arrays.copyOf(keys, grown);
+        }
+    }
+
+    /**
+     * Iterates live entities from a slot onward, skipping tombstones.
+     *
+     * @param start The first slot to visit
+     * @return The iterator
+     */
+    private Iterator<T> iteratorFrom(int start) {
+        int expected = generation;
+        return new Iterator<T>() {
+            private int next = advance(start);
+
+            private int advance(int from) {
+                while (from < end && slots[from] == null) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                checkGeneration();
+                // The entity found last time may have been removed since
+                next = advance(next);
+                return next < end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T entity = (T) slots[next];
+                next = advance(next + 1);
+                return entity;
+            }
+
+            private void checkGeneration() {
+                if (generation != expected) {
+                    throw new ConcurrentModificationException("Entity store was compacted during iteration");
+                }
+            }
+        };
+    }
+}
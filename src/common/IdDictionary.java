@@ -0,0 +1,72 @@
+package common;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps textual entity IDs to dense int ordinals and back.
+ * Ordinals are assigned in first-seen order starting at 0 and are never
+ * reused, so indexes can key on small ints instead of Strings.
+ * Lookups are lock-free; assigning a new ordinal takes a short lock.
+ */
+public class IdDictionary {
+    private final ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile String[] ids = new String[64];
+    private int size = 0;
+
+    /**
+     * Gets the ordinal for an ID, assigning the next one if the ID is new.
+     *
+     * @param id The textual ID
+     * @return The ordinal
+     */
+    public int encode(String id) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (this) {
+            ordinal = ordinals.get(id);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            String[] current = ids;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = id;
+            ids = current;
+            ordinals.put(id, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Gets the ordinal for an ID without assigning one.
+     *
+     * @param id The textual ID
+     * @return The ordinal, or -1 if the ID has never been encoded
+     */
+    public int lookup(String id) {
+        Integer ordinal = id == null ? null : ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Gets the textual ID for an ordinal.
+     *
+     * @param ordinal An ordinal returned by encode
+     * @return The textual ID
+     */
+    public String decode(int ordinal) {
+        return ids[ordinal];
+    }
+
+    /**
+     * Gets the number of distinct IDs encoded so far.
+     * @return The dictionary size
+     */
+    public int size() {
+        return ordinals.size();
+    }
+}
@@ -0,0 +1,97 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Formatting and parsing for the textual entity IDs (S-2025-001, C-1001, R-0001).
+ * IDs are handled as ints internally; these helpers convert at the display
+ * and API boundary without going through String.format.
+ */
+public final class Ids {
+
+    /**
+     * Orders IDs by their numeric suffix, then textually, so "C-999" sorts before "C-1000".
+     * IDs without a numeric suffix sort first.
+     */
+    public static final Comparator<String> ORDER =
+            Comparator.comparingInt(Ids::number).thenComparing(Comparator.naturalOrder());
+
+    private Ids() {
+    }
+
+    /**
+     * Formats a number with a prefix, zero-padded to a minimum width.
+     * Equivalent to String.format(prefix + "%0" + minDigits + "d", value) for non-negative values.
+     *
+     * @param prefix The text before the number, such as "R-"
+     * @param value The non-negative number
+     * @param minDigits The minimum number of digits
+     * @return The formatted ID
+     */
+    public static String format(String prefix, int value, int minDigits) {
+        if (value < 0) {
+            throw new IllegalArgumentException("ID number must not be negative: " + value);
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int width = Math.max(digits, minDigits);
+        char[] chars = new char[prefix.length() + width];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        int pos = chars.length;
+        int v = value;
+        for (int i = 0; i < width; i++) {
+            chars[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Parses the number after the last dash of an ID.
+     *
+     * @param id The ID, such as "S-2025-007"
+     * @return The number (7 in the example), or -1 if the ID has no numeric suffix
+     */
+    public static int number(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int start = id.lastIndexOf('-') + 1;
+        if (start >= id.length() || id.length() - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Splits a comma-separated list of IDs, trimming each and skipping blanks.
+     *
+     * @param text The list, such as "C-1001, C-1002"; null or blank means none
+     * @return The IDs in order
+     */
+    public static List<String> split(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> ids = new ArrayList<>();
+        for (String id : text.split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+}
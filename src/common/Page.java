@@ -0,0 +1,79 @@
+package common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ * The cursor is the ID of the last item on the page; passing it back as
+ * the "after" argument of the same listing returns the next page. Because
+ * pages are located by key rather than by offset, records added or removed
+ * between calls never cause items to be skipped or repeated.
+ *
+ * @param <T> The type of the listed entities
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * Constructor to create a new Page.
+     *
+     * @param items The items on this page
+     * @param nextCursor The cursor for the next page, or null if this is the last page
+     */
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Reads at most limit items from an iterator already positioned after the cursor.
+     * One extra item is peeked to tell whether another page follows; nothing
+     * beyond that is touched.
+     *
+     * @param source The remaining items in listing order
+     * @param limit The maximum number of items on the page
+     * @param idOf Extracts the cursor ID from an item
+     * @param <T> The type of the listed entities
+     * @return The page
+     */
+    public static <T> Page<T> of(Iterator<T> source, int limit, Function<T, String> idOf) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 256));
+        while (items.size() < limit && source.hasNext()) {
+            items.add(source.next());
+        }
+        String next = !items.isEmpty() && source.hasNext() ? idOf.apply(items.get(items.size() - 1)) : null;
+        return new Page<>(items, next);
+    }
+
+    /**
+     * Gets the items on this page.
+     * @return A read-only list of items in listing order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor for the next page.
+     * @return The ID of the last item, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether another page follows.
+     * @return true if getNextCursor is not null
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,27 @@
+package common;
+
+/**
+ * The outcome of a manager operation that changes data, returned so callers
+ * can act on it without parsing the printed message.
+ * DUPLICATE means the change would repeat an existing entity, name or email;
+ * INVALID that the input failed validation; CONFLICT that the change clashes
+ * with other data, such as a prerequisite cycle; HAS_DEPENDENTS that other
+ * data still relies on what would be removed, such as a registration for a
+ * course that requires the one being dropped.
+ */
+public enum Result {
+    SUCCESS,
+    NOT_FOUND,
+    DUPLICATE,
+    INVALID,
+    CONFLICT,
+    HAS_DEPENDENTS;
+
+    /**
+     * Checks whether the change was made.
+     * @return true for SUCCESS, false otherwise
+     */
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
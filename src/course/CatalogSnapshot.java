@@ -0,0 +1,891 @@
+package course;
+
+import common.Ids;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * One immutable version of the course catalog.
+ *
+ * A lookup by ID walks a persistent hash trie from lowercase ID to course,
+ * a few array reads deep for any catalog size. For listing and paging, the
+ * courses are also kept in ID order in leaves of at most LEAF_SIZE courses,
+ * each holding the courses' lowercase IDs and their numeric suffixes
+ * alongside them; resuming after an ID binary-searches the leaves by their
+ * first key and then the leaf.
+ *
+ * Nothing in a snapshot ever changes once it is built. An edit produces a
+ * new version that copies only the trie nodes on the course's path, the
+ * leaf it touches and the array of leaf references, sharing every other
+ * node and leaf with the version before. CourseCatalog
+ * publishes each version through a volatile field: readers pick up the
+ * current version and then work on it without locks, and an iteration or a
+ * page always reflects a single version.
+ */
+public final class CatalogSnapshot {
+    static final int LEAF_SIZE = 256;
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, new Leaf[0], new int[0], 0, Index.EMPTY);
+
+    private final long version;
+    private final Leaf[] leaves;
+    // The numeric suffix of each leaf's first key, so finding a leaf reads one flat array
+    private final int[] firstNumbers;
+    private final int size;
+    private final Index index;
+
+    /**
+     * A persistent hash trie from lowercase ID to course. Each node spends
+     * five bits of a key's hash to pick one of 32 branches, and a pair of
+     * bitmaps says which branches hold a course and which a child node, with
+     * the present ones packed into a single array. Adding or removing a
+     * course copies only the nodes on its path, at most seven and in practice
+     * four for a million courses, and shares every other node with the
+     * version before. Keys whose hashes agree in every bit share a node below
+     * the last level, which is searched in turn.
+     */
+    private static final class Index {
+        static final Index EMPTY = new Index(0, 0, new Object[0]);
+        private static final int BITS = 5;
+
+        // Which of the 32 branches hold a course and which a child node
+        private final int dataMap;
+        private final int nodeMap;
+        // A key and course pair per course branch, then a node per child branch, each in branch order
+        private final Object[] slots;
+
+        /**
+         * Constructor to create an Index node.
+         *
+         * @param dataMap The branches holding a course
+         * @param nodeMap The branches holding a child node
+         * @param slots The key and course pairs, then the child nodes
+         */
+        private Index(int dataMap, int nodeMap, Object[] slots) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.slots = slots;
+        }
+
+        /**
+         * Builds an index over many courses at once, placing every course
+         * directly rather than copying a path per course.
+         *
+         * @param keys The lowercase IDs, all distinct
+         * @param courses The course for each key
+         * @param count The number of courses at the start of the arrays
+         * @return The index
+         */
+        static Index of(String[] keys, Course[] courses, int count) {
+            if (count == 0) {
+                return EMPTY;
+            }
+            int[] hashes = new int[count];
+            int[] items = new int[count];
+            for (int i = 0; i < count; i++) {
+                hashes[i] = hash(keys[i]);
+                items[i] = i;
+            }
+            return build(keys, courses, hashes, items, new int[count], 0, count, 0);
+        }
+
+        /**
+         * Finds a course.
+         *
+         * @param key The lowercase ID
+         * @return The course, or null if absent
+         */
+        Course get(String key) {
+            int hash = hash(key);
+            Index node = this;
+            for (int shift = 0; shift < Integer.SIZE; shift += BITS) {
+                int bit = bit(hash, shift);
+                if ((node.dataMap & bit) != 0) {
+                    int i = node.dataIndex(bit);
+                    return key.equals(node.slots[i]) ? (Course) node.slots[i + 1] : null;
+                }
+                if ((node.nodeMap & bit) == 0) {
+                    return null;
+                }
+                node = (Index) node.slots[node.nodeIndex(bit)];
+            }
+            for (int i = 0; i < node.slots.length; i += 2) {
+                if (key.equals(node.slots[i])) {
+                    return (Course) node.slots[i + 1];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Builds the next index with a course added, or replacing the course with the same key.
+         *
+         * @param key The lowercase ID
+         * @param course The course
+         * @return The new index
+         */
+        Index put(String key, Course course) {
+            return put(key, course, hash(key), 0);
+        }
+
+        /**
+         * Builds the next index without a course.
+         *
+         * @param key The lowercase ID
+         * @return The new index, or this one if the key is not in it
+         */
+        Index remove(String key) {
+            return remove(key, hash(key), 0);
+        }
+
+        /**
+         * Adds a course below this node.
+         *
+         * @param key The lowercase ID
+         * @param course The course
+         * @param hash The key's hash
+         * @param shift The position of this node's bits in the hash
+         * @return The new node
+         */
+        private Index put(String key, Course course, int hash, int shift) {
+            if (shift >= Integer.SIZE) {
+                for (int i = 0; i < slots.length; i += 2) {
+                    if (key.equals(slots[i])) {
+                        Object[] s = slots.clone();
+                        s[i + 1] = course;
+                        return new Index(0, 0, s);
+                    }
+                }
+                Object[] s = Arrays.copyOf(slots, slots.length + 2);
+                s[slots.length] = key;
+                s[slots.length + 1] = course;
+                return new Index(0, 0, s);
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                if (key.equals(slots[i])) {
+                    Object[] s = slots.clone();
+                    s[i + 1] = course;
+                    return new Index(dataMap, nodeMap, s);
+                }
+                // Two courses on one branch move down into a child of their own
+                String otherKey = (String) slots[i];
+                Index child = pair(otherKey, (Course) slots[i + 1], hash(otherKey), key, course, hash, shift + BITS);
+                return withDataAsChild(bit, i, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int i = nodeIndex(bit);
+                Object[] s = slots.clone();
+                s[i] = ((Index) slots[i]).put(key, course, hash, shift + BITS);
+                return new Index(dataMap, nodeMap, s);
+            }
+            int i = dataIndex(bit);
+            Object[] s = new Object[slots.length + 2];
+            System.arraycopy(slots, 0, s, 0, i);
+            s[i] = key;
+            s[i + 1] = course;
+            System.arraycopy(slots, i, s, i + 2, slots.length - i);
+            return new Index(dataMap | bit, nodeMap, s);
+        }
+
+        /**
+         * Removes a course below this node. A child left holding a single
+         * course is folded back into this node, so every child holds at least two.
+         *
+         * @param key The lowercase ID
+         * @param hash The key's hash
+         * @param shift The position of this node's bits in the hash
+         * @return The new node, or this one if the key is not below it
+         */
+        private Index remove(String key, int hash, int shift) {
+            if (shift >= Integer.SIZE) {
+                for (int i = 0; i < slots.length; i += 2) {
+                    if (key.equals(slots[i])) {
+                        return new Index(0, 0, without(slots, i, 2));
+                    }
+                }
+                return this;
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                return key.equals(slots[i]) ? new Index(dataMap ^ bit, nodeMap, without(slots, i, 2)) : this;
+            }
+            if ((nodeMap & bit) == 0) {
+                return this;
+            }
+            int i = nodeIndex(bit);
+            Index child = (Index) slots[i];
+            Index next = child.remove(key, hash, shift + BITS);
+            if (next == child) {
+                return this;
+            }
+            if (next.nodeMap == 0 && next.slots.length == 2) {
+                return withChildAsData(bit, i, next.slots[0], next.slots[1]);
+            }
+            Object[] s = slots.clone();
+            s[i] = next;
+            return new Index(dataMap, nodeMap, s);
+        }
+
+        /**
+         * Copies this node with the course on a branch replaced by a child node.
+         *
+         * @param bit The branch
+         * @param i The index of the course's key in slots
+         * @param child The child node
+         * @return The new node
+         */
+        private Index withDataAsChild(int bit, int i, Index child) {
+            int dataEnd = 2 * Integer.bitCount(dataMap);
+            int before = Integer.bitCount(nodeMap & (bit - 1));
+            Object[] s = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, s, 0, i);
+            System.arraycopy(slots, i + 2, s, i, dataEnd - i - 2);
+            System.arraycopy(slots, dataEnd, s, dataEnd - 2, before);
+            s[dataEnd - 2 + before] = child;
+            System.arraycopy(slots, dataEnd + before, s, dataEnd - 1 + before, slots.length - dataEnd - before);
+            return new Index(dataMap ^ bit, nodeMap | bit, s);
+        }
+
+        /**
+         * Copies this node with the child node on a branch replaced by its only course.
+         *
+         * @param bit The branch
+         * @param i The index of the child in slots
+         * @param key The course's lowercase ID
+         * @param course The course
+         * @return The new node
+         */
+        private Index withChildAsData(int bit, int i, Object key, Object course) {
+            int dataEnd = 2 * Integer.bitCount(dataMap);
+            int at = dataIndex(bit);
+            Object[] s = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, s, 0, at);
+            s[at] = key;
+            s[at + 1] = course;
+            System.arraycopy(slots, at, s, at + 2, dataEnd - at);
+            System.arraycopy(slots, dataEnd, s, dataEnd + 2, i - dataEnd);
+            System.arraycopy(slots, i + 1, s, i + 2, slots.length - i - 1);
+            return new Index(dataMap | bit, nodeMap ^ bit, s);
+        }
+
+        /**
+         * Finds where a course branch's key sits in slots.
+         *
+         * @param bit The branch
+         * @return The index of the key; the course follows it
+         */
+        private int dataIndex(int bit) {
+            return 2 * Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        /**
+         * Finds where a child branch's node sits in slots.
+         *
+         * @param bit The branch
+         * @return The index of the node
+         */
+        private int nodeIndex(int bit) {
+            return 2 * Integer.bitCount(dataMap) + Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        /**
+         * Builds the smallest subtree holding two courses.
+         *
+         * @param keyA The first course's lowercase ID
+         * @param courseA The first course
+         * @param hashA The first key's hash
+         * @param keyB The second course's lowercase ID
+         * @param courseB The second course
+         * @param hashB The second key's hash
+         * @param shift The position of the new node's bits in the hash
+         * @return The new node
+         */
+        private static Index pair(String keyA, Course courseA, int hashA, String keyB, Course courseB, int hashB,
+                                  int shift) {
+            if (shift >= Integer.SIZE) {
+                return new Index(0, 0, new Object[] {keyA, courseA, keyB, courseB});
+            }
+            int a = (hashA >>> shift) & 31;
+            int b = (hashB >>> shift) & 31;
+            if (a == b) {
+                return new Index(0, 1 << a, new Object[] {pair(keyA, courseA, hashA, keyB, courseB, hashB,
+                        shift + BITS)});
+            }
+            Object[] s = a < b ? new Object[] {keyA, courseA, keyB, courseB}
+                    : new Object[] {keyB, courseB, keyA, courseA};
+            return new Index((1 << a) | (1 << b), 0, s);
+        }
+
+        /**
+         * Builds the node for a range of courses, distributing them among its
+         * branches by this level's bits of their hash.
+         *
+         * @param keys The lowercase IDs
+         * @param courses The course for each key
+         * @param hashes The hash of each key
+         * @param items Positions in keys; the range is reordered by branch
+         * @param scratch Working space as long as items
+         * @param from The start of the range in items, inclusive
+         * @param to The end of the range in items, exclusive
+         * @param shift The position of this node's bits in the hash
+         * @return The node
+         */
+        private static Index build(String[] keys, Course[] courses, int[] hashes, int[] items, int[] scratch,
+                                   int from, int to, int shift) {
+            if (shift >= Integer.SIZE) {
+                Object[] s = new Object[(to - from) * 2];
+                for (int i = from; i < to; i++) {
+                    s[2 * (i - from)] = keys[items[i]];
+                    s[2 * (i - from) + 1] = courses[items[i]];
+                }
+                return new Index(0, 0, s);
+            }
+            int[] starts = new int[33];
+            for (int i = from; i < to; i++) {
+                starts[((hashes[items[i]] >>> shift) & 31) + 1]++;
+            }
+            int dataMap = 0;
+            int nodeMap = 0;
+            for (int b = 0; b < 32; b++) {
+                int n = starts[b + 1];
+                if (n == 1) {
+                    dataMap |= 1 << b;
+                } else if (n > 1) {
+                    nodeMap |= 1 << b;
+                }
+                starts[b + 1] += starts[b];
+            }
+            int[] fill = starts.clone();
+            for (int i = from; i < to; i++) {
+                scratch[from + fill[(hashes[items[i]] >>> shift) & 31]++] = items[i];
+            }
+            System.arraycopy(scratch, from, items, from, to - from);
+
+            int dataEnd = 2 * Integer.bitCount(dataMap);
+            Object[] s = new Object[dataEnd + Integer.bitCount(nodeMap)];
+            int data = 0;
+            int node = dataEnd;
+            for (int b = 0; b < 32; b++) {
+                int n = starts[b + 1] - starts[b];
+                if (n == 1) {
+                    s[data++] = keys[items[from + starts[b]]];
+                    s[data++] = courses[items[from + starts[b]]];
+                } else if (n > 1) {
+                    s[node++] = build(keys, courses, hashes, items, scratch, from + starts[b], from + starts[b + 1],
+                            shift + BITS);
+                }
+            }
+            return new Index(dataMap, nodeMap, s);
+        }
+
+        /**
+         * Copies an array without a run of elements.
+         *
+         * @param slots The array
+         * @param at The start of the run
+         * @param length The length of the run
+         * @return The shorter copy
+         */
+        private static Object[] without(Object[] slots, int at, int length) {
+            Object[] s = new Object[slots.length - length];
+            System.arraycopy(slots, 0, s, 0, at);
+            System.arraycopy(slots, at + length, s, at, s.length - at);
+            return s;
+        }
+
+        /**
+         * Picks the branch a hash takes at one level.
+         *
+         * @param hash The key's hash
+         * @param shift The position of the level's bits in the hash
+         * @return The branch, as a single bit
+         */
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        /**
+         * Hashes a key for the trie.
+         *
+         * @param key The lowercase ID
+         * @return The hash
+         */
+        private static int hash(String key) {
+            // Course IDs differ mostly in their last digits, which leaves their string hashes close together;
+            // multiplying spreads them so that the first levels already tell them apart
+            int h = key.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * A run of consecutive courses, in ID order.
+     */
+    private static final class Leaf {
+        private final Course[] courses;
+        private final String[] keys;
+        private final int[] numbers;
+
+        Leaf(Course[] courses, String[] keys, int[] numbers) {
+            this.courses = courses;
+            this.keys = keys;
+            this.numbers = numbers;
+        }
+
+        int size() {
+            return courses.length;
+        }
+
+        /**
+         * Finds a key in this leaf.
+         *
+         * @param number The key's numeric suffix
+         * @param key The lowercase ID
+         * @return The key's index, or -(insertion point) - 1 if absent
+         */
+        int indexOf(int number, String key) {
+            int low = 0;
+            int high = courses.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = numbers[mid] != number ? Integer.compare(numbers[mid], number) : keys[mid].compareTo(key);
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Copies the leaf with one course placed at an index.
+         *
+         * @param at The index
+         * @param course The course
+         * @param key Its lowercase ID
+         * @param number Its numeric suffix
+         * @param replace true to overwrite the course at the index, false to insert before it
+         * @return The new leaf
+         */
+        Leaf with(int at, Course course, String key, int number, boolean replace) {
+            int n = courses.length + (replace ? 0 : 1);
+            Course[] c = new Course[n];
+            String[] k = new String[n];
+            int[] num = new int[n];
+            int tail = replace ? at + 1 : at;
+            System.arraycopy(courses, 0, c, 0, at);
+            System.arraycopy(keys, 0, k, 0, at);
+            System.arraycopy(numbers, 0, num, 0, at);
+            c[at] = course;
+            k[at] = key;
+            num[at] = number;
+            System.arraycopy(courses, tail, c, at + 1, courses.length - tail);
+            System.arraycopy(keys, tail, k, at + 1, courses.length - tail);
+            System.arraycopy(numbers, tail, num, at + 1, courses.length - tail);
+            return new Leaf(c, k, num);
+        }
+
+        /**
+         * Copies the leaf without the course at an index.
+         *
+         * @param at The index
+         * @return The new leaf
+         */
+        Leaf without(int at) {
+            int n = courses.length - 1;
+            Course[] c = new Course[n];
+            String[] k = new String[n];
+            int[] num = new int[n];
+            System.arraycopy(courses, 0, c, 0, at);
+            System.arraycopy(keys, 0, k, 0, at);
+            System.arraycopy(numbers, 0, num, 0, at);
+            System.arraycopy(courses, at + 1, c, at, n - at);
+            System.arraycopy(keys, at + 1, k, at, n - at);
+            System.arraycopy(numbers, at + 1, num, at, n - at);
+            return new Leaf(c, k, num);
+        }
+
+        /**
+         * Copies part of the leaf.
+         *
+         * @param from The first index, inclusive
+         * @param to The last index, exclusive
+         * @return The new leaf
+         */
+        Leaf slice(int from, int to) {
+            return new Leaf(Arrays.copyOfRange(courses, from, to), Arrays.copyOfRange(keys, from, to),
+                    Arrays.copyOfRange(numbers, from, to));
+        }
+    }
+
+    /**
+     * Constructor to create a CatalogSnapshot.
+     *
+     * @param version The version number
+     * @param leaves The non-empty leaves, in ID order
+     * @param firstNumbers The numeric suffix of each leaf's first key
+     * @param size The total number of courses
+     * @param index The hash index over the same courses
+     */
+    private CatalogSnapshot(long version, Leaf[] leaves, int[] firstNumbers, int size, Index index) {
+        this.version = version;
+        this.leaves = leaves;
+        this.firstNumbers = firstNumbers;
+        this.size = size;
+        this.index = index;
+    }
+
+    /**
+     * Constructor to create a CatalogSnapshot whose leaves have just been rearranged.
+     *
+     * @param version The version number
+     * @param leaves The non-empty leaves, in ID order
+     * @param size The total number of courses
+     * @param index The hash index over the same courses
+     */
+    private CatalogSnapshot(long version, Leaf[] leaves, int size, Index index) {
+        this(version, leaves, firstNumbersOf(leaves), size, index);
+    }
+
+    /**
+     * Gets the version number, which goes up by one with every published change.
+     * @return The version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of courses.
+     * @return The course count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the catalog was empty in this version.
+     * @return true if there are no courses, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Finds a course by ID, ignoring case.
+     *
+     * @param id The course ID
+     * @return The course as of this version, or null if not found
+     */
+    public Course get(String id) {
+        return id == null ? null : index.get(CourseCatalog.normalize(id));
+    }
+
+    /**
+     * Returns every course in ID order.
+     * @return A read-only view of this version
+     */
+    public Collection<Course> values() {
+        return new AbstractCollection<Course>() {
+            @Override
+            public Iterator<Course> iterator() {
+                return iteratorFrom(0, 0);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Iterates the courses that follow an ID, in ID order.
+     * The ID need not belong to a course in this version, so a cursor naming
+     * a since-deleted course still resumes at the right place.
+     *
+     * @param afterId The ID to start after, or null to start at the first course
+     * @return An iterator over this version
+     */
+    public Iterator<Course> after(String afterId) {
+        if (afterId == null || size == 0) {
+            return iteratorFrom(0, 0);
+        }
+        String key = CourseCatalog.normalize(afterId);
+        int number = Ids.number(key);
+        int leaf = leafFor(number, key);
+        if (leaf < 0) {
+            return iteratorFrom(0, 0);
+        }
+        int at = leaves[leaf].indexOf(number, key);
+        return iteratorFrom(leaf, at < 0 ? -at - 1 : at + 1);
+    }
+
+    /**
+     * Builds the next version with a course added, or replacing the course with the same ID.
+     *
+     * @param course The course
+     * @return The new version
+     */
+    CatalogSnapshot with(Course course) {
+        String key = CourseCatalog.normalize(course.getId());
+        return with(course, key, index.put(key, course));
+    }
+
+    /**
+     * Builds the next version's leaves with a course added, or replacing the course with the same ID.
+     *
+     * @param course The course
+     * @param key Its lowercase ID
+     * @param next The next version's index, which already holds the course
+     * @return The new version
+     */
+    private CatalogSnapshot with(Course course, String key, Index next) {
+        int number = Ids.number(key);
+        if (leaves.length == 0) {
+            return new CatalogSnapshot(version + 1,
+                    new Leaf[] {new Leaf(new Course[] {course}, new String[] {key}, new int[] {number})}, 1, next);
+        }
+        int leafIndex = Math.max(leafFor(number, key), 0);
+        Leaf leaf = leaves[leafIndex];
+        int at = leaf.indexOf(number, key);
+        if (at >= 0) {
+            return replaceLeaf(leafIndex, leaf.with(at, course, key, number, true), size, next);
+        }
+        at = -at - 1;
+        if (leaf.size() < LEAF_SIZE) {
+            return replaceLeaf(leafIndex, leaf.with(at, course, key, number, false), size + 1, next);
+        }
+        Leaf[] nextLeaves;
+        if (leafIndex == leaves.length - 1 && at == leaf.size()) {
+            // New IDs are issued in ascending order, so appends start a fresh leaf and leave the full one as it is
+            nextLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+            nextLeaves[leaves.length] = new Leaf(new Course[] {course}, new String[] {key}, new int[] {number});
+        } else {
+            Leaf grown = leaf.with(at, course, key, number, false);
+            int half = grown.size() / 2;
+            nextLeaves = new Leaf[leaves.length + 1];
+            System.arraycopy(leaves, 0, nextLeaves, 0, leafIndex);
+            nextLeaves[leafIndex] = grown.slice(0, half);
+            nextLeaves[leafIndex + 1] = grown.slice(half, grown.size());
+            System.arraycopy(leaves, leafIndex + 1, nextLeaves, leafIndex + 2, leaves.length - leafIndex - 1);
+        }
+        return new CatalogSnapshot(version + 1, nextLeaves, size + 1, next);
+    }
+
+    /**
+     * Builds the next version without a course.
+     *
+     * @param id The course ID, in any case
+     * @return The new version, or this one if the course is not in it
+     */
+    CatalogSnapshot without(String id) {
+        String key = CourseCatalog.normalize(id);
+        Index next = index.remove(key);
+        if (next == index) {
+            return this;
+        }
+        int number = Ids.number(key);
+        int leafIndex = leafFor(number, key);
+        if (leafIndex < 0) {
+            return this;
+        }
+        Leaf leaf = leaves[leafIndex];
+        int at = leaf.indexOf(number, key);
+        if (at < 0) {
+            return this;
+        }
+        if (leaf.size() > 1) {
+            return replaceLeaf(leafIndex, leaf.without(at), size - 1, next);
+        }
+        Leaf[] nextLeaves = new Leaf[leaves.length - 1];
+        System.arraycopy(leaves, 0, nextLeaves, 0, leafIndex);
+        System.arraycopy(leaves, leafIndex + 1, nextLeaves, leafIndex, nextLeaves.length - leafIndex);
+        return new CatalogSnapshot(version + 1, nextLeaves, size - 1, next);
+    }
+
+    /**
+     * Builds the next version with many courses added at once, such as after
+     * loading saved data. A batch of up to a leaf's worth is inserted course
+     * by course; a larger one rebuilds every leaf full and the index with
+     * them, which costs one sort of the combined catalog however many courses
+     * are added.
+     *
+     * @param added The courses to add; one with an ID already present replaces it
+     * @return The new version
+     */
+    CatalogSnapshot withAll(Collection<Course> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        if (added.size() <= LEAF_SIZE) {
+            Index nextIndex = index;
+            CatalogSnapshot next = this;
+            for (Course course : added) {
+                String key = CourseCatalog.normalize(course.getId());
+                nextIndex = nextIndex.put(key, course);
+                next = next.with(course, key, nextIndex);
+            }
+            return new CatalogSnapshot(version + 1, next.leaves, next.firstNumbers, next.size, nextIndex);
+        }
+        List<Course> all = new ArrayList<>(size + added.size());
+        all.addAll(values());
+        all.addAll(added);
+        String[] keys = new String[all.size()];
+        int[] numbers = new int[all.size()];
+        Integer[] order = new Integer[all.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = CourseCatalog.normalize(all.get(i).getId());
+            numbers[i] = Ids.number(keys[i]);
+            order[i] = i;
+        }
+        // A stable sort keeps the added course after the one it replaces
+        Arrays.sort(order, (a, b) -> compare(numbers[a], keys[a], numbers[b], keys[b]));
+
+        List<Leaf> built = new ArrayList<>(keys.length / LEAF_SIZE + 1);
+        Course[] c = new Course[LEAF_SIZE];
+        String[] k = new String[LEAF_SIZE];
+        int[] num = new int[LEAF_SIZE];
+        int filled = 0;
+        int count = 0;
+        String[] keptKeys = new String[keys.length];
+        Course[] kept = new Course[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            int o = order[i];
+            if (i + 1 < order.length && compare(numbers[o], keys[o], numbers[order[i + 1]], keys[order[i + 1]]) == 0) {
+                continue;
+            }
+            c[filled] = all.get(o);
+            k[filled] = keys[o];
+            num[filled] = numbers[o];
+            keptKeys[count] = keys[o];
+            kept[count] = all.get(o);
+            count++;
+            if (++filled == LEAF_SIZE) {
+                built.add(new Leaf(c.clone(), k.clone(), num.clone()));
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            built.add(new Leaf(Arrays.copyOf(c, filled), Arrays.copyOf(k, filled), Arrays.copyOf(num, filled)));
+        }
+        return new CatalogSnapshot(version + 1, built.toArray(new Leaf[0]), count, Index.of(keptKeys, kept, count));
+    }
+
+    /**
+     * Builds the next version with one leaf replaced. The first numbers are
+     * shared with this version unless the leaf now starts with a different one.
+     *
+     * @param index The leaf's index
+     * @param leaf The new leaf
+     * @param newSize The total number of courses in the new version
+     * @param nextIndex The new version's hash index
+     * @return The new version
+     */
+    private CatalogSnapshot replaceLeaf(int index, Leaf leaf, int newSize, Index nextIndex) {
+        Leaf[] next = leaves.clone();
+        next[index] = leaf;
+        int[] firsts = firstNumbers;
+        if (firsts[index] != leaf.numbers[0]) {
+            firsts = firsts.clone();
+            firsts[index] = leaf.numbers[0];
+        }
+        return new CatalogSnapshot(version + 1, next, firsts, newSize, nextIndex);
+    }
+
+    /**
+     * Collects the numeric suffix of each leaf's first key.
+     *
+     * @param leaves The leaves
+     * @return The first numbers, one per leaf
+     */
+    private static int[] firstNumbersOf(Leaf[] leaves) {
+        int[] firsts = new int[leaves.length];
+        for (int i = 0; i < leaves.length; i++) {
+            firsts[i] = leaves[i].numbers[0];
+        }
+        return firsts;
+    }
+
+    /**
+     * Finds the leaf a key belongs in: the last leaf whose first key is not after it.
+     *
+     * @param number The key's numeric suffix
+     * @param key The lowercase ID
+     * @return The leaf index, or -1 if the key sorts before every course
+     */
+    private int leafFor(int number, String key) {
+        int low = 0;
+        int high = leaves.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int first = firstNumbers[mid];
+            // Only IDs with the same number need their text compared
+            if (first < number || first == number && leaves[mid].keys[0].compareTo(key) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Iterates this version from a position.
+     *
+     * @param leaf The leaf to start in
+     * @param index The index within that leaf
+     * @return The iterator
+     */
+    private Iterator<Course> iteratorFrom(int leaf, int index) {
+        return new Iterator<Course>() {
+            private int nextLeaf = leaf;
+            private int nextIndex = index;
+
+            @Override
+            public boolean hasNext() {
+                while (nextLeaf < leaves.length && nextIndex >= leaves[nextLeaf].size()) {
+                    nextLeaf++;
+                    nextIndex = 0;
+                }
+                return nextLeaf < leaves.length;
+            }
+
+            @Override
+            public Course next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return leaves[nextLeaf].courses[nextIndex++];
+            }
+        };
+    }
+
+    /**
+     * Orders keys as Ids.ORDER does, using their precomputed numeric suffixes.
+     *
+     * @param numberA The first key's number
+     * @param keyA The first key
+     * @param numberB The second key's number
+     * @param keyB The second key
+     * @return A negative number, zero or a positive number as the first key sorts before, with or after the second
+     */
+    private static int compare(int numberA, String keyA, int numberB, String keyB) {
+        int c = Integer.compare(numberA, numberB);
+        return c != 0 ? c : keyA.compareTo(keyB);
+    }
+}
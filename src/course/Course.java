@@ -1,15 +1,33 @@
 package course;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a course in the Course Registration System.
  * This class stores course information including ID, name, teacher, duration, and description.
+ * A course may also have a seat limit; seats are claimed through a lock-free
+ * counter so concurrent enrollments can never oversell it.
+ * Its weekly meeting times, if any, are held as MeetingSlots in week order,
+ * and the IDs of the courses a student must take first as a read-only list.
+ *
+ * Once a course is in a catalog it is never changed in place: CourseManager
+ * publishes an edited copy that shares the original's seat counter, so a
+ * Course read from the catalog is always one consistent version. Meeting
+ * times and prerequisites are given when the course is constructed.
  */
 public class Course {
-    private String id;
-    private String name;
-    private String teacher;
-    private String duration;
-    private String description;
+    private final String id;
+    private final String name;
+    private final String teacher;
+    private final String duration;
+    private final String description;
+    private final int maxSeats;
+    private final List<MeetingSlot> schedule;
+    private volatile List<String> prerequisites;
+    private final AtomicInteger seatsTaken;
 
     /**
      * Constructor to create a new Course object.
@@ -21,11 +39,105 @@ public class Course {
      * @param description A brief description of the course
      */
     public Course(String id, String name, String teacher, String duration, String description) {
+        this(id, name, teacher, duration, description, 0);
+    }
+
+    /**
+     * Constructor to create a new Course object with a seat limit.
+     *
+     * @param id The unique identifier for the course
+     * @param name The name of the course
+     * @param teacher The name of the course instructor
+     * @param duration The duration of the course (e.g., "3 months")
+     * @param description A brief description of the course
+     * @param maxSeats The maximum number of enrolled students, or 0 for unlimited
+     */
+    public Course(String id, String name, String teacher, String duration, String description, int maxSeats) {
+        this(id, name, teacher, duration, description, maxSeats, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * Constructor to create a new Course object with meeting times and prerequisites.
+     *
+     * @param id The unique identifier for the course
+     * @param name The name of the course
+     * @param teacher The name of the course instructor
+     * @param duration The duration of the course (e.g., "3 months")
+     * @param description A brief description of the course
+     * @param maxSeats The maximum number of enrolled students, or 0 for unlimited
+     * @param schedule The weekly meeting times, in any order; they may not overlap each other
+     * @param prerequisites The IDs of the direct prerequisites
+     * @throws IllegalArgumentException If two meeting times overlap
+     */
+    public Course(String id, String name, String teacher, String duration, String description, int maxSeats,
+                  List<MeetingSlot> schedule, List<String> prerequisites) {
         this.id = id;
         this.name = name;
         this.teacher = teacher;
         this.duration = duration;
         this.description = description;
+        this.maxSeats = maxSeats;
+        this.schedule = MeetingSlot.normalize(schedule);
+        this.prerequisites = readOnly(prerequisites);
+        this.seatsTaken = new AtomicInteger();
+    }
+
+    /**
+     * Constructor to create an edited copy of a course that shares its seat counter.
+     *
+     * @param base The course being edited
+     * @param name The name of the copy
+     * @param teacher The teacher of the copy
+     * @param duration The duration of the copy
+     * @param description The description of the copy
+     * @param schedule The normalized meeting times of the copy
+     * @param prerequisites The read-only prerequisite IDs of the copy
+     */
+    private Course(Course base, String name, String teacher, String duration, String description,
+                   List<MeetingSlot> schedule, List<String> prerequisites) {
+        this.id = base.id;
+        this.name = name;
+        this.teacher = teacher;
+        this.duration = duration;
+        this.description = description;
+        this.maxSeats = base.maxSeats;
+        this.schedule = schedule;
+        this.prerequisites = prerequisites;
+        this.seatsTaken = base.seatsTaken;
+    }
+
+    /**
+     * Copies the course with new details.
+     *
+     * @param name The new course name
+     * @param teacher The new teacher name
+     * @param duration The new course duration
+     * @param description The new course description
+     * @return The edited copy
+     */
+    Course withDetails(String name, String teacher, String duration, String description) {
+        return new Course(this, name, teacher, duration, description, schedule, prerequisites);
+    }
+
+    /**
+     * Copies the course with new meeting times.
+     *
+     * @param schedule The new slots, in any order; they may not overlap each other
+     * @return The edited copy
+     * @throws IllegalArgumentException If two slots overlap
+     */
+    Course withSchedule(List<MeetingSlot> schedule) {
+        return new Course(this, name, teacher, duration, description, MeetingSlot.normalize(schedule), prerequisites);
+    }
+
+    /**
+     * Copies the course with new direct prerequisites.
+     *
+     * @param prerequisites The course IDs
+     * @return The edited copy
+     */
+    Course withPrerequisites(List<String> prerequisites) {
+        return new Course(this, name, teacher, duration, description, schedule, readOnly(prerequisites));
     }
 
     /**
@@ -69,35 +181,108 @@ public class Course {
     }
 
     /**
-     * Sets the course name.
-     * @param name The new course name
+     * Gets the seat limit.
+     * @return The maximum number of enrolled students, or 0 for unlimited
      */
-    public void setName(String name) {
-        this.name = name;
+    public int getMaxSeats() {
+        return maxSeats;
     }
 
     /**
-     * Sets the course teacher.
-     * @param teacher The new teacher name
+     * Gets the weekly meeting times.
+     * @return The slots in week order, read-only; empty if the course has no fixed times
      */
-    public void setTeacher(String teacher) {
-        this.teacher = teacher;
+    public List<MeetingSlot> getSchedule() {
+        return schedule;
     }
 
     /**
-     * Sets the course duration.
-     * @param duration The new course duration
+     * Gets the IDs of the direct prerequisites.
+     * @return The course IDs, read-only; empty if the course has none
      */
-    public void setDuration(String duration) {
-        this.duration = duration;
+    public List<String> getPrerequisites() {
+        return prerequisites;
     }
 
     /**
-     * Sets the course description.
-     * @param description The new course description
+     * Gets the number of claimed seats.
+     * @return The number of seats currently taken
      */
-    public void setDescription(String description) {
-        this.description = description;
+    public int getSeatsTaken() {
+        return seatsTaken.get();
+    }
+
+    /**
+     * Checks whether every seat is taken.
+     * @return true if the course has a seat limit and it has been reached, false otherwise
+     */
+    public boolean isFull() {
+        int limit = maxSeats;
+        return limit > 0 && seatsTaken.get() >= limit;
+    }
+
+    /**
+     * Claims one seat using a compare-and-set loop.
+     * @return true if a seat was claimed, false if the course is full
+     */
+    public boolean tryClaimSeat() {
+        while (true) {
+            int taken = seatsTaken.get();
+            int limit = maxSeats;
+            if (limit > 0 && taken >= limit) {
+                return false;
+            }
+            if (seatsTaken.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Claims one seat even if the limit has been reached.
+     * Used when restoring enrollments that already exist.
+     */
+    public void claimSeat() {
+        seatsTaken.incrementAndGet();
+    }
+
+    /**
+     * Claims several seats at once even if the limit has been reached.
+     * Used when restoring enrollments in bulk.
+     *
+     * @param count The number of seats to claim
+     */
+    public void claimSeats(int count) {
+        seatsTaken.addAndGet(count);
+    }
+
+    /**
+     * Releases one previously claimed seat.
+     */
+    public void releaseSeat() {
+        seatsTaken.getAndUpdate(taken -> taken > 0 ? taken - 1 : 0);
+    }
+
+    /**
+     * Replaces the IDs of the direct prerequisites with their canonical spelling.
+     * Only for CourseManager.addCourse, before the course is in a catalog;
+     * afterwards they change through withPrerequisites.
+     *
+     * @param prerequisites The course IDs
+     */
+    void setPrerequisites(List<String> prerequisites) {
+        this.prerequisites = readOnly(prerequisites);
+    }
+
+    /**
+     * Copies a list of prerequisite IDs into a read-only list.
+     *
+     * @param prerequisites The course IDs
+     * @return The read-only copy
+     */
+    private static List<String> readOnly(List<String> prerequisites) {
+        return prerequisites.isEmpty() ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(prerequisites));
     }
 
     /**
@@ -106,7 +291,12 @@ public class Course {
      */
     @Override
     public String toString() {
-        return String.format("ID: %s | Name: %s | Teacher: %s | Duration: %s | Description: %s",
-                id, name, teacher, duration, description);
+        String seats = maxSeats > 0 ? seatsTaken.get() + "/" + maxSeats : "Unlimited";
+        List<MeetingSlot> slots = schedule;
+        String times = slots.isEmpty() ? "TBA" : MeetingSlot.formatSchedule(slots);
+        List<String> required = prerequisites;
+        String requires = required.isEmpty() ? "" : " | Prerequisites: " + String.join(", ", required);
+        return String.format("ID: %s | Name: %s | Teacher: %s | Duration: %s | Schedule: %s | Seats: %s%s"
+                + " | Description: %s", id, name, teacher, duration, times, seats, requires, description);
     }
 }
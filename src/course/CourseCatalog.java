@@ -0,0 +1,354 @@
+package course;
+
+import common.Ids;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage engine behind CourseManager.
+ * Courses by ID live in an immutable CatalogSnapshot, replaced by a new
+ * version on every change, so lookups by ID and listings never take a lock
+ * and never see a change half made. A hash index on the case-insensitive
+ * name serves duplicate checks, a CourseSearchIndex serves text search over
+ * names, teachers and descriptions, and a PrerequisiteGraph serves
+ * prerequisite and cycle checks; those three change in place, so only the
+ * snapshot may be read while a writer is working.
+ *
+ * Restored courses are collected and published together by the first read
+ * that follows, so loading saved data costs one sort rather than a new
+ * version per course.
+ */
+class CourseCatalog {
+    private volatile CatalogSnapshot published = CatalogSnapshot.EMPTY;
+    private volatile boolean restoring;
+    private final List<Course> restored = new ArrayList<>();
+    private final HashMap<String, Course> byName = new HashMap<>();
+    private final CourseSearchIndex search = new CourseSearchIndex();
+    private final PrerequisiteGraph prerequisites = new PrerequisiteGraph();
+
+    /**
+     * Normalizes an ID or name into its index key.
+     *
+     * @param value The raw ID or name
+     * @return The lowercase key, or null if value is null
+     */
+    static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Inserts a course into the catalog.
+     * The caller is responsible for checking duplicates first.
+     *
+     * @param course The course to insert
+     */
+    void insert(Course course) {
+        index(course);
+        publish(snapshot -> snapshot.with(course));
+    }
+
+    /**
+     * Inserts a batch of courses into the catalog as one new version.
+     * The caller is responsible for checking duplicates first.
+     *
+     * @param batch The courses to insert
+     */
+    void insertAll(List<Course> batch) {
+        for (Course course : batch) {
+            index(course);
+        }
+        publish(snapshot -> snapshot.withAll(batch));
+    }
+
+    /**
+     * Inserts a restored course, to be published with the rest of the restored
+     * courses by the next read.
+     *
+     * @param course The course to restore
+     */
+    void restore(Course course) {
+        index(course);
+        synchronized (this) {
+            restored.add(course);
+            restoring = true;
+        }
+    }
+
+    /**
+     * Gets the current version of the catalog.
+     * @return The latest published snapshot
+     */
+    CatalogSnapshot snapshot() {
+        return restoring ? publishRestored() : published;
+    }
+
+    /**
+     * Finds a course by ID, ignoring case.
+     *
+     * @param id The course ID
+     * @return The course, or null if not found
+     */
+    Course findById(String id) {
+        return snapshot().get(id);
+    }
+
+    /**
+     * Finds a course by name, ignoring case.
+     *
+     * @param name The course name
+     * @return The course, or null if not found
+     */
+    Course findByName(String name) {
+        return byName.get(normalize(name));
+    }
+
+    /**
+     * Publishes an edited copy of a course in place of the version it was made from.
+     * The prerequisite graph is not touched; see setPrerequisites.
+     *
+     * @param old The current version of the course
+     * @param updated The edited copy
+     */
+    void replace(Course old, Course updated) {
+        String oldKey = normalize(old.getName());
+        if (byName.get(oldKey) == old) {
+            byName.remove(oldKey);
+        }
+        byName.put(normalize(updated.getName()), updated);
+        search.replace(old, updated);
+        publish(snapshot -> snapshot.with(updated));
+    }
+
+    /**
+     * Finds the courses that best match a text query.
+     *
+     * @param query Free text; each word matches course words it is a prefix of
+     * @param limit The maximum number of results
+     * @return The matching courses, best first
+     */
+    List<Course> search(String query, int limit) {
+        return search.search(query, limit);
+    }
+
+    /**
+     * Finds a prerequisite that would make a course depend on itself.
+     *
+     * @param course The course being edited
+     * @param prerequisiteIds The IDs of its proposed direct prerequisites
+     * @return The first offending prerequisite ID, or null if there is no cycle
+     */
+    String findPrerequisiteCycle(Course course, List<String> prerequisiteIds) {
+        String key = prerequisites.findCycle(normalize(course.getId()), normalize(prerequisiteIds));
+        return key == null ? null : findById(key).getId();
+    }
+
+    /**
+     * Publishes a copy of a course with new direct prerequisites and updates the graph.
+     * The caller is responsible for the cycle check.
+     *
+     * @param course The current version of the course
+     * @param updated The copy made by Course.withPrerequisites
+     */
+    void setPrerequisites(Course course, Course updated) {
+        prerequisites.set(normalize(course.getId()), normalize(updated.getPrerequisites()));
+        replace(course, updated);
+    }
+
+    /**
+     * Copies the courses that require a course directly, with it dropped
+     * from their prerequisite lists. Nothing is changed; see unlinkPrerequisite.
+     *
+     * @param removed The course about to be removed
+     * @return The edited copies of its dependents
+     */
+    List<Course> dependentsWithout(Course removed) {
+        List<Course> changed = new ArrayList<>();
+        for (String key : prerequisites.dependents(normalize(removed.getId()))) {
+            Course dependent = findById(key);
+            List<String> kept = new ArrayList<>(dependent.getPrerequisites());
+            kept.removeIf(id -> id.equalsIgnoreCase(removed.getId()));
+            changed.add(dependent.withPrerequisites(kept));
+        }
+        return changed;
+    }
+
+    /**
+     * Removes a deleted course from the prerequisite graph and publishes the
+     * copies of the courses that required it.
+     *
+     * @param removed The course just removed from the catalog
+     * @param changed The copies made by dependentsWithout
+     */
+    void unlinkPrerequisite(Course removed, List<Course> changed) {
+        prerequisites.remove(normalize(removed.getId()));
+        for (Course updated : changed) {
+            replace(findById(updated.getId()), updated);
+        }
+    }
+
+    /**
+     * Lists every direct and indirect prerequisite of a course.
+     *
+     * @param id The course ID
+     * @return The prerequisite courses, in ID order
+     */
+    List<Course> allPrerequisites(String id) {
+        return courses(prerequisites.allPrerequisites(normalize(id)));
+    }
+
+    /**
+     * Checks whether a set of courses covers every direct and indirect prerequisite of a course.
+     *
+     * @param id The course ID
+     * @param takenIds The IDs of the courses already taken
+     * @return true if none are missing, false otherwise
+     */
+    boolean hasPrerequisites(String id, Collection<String> takenIds) {
+        return prerequisites.satisfied(normalize(id), normalize(takenIds));
+    }
+
+    /**
+     * Finds the direct and indirect prerequisites of a course that are not among a set of courses.
+     *
+     * @param id The course ID
+     * @param takenIds The IDs of the courses already taken
+     * @return The missing prerequisite courses in ID order; empty if none are missing
+     */
+    List<Course> missingPrerequisites(String id, Collection<String> takenIds) {
+        return courses(prerequisites.missing(normalize(id), normalize(takenIds)));
+    }
+
+    /**
+     * Removes a course by ID, ignoring case.
+     *
+     * @param id The course ID
+     * @return The removed course, or null if not found
+     */
+    Course remove(String id) {
+        Course course = findById(id);
+        if (course != null) {
+            search.remove(course);
+            String nameKey = normalize(course.getName());
+            if (byName.get(nameKey) == course) {
+                byName.remove(nameKey);
+            }
+            publish(snapshot -> snapshot.without(id));
+        }
+        return course;
+    }
+
+    /**
+     * Resolves normalized IDs from the prerequisite graph to courses.
+     * IDs with no course, left by older data, are skipped.
+     *
+     * @param keys The normalized course IDs
+     * @return The courses, in ID order
+     */
+    private List<Course> courses(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Course> found = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Course course = findById(key);
+            if (course != null) {
+                found.add(course);
+            }
+        }
+        found.sort(Comparator.comparing(Course::getId, Ids.ORDER));
+        return found;
+    }
+
+    /**
+     * Normalizes a list of IDs into index keys.
+     *
+     * @param ids The raw IDs
+     * @return The lowercase keys
+     */
+    private static List<String> normalize(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            keys.add(normalize(id));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns all courses in ID order.
+     * @return A read-only view of the current version
+     */
+    Collection<Course> values() {
+        return snapshot().values();
+    }
+
+    /**
+     * Iterates the courses that follow an ID, in ID order.
+     *
+     * @param afterId The ID to start after, or null to start at the first course
+     * @return An iterator over the current version
+     */
+    Iterator<Course> after(String afterId) {
+        return snapshot().after(afterId);
+    }
+
+    /**
+     * Checks whether the catalog is empty.
+     * @return true if no courses are stored, false otherwise
+     */
+    boolean isEmpty() {
+        return snapshot().isEmpty();
+    }
+
+    /**
+     * Gets the number of stored courses.
+     * @return The course count
+     */
+    int size() {
+        return snapshot().size();
+    }
+
+    /**
+     * Adds a course to the name, search and prerequisite indexes.
+     * @param course The course being inserted
+     */
+    private void index(Course course) {
+        byName.put(normalize(course.getName()), course);
+        search.add(course);
+        prerequisites.set(normalize(course.getId()), normalize(course.getPrerequisites()));
+    }
+
+    /**
+     * Publishes a new version of the catalog.
+     * Writers are serialized by CourseManager's callers; the lock only orders
+     * them against a reader publishing restored courses.
+     *
+     * @param change Builds the new version from the current one
+     */
+    private synchronized void publish(UnaryOperator<CatalogSnapshot> change) {
+        published = change.apply(publishRestored());
+    }
+
+    /**
+     * Publishes the restored courses not yet in a version.
+     * @return The latest published snapshot
+     */
+    private synchronized CatalogSnapshot publishRestored() {
+        if (restoring) {
+            published = published.withAll(restored);
+            restored.clear();
+            restoring = false;
+        }
+        return published;
+    }
+}
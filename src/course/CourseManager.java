@@ -1,54 +1,209 @@
 package course;
 
+import common.Ids;
+import common.Page;
+import common.Result;
+import events.Event;
+import events.EventSink;
+import metrics.Metrics;
+import metrics.Operation;
+import output.Output;
+import persistence.Journal;
+import persistence.LogRecord;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Manages all course operations in the Course Registration System.
  * This class handles course creation, updates, deletion, and retrieval.
+ * Removals are reported to a listener so the course's registrations can be
+ * deleted with it, and meeting time changes to another so the timetables
+ * of enrolled students can follow. Prerequisites form a DAG kept acyclic on
+ * every edit; removing a course drops it from the prerequisites of the
+ * courses that required it. Every change is published as an Event, and
+ * every public operation is timed into the process-wide Metrics registry.
+ *
+ * Changes must come from one thread at a time. Lookups by ID, listings and
+ * getSnapshot may run on any thread alongside them without locking: each
+ * change publishes a new immutable catalog version, and an edited course
+ * is published as a new copy, so readers never see one half changed.
  */
 public class CourseManager {
-    private ArrayList<Course> courses = new ArrayList<>();
-    private static int courseCounter = 1000;
+    private static final Operation ADD = Metrics.operation("course.addCourse");
+    private static final Operation IMPORT = Metrics.operation("course.importCourses");
+    private static final Operation LIST = Metrics.operation("course.listCourses");
+    private static final Operation GET_BY_ID = Metrics.operation("course.getCourseById", Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation GET_BY_NAME = Metrics.operation("course.getCourseByName",
+            Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation SEARCH = Metrics.operation("course.searchCourses");
+    private static final Operation UPDATE = Metrics.operation("course.updateCourse");
+    private static final Operation UPDATE_SCHEDULE = Metrics.operation("course.updateSchedule");
+    private static final Operation SET_PREREQUISITES = Metrics.operation("course.setPrerequisites");
+    private static final Operation REMOVE = Metrics.operation("course.removeCourse");
+
+    private CourseCatalog courses = new CourseCatalog();
+    private static final AtomicInteger courseCounter = new AtomicInteger(1000);
+    private volatile Journal journal = Journal.NONE;
+    private volatile EventSink events = EventSink.NONE;
+    private volatile Output output = Output.STDOUT;
+    private Consumer<List<String>> removalListener = ids -> { };
+    private Consumer<String> scheduleListener = id -> { };
+
+    /**
+     * Sets the journal that records every course change.
+     * @param journal The journal to append to
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the sink that receives an event for every course change.
+     * @param events The sink to publish to
+     */
+    public void setEvents(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Sets where messages for the user are printed; Output.QUIET for callers
+     * that only read the returned Result.
+     * @param output The output to print to
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+    }
+
+    /**
+     * Sets the callback that cascades course removals, typically
+     * RegistrationManager.removeCourseRegistrations.
+     *
+     * @param listener Receives the IDs of the courses removed by each call
+     */
+    public void setRemovalListener(Consumer<List<String>> listener) {
+        this.removalListener = listener;
+    }
+
+    /**
+     * Sets the callback told when a course's meeting times change, typically
+     * RegistrationManager.rescheduleCourse.
+     *
+     * @param listener Receives the ID of the rescheduled course
+     */
+    public void setScheduleListener(Consumer<String> listener) {
+        this.scheduleListener = listener;
+    }
 
     /**
      * Generates a unique course ID.
      * @return A new course ID in format C-XXXX
      */
     public String generateCourseId() {
-        courseCounter++;
-        return "C-" + courseCounter;
+        return "C-" + courseCounter.incrementAndGet();
     }
 
     /**
      * Adds a new course to the system.
-     * Checks for duplicate course names before adding.
+     * Checks for duplicate course names, a valid seat limit and existing prerequisites before adding.
      *
      * @param course The course object to add
+     * @return SUCCESS, INVALID for a negative seat limit, DUPLICATE for a taken name,
+     *         or NOT_FOUND for an unknown prerequisite
      */
-    public void addCourse(Course course) {
-        for (Course c : courses) {
-            if (c.getName().equalsIgnoreCase(course.getName())) {
-                System.out.println("Error: Course already exists!");
-                return;
+    public Result addCourse(Course course) {
+        long start = ADD.start();
+        boolean ok = false;
+        try {
+            if (course.getMaxSeats() < 0) {
+                output.println("Error: Seat limit cannot be negative!");
+                return Result.INVALID;
+            }
+            if (courses.findByName(course.getName()) != null) {
+                output.println("Error: Course already exists!");
+                return Result.DUPLICATE;
             }
+            List<String> prerequisites = resolvePrerequisites(course.getPrerequisites());
+            if (prerequisites == null) {
+                return Result.NOT_FOUND;
+            }
+            course.setPrerequisites(prerequisites);
+            journalCourse(course);
+            courses.insert(course);
+            events.publish(Event.course(Event.Type.COURSE_ADDED, course.getId()));
+            ok = true;
+            if (output.isEnabled()) {
+                output.println("Success: Course added successfully! ID: " + course.getId());
+            }
+            return Result.SUCCESS;
+        } finally {
+            ADD.record(start, ok);
         }
-        courses.add(course);
-        System.out.println("Success: Course added successfully! ID: " + course.getId());
     }
 
     /**
-     * Displays all courses in the system.
+     * Displays one page of courses.
+     * The header is printed with the first page and the footer with the last.
+     *
+     * @param afterId The cursor returned by the previous call, or null for the first page
+     * @param limit The maximum number of courses to print
+     * @return The cursor for the next page, or null if there are no more courses
      */
-    public void viewCourses() {
-        if (courses.isEmpty()) {
-            System.out.println("Error: No courses available.");
-            return;
+    public String viewCourses(String afterId, int limit) {
+        Page<Course> page = listCourses(afterId, limit);
+        if (!output.isEnabled()) {
+            return page.getNextCursor();
+        }
+        if (page.getItems().isEmpty()) {
+            if (afterId == null) {
+                output.println("Error: No courses available.");
+            }
+            return null;
+        }
+        if (afterId == null) {
+            output.println("\n========== ALL COURSES ==========");
+        }
+        for (Course c : page.getItems()) {
+            output.println(c.toString());
         }
-        System.out.println("\n========== ALL COURSES ==========");
-        for (Course c : courses) {
-            System.out.println(c);
+        if (!page.hasNext()) {
+            output.println("=================================\n");
         }
-        System.out.println("=================================\n");
+        return page.getNextCursor();
+    }
+
+    /**
+     * Lists one page of courses in ID order.
+     *
+     * @param afterId The cursor returned with the previous page, or null for the first page
+     * @param limit The maximum number of courses on the page
+     * @return The page of courses
+     */
+    public Page<Course> listCourses(String afterId, int limit) {
+        long start = LIST.start();
+        boolean ok = false;
+        try {
+            Page<Course> page = Page.of(courses.after(afterId), limit, Course::getId);
+            ok = true;
+            return page;
+        } finally {
+            LIST.record(start, ok);
+        }
+    }
+
+    /**
+     * Streams every course in ID order without copying the catalog.
+     * @return A lazy stream over the current catalog version
+     */
+    public Stream<Course> streamCourses() {
+        return courses.values().stream();
     }
 
     /**
@@ -58,50 +213,450 @@ public class CourseManager {
      * @return The Course object if found, null otherwise
      */
     public Course getCourseById(String id) {
-        for (Course c : courses) {
-            if (c.getId().equalsIgnoreCase(id)) {
-                return c;
+        long start = GET_BY_ID.start();
+        Course course = courses.findById(id);
+        GET_BY_ID.record(start, course != null);
+        return course;
+    }
+
+    /**
+     * Retrieves a course by name, ignoring case.
+     *
+     * @param name The course name to search for
+     * @return The Course object if found, null otherwise
+     */
+    public Course getCourseByName(String name) {
+        long start = GET_BY_NAME.start();
+        Course course = courses.findByName(name);
+        GET_BY_NAME.record(start, course != null);
+        return course;
+    }
+
+    /**
+     * Searches course names, teachers and descriptions.
+     * Every word in the query must match the start of a word in the course;
+     * matches in the name rank above the teacher, then the description.
+     *
+     * @param query The search text, such as "intro prog"
+     * @param limit The maximum number of results
+     * @return The best-matching courses, best first
+     */
+    public List<Course> searchCourses(String query, int limit) {
+        long start = SEARCH.start();
+        boolean ok = false;
+        try {
+            List<Course> results = courses.search(query, limit);
+            ok = true;
+            return results;
+        } finally {
+            SEARCH.record(start, ok);
+        }
+    }
+
+    /**
+     * Displays the best-matching courses for a search.
+     *
+     * @param query The search text
+     * @param limit The maximum number of results to print
+     */
+    public void viewSearchResults(String query, int limit) {
+        List<Course> results = searchCourses(query, limit);
+        if (!output.isEnabled()) {
+            return;
+        }
+        if (results.isEmpty()) {
+            output.println("Error: No courses match \"" + query + "\".");
+            return;
+        }
+        output.println("\n========== SEARCH RESULTS ==========");
+        for (Course c : results) {
+            output.println(c.toString());
+        }
+        output.println("====================================\n");
+    }
+
+    /**
+     * Adds a batch of already validated courses without output.
+     * The caller is responsible for validation and duplicate checks; the whole
+     * batch is journaled together so it costs a single durable write.
+     *
+     * @param batch The courses to add
+     */
+    public void importCourses(List<Course> batch) {
+        long start = IMPORT.start();
+        boolean ok = false;
+        try {
+            List<LogRecord> records = new ArrayList<>(batch.size());
+            for (Course c : batch) {
+                records.add(courseRecord(c));
+            }
+            journal.appendAll(records);
+            courses.insertAll(batch);
+            for (Course c : batch) {
+                events.publish(Event.course(Event.Type.COURSE_ADDED, c.getId()));
             }
+            ok = true;
+        } finally {
+            IMPORT.record(start, ok);
         }
-        return null;
     }
 
     /**
      * Updates course information.
+     * Rejects a rename that would clash with another course's name.
      *
      * @param id The course ID to update
      * @param name The new course name
      * @param teacher The new teacher name
      * @param duration The new course duration
      * @param description The new course description
+     * @return SUCCESS, NOT_FOUND for an unknown course, or DUPLICATE for a taken name
      */
-    public void updateCourse(String id, String name, String teacher, String duration, String description) {
-        Course course = getCourseById(id);
-        if (course == null) {
-            System.out.println("Error: Course not found!");
-            return;
+    public Result updateCourse(String id, String name, String teacher, String duration, String description) {
+        return updateCourse(id, name, teacher, duration, description, null, null);
+    }
+
+    /**
+     * Updates course information, meeting times and direct prerequisites as one edit.
+     * Every check runs before anything changes, so a rejected edit changes
+     * nothing; an accepted one is journaled, published and announced once.
+     *
+     * @param id The course ID to update
+     * @param name The new course name
+     * @param teacher The new teacher name
+     * @param duration The new course duration
+     * @param description The new course description
+     * @param schedule The new meeting times, empty for none, or null to keep them
+     * @param prerequisiteIds The IDs of the courses to take first, empty for none, or null to keep them
+     * @return SUCCESS, NOT_FOUND for an unknown course or prerequisite, DUPLICATE for a taken name,
+     *         INVALID for overlapping meeting times, or CONFLICT for a prerequisite cycle
+     */
+    public Result updateCourse(String id, String name, String teacher, String duration, String description,
+                               List<MeetingSlot> schedule, List<String> prerequisiteIds) {
+        long start = UPDATE.start();
+        boolean ok = false;
+        try {
+            Course course = courses.findById(id);
+            if (course == null) {
+                output.println("Error: Course not found!");
+                return Result.NOT_FOUND;
+            }
+
+            Course existing = courses.findByName(name);
+            if (existing != null && existing != course) {
+                output.println("Error: Course with this name already exists!");
+                return Result.DUPLICATE;
+            }
+
+            Course updated = course.withDetails(name, teacher, duration, description);
+            if (schedule != null) {
+                try {
+                    updated = updated.withSchedule(schedule);
+                } catch (IllegalArgumentException e) {
+                    if (output.isEnabled()) {
+                        output.println("Error: " + e.getMessage());
+                    }
+                    return Result.INVALID;
+                }
+            }
+            if (prerequisiteIds != null) {
+                List<String> prerequisites = resolvePrerequisites(prerequisiteIds);
+                if (prerequisites == null) {
+                    return Result.NOT_FOUND;
+                }
+                Result cycle = checkCycle(course, prerequisites);
+                if (cycle != Result.SUCCESS) {
+                    return cycle;
+                }
+                updated = updated.withPrerequisites(prerequisites);
+            }
+
+            journalCourse(updated);
+            if (prerequisiteIds != null) {
+                courses.setPrerequisites(course, updated);
+            } else {
+                courses.replace(course, updated);
+            }
+            if (schedule != null) {
+                scheduleListener.accept(course.getId());
+            }
+            events.publish(Event.course(Event.Type.COURSE_UPDATED, course.getId()));
+            ok = true;
+            output.println("Success: Course updated successfully!");
+            return Result.SUCCESS;
+        } finally {
+            UPDATE.record(start, ok);
+        }
+    }
+
+    /**
+     * Replaces a course's weekly meeting times.
+     * Students already enrolled keep their places even if the new times clash
+     * with their other courses; RegistrationManager.findTermConflicts reports them.
+     *
+     * @param id The course ID to update
+     * @param schedule The new meeting times; empty for none
+     * @return SUCCESS, NOT_FOUND for an unknown course, or INVALID for overlapping meeting times
+     */
+    public Result updateSchedule(String id, List<MeetingSlot> schedule) {
+        long start = UPDATE_SCHEDULE.start();
+        boolean ok = false;
+        try {
+            Course course = courses.findById(id);
+            if (course == null) {
+                output.println("Error: Course not found!");
+                return Result.NOT_FOUND;
+            }
+            Course updated;
+            try {
+                updated = course.withSchedule(schedule);
+            } catch (IllegalArgumentException e) {
+                if (output.isEnabled()) {
+                    output.println("Error: " + e.getMessage());
+                }
+                return Result.INVALID;
+            }
+            journalCourse(updated);
+            courses.replace(course, updated);
+            scheduleListener.accept(course.getId());
+            events.publish(Event.course(Event.Type.COURSE_UPDATED, course.getId()));
+            ok = true;
+            output.println("Success: Meeting times updated successfully!");
+            return Result.SUCCESS;
+        } finally {
+            UPDATE_SCHEDULE.record(start, ok);
+        }
+    }
+
+    /**
+     * Replaces a course's direct prerequisites.
+     * Rejects unknown courses and any prerequisite that already requires this
+     * course, directly or through others, since that would form a cycle.
+     * Students already enrolled keep their places.
+     *
+     * @param id The course ID to update
+     * @param prerequisiteIds The IDs of the courses to take first; empty for none
+     * @return SUCCESS, NOT_FOUND for an unknown course or prerequisite, or CONFLICT for a cycle
+     */
+    public Result setPrerequisites(String id, List<String> prerequisiteIds) {
+        long start = SET_PREREQUISITES.start();
+        boolean ok = false;
+        try {
+            Course course = courses.findById(id);
+            if (course == null) {
+                output.println("Error: Course not found!");
+                return Result.NOT_FOUND;
+            }
+            List<String> prerequisites = resolvePrerequisites(prerequisiteIds);
+            if (prerequisites == null) {
+                return Result.NOT_FOUND;
+            }
+            Result cycle = checkCycle(course, prerequisites);
+            if (cycle != Result.SUCCESS) {
+                return cycle;
+            }
+            Course updated = course.withPrerequisites(prerequisites);
+            journalCourse(updated);
+            courses.setPrerequisites(course, updated);
+            events.publish(Event.course(Event.Type.COURSE_UPDATED, course.getId()));
+            ok = true;
+            output.println("Success: Prerequisites updated successfully!");
+            return Result.SUCCESS;
+        } finally {
+            SET_PREREQUISITES.record(start, ok);
         }
+    }
+
+    /**
+     * Finds a prerequisite that would form a cycle if given to a course.
+     *
+     * @param id The course ID
+     * @param prerequisiteIds The IDs of the proposed direct prerequisites, all existing courses
+     * @return The ID of a prerequisite that already requires the course (or the course itself),
+     *         or null if the edit is safe
+     */
+    public String findPrerequisiteCycle(String id, List<String> prerequisiteIds) {
+        Course course = courses.findById(id);
+        return course == null ? null : courses.findPrerequisiteCycle(course, prerequisiteIds);
+    }
+
+    /**
+     * Lists every direct and indirect prerequisite of a course.
+     *
+     * @param id The course ID
+     * @return The prerequisite courses in ID order; empty if there are none or the course is unknown
+     */
+    public List<Course> getAllPrerequisites(String id) {
+        return courses.allPrerequisites(id);
+    }
 
-        course.setName(name);
-        course.setTeacher(teacher);
-        course.setDuration(duration);
-        course.setDescription(description);
-        System.out.println("Success: Course updated successfully!");
+    /**
+     * Checks whether a student has taken every direct and indirect prerequisite of a course.
+     * Uses cached closures, so the cost depends on the number of courses taken
+     * rather than on the depth of the curriculum.
+     *
+     * @param id The course ID
+     * @param takenIds The IDs of the courses the student has taken
+     * @return true if none are missing or the course is unknown, false otherwise
+     */
+    public boolean hasPrerequisites(String id, Collection<String> takenIds) {
+        return courses.hasPrerequisites(id, takenIds);
+    }
+
+    /**
+     * Finds the direct and indirect prerequisites of a course that a student has not taken.
+     *
+     * @param id The course ID
+     * @param takenIds The IDs of the courses the student has taken
+     * @return The missing prerequisite courses in ID order; empty if none are missing
+     */
+    public List<Course> findMissingPrerequisites(String id, Collection<String> takenIds) {
+        return courses.missingPrerequisites(id, takenIds);
     }
 
     /**
      * Removes a course from the system.
      *
      * @param id The course ID to remove
+     * @return SUCCESS, or NOT_FOUND for an unknown course
      */
-    public void removeCourse(String id) {
-        for (Course c : courses) {
-            if (c.getId().equalsIgnoreCase(id)) {
-                courses.remove(c);
-                System.out.println("Success: Course removed successfully!");
-                return;
+    public Result removeCourse(String id) {
+        long start = REMOVE.start();
+        Course removed = null;
+        try {
+            Course course = courses.findById(id);
+            if (course != null) {
+                List<Course> dependents = courses.dependentsWithout(course);
+                List<LogRecord> records = new ArrayList<>(dependents.size() + 1);
+                records.add(new LogRecord(LogRecord.Type.COURSE_DELETE, course.getId()));
+                for (Course dependent : dependents) {
+                    records.add(courseRecord(dependent));
+                }
+                journal.appendAll(records);
+                removed = courses.remove(id);
+                courses.unlinkPrerequisite(removed, dependents);
+                for (Course dependent : dependents) {
+                    events.publish(Event.course(Event.Type.COURSE_UPDATED, dependent.getId()));
+                }
+                removalListener.accept(Collections.singletonList(removed.getId()));
+                events.publish(Event.course(Event.Type.COURSE_REMOVED, removed.getId()));
+                output.println("Success: Course removed successfully!");
+                return Result.SUCCESS;
             }
+            output.println("Error: Course not found!");
+            return Result.NOT_FOUND;
+        } finally {
+            REMOVE.record(start, removed != null);
         }
-        System.out.println("Error: Course not found!");
+    }
+
+    /**
+     * Retrieves all courses in ID order.
+     * @return A read-only view of every course in the current catalog version
+     */
+    public Collection<Course> getAllCourses() {
+        return courses.values();
+    }
+
+    /**
+     * Gets the current catalog version, for readers that need several lookups
+     * or listings to agree with each other.
+     * @return The immutable snapshot; later changes publish new versions and leave it as it is
+     */
+    public CatalogSnapshot getSnapshot() {
+        return courses.snapshot();
+    }
+
+    /**
+     * Gets the current value of the course ID counter.
+     * @return The number used by the most recently generated course ID
+     */
+    public int getIdCounter() {
+        return courseCounter.get();
+    }
+
+    /**
+     * Moves the course ID counter forward so restored IDs are never reissued.
+     * @param value The highest number known to be in use
+     */
+    public void restoreIdCounter(int value) {
+        courseCounter.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Restores a previously persisted course without validation, output or journaling.
+     * Advances the ID counter past the restored ID.
+     *
+     * @param course The course to restore
+     */
+    public void restoreCourse(Course course) {
+        courses.restore(course);
+        courseCounter.accumulateAndGet(Ids.number(course.getId()), Math::max);
+    }
+
+    /**
+     * Resolves prerequisite IDs to the canonical IDs of existing courses, dropping repeats.
+     *
+     * @param ids The IDs as entered, in any case
+     * @return The canonical IDs, or null if one is unknown (an error has been printed)
+     */
+    private List<String> resolvePrerequisites(List<String> ids) {
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String id : ids) {
+            Course prerequisite = courses.findById(id);
+            if (prerequisite == null) {
+                if (output.isEnabled()) {
+                    output.println("Error: Prerequisite course not found: " + id + "!");
+                }
+                return null;
+            }
+            resolved.add(prerequisite.getId());
+        }
+        return new ArrayList<>(resolved);
+    }
+
+    /**
+     * Rejects prerequisites that would make a course depend on itself.
+     *
+     * @param course The course being edited
+     * @param prerequisites The canonical IDs of its proposed direct prerequisites
+     * @return SUCCESS, or CONFLICT for a cycle (an error has been printed)
+     */
+    private Result checkCycle(Course course, List<String> prerequisites) {
+        String cycle = courses.findPrerequisiteCycle(course, prerequisites);
+        if (cycle == null) {
+            return Result.SUCCESS;
+        }
+        if (output.isEnabled()) {
+            output.println(cycle.equals(course.getId())
+                    ? "Error: A course cannot be its own prerequisite!"
+                    : "Error: " + cycle + " already requires " + course.getId()
+                            + "; this would create a cycle!");
+        }
+        return Result.CONFLICT;
+    }
+
+    /**
+     * Appends the full state of a course to the journal.
+     * @param course The added or updated course
+     */
+    private void journalCourse(Course course) {
+        journal.append(courseRecord(course));
+    }
+
+    /**
+     * Builds the journal record holding the full state of a course.
+     *
+     * @param course The course
+     * @return The COURSE_PUT record
+     */
+    private static LogRecord courseRecord(Course course) {
+        return new LogRecord(LogRecord.Type.COURSE_PUT, course.getId(), course.getName(),
+                course.getTeacher(), course.getDuration(), course.getDescription(),
+                Integer.toString(course.getMaxSeats()), MeetingSlot.formatSchedule(course.getSchedule()),
+                String.join(",", course.getPrerequisites()));
     }
 }
@@ -0,0 +1,405 @@
+package course;
+
+import common.Ids;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over course names, teachers and descriptions.
+ *
+ * Text is split into lowercase words. The term dictionary is sorted, so a
+ * query word matches every term it is a prefix of with one range scan;
+ * this gives search-as-you-type. Each term holds a posting list of
+ * (document, weight) pairs. Every query word must match for a course to
+ * qualify (AND). Courses are ranked by summed weight: name words count
+ * more than teacher words, which count more than description words, and
+ * an exact word match counts double a prefix match.
+ *
+ * Courses are numbered with dense document IDs. Freed numbers are reused, so
+ * the per-thread scratch arrays a query works in stay as small as the
+ * catalog. Each document keeps its term list, so a course can be removed or
+ * re-indexed without its old text, and a query can check a candidate's
+ * terms directly. Not thread-safe; CourseManager serializes writers.
+ */
+class CourseSearchIndex {
+    static final int NAME_WEIGHT = 6;
+    static final int TEACHER_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+    private static final int AVERAGE_TERMS_PER_DOC = 16;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final HashMap<Course, Integer> docOf = new HashMap<>();
+    private Course[] docs = new Course[64];
+    private String[][] docTerms = new String[64][];
+    private int[][] docWeights = new int[64][];
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int docCount;
+
+    /**
+     * Posting list of one term: parallel arrays of document IDs and weights.
+     */
+    private static final class Postings {
+        private int[] docIds = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        void add(int doc, int weight) {
+            if (size == docIds.length) {
+                docIds = Arrays.copyOf(docIds, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docIds[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docIds[i] == doc) {
+                    size--;
+                    docIds[i] = docIds[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-thread work arrays indexed by document ID, reused across queries.
+     * Entries are valid only where their stamp matches the current pass, so
+     * the arrays never need clearing.
+     */
+    private static final class Scratch {
+        private int[] stamp = new int[0];
+        private int[] weight = new int[0];
+        private int[] seen = new int[0];
+        private int seenCount;
+        private int current;
+
+        Scratch ensure(int docCount) {
+            if (stamp.length < docCount) {
+                int size = Math.max(docCount, stamp.length * 2);
+                stamp = new int[size];
+                weight = new int[size];
+                seen = new int[size];
+                current = 0;
+            }
+            return this;
+        }
+
+        /**
+         * Sums each document's weight over the terms in a prefix range.
+         * The documents are also listed in seen, each once, in the order met.
+         *
+         * @param range The terms the query word is a prefix of
+         * @param wordLength The length of the query word, to spot exact matches
+         * @return The stamp marking the documents seen in this pass
+         */
+        int scanPostings(Collection<Map.Entry<String, Postings>> range, int wordLength) {
+            if (++current == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                current = 1;
+            }
+            seenCount = 0;
+            for (Map.Entry<String, Postings> e : range) {
+                int boost = e.getKey().length() == wordLength ? 2 : 1;
+                Postings p = e.getValue();
+                for (int i = 0; i < p.size; i++) {
+                    int doc = p.docIds[i];
+                    if (stamp[doc] != current) {
+                        stamp[doc] = current;
+                        weight[doc] = 0;
+                        seen[seenCount++] = doc;
+                    }
+                    weight[doc] += p.weights[i] * boost;
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Indexes a course.
+     * @param course The course to add
+     */
+    void add(Course course) {
+        Map<String, Integer> weights = new HashMap<>();
+        collect(weights, course.getName(), NAME_WEIGHT);
+        collect(weights, course.getTeacher(), TEACHER_WEIGHT);
+        collect(weights, course.getDescription(), DESCRIPTION_WEIGHT);
+
+        int doc = allocateDoc();
+        docs[doc] = course;
+        docOf.put(course, doc);
+        String[] indexed = new String[weights.size()];
+        int[] indexedWeights = new int[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue());
+            indexed[i] = e.getKey();
+            indexedWeights[i++] = e.getValue();
+        }
+        docTerms[doc] = indexed;
+        docWeights[doc] = indexedWeights;
+    }
+
+    /**
+     * Removes a course from the index.
+     * @param course The course to remove
+     */
+    void remove(Course course) {
+        Integer doc = docOf.remove(course);
+        if (doc == null) {
+            return;
+        }
+        for (String term : docTerms[doc]) {
+            Postings postings = terms.get(term);
+            postings.remove(doc);
+            if (postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        docs[doc] = null;
+        docTerms[doc] = null;
+        docWeights[doc] = null;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+    }
+
+    /**
+     * Replaces an indexed course with its edited copy.
+     * Text that is unchanged keeps its postings, so an edit to the meeting
+     * times or prerequisites only swaps the document's course.
+     *
+     * @param old The version currently indexed
+     * @param updated The edited copy
+     */
+    void replace(Course old, Course updated) {
+        Integer doc = Objects.equals(old.getName(), updated.getName())
+                && Objects.equals(old.getTeacher(), updated.getTeacher())
+                && Objects.equals(old.getDescription(), updated.getDescription()) ? docOf.remove(old) : null;
+        if (doc == null) {
+            remove(old);
+            add(updated);
+            return;
+        }
+        docs[doc] = updated;
+        docOf.put(updated, doc);
+    }
+
+    /**
+     * Finds the best-matching courses for a query.
+     * Words are evaluated from the most selective (fewest postings) to the
+     * least. The first word's postings seed the candidates. Each later word
+     * either scans its own postings or checks the candidates' term lists,
+     * whichever touches fewer entries.
+     *
+     * @param query Free text; each word matches course words it is a prefix of
+     * @param limit The maximum number of results
+     * @return The matching courses, best first, with ties in ID order
+     */
+    List<Course> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        int n = words.size();
+        List<Collection<Map.Entry<String, Postings>>> ranges = new ArrayList<>(n);
+        long[] costs = new long[n];
+        Integer[] byCost = new Integer[n];
+        for (int w = 0; w < n; w++) {
+            String word = words.get(w);
+            NavigableMap<String, Postings> range = terms.subMap(word, true, word + Character.MAX_VALUE, false);
+            if (range.isEmpty()) {
+                return Collections.emptyList();
+            }
+            ranges.add(range.entrySet());
+            for (Postings p : range.values()) {
+                costs[w] += p.size;
+            }
+            byCost[w] = w;
+        }
+        Arrays.sort(byCost, (a, b) -> Long.compare(costs[a], costs[b]));
+
+        Scratch scratch = SCRATCH.get().ensure(docCount);
+        int first = byCost[0];
+        scratch.scanPostings(ranges.get(first), words.get(first).length());
+        int count = scratch.seenCount;
+        int[] candidates = Arrays.copyOf(scratch.seen, count);
+        int[] scores = new int[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = scratch.weight[candidates[i]];
+        }
+
+        for (int k = 1; k < n && count > 0; k++) {
+            int w = byCost[k];
+            String word = words.get(w);
+            int kept = 0;
+            if (costs[w] < (long) count * AVERAGE_TERMS_PER_DOC) {
+                int stamp = scratch.scanPostings(ranges.get(w), word.length());
+                for (int i = 0; i < count; i++) {
+                    int doc = candidates[i];
+                    if (scratch.stamp[doc] == stamp) {
+                        candidates[kept] = doc;
+                        scores[kept++] = scores[i] + scratch.weight[doc];
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int doc = candidates[i];
+                    int weight = prefixWeight(doc, word);
+                    if (weight > 0) {
+                        candidates[kept] = doc;
+                        scores[kept++] = scores[i] + weight;
+                    }
+                }
+            }
+            count = kept;
+        }
+
+        return topK(candidates, scores, count, limit);
+    }
+
+    /**
+     * Selects the highest-scoring candidates with a bounded min-heap.
+     *
+     * @param candidates The matching documents
+     * @param scores Their scores, aligned with candidates
+     * @param count The number of valid entries
+     * @param limit The maximum number of results
+     * @return The best courses, best first
+     */
+    private List<Course> topK(int[] candidates, int[] scores, int count, int limit) {
+        // Heap of indexes into candidates, worst-ranked at the head
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, count) + 1,
+                (a, b) -> rank(scores[b], candidates[b], scores[a], candidates[a]));
+        for (int i = 0; i < count; i++) {
+            if (best.size() == limit) {
+                int worst = best.peek();
+                if (rank(scores[i], candidates[i], scores[worst], candidates[worst]) >= 0) {
+                    continue;
+                }
+                best.poll();
+            }
+            best.add(i);
+        }
+        Course[] results = new Course[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = docs[candidates[best.poll()]];
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Sums a document's weights for the terms a query word is a prefix of.
+     *
+     * @param doc The document
+     * @param word The query word
+     * @return The summed weight, exact matches doubled, or 0 if no term matches
+     */
+    private int prefixWeight(int doc, String word) {
+        String[] indexed = docTerms[doc];
+        int[] weights = docWeights[doc];
+        int total = 0;
+        for (int i = 0; i < indexed.length; i++) {
+            if (indexed[i].startsWith(word)) {
+                total += weights[i] * (indexed[i].length() == word.length() ? 2 : 1);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Ranks two documents: higher score first, then lower course ID.
+     *
+     * @param scoreA The first document's score
+     * @param docA The first document
+     * @param scoreB The second document's score
+     * @param docB The second document
+     * @return A negative number if A ranks ahead of B, positive if behind
+     */
+    private int rank(int scoreA, int docA, int scoreB, int docB) {
+        if (scoreA != scoreB) {
+            return Integer.compare(scoreB, scoreA);
+        }
+        return Ids.ORDER.compare(docs[docA].getId(), docs[docB].getId());
+    }
+
+    /**
+     * Gets the number of distinct indexed terms.
+     * @return The term dictionary size
+     */
+    int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Takes a free document ID, or the next new one.
+     * @return The document ID
+     */
+    private int allocateDoc() {
+        if (freeCount > 0) {
+            return freeDocs[--freeCount];
+        }
+        if (docCount == docs.length) {
+            docs = Arrays.copyOf(docs, docCount * 2);
+            docTerms = Arrays.copyOf(docTerms, docCount * 2);
+            docWeights = Arrays.copyOf(docWeights, docCount * 2);
+        }
+        return docCount++;
+    }
+
+    /**
+     * Adds a field's words to a course's term weights, keeping the highest weight per word.
+     *
+     * @param weights The term weights collected so far
+     * @param text The field text, possibly null
+     * @param weight The weight of this field
+     */
+    private static void collect(Map<String, Integer> weights, String text, int weight) {
+        for (String word : tokenize(text)) {
+            weights.merge(word, weight, Math::max);
+        }
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits.
+     *
+     * @param text The text, possibly null
+     * @return The words in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
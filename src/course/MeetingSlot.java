@@ -0,0 +1,204 @@
+package course;
+
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A weekly meeting time of a course, such as "Mon 09:00-10:30".
+ *
+ * Times are kept as minutes from the start of the week (Monday 00:00), so
+ * every slot is a half-open interval [start, end) on one number line and
+ * two slots clash exactly when their intervals overlap. A slot never
+ * crosses midnight.
+ */
+public final class MeetingSlot {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final Comparator<MeetingSlot> ORDER = Comparator.comparingInt(MeetingSlot::getStart);
+
+    private final int start;
+    private final int end;
+
+    /**
+     * Constructor to create a MeetingSlot.
+     *
+     * @param day The day of the week
+     * @param startMinute The start time in minutes after midnight
+     * @param endMinute The end time in minutes after midnight, after the start
+     */
+    public MeetingSlot(DayOfWeek day, int startMinute, int endMinute) {
+        if (startMinute < 0 || endMinute > MINUTES_PER_DAY || startMinute >= endMinute) {
+            throw new IllegalArgumentException("Invalid meeting time: " + startMinute + "-" + endMinute);
+        }
+        int dayStart = (day.getValue() - 1) * MINUTES_PER_DAY;
+        this.start = dayStart + startMinute;
+        this.end = dayStart + endMinute;
+    }
+
+    /**
+     * Gets the day of the week.
+     * @return The day
+     */
+    public DayOfWeek getDay() {
+        return DayOfWeek.of(start / MINUTES_PER_DAY + 1);
+    }
+
+    /**
+     * Gets the start as minutes from Monday 00:00.
+     * @return The inclusive start
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end as minutes from Monday 00:00.
+     * @return The exclusive end
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Checks whether two slots share any minute.
+     *
+     * @param other The other slot
+     * @return true if the slots overlap, false otherwise
+     */
+    public boolean overlaps(MeetingSlot other) {
+        return start < other.end && other.start < end;
+    }
+
+    /**
+     * Parses a schedule such as "Mon 09:00-10:30, Wed 09:00-10:30".
+     * Day names may be abbreviated to three letters and are not case-sensitive.
+     * The slots are returned in week order and may not overlap each other.
+     *
+     * @param text The schedule text; null or blank means no meeting times
+     * @return The slots, read-only
+     * @throws IllegalArgumentException If the text is malformed or two slots overlap
+     */
+    public static List<MeetingSlot> parseSchedule(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<MeetingSlot> slots = new ArrayList<>();
+        for (String part : text.split("[,;]")) {
+            if (!part.trim().isEmpty()) {
+                slots.add(parse(part.trim()));
+            }
+        }
+        return normalize(slots);
+    }
+
+    /**
+     * Sorts slots into week order and checks that none overlap.
+     *
+     * @param slots The slots
+     * @return The sorted slots, read-only
+     * @throws IllegalArgumentException If two slots overlap
+     */
+    public static List<MeetingSlot> normalize(List<MeetingSlot> slots) {
+        if (slots.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<MeetingSlot> sorted = new ArrayList<>(slots);
+        sorted.sort(ORDER);
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i - 1).overlaps(sorted.get(i))) {
+                throw new IllegalArgumentException("Meeting times overlap: " + sorted.get(i - 1)
+                        + " and " + sorted.get(i));
+            }
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Formats slots in the form parseSchedule reads.
+     *
+     * @param slots The slots
+     * @return The schedule text, or an empty string for no slots
+     */
+    public static String formatSchedule(List<MeetingSlot> slots) {
+        StringBuilder out = new StringBuilder();
+        for (MeetingSlot slot : slots) {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(slot);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Parses one slot such as "Mon 09:00-10:30".
+     *
+     * @param text The slot text
+     * @return The slot
+     * @throws IllegalArgumentException If the text is malformed
+     */
+    private static MeetingSlot parse(String text) {
+        String[] parts = text.split("\\s+");
+        String[] times = parts.length == 2 ? parts[1].split("-") : new String[0];
+        if (times.length != 2) {
+            throw new IllegalArgumentException("Expected a meeting time like \"Mon 09:00-10:30\" but found \""
+                    + text + "\"");
+        }
+        return new MeetingSlot(parseDay(parts[0]), parseTime(times[0]), parseTime(times[1]));
+    }
+
+    /**
+     * Parses a day name, full or abbreviated to three letters.
+     *
+     * @param text The day name
+     * @return The day
+     * @throws IllegalArgumentException If the name is not a day
+     */
+    private static DayOfWeek parseDay(String text) {
+        String name = text.toUpperCase(Locale.ROOT);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (name.length() >= 3 && day.name().startsWith(name)) {
+                return day;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day: " + text);
+    }
+
+    /**
+     * Parses a 24-hour time such as "09:00"; "24:00" means midnight at the end of the day.
+     *
+     * @param text The time
+     * @return Minutes after midnight
+     * @throws IllegalArgumentException If the text is not a time
+     */
+    private static int parseTime(String text) {
+        int colon = text.indexOf(':');
+        try {
+            int hours = Integer.parseInt(colon < 0 ? text : text.substring(0, colon));
+            int minutes = colon < 0 ? 0 : Integer.parseInt(text.substring(colon + 1));
+            if (hours >= 0 && minutes >= 0 && minutes < 60 && hours * 60 + minutes <= MINUTES_PER_DAY) {
+                return hours * 60 + minutes;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid time: " + text);
+    }
+
+    /**
+     * Returns the slot in the form "Mon 09:00-10:30".
+     * @return The formatted slot
+     */
+    @Override
+    public String toString() {
+        int from = start % MINUTES_PER_DAY;
+        int to = end - (start - from);
+        return String.format("%s %02d:%02d-%02d:%02d", getDay().getDisplayName(TextStyle.SHORT, Locale.ENGLISH),
+                from / 60, from % 60, to / 60, to % 60);
+    }
+}
@@ -0,0 +1,317 @@
+package course;
+
+import common.IdDictionary;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The prerequisite DAG of the catalog, keyed by normalized course ID.
+ *
+ * Each course maps to the ordinals of its direct prerequisites, and a
+ * reverse index maps each course to the courses that list it. The
+ * transitive closure of a course is a BitSet of prerequisite ordinals,
+ * built on first use from the closures of its direct prerequisites and
+ * cached, so an enrollment check is one map lookup plus a bit test per
+ * course the student holds, however deep the curriculum is. An edit
+ * evicts the closures of the edited course and everything that depends
+ * on it, walking the reverse index only as far as closures are cached.
+ * Cycle checks use the same closures: a course may not require any
+ * course that already requires it.
+ *
+ * Edits must not run concurrently with checks; checks may run concurrently
+ * with each other.
+ */
+class PrerequisiteGraph {
+    private static final int[] NONE = new int[0];
+    private static final Closure EMPTY = new Closure(new BitSet());
+
+    private final IdDictionary ordinals = new IdDictionary();
+    private final ConcurrentHashMap<Integer, int[]> prerequisites = new ConcurrentHashMap<>();
+    private final HashMap<Integer, Set<Integer>> dependents = new HashMap<>();
+    private final ConcurrentHashMap<Integer, Closure> closures = new ConcurrentHashMap<>();
+
+    /**
+     * Finds a prerequisite that would close a cycle through a course.
+     *
+     * @param key The normalized course ID
+     * @param prerequisiteKeys The normalized IDs of its proposed direct prerequisites
+     * @return The first offending prerequisite key, or null if the edit keeps the graph acyclic
+     */
+    String findCycle(String key, Collection<String> prerequisiteKeys) {
+        int course = ordinals.lookup(key);
+        for (String prerequisiteKey : prerequisiteKeys) {
+            if (prerequisiteKey.equals(key)) {
+                return prerequisiteKey;
+            }
+            int prerequisite = ordinals.lookup(prerequisiteKey);
+            if (course >= 0 && prerequisite >= 0 && closure(prerequisite).members.get(course)) {
+                return prerequisiteKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the direct prerequisites of a course.
+     * The caller is responsible for the cycle check.
+     *
+     * @param key The normalized course ID
+     * @param prerequisiteKeys The normalized IDs of its direct prerequisites
+     */
+    void set(String key, Collection<String> prerequisiteKeys) {
+        int course = ordinals.encode(key);
+        int[] old = prerequisites.getOrDefault(course, NONE);
+        if (old.length == 0 && prerequisiteKeys.isEmpty()) {
+            return;
+        }
+        for (int prerequisite : old) {
+            unlink(prerequisite, course);
+        }
+        int[] edges = new int[prerequisiteKeys.size()];
+        int count = 0;
+        for (String prerequisiteKey : prerequisiteKeys) {
+            int prerequisite = ordinals.encode(prerequisiteKey);
+            if (dependents.computeIfAbsent(prerequisite, p -> new HashSet<>()).add(course)) {
+                edges[count++] = prerequisite;
+            }
+        }
+        if (count == 0) {
+            prerequisites.remove(course);
+        } else {
+            prerequisites.put(course, count == edges.length ? edges : Arrays.copyOf(edges, count));
+        }
+        invalidate(course);
+    }
+
+    /**
+     * Lists the courses that require a course directly.
+     *
+     * @param key The normalized course ID
+     * @return The normalized IDs of the courses that list it as a direct prerequisite
+     */
+    List<String> dependents(String key) {
+        int course = ordinals.lookup(key);
+        Set<Integer> direct = course < 0 ? null : dependents.get(course);
+        if (direct == null) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>(direct.size());
+        for (int dependent : direct) {
+            keys.add(ordinals.decode(dependent));
+        }
+        return keys;
+    }
+
+    /**
+     * Removes a course and every edge into or out of it.
+     *
+     * @param key The normalized course ID
+     * @return The normalized IDs of the courses that listed it as a direct prerequisite
+     */
+    List<String> remove(String key) {
+        int course = ordinals.lookup(key);
+        if (course < 0) {
+            return Collections.emptyList();
+        }
+        invalidate(course);
+        for (int prerequisite : prerequisites.getOrDefault(course, NONE)) {
+            unlink(prerequisite, course);
+        }
+        prerequisites.remove(course);
+        Set<Integer> direct = dependents.remove(course);
+        if (direct == null) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>(direct.size());
+        for (int dependent : direct) {
+            int[] edges = prerequisites.get(dependent);
+            int[] kept = new int[edges.length - 1];
+            int count = 0;
+            for (int edge : edges) {
+                if (edge != course) {
+                    kept[count++] = edge;
+                }
+            }
+            if (kept.length == 0) {
+                prerequisites.remove(dependent);
+            } else {
+                prerequisites.put(dependent, kept);
+            }
+            keys.add(ordinals.decode(dependent));
+        }
+        return keys;
+    }
+
+    /**
+     * Lists every direct and indirect prerequisite of a course.
+     *
+     * @param key The normalized course ID
+     * @return The normalized prerequisite IDs, in no particular order
+     */
+    List<String> allPrerequisites(String key) {
+        int course = ordinals.lookup(key);
+        if (course < 0) {
+            return Collections.emptyList();
+        }
+        BitSet closure = closure(course).members;
+        List<String> keys = new ArrayList<>(closure.cardinality());
+        for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+            keys.add(ordinals.decode(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Checks whether a set of taken courses covers every prerequisite of a course.
+     * Runs in time proportional to the number of courses taken, not the size of the closure.
+     *
+     * @param key The normalized course ID
+     * @param takenKeys The normalized IDs of the courses the student has taken
+     * @return true if nothing is missing, false otherwise
+     */
+    boolean satisfied(String key, Collection<String> takenKeys) {
+        int course = ordinals.lookup(key);
+        if (course < 0 || !prerequisites.containsKey(course)) {
+            return true;
+        }
+        Closure closure = closure(course);
+        int found = 0;
+        for (String takenKey : takenKeys) {
+            int taken = ordinals.lookup(takenKey);
+            if (taken >= 0 && closure.members.get(taken)) {
+                found++;
+            }
+        }
+        return found == closure.size;
+    }
+
+    /**
+     * Finds the prerequisites of a course that a student has not taken.
+     *
+     * @param key The normalized course ID
+     * @param takenKeys The normalized IDs of the courses the student has taken
+     * @return The normalized IDs of the missing prerequisites; empty if none are missing
+     */
+    List<String> missing(String key, Collection<String> takenKeys) {
+        if (satisfied(key, takenKeys)) {
+            return Collections.emptyList();
+        }
+        BitSet gaps = (BitSet) closure(ordinals.lookup(key)).members.clone();
+        for (String takenKey : takenKeys) {
+            int taken = ordinals.lookup(takenKey);
+            if (taken >= 0) {
+                gaps.clear(taken);
+            }
+        }
+        List<String> keys = new ArrayList<>(gaps.cardinality());
+        for (int i = gaps.nextSetBit(0); i >= 0; i = gaps.nextSetBit(i + 1)) {
+            keys.add(ordinals.decode(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the cached closure of a course, building any that are missing.
+     * Walks the graph with an explicit stack so deep chains cannot overflow
+     * the call stack; a course is built once all its prerequisites are.
+     *
+     * @param course The course ordinal
+     * @return The closure
+     */
+    private Closure closure(int course) {
+        Closure cached = closures.get(course);
+        if (cached != null) {
+            return cached;
+        }
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        pending.push(course);
+        while (!pending.isEmpty()) {
+            int next = pending.peek();
+            if (closures.containsKey(next)) {
+                pending.pop();
+                continue;
+            }
+            int[] edges = prerequisites.getOrDefault(next, NONE);
+            boolean ready = true;
+            for (int prerequisite : edges) {
+                if (!closures.containsKey(prerequisite)) {
+                    pending.push(prerequisite);
+                    ready = false;
+                }
+            }
+            if (ready) {
+                pending.pop();
+                BitSet members = new BitSet();
+                for (int prerequisite : edges) {
+                    members.set(prerequisite);
+                    members.or(closures.get(prerequisite).members);
+                }
+                closures.put(next, edges.length == 0 ? EMPTY : new Closure(members));
+            }
+        }
+        return closures.get(course);
+    }
+
+    /**
+     * Evicts the cached closures of a course and of everything that depends on it.
+     * A closure is only ever cached after those of its prerequisites, so the
+     * walk can stop at any course whose closure is not cached.
+     *
+     * @param course The edited course ordinal
+     */
+    private void invalidate(int course) {
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        pending.push(course);
+        closures.remove(course);
+        while (!pending.isEmpty()) {
+            for (int dependent : dependents.getOrDefault(pending.pop(), Collections.emptySet())) {
+                if (closures.remove(dependent) != null) {
+                    pending.push(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops one entry from the reverse index.
+     *
+     * @param prerequisite The prerequisite ordinal
+     * @param dependent The ordinal of the course that listed it
+     */
+    private void unlink(int prerequisite, int dependent) {
+        Set<Integer> set = dependents.get(prerequisite);
+        if (set != null) {
+            set.remove(dependent);
+            if (set.isEmpty()) {
+                dependents.remove(prerequisite);
+            }
+        }
+    }
+
+    /**
+     * The direct and indirect prerequisites of one course, never modified once built.
+     */
+    private static final class Closure {
+        final BitSet members;
+        final int size;
+
+        /**
+         * Constructor to create a Closure.
+         * @param members The prerequisite ordinals
+         */
+        Closure(BitSet members) {
+            this.members = members;
+            this.size = members.cardinality();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package events;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * EventBus subscriber that appends every event to a text audit log, one
+ * line per event. Each batch is written and flushed together, so the cost
+ * of a write falls on the subscriber thread, once per batch.
+ */
+public class AuditTrail implements Consumer<List<Event>>, AutoCloseable {
+    private final BufferedWriter out;
+
+    /**
+     * Opens an audit log for appending, creating it and its directory if needed.
+     *
+     * @param file The log file, such as data/audit.log
+     * @throws IOException If the file cannot be opened
+     */
+    public AuditTrail(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Writes a batch of events.
+     *
+     * @param batch The events, in publication order
+     * @throws UncheckedIOException If the log cannot be written
+     */
+    @Override
+    public void accept(List<Event> batch) {
+        try {
+            for (Event event : batch) {
+                out.write(event.toString());
+                out.newLine();
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the log file.
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,125 @@
+package events;
+
+import java.time.Instant;
+
+/**
+ * A change made by one of the managers, published to the EventBus once it
+ * has been applied.
+ * Each event carries the IDs its type concerns; the others are null.
+ */
+public final class Event {
+    /**
+     * What changed.
+     */
+    public enum Type {
+        STUDENT_ADDED, STUDENT_UPDATED, STUDENT_REMOVED,
+        COURSE_ADDED, COURSE_UPDATED, COURSE_REMOVED,
+        REGISTRATION_ADDED, REGISTRATION_REMOVED,
+        WAITLIST_JOINED, WAITLIST_PROMOTED
+    }
+
+    private final Type type;
+    private final long timestamp;
+    private final String studentId;
+    private final String courseId;
+    private final String registrationId;
+
+    /**
+     * Constructor to create an Event stamped with the current time.
+     *
+     * @param type What changed
+     * @param studentId The student concerned, or null
+     * @param courseId The course concerned, or null
+     * @param registrationId The registration concerned, or null
+     */
+    public Event(Type type, String studentId, String courseId, String registrationId) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.registrationId = registrationId;
+    }
+
+    /**
+     * Creates an event about a student.
+     *
+     * @param type A STUDENT_ type
+     * @param studentId The student ID
+     * @return The event
+     */
+    public static Event student(Type type, String studentId) {
+        return new Event(type, studentId, null, null);
+    }
+
+    /**
+     * Creates an event about a course.
+     *
+     * @param type A COURSE_ type
+     * @param courseId The course ID
+     * @return The event
+     */
+    public static Event course(Type type, String courseId) {
+        return new Event(type, null, courseId, null);
+    }
+
+    /**
+     * Gets what changed.
+     * @return The event type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets when the event was created.
+     * @return Milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the student concerned.
+     * @return The student ID, or null
+     */
+    public String getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * Gets the course concerned.
+     * @return The course ID, or null
+     */
+    public String getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Gets the registration concerned.
+     * @return The registration ID, or null
+     */
+    public String getRegistrationId() {
+        return registrationId;
+    }
+
+    /**
+     * Returns the event as one line, such as
+     * "2025-01-31T09:00:00Z REGISTRATION_ADDED student=S-2025-001 course=C-1001 registration=R-0001".
+     * @return The formatted event
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(96);
+        out.append(Instant.ofEpochMilli(timestamp)).append(' ').append(type);
+        if (studentId != null) {
+            out.append(" student=").append(studentId);
+        }
+        if (courseId != null) {
+            out.append(" course=").append(courseId);
+        }
+        if (registrationId != null) {
+            out.append(" registration=").append(registrationId);
+        }
+        return out.toString();
+    }
+}
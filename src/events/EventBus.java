@@ -0,0 +1,266 @@
+package events;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+import metrics.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * In-process event bus backed by one bounded ring buffer.
+ *
+ * Publishers claim the next sequence number with a single atomic increment,
+ * store the event in the slot it maps to and mark the slot with the
+ * sequence, so publishing takes no lock and allocates nothing beyond the
+ * event. Every subscriber runs on its own daemon thread with its own read
+ * cursor, takes whatever run of marked slots is ready (up to its batch
+ * size) and hands it to its handler as one list, so a slow subscriber
+ * falls behind in larger batches instead of slowing the others. A
+ * subscriber with nothing to read first lingers, polling once a
+ * millisecond so events pile up into batches without publishers having
+ * to wake it; only after a quiet spell does it park until the next
+ * publisher unparks it.
+ *
+ * A slot is only reused once every subscriber has read it. If the slowest
+ * subscriber is a whole ring behind, publishers wait for it rather than
+ * drop events; the waits are counted in events.backpressure. A publisher
+ * still waiting when the bus closes gives up rather than overwrite an
+ * unread event, and the event is counted in events.rejected. Handlers
+ * must not call back into the managers, whose threads may be the ones
+ * waiting.
+ */
+public class EventBus implements EventSink, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int LINGER_ROUNDS = 10;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private static final Counter PUBLISHED = Metrics.counter("events.published");
+    private static final Counter BACKPRESSURE = Metrics.counter("events.backpressure");
+    private static final Counter REJECTED = Metrics.counter("events.rejected");
+
+    private final Event[] ring;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Constructor to create an EventBus with the default capacity.
+     */
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create an EventBus.
+     *
+     * @param capacity The number of ring slots, a power of two
+     */
+    public EventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.ring = new Event[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Starts a subscriber on its own thread. It receives the events published
+     * from now on, in publication order, in batches of at most maxBatch.
+     * Exceptions thrown by the handler are counted and the batch is skipped.
+     *
+     * @param name A short name for the thread and metrics, such as "audit"
+     * @param maxBatch The largest batch to deliver at once
+     * @param handler Receives each batch; the list is only valid during the call
+     */
+    public void subscribe(String name, int maxBatch, Consumer<List<Event>> handler) {
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        Subscriber subscriber = new Subscriber(name, maxBatch, handler, next.get());
+        subscribers.add(subscriber);
+        subscriber.thread.start();
+    }
+
+    /**
+     * Publishes an event to every subscriber. Returns as soon as the event
+     * is in the ring, waiting only if the ring is full. Events published
+     * with no subscribers, or after close, are discarded, as is an event
+     * still waiting for room when the bus closes.
+     *
+     * @param event The event
+     */
+    @Override
+    public void publish(Event event) {
+        if (closed || subscribers.isEmpty()) {
+            return;
+        }
+        long sequence = next.getAndIncrement();
+        long wrap = sequence - ring.length;
+        if (wrap >= slowestCursor()) {
+            BACKPRESSURE.increment();
+            while (wrap >= slowestCursor()) {
+                if (closed) {
+                    // The slot still holds an event some subscriber has not read
+                    REJECTED.increment();
+                    return;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+        int slot = (int) (sequence & mask);
+        ring[slot] = event;
+        published.set(slot, sequence);
+        PUBLISHED.increment();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sleeping) {
+                LockSupport.unpark(subscriber.thread);
+            }
+        }
+    }
+
+    /**
+     * Gets how far the slowest subscriber is behind the publishers.
+     * @return The number of published events not yet handled by every subscriber
+     */
+    public long getLag() {
+        return subscribers.isEmpty() ? 0 : next.get() - slowestCursor();
+    }
+
+    /**
+     * Stops accepting events, lets every subscriber finish what is in the
+     * ring, and waits for their threads to exit.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            LockSupport.unpark(subscriber.thread);
+        }
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.thread.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the read cursor of the subscriber furthest behind.
+     * @return The lowest sequence not yet handled by every subscriber
+     */
+    private long slowestCursor() {
+        long slowest = Long.MAX_VALUE;
+        for (Subscriber subscriber : subscribers) {
+            slowest = Math.min(slowest, subscriber.cursor.get());
+        }
+        return slowest;
+    }
+
+    /**
+     * One subscriber's thread, cursor and handler.
+     */
+    private final class Subscriber implements Runnable {
+        final Thread thread;
+        final AtomicLong cursor;
+        volatile boolean sleeping;
+
+        private final int maxBatch;
+        private final Consumer<List<Event>> handler;
+        private final Operation deliver;
+        private final Histogram batchSize;
+
+        /**
+         * Constructor to create a Subscriber.
+         *
+         * @param name The subscriber name
+         * @param maxBatch The largest batch to deliver at once
+         * @param handler Receives each batch
+         * @param start The first sequence to read
+         */
+        Subscriber(String name, int maxBatch, Consumer<List<Event>> handler, long start) {
+            this.maxBatch = maxBatch;
+            this.handler = handler;
+            this.cursor = new AtomicLong(start);
+            this.deliver = Metrics.operation("events." + name);
+            this.batchSize = Metrics.histogram("events." + name + ".batchSize");
+            this.thread = new Thread(this, "events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Delivers batches until the bus is closed and nothing is left to read.
+         */
+        @Override
+        public void run() {
+            List<Event> batch = new ArrayList<>(maxBatch);
+            int idleRounds = 0;
+            int closingRounds = 0;
+            while (true) {
+                long from = cursor.get();
+                long sequence = from;
+                while (batch.size() < maxBatch && published.get((int) (sequence & mask)) == sequence) {
+                    batch.add(ring[(int) (sequence & mask)]);
+                    sequence++;
+                }
+                if (!batch.isEmpty()) {
+                    long start = deliver.start();
+                    boolean ok = false;
+                    try {
+                        handler.accept(batch);
+                        ok = true;
+                    } catch (RuntimeException e) {
+                        // Counted as a failure; one bad batch must not stop the subscriber
+                    } finally {
+                        deliver.record(start, ok);
+                    }
+                    batchSize.record(batch.size());
+                    batch.clear();
+                    cursor.set(sequence);
+                    idleRounds = 0;
+                    closingRounds = 0;
+                    continue;
+                }
+                if (closed) {
+                    // Give publishers caught mid-write a few rounds; a sequence that stays empty
+                    // belongs to a publisher that gave up when the bus closed
+                    if (from >= next.get() || closingRounds++ >= LINGER_ROUNDS) {
+                        return;
+                    }
+                    LockSupport.parkNanos(LINGER_NANOS);
+                    continue;
+                }
+                if (idleRounds < LINGER_ROUNDS) {
+                    idleRounds++;
+                    LockSupport.parkNanos(LINGER_NANOS);
+                    continue;
+                }
+                sleeping = true;
+                if (published.get((int) (from & mask)) != from && !closed) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+    }
+}
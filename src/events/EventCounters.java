@@ -0,0 +1,46 @@
+package events;
+
+import metrics.Counter;
+import metrics.Metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * EventBus subscriber that counts events by type into the Metrics registry,
+ * as events.&lt;type&gt; counters such as events.registration_added. Counts
+ * are summed per batch so each counter is touched at most once per batch.
+ */
+public class EventCounters implements Consumer<List<Event>> {
+    private static final Event.Type[] TYPES = Event.Type.values();
+
+    private final Counter[] counters = new Counter[TYPES.length];
+    private final long[] pending = new long[TYPES.length];
+
+    /**
+     * Constructor to create EventCounters, registering one counter per event type.
+     */
+    public EventCounters() {
+        for (Event.Type type : TYPES) {
+            counters[type.ordinal()] = Metrics.counter("events." + type.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Counts a batch of events.
+     * @param batch The events
+     */
+    @Override
+    public void accept(List<Event> batch) {
+        for (Event event : batch) {
+            pending[event.getType().ordinal()]++;
+        }
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] > 0) {
+                counters[i].add(pending[i]);
+                pending[i] = 0;
+            }
+        }
+    }
+}
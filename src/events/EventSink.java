@@ -0,0 +1,21 @@
+package events;
+
+/**
+ * Destination for the events published by the managers.
+ * A manager publishes after each successful change; publishing must be
+ * cheap, so side effects run elsewhere.
+ */
+public interface EventSink {
+
+    /**
+     * A sink that discards every event, used when nothing subscribes.
+     */
+    EventSink NONE = event -> { };
+
+    /**
+     * Publishes an event.
+     *
+     * @param event The change that was made
+     */
+    void publish(Event event);
+}
@@ -0,0 +1,79 @@
+package events;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * EventBus subscriber that keeps an inbox of notices for each student about
+ * changes made on their behalf: a waitlisted seat coming through and a
+ * registration being removed. Each inbox keeps only its most recent notices
+ * and is dropped when the student is removed.
+ */
+public class Notifications implements Consumer<List<Event>> {
+    public static final int INBOX_SIZE = 20;
+
+    private final ConcurrentHashMap<String, ArrayDeque<String>> inboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Files a notice for every event in a batch that concerns a student.
+     * @param batch The events
+     */
+    @Override
+    public void accept(List<Event> batch) {
+        for (Event event : batch) {
+            if (event.getType() == Event.Type.STUDENT_REMOVED) {
+                inboxes.remove(event.getStudentId());
+                continue;
+            }
+            String notice = notice(event);
+            if (notice != null) {
+                String line = Instant.ofEpochMilli(event.getTimestamp()) + " " + notice;
+                // compute runs atomically with take's remove, so no notice is added to a taken inbox
+                inboxes.compute(event.getStudentId(), (id, inbox) -> {
+                    ArrayDeque<String> notices = inbox == null ? new ArrayDeque<>() : inbox;
+                    if (notices.size() == INBOX_SIZE) {
+                        notices.removeFirst();
+                    }
+                    notices.addLast(line);
+                    return notices;
+                });
+            }
+        }
+    }
+
+    /**
+     * Takes and clears a student's unread notices.
+     *
+     * @param studentId The ID of the student
+     * @return The notices, oldest first; empty if there are none
+     */
+    public List<String> take(String studentId) {
+        ArrayDeque<String> inbox = studentId == null ? null : inboxes.remove(studentId);
+        return inbox == null ? Collections.emptyList() : new ArrayList<>(inbox);
+    }
+
+    /**
+     * Words the notice for an event.
+     *
+     * @param event The event
+     * @return The notice, or null if the event does not need one
+     */
+    private static String notice(Event event) {
+        switch (event.getType()) {
+            case WAITLIST_PROMOTED:
+                return "A seat opened in course " + event.getCourseId()
+                        + " and you have been enrolled from the waitlist. Registration ID: "
+                        + event.getRegistrationId();
+            case REGISTRATION_REMOVED:
+                return "Your registration " + event.getRegistrationId() + " for course " + event.getCourseId()
+                        + " was removed.";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package importer;
+
+import common.PasswordHasher;
+import course.Course;
+import course.CourseManager;
+import course.MeetingSlot;
+import registration.EnrollmentResult;
+import registration.RegistrationManager;
+import student.Student;
+import student.StudentManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams large CSV files of students, courses or registrations into the managers.
+ *
+ * Lines are read in chunks; each chunk is parsed and checked against the
+ * stateless rules (field count, email and password format, numbers) on a
+ * worker pool. Chunks are then consumed in file order on the calling thread,
+ * which applies the stateful duplicate checks and inserts accepted rows in
+ * batches through the managers' import methods, so nothing is printed per row
+ * and each batch costs one durable journal write. At most a few chunks are in
+ * flight at once, so memory stays bounded regardless of file size.
+ *
+ * Expected formats (a header line is optional and skipped):
+ * students: name,email,password
+ * courses: name,teacher,duration,description[,maxSeats[,schedule]], with the schedule quoted
+ *          when it lists several meeting times, e.g. "Mon 09:00-10:30, Wed 09:00-10:30"
+ * registrations: studentId,courseId
+ *
+ * Must be called from the thread that makes student, course and admin changes.
+ */
+public class BulkImporter implements AutoCloseable {
+    private static final int CHUNK_LINES = 8192;
+
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final RegistrationManager registrationManager;
+    private final ExecutorService pool;
+    private final int maxInFlight;
+
+    /**
+     * Constructor to create a new BulkImporter.
+     *
+     * @param studentManager The student store to import into
+     * @param courseManager The course store to import into
+     * @param registrationManager The registration store to import into
+     */
+    public BulkImporter(StudentManager studentManager, CourseManager courseManager,
+                        RegistrationManager registrationManager) {
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.registrationManager = registrationManager;
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "csv-import");
+            t.setDaemon(true);
+            return t;
+        });
+        this.maxInFlight = threads * 2;
+    }
+
+    /**
+     * Imports students. IDs are generated in file order and passwords are hashed in parallel.
+     * Rows are rejected for a bad field count, an empty name, an invalid email
+     * or password, or an email already used by an existing or earlier row.
+     *
+     * @param file The CSV file
+     * @return The import report
+     * @throws IOException If the file cannot be read
+     */
+    public ImportReport importStudents(Path file) throws IOException {
+        Set<String> emails = new HashSet<>();
+        for (Student s : studentManager.getAllStudents()) {
+            emails.add(s.getEmail().toLowerCase(Locale.ROOT));
+        }
+        return run(file, "students", "name", fields -> {
+            if (fields.length != 3) {
+                return "Expected 3 fields (name,email,password) but found " + fields.length;
+            }
+            if (fields[0].isEmpty()) {
+                return "Name is empty";
+            }
+            if (!StudentManager.isValidEmail(fields[1])) {
+                return "Invalid email format";
+            }
+            if (!StudentManager.isValidPassword(fields[2])) {
+                return "Password must be at least 6 characters long";
+            }
+            // Hashing dominates the import cost, so it runs here on the worker pool
+            fields[2] = PasswordHasher.hash(fields[2]);
+            return null;
+        }, (rows, report) -> {
+            List<Student> batch = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                if (!emails.add(row.fields[1].toLowerCase(Locale.ROOT))) {
+                    report.reject(row.lineNumber, row.line, "Student with this email already exists");
+                    continue;
+                }
+                batch.add(new Student(studentManager.generateStudentId(), row.fields[0], row.fields[1],
+                        row.fields[2]));
+            }
+            studentManager.importStudents(batch);
+            report.addAccepted(batch.size());
+        });
+    }
+
+    /**
+     * Imports courses. IDs are generated in file order.
+     * Rows are rejected for a bad field count, an empty name, a negative or
+     * non-numeric seat limit, malformed meeting times, or a name already used
+     * by an existing or earlier row.
+     *
+     * @param file The CSV file
+     * @return The import report
+     * @throws IOException If the file cannot be read
+     */
+    public ImportReport importCourses(Path file) throws IOException {
+        Set<String> names = new HashSet<>();
+        return run(file, "courses", "name", fields -> {
+            if (fields.length < 4 || fields.length > 6) {
+                return "Expected 4 to 6 fields (name,teacher,duration,description[,maxSeats[,schedule]]) but found "
+                        + fields.length;
+            }
+            if (fields[0].isEmpty()) {
+                return "Name is empty";
+            }
+            if (fields.length >= 5 && !fields[4].isEmpty()) {
+                try {
+                    if (Integer.parseInt(fields[4]) < 0) {
+                        return "Max seats cannot be negative";
+                    }
+                } catch (NumberFormatException e) {
+                    return "Max seats is not a number";
+                }
+            }
+            if (fields.length == 6) {
+                try {
+                    MeetingSlot.parseSchedule(fields[5]);
+                } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                }
+            }
+            return null;
+        }, (rows, report) -> {
+            List<Course> batch = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                String[] f = row.fields;
+                if (courseManager.getCourseByName(f[0]) != null || !names.add(f[0].toLowerCase(Locale.ROOT))) {
+                    report.reject(row.lineNumber, row.line, "Course with this name already exists");
+                    continue;
+                }
+                int maxSeats = f.length >= 5 && !f[4].isEmpty() ? Integer.parseInt(f[4]) : 0;
+                List<MeetingSlot> schedule = f.length == 6
+                        ? MeetingSlot.parseSchedule(f[5]) : Collections.<MeetingSlot>emptyList();
+                batch.add(new Course(courseManager.generateCourseId(), f[0], f[1], f[2], f[3], maxSeats,
+                        schedule, Collections.<String>emptyList()));
+            }
+            courseManager.importCourses(batch);
+            report.addAccepted(batch.size());
+        });
+    }
+
+    /**
+     * Imports registrations, applying seat limits as interactive enrollment does.
+     * Rows are rejected for a bad field count, an unknown student or course,
+     * or an existing or repeated enrollment. Rows for a full course put the
+     * student on its waitlist and are reported as rejected.
+     *
+     * @param file The CSV file
+     * @return The import report
+     * @throws IOException If the file cannot be read
+     */
+    public ImportReport importRegistrations(Path file) throws IOException {
+        Set<String> students = new HashSet<>();
+        for (Student s : studentManager.getAllStudents()) {
+            students.add(s.getId());
+        }
+        return run(file, "registrations", "studentId", fields -> {
+            if (fields.length != 2) {
+                return "Expected 2 fields (studentId,courseId) but found " + fields.length;
+            }
+            if (fields[0].isEmpty() || fields[1].isEmpty()) {
+                return "Student ID and course ID are required";
+            }
+            return null;
+        }, (rows, report) -> {
+            List<Row> candidates = new ArrayList<>(rows.size());
+            List<String[]> pairs = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                if (!students.contains(row.fields[0])) {
+                    report.reject(row.lineNumber, row.line, "Student not found");
+                    continue;
+                }
+                candidates.add(row);
+                pairs.add(new String[] {row.fields[0], row.fields[1]});
+            }
+            // Course lookups, duplicate checks and seat claims happen in one pass inside enrollAll
+            List<EnrollmentResult> results = registrationManager.enrollAll(pairs);
+            int accepted = 0;
+            for (int i = 0; i < results.size(); i++) {
+                EnrollmentResult result = results.get(i);
+                if (result.isEnrolled()) {
+                    accepted++;
+                    continue;
+                }
+                Row row = candidates.get(i);
+                String reason = result.getStatus() == EnrollmentResult.Status.DUPLICATE
+                        ? EnrollmentResult.Status.ALREADY_ENROLLED.getMessage() : result.getStatus().getMessage();
+                report.reject(row.lineNumber, row.line, reason);
+            }
+            report.addAccepted(accepted);
+        });
+    }
+
+    /**
+     * Shuts down the parser pool.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Reads a file in chunks, validates chunks in parallel and hands them to the sink in file order.
+     *
+     * @param file The CSV file
+     * @param entity The kind of rows, for the report
+     * @param headerField The first column name that marks a header line
+     * @param validator The stateless row check
+     * @param sink Applies the stateful checks and inserts the valid rows of one chunk
+     * @return The import report
+     * @throws IOException If the file cannot be read
+     */
+    private ImportReport run(Path file, String entity, String headerField, Validator validator, Sink sink)
+            throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport(entity, file);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            long firstLine = 1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && isHeader(line, headerField)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    submit(inFlight, lines, firstLine, validator);
+                    firstLine = lineNumber + 1;
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    while (inFlight.size() >= maxInFlight) {
+                        drain(inFlight.poll(), sink, report);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(inFlight, lines, firstLine, validator);
+            }
+            while (!inFlight.isEmpty()) {
+                drain(inFlight.poll(), sink, report);
+            }
+        } finally {
+            for (Future<Chunk> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+        report.finish((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Queues one chunk of lines for parsing and validation.
+     *
+     * @param inFlight The queue of chunks awaiting the sink
+     * @param lines The raw lines
+     * @param firstLine The line number of the first line
+     * @param validator The stateless row check
+     */
+    private void submit(ArrayDeque<Future<Chunk>> inFlight, List<String> lines, long firstLine, Validator validator) {
+        inFlight.add(pool.submit(() -> parse(lines, firstLine, validator)));
+    }
+
+    /**
+     * Waits for a parsed chunk, records its invalid rows and passes the valid ones to the sink.
+     *
+     * @param future The parsed chunk
+     * @param sink Inserts the valid rows
+     * @param report The report to update
+     * @throws IOException If parsing failed
+     */
+    private static void drain(Future<Chunk> future, Sink sink, ImportReport report) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse CSV: " + e.getCause(), e.getCause());
+        }
+        for (Row row : chunk.invalid) {
+            report.reject(row.lineNumber, row.line, row.reason);
+        }
+        sink.accept(chunk.valid, report);
+    }
+
+    /**
+     * Parses and validates one chunk. Runs on the worker pool.
+     *
+     * @param lines The raw lines
+     * @param firstLine The line number of the first line
+     * @param validator The stateless row check
+     * @return The valid and invalid rows, each in file order
+     */
+    private static Chunk parse(List<String> lines, long firstLine, Validator validator) {
+        Chunk chunk = new Chunk(lines.size());
+        long lineNumber = firstLine;
+        for (String line : lines) {
+            Row row = new Row(lineNumber++, line);
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            row.fields = CsvParser.parse(line);
+            row.reason = row.fields == null ? "Unterminated quoted field" : validator.check(row.fields);
+            if (row.reason == null) {
+                chunk.valid.add(row);
+            } else {
+                chunk.invalid.add(row);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Checks whether the first line of a file is a header.
+     *
+     * @param line The first line
+     * @param headerField The expected first column name
+     * @return true if the line should be skipped
+     */
+    private static boolean isHeader(String line, String headerField) {
+        String[] fields = CsvParser.parse(line);
+        return fields != null && fields.length > 0 && fields[0].equalsIgnoreCase(headerField);
+    }
+
+    /**
+     * Stateless check of one parsed row. May rewrite fields in place, such as hashing a password.
+     */
+    private interface Validator {
+        /**
+         * @param fields The parsed fields
+         * @return The rejection reason, or null if the row is valid
+         */
+        String check(String[] fields);
+    }
+
+    /**
+     * Applies the stateful checks to one chunk of valid rows and inserts the survivors.
+     */
+    private interface Sink {
+        /**
+         * @param rows The valid rows of one chunk, in file order
+         * @param report The report to record rejections and accepted counts in
+         */
+        void accept(List<Row> rows, ImportReport report);
+    }
+
+    /**
+     * One line of input and its parse result.
+     */
+    private static final class Row {
+        private final long lineNumber;
+        private final String line;
+        private String[] fields;
+        private String reason;
+
+        Row(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    /**
+     * The rows of one chunk, split by the stateless check.
+     */
+    private static final class Chunk {
+        private final List<Row> valid;
+        private final List<Row> invalid = new ArrayList<>();
+
+        Chunk(int size) {
+            this.valid = new ArrayList<>(size);
+        }
+    }
+}
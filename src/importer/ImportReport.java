@@ -0,0 +1,146 @@
+package importer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of one bulk import: how many rows were accepted and which were rejected and why.
+ */
+public class ImportReport {
+
+    /**
+     * A CSV row that failed validation.
+     */
+    public static class RejectedRow {
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        /**
+         * Constructor to create a new RejectedRow.
+         *
+         * @param lineNumber The 1-based line number in the source file
+         * @param line The raw line
+         * @param reason Why the row was rejected
+         */
+        RejectedRow(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * Gets the line number.
+         * @return The 1-based line number in the source file
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Gets the raw line.
+         * @return The line as read from the file
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * Gets the rejection reason.
+         * @return Why the row was rejected
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final String entity;
+    private final Path source;
+    private long accepted = 0;
+    private final List<RejectedRow> rejected = new ArrayList<>();
+    private long elapsedMillis = 0;
+
+    /**
+     * Constructor to create a new ImportReport.
+     *
+     * @param entity The kind of rows imported, e.g. "students"
+     * @param source The file that was imported
+     */
+    ImportReport(String entity, Path source) {
+        this.entity = entity;
+        this.source = source;
+    }
+
+    void addAccepted(long count) {
+        accepted += count;
+    }
+
+    void reject(long lineNumber, String line, String reason) {
+        rejected.add(new RejectedRow(lineNumber, line, reason));
+    }
+
+    void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        rejected.sort(Comparator.comparingLong(RejectedRow::getLineNumber));
+    }
+
+    /**
+     * Gets the number of accepted rows.
+     * @return The accepted row count
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Gets the rejected rows in file order.
+     * @return A read-only list of rejected rows
+     */
+    public List<RejectedRow> getRejected() {
+        return Collections.unmodifiableList(rejected);
+    }
+
+    /**
+     * Writes the rejected rows as CSV: line number, reason, original line.
+     *
+     * @param file The report file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void writeRejected(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("line,reason,row");
+            out.newLine();
+            for (RejectedRow row : rejected) {
+                out.write(row.lineNumber + "," + quote(row.reason) + "," + quote(row.line));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the import.
+     * @return A formatted summary
+     */
+    @Override
+    public String toString() {
+        return String.format("Imported %d %s from %s in %d ms (%d rejected)",
+                accepted, entity, source, elapsedMillis, rejected.size());
+    }
+
+    /**
+     * Quotes a value for CSV output.
+     *
+     * @param value The value
+     * @return The value wrapped in quotes with inner quotes doubled
+     */
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
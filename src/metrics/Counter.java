@@ -0,0 +1,35 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, such as failed logins.
+ * Backed by a LongAdder, so concurrent increments do not contend on one
+ * memory location and never allocate once the adder's cells exist.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds a non-negative amount.
+     * @param amount The amount to add
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Gets the current total.
+     * @return The sum of everything added so far
+     */
+    public long get() {
+        return count.sum();
+    }
+}
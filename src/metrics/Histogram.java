@@ -0,0 +1,169 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-memory distribution of non-negative values, typically latencies in nanoseconds.
+ *
+ * Values are counted in log-linear buckets in the style of HdrHistogram:
+ * each power of two is split into 16 equal sub-buckets, so any recorded
+ * value is reported within 1/16 (about 6%) of its true size, from 1 ns up
+ * to Long.MAX_VALUE, in under 8 KB. Recording finds the bucket with a
+ * leading-zero count and a shift and bumps one array slot, so it never
+ * allocates. Percentiles are computed on read from a snapshot.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value. Negative values are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        total.increment();
+        sum.add(v);
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since a System.nanoTime reading.
+     * @param startNanos The reading taken when the measured work began
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Copies the current counts so percentiles can be read consistently.
+     * Values recorded while the copy is taken may or may not be included.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return The count
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param value A non-negative value
+     * @return The bucket index
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int group = exponent - SUB_BUCKET_BITS + 1;
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return group * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the largest value that falls in a bucket.
+     *
+     * @param bucket The bucket index
+     * @return The bucket's inclusive upper bound
+     */
+    static long highestValueIn(int bucket) {
+        int group = bucket >>> SUB_BUCKET_BITS;
+        int sub = bucket & (SUB_BUCKETS - 1);
+        if (group == 0) {
+            return sub;
+        }
+        long next = (long) (SUB_BUCKETS + sub + 1) << (group - 1);
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /**
+     * A point-in-time copy of a histogram.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of recorded values.
+         * @return The count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         * @return The mean, or 0 if nothing was recorded
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Gets the largest recorded value.
+         * @return The maximum, or 0 if nothing was recorded
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the value at or below which a given share of the recorded values fall.
+         * The answer is the upper bound of the bucket holding that rank,
+         * capped at the recorded maximum.
+         *
+         * @param percentile The percentile, from 0 to 100
+         * @return The value, or 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
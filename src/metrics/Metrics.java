@@ -0,0 +1,187 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of counters, histograms, gauges and operations.
+ *
+ * Metrics are created once, by name, and kept in static fields by the code
+ * that updates them, so the hot path only touches the metric itself and
+ * never the registry. Names are dotted, starting with the owning area, for
+ * example "student.login". The whole registry can be printed as text or
+ * browsed over JMX under {@link #OBJECT_NAME}.
+ */
+public final class Metrics {
+    /**
+     * The JMX name the registry is published under.
+     */
+    public static final String OBJECT_NAME = "CourseRegistrationSystem:type=Metrics";
+
+    /**
+     * The sample rate for single-entity lookups, which take around a microsecond.
+     */
+    public static final int LOOKUP_SAMPLE_EVERY = 16;
+
+    private static final ConcurrentSkipListMap<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final ConcurrentSkipListMap<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final ConcurrentSkipListMap<String, Operation> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static final ConcurrentSkipListMap<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name The metric name
+     * @return The counter registered under that name
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new Counter());
+    }
+
+    /**
+     * Gets or creates a histogram.
+     *
+     * @param name The metric name
+     * @return The histogram registered under that name
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /**
+     * Gets or creates an operation that times every call.
+     *
+     * @param name The metric name
+     * @return The operation registered under that name
+     */
+    public static Operation operation(String name) {
+        return operation(name, 1);
+    }
+
+    /**
+     * Gets or creates an operation that times a sample of its calls.
+     * Meant for lookups cheap enough that reading the clock would
+     * noticeably slow them down.
+     *
+     * @param name The metric name
+     * @param sampleEvery Time one in this many calls; 1 times every call
+     * @return The operation registered under that name
+     */
+    public static Operation operation(String name, int sampleEvery) {
+        return OPERATIONS.computeIfAbsent(name, k -> new Operation(sampleEvery));
+    }
+
+    /**
+     * Registers a gauge, replacing any earlier gauge of the same name.
+     * The supplier is called only when metrics are read.
+     *
+     * @param name The metric name
+     * @param value Reads the current value
+     */
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /**
+     * Gets every counter.
+     * @return A read-only view, sorted by name
+     */
+    public static Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    /**
+     * Gets every histogram.
+     * @return A read-only view, sorted by name
+     */
+    public static Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(HISTOGRAMS);
+    }
+
+    /**
+     * Gets every operation.
+     * @return A read-only view, sorted by name
+     */
+    public static Map<String, Operation> getOperations() {
+        return Collections.unmodifiableMap(OPERATIONS);
+    }
+
+    /**
+     * Gets every gauge.
+     * @return A read-only view, sorted by name
+     */
+    public static Map<String, LongSupplier> getGauges() {
+        return Collections.unmodifiableMap(GAUGES);
+    }
+
+    /**
+     * Publishes the registry as an MBean on the platform MBean server.
+     * Calling it again once published does nothing.
+     *
+     * @throws JMException If the MBean cannot be registered
+     */
+    public static synchronized void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new MetricsMBean(), name);
+        }
+    }
+
+    /**
+     * Formats every metric as a text report.
+     * Operation latencies are shown in microseconds; operations that time
+     * only a sample of their calls are marked with the sample rate.
+     *
+     * @return The report
+     */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append("\n========== METRICS ==========\n");
+        if (!GAUGES.isEmpty()) {
+            out.append("Gauges\n");
+            for (Map.Entry<String, LongSupplier> e : GAUGES.entrySet()) {
+                out.append(String.format("  %-44s %12d%n", e.getKey(), e.getValue().getAsLong()));
+            }
+        }
+        if (!COUNTERS.isEmpty()) {
+            out.append("Counters\n");
+            for (Map.Entry<String, Counter> e : COUNTERS.entrySet()) {
+                out.append(String.format("  %-44s %12d%n", e.getKey(), e.getValue().get()));
+            }
+        }
+        if (!HISTOGRAMS.isEmpty()) {
+            out.append(String.format("%-46s %12s %10s %10s %10s %10s%n",
+                    "Histograms", "count", "mean", "p50", "p99", "max"));
+            for (Map.Entry<String, Histogram> e : HISTOGRAMS.entrySet()) {
+                Histogram.Snapshot s = e.getValue().snapshot();
+                out.append(String.format("  %-44s %12d %10.1f %10d %10d %10d%n", e.getKey(), s.getCount(),
+                        s.getMean(), s.getPercentile(50), s.getPercentile(99), s.getMax()));
+            }
+        }
+        out.append(String.format("%-46s %12s %8s %10s %10s %10s %10s%n",
+                "Operations (us)", "calls", "failed", "mean", "p50", "p99", "max"));
+        for (Map.Entry<String, Operation> e : OPERATIONS.entrySet()) {
+            Operation op = e.getValue();
+            if (op.getCalls() == 0) {
+                continue;
+            }
+            Histogram.Snapshot s = op.getLatency().snapshot();
+            String name = op.getSampleEvery() == 1 ? e.getKey() : e.getKey() + " (1/" + op.getSampleEvery() + ")";
+            out.append(String.format("  %-44s %12d %8d %10.1f %10.1f %10.1f %10.1f%n", name, op.getCalls(),
+                    op.getFailures(), s.getMean() / 1e3, s.getPercentile(50) / 1e3,
+                    s.getPercentile(99) / 1e3, s.getMax() / 1e3));
+        }
+        out.append("=============================\n");
+        return out.toString();
+    }
+}
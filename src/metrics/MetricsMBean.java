@@ -0,0 +1,179 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * JMX view of the Metrics registry.
+ *
+ * Metrics are created lazily, so the attribute list is rebuilt each time a
+ * client asks for it. Gauges and counters appear under their own names; each
+ * histogram and operation contributes one attribute per statistic, such as
+ * "student.login.p99Micros". All attributes are read-only longs, readable
+ * from jconsole or any JMX client, and the "dump" operation returns the
+ * same text report the admin dashboard prints.
+ */
+class MetricsMBean implements DynamicMBean {
+    private static final String[] HISTOGRAM_STATS = {"count", "mean", "p50", "p99", "max"};
+    private static final String[] OPERATION_STATS = {
+        "calls", "failures", "meanMicros", "p50Micros", "p99Micros", "maxMicros",
+    };
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongSupplier gauge = Metrics.getGauges().get(attribute);
+        if (gauge != null) {
+            return gauge.getAsLong();
+        }
+        Counter counter = Metrics.getCounters().get(attribute);
+        if (counter != null) {
+            return counter.get();
+        }
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0) {
+            String name = attribute.substring(0, dot);
+            String stat = attribute.substring(dot + 1);
+            Operation op = Metrics.getOperations().get(name);
+            if (op != null) {
+                Long value = operationStat(op, stat);
+                if (value != null) {
+                    return value;
+                }
+            }
+            Histogram histogram = Metrics.getHistograms().get(name);
+            if (histogram != null) {
+                Long value = histogramStat(histogram.snapshot(), stat, 1);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        throw new AttributeNotFoundException("No metric named " + attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Unknown names are left out, as the DynamicMBean contract allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("dump".equals(actionName)) {
+            return Metrics.dump();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : Metrics.getGauges().keySet()) {
+            attributes.add(longAttribute(name, "Gauge"));
+        }
+        for (String name : Metrics.getCounters().keySet()) {
+            attributes.add(longAttribute(name, "Counter"));
+        }
+        for (String name : Metrics.getHistograms().keySet()) {
+            for (String stat : HISTOGRAM_STATS) {
+                attributes.add(longAttribute(name + "." + stat, "Histogram " + stat));
+            }
+        }
+        for (Map.Entry<String, Operation> e : Metrics.getOperations().entrySet()) {
+            for (String stat : OPERATION_STATS) {
+                attributes.add(longAttribute(e.getKey() + "." + stat, "Operation " + stat));
+            }
+        }
+        MBeanOperationInfo dump = new MBeanOperationInfo("dump", "Text report of every metric",
+                new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO);
+        return new MBeanInfo(getClass().getName(), "Course Registration System metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null,
+                new MBeanOperationInfo[] {dump}, null);
+    }
+
+    /**
+     * Reads one statistic of an operation.
+     *
+     * @param op The operation
+     * @param stat The statistic name
+     * @return The value, or null if the statistic is unknown
+     */
+    private static Long operationStat(Operation op, String stat) {
+        switch (stat) {
+            case "calls":
+                return op.getCalls();
+            case "failures":
+                return op.getFailures();
+            default:
+                if (!stat.endsWith("Micros")) {
+                    return null;
+                }
+                return histogramStat(op.getLatency().snapshot(), stat.substring(0, stat.length() - "Micros".length()),
+                        1000);
+        }
+    }
+
+    /**
+     * Reads one statistic of a histogram snapshot.
+     *
+     * @param s The snapshot
+     * @param stat The statistic name
+     * @param divisor Scales the value, such as 1000 to turn nanoseconds into microseconds
+     * @return The value, or null if the statistic is unknown
+     */
+    private static Long histogramStat(Histogram.Snapshot s, String stat, long divisor) {
+        switch (stat) {
+            case "count":
+                return s.getCount();
+            case "mean":
+                return Math.round(s.getMean() / divisor);
+            case "p50":
+                return s.getPercentile(50) / divisor;
+            case "p99":
+                return s.getPercentile(99) / divisor;
+            case "max":
+                return s.getMax() / divisor;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Describes a read-only long attribute.
+     *
+     * @param name The attribute name
+     * @param description The attribute description
+     * @return The attribute info
+     */
+    private static MBeanAttributeInfo longAttribute(String name, String description) {
+        return new MBeanAttributeInfo(name, Long.class.getName(), description, true, false, false);
+    }
+}
@@ -0,0 +1,108 @@
+package metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Call, failure and latency tracking for one manager operation.
+ * Every call is counted; calls that did not succeed, such as a rejected
+ * login or an enrollment into a missing course, are also counted as
+ * failures.
+ *
+ * Reading the clock is not free: System.nanoTime costs about 50 ns and
+ * stops the CPU overlapping the cache misses of back-to-back lookups, which
+ * nearly doubled the cost of a sub-microsecond getCourseById. Operations
+ * that hot are therefore created with a sample rate and only time a random
+ * one in that many calls; the latency histogram then describes the sampled
+ * calls, while the call and failure counts stay exact.
+ *
+ * Typical use:
+ * <pre>
+ *     long start = LOGIN.start();
+ *     boolean ok = false;
+ *     try {
+ *         ...
+ *         ok = true;
+ *     } finally {
+ *         LOGIN.record(start, ok);
+ *     }
+ * </pre>
+ */
+public final class Operation {
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final Histogram latency = new Histogram();
+    private final Counter calls = new Counter();
+    private final Counter failures = new Counter();
+    private final int sampleEvery;
+
+    /**
+     * Constructor to create an Operation.
+     *
+     * @param sampleEvery Time one in this many calls; 1 times every call
+     */
+    Operation(int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1: " + sampleEvery);
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * Marks the start of a call.
+     * @return The value to pass to record when the call ends
+     */
+    public long start() {
+        if (sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0) {
+            return System.nanoTime();
+        }
+        return NOT_TIMED;
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param start The value start returned when the call began
+     * @param ok true if the call succeeded, false otherwise
+     */
+    public void record(long start, boolean ok) {
+        calls.increment();
+        if (!ok) {
+            failures.increment();
+        }
+        if (start != NOT_TIMED) {
+            latency.recordSince(start);
+        }
+    }
+
+    /**
+     * Gets the latency histogram of the timed calls, in nanoseconds.
+     * @return The histogram
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the number of calls recorded.
+     * @return The call count
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * Gets how many calls are timed.
+     * @return One in this many calls is timed
+     */
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * Gets the number of failed calls.
+     * @return The failure count
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+}
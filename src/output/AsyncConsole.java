@@ -0,0 +1,228 @@
+package output;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Asynchronous, batching console output.
+ *
+ * Printing threads add their text to a pending list under a short lock and
+ * return; a background writer swaps the list out, writes everything queued
+ * so far through one buffered writer and flushes once per batch. Bulk
+ * operations and concurrent callers therefore do not wait on the terminal,
+ * and text from all threads keeps the order it was printed in. At most
+ * capacity messages wait to be written: when the terminal falls that far
+ * behind, such as a slow pipe, printers wait for it rather than let the
+ * queue grow without bound or drop what was printed. flush waits
+ * for everything printed so far, and flushBeforeRead makes an input stream
+ * call it, so an interactive prompt is always on screen before the program
+ * waits for an answer.
+ */
+public class AsyncConsole implements Output, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final Writer out;
+    private final int capacity;
+    private final Object lock = new Object();
+    private final Thread writer;
+    private List<String> pending = new ArrayList<>();
+    private long printedSeq = 0;
+    private long writtenSeq = 0;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * Constructor to create an AsyncConsole with the default capacity and start its writer thread.
+     *
+     * @param target Where the text goes, such as new FileOutputStream(FileDescriptor.out)
+     */
+    public AsyncConsole(OutputStream target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create an AsyncConsole and start its writer thread.
+     *
+     * @param target Where the text goes, such as new FileOutputStream(FileDescriptor.out)
+     * @param capacity The most messages that may wait to be written before printers block
+     */
+    public AsyncConsole(OutputStream target, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.out = new BufferedWriter(new OutputStreamWriter(target, Charset.defaultCharset()));
+        this.writer = new Thread(this::writeLoop, "console-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues one line.
+     * @param line The text
+     */
+    @Override
+    public void println(String line) {
+        enqueue(line, NEWLINE);
+    }
+
+    /**
+     * Queues text without ending the line, such as a prompt.
+     * @param text The text
+     */
+    public void print(String text) {
+        enqueue(text, null);
+    }
+
+    /**
+     * Waits until everything queued so far has been written.
+     */
+    public void flush() {
+        synchronized (lock) {
+            long ticket = printedSeq;
+            boolean interrupted = false;
+            while (writtenSeq < ticket && !failed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wraps an input stream so that every read first flushes this console.
+     *
+     * @param in The input, typically System.in
+     * @return The wrapped stream
+     */
+    public InputStream flushBeforeRead(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                flush();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                flush();
+                return super.read(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Writes everything queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds text to the pending list and wakes the writer, first waiting for
+     * room if capacity messages are already waiting.
+     *
+     * @param text The text
+     * @param end A line separator to follow it, or null
+     */
+    private void enqueue(String text, String end) {
+        synchronized (lock) {
+            boolean interrupted = false;
+            while (printedSeq - writtenSeq >= capacity && !closed && !failed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (closed || failed) {
+                return;
+            }
+            pending.add(text);
+            if (end != null) {
+                pending.add(end);
+            }
+            printedSeq++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Background loop that writes queued text in batches.
+     */
+    private void writeLoop() {
+        while (true) {
+            List<String> batch;
+            long batchSeq;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                batchSeq = printedSeq;
+                pending = new ArrayList<>();
+            }
+
+            boolean ok = true;
+            try {
+                for (String text : batch) {
+                    out.write(String.valueOf(text));
+                }
+                out.flush();
+            } catch (IOException e) {
+                ok = false;
+            }
+
+            synchronized (lock) {
+                if (ok) {
+                    writtenSeq = batchSeq;
+                } else {
+                    // The terminal is gone; drop further output rather than block printers
+                    failed = true;
+                    pending.clear();
+                }
+                lock.notifyAll();
+                if (!ok) {
+                    return;
+                }
+            }
+        }
+    }
+}
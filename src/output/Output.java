@@ -0,0 +1,48 @@
+package output;
+
+/**
+ * Destination for the messages the managers print for the user, such as
+ * "Success: Course added successfully!". Managers report outcomes through
+ * their return values; messages are only presentation, so a caller that
+ * reads the return value can turn them off with QUIET.
+ */
+public interface Output {
+
+    /**
+     * Prints synchronously to System.out; the default for managers.
+     * System.out is read on every call, so System.setOut still redirects it.
+     */
+    Output STDOUT = line -> System.out.println(line);
+
+    /**
+     * Discards every message. Callers check isEnabled first, so messages
+     * are never even formatted.
+     */
+    Output QUIET = new Output() {
+        @Override
+        public void println(String line) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * Prints one line.
+     *
+     * @param line The message
+     */
+    void println(String line);
+
+    /**
+     * Checks whether messages are shown at all.
+     * Callers check this before building a message from parts or printing a listing.
+     *
+     * @return true if messages are printed, false if they are discarded
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,37 @@
+package persistence;
+
+import java.util.List;
+
+/**
+ * Destination for the mutations made by the managers.
+ * A manager appends the record for a change before applying it; the call
+ * returns once the record is durable and throws UncheckedIOException if it
+ * cannot be written, in which case the change is not made (or is undone),
+ * so memory never holds a change the disk would lose on restart.
+ */
+public interface Journal {
+
+    /**
+     * A journal that discards every record, used when persistence is disabled.
+     */
+    Journal NONE = record -> { };
+
+    /**
+     * Appends a record to the journal.
+     *
+     * @param record The mutation to record
+     */
+    void append(LogRecord record);
+
+    /**
+     * Appends several records, returning once all of them are durable.
+     * Implementations should make the batch durable with a single write.
+     *
+     * @param records The mutations to record, in order
+     */
+    default void appendAll(List<LogRecord> records) {
+        for (LogRecord record : records) {
+            append(record);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single entry in the write-ahead log.
+ * Each record carries the full state of one entity (a PUT), the ID of a
+ * removed entity (a DELETE), or a student and course ID for a student
+ * joining or leaving that course's waitlist, so replaying records in order
+ * rebuilds the data.
+ */
+public final class LogRecord {
+
+    /**
+     * The kind of mutation a record describes.
+     */
+    public enum Type {
+        STUDENT_PUT, STUDENT_DELETE,
+        COURSE_PUT, COURSE_DELETE,
+        REGISTRATION_PUT, REGISTRATION_DELETE,
+        ADMIN_PUT, ADMIN_DELETE,
+        WAITLIST_JOIN, WAITLIST_LEAVE
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final String[] fields;
+
+    /**
+     * Constructor to create a new LogRecord.
+     *
+     * @param type The kind of mutation
+     * @param fields The entity fields, starting with its ID
+     */
+    public LogRecord(Type type, String... fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    /**
+     * Gets the record type.
+     * @return The kind of mutation
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets one field of the record.
+     *
+     * @param index The field position
+     * @return The field value, possibly null
+     */
+    public String field(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Gets the number of fields.
+     * @return The field count
+     */
+    public int fieldCount() {
+        return fields.length;
+    }
+
+    /**
+     * Gets the ID of the entity the record is about.
+     * @return The entity ID
+     */
+    public String getEntityId() {
+        return fields[0];
+    }
+
+    /**
+     * Encodes the record as type byte, field count and length-prefixed UTF-8 fields.
+     * A null field is written with length -1.
+     *
+     * @return The encoded bytes
+     */
+    byte[] encode() {
+        byte[][] encoded = new byte[fields.length][];
+        int size = 2;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+                size += encoded[i].length;
+            }
+            size += 4;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put((byte) type.ordinal());
+        buf.put((byte) fields.length);
+        for (byte[] field : encoded) {
+            if (field == null) {
+                buf.putInt(-1);
+            } else {
+                buf.putInt(field.length);
+                buf.put(field);
+            }
+        }
+        return buf.array();
+    }
+
+    /**
+     * Decodes a record written by encode.
+     *
+     * @param buf A buffer positioned at the start of the record
+     * @return The decoded record
+     */
+    static LogRecord decode(ByteBuffer buf) {
+        Type type = TYPES[buf.get()];
+        String[] fields = new String[buf.get()];
+        for (int i = 0; i < fields.length; i++) {
+            int length = buf.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                buf.get(bytes);
+                fields[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return new LogRecord(type, fields);
+    }
+}
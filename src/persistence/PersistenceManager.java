@@ -0,0 +1,451 @@
+package persistence;
+
+import admin.Admin;
+import common.Ids;
+import admin.AdminManager;
+import course.Course;
+import course.CourseManager;
+import course.MeetingSlot;
+import registration.Registration;
+import registration.RegistrationManager;
+import student.Student;
+import student.StudentManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Makes the managers durable.
+ *
+ * Changes are appended to numbered write-ahead log segments. A checkpoint
+ * seals the active segment, writes a binary snapshot of the full state and
+ * deletes every segment the snapshot covers. On open, the latest snapshot is
+ * memory-mapped and loaded, and only the segments written after it are
+ * replayed on top. Entity records fold down to the latest change per
+ * entity; waitlist joins and departures are replayed in log order, since a
+ * waitlist's order is its state.
+ */
+public class PersistenceManager implements AutoCloseable {
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+    static final String SEGMENT_PREFIX = "registration-";
+    static final String SEGMENT_SUFFIX = ".wal";
+    static final long DEFAULT_CHECKPOINT_BYTES = 64L * 1024 * 1024;
+
+    private final Path directory;
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final RegistrationManager registrationManager;
+    private final AdminManager adminManager;
+    private final long checkpointBytes;
+    private WriteAheadLog log;
+    private long activeSegment;
+    private boolean replayedSegments;
+
+    /**
+     * Constructor to create a new PersistenceManager.
+     *
+     * @param directory The directory holding the data files
+     * @param studentManager The student store to persist
+     * @param courseManager The course store to persist
+     * @param registrationManager The registration store to persist
+     * @param adminManager The admin store to persist
+     */
+    public PersistenceManager(Path directory, StudentManager studentManager, CourseManager courseManager,
+                              RegistrationManager registrationManager, AdminManager adminManager) {
+        this(directory, studentManager, courseManager, registrationManager, adminManager, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /**
+     * Constructor to create a new PersistenceManager with a custom checkpoint threshold.
+     *
+     * @param directory The directory holding the data files
+     * @param studentManager The student store to persist
+     * @param courseManager The course store to persist
+     * @param registrationManager The registration store to persist
+     * @param adminManager The admin store to persist
+     * @param checkpointBytes The active segment size that triggers a checkpoint
+     */
+    public PersistenceManager(Path directory, StudentManager studentManager, CourseManager courseManager,
+                              RegistrationManager registrationManager, AdminManager adminManager,
+                              long checkpointBytes) {
+        this.directory = directory;
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.registrationManager = registrationManager;
+        this.adminManager = adminManager;
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    /**
+     * Loads the latest snapshot and newer log segments into the (empty) managers,
+     * then starts journaling to a fresh segment.
+     *
+     * @return The number of log records replayed on top of the snapshot
+     * @throws IOException If the data files cannot be read
+     */
+    public long open() throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long covered = Files.exists(snapshot) ? Snapshot.readLastSegment(snapshot) : -1;
+        List<Long> segments = listSegments();
+
+        // Fold the newer segments down to the latest change per entity
+        ChangeSet changes = new ChangeSet();
+        for (long segment : segments) {
+            if (segment > covered) {
+                WriteAheadLog.read(segmentPath(segment), changes::apply);
+            }
+        }
+
+        if (covered >= 0) {
+            Snapshot.read(snapshot, new Snapshot.Visitor() {
+                @Override
+                public void counters(int courseCounter, int studentCounter, int regCounter) {
+                    courseManager.restoreIdCounter(courseCounter);
+                    studentManager.restoreIdCounter(studentCounter);
+                    registrationManager.restoreIdCounter(regCounter);
+                }
+
+                @Override
+                public void admin(Admin admin) {
+                    LogRecord r = changes.admins.take(admin.getId());
+                    if (r != null) {
+                        restore(r);
+                    } else if (!changes.admins.isDeleted(admin.getId())) {
+                        adminManager.restoreAdmin(admin);
+                    }
+                }
+
+                @Override
+                public void student(Student student) {
+                    LogRecord r = changes.students.take(student.getId());
+                    if (r != null) {
+                        restore(r);
+                    } else if (!changes.students.isDeleted(student.getId())) {
+                        studentManager.restoreStudent(student);
+                    }
+                }
+
+                @Override
+                public void course(Course course) {
+                    LogRecord r = changes.courses.take(course.getId());
+                    if (r != null) {
+                        restore(r);
+                    } else if (!changes.courses.isDeleted(course.getId())) {
+                        courseManager.restoreCourse(course);
+                    }
+                }
+
+                @Override
+                public void registrations(String[] studentIds, String[] courseIds, int[] rows) {
+                    // Rows the newer segments replaced or deleted are set aside; the rest are restored in bulk
+                    BitSet changed = changes.registrations.sequences();
+                    if (changed.isEmpty()) {
+                        registrationManager.restoreRegistrations(studentIds, courseIds, rows, rows.length / 4);
+                        return;
+                    }
+                    List<Registration> setAside = new ArrayList<>();
+                    int kept = 0;
+                    for (int i = 0; i < rows.length; i += 4) {
+                        if (changed.get(rows[i])) {
+                            setAside.add(new Registration(rows[i], studentIds[rows[i + 1]], courseIds[rows[i + 2]],
+                                    LocalDate.ofEpochDay(rows[i + 3])));
+                        } else {
+                            System.arraycopy(rows, i, rows, kept, 4);
+                            kept += 4;
+                        }
+                    }
+                    registrationManager.restoreRegistrations(studentIds, courseIds, rows, kept / 4);
+                    for (Registration registration : setAside) {
+                        LogRecord r = changes.registrations.take(registration.getId());
+                        if (r != null) {
+                            restore(r);
+                        } else if (!changes.registrations.isDeleted(registration.getId())) {
+                            registrationManager.restoreRegistration(registration);
+                        }
+                    }
+                }
+
+                @Override
+                public void waitlist(String courseId, List<String> studentIds) {
+                    registrationManager.restoreWaitlist(courseId, studentIds);
+                }
+            });
+        }
+
+        // Entities created after the snapshot, in log order
+        for (LogRecord r : changes.admins.remaining()) {
+            restore(r);
+        }
+        for (LogRecord r : changes.students.remaining()) {
+            restore(r);
+        }
+        for (LogRecord r : changes.courses.remaining()) {
+            restore(r);
+        }
+        for (LogRecord r : changes.registrations.remaining()) {
+            restore(r);
+        }
+        // Waitlists depend on arrival order, so their joins and departures are replayed as logged
+        for (LogRecord r : changes.waitlists) {
+            if (r.getType() == LogRecord.Type.WAITLIST_JOIN) {
+                registrationManager.restoreWaitlist(r.field(1), Collections.singletonList(r.field(0)));
+            } else {
+                registrationManager.restoreWaitlistLeave(r.field(0), r.field(1));
+            }
+        }
+        // Deleted IDs still count as issued
+        courseManager.restoreIdCounter(changes.courses.highestId);
+        studentManager.restoreIdCounter(changes.students.highestId);
+        registrationManager.restoreIdCounter(changes.registrations.highestId);
+
+        for (long segment : segments) {
+            if (segment <= covered) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        activeSegment = Math.max(covered, segments.isEmpty() ? -1 : segments.get(segments.size() - 1)) + 1;
+        log = new WriteAheadLog(segmentPath(activeSegment));
+
+        studentManager.setJournal(log);
+        courseManager.setJournal(log);
+        registrationManager.setJournal(log);
+        adminManager.setJournal(log);
+        replayedSegments = changes.count > 0;
+        return changes.count;
+    }
+
+    /**
+     * Writes a snapshot and discards the log segments it covers.
+     * Must be called from the thread that makes student, course and admin
+     * changes. Registrations may keep changing concurrently: the segment is
+     * sealed under the registration journal lock's write side, which waits
+     * for every registration change already journaled to be applied, so the
+     * snapshot sees everything in the sealed segment. Changes made while the
+     * snapshot is written may or may not be in it, and are replayed from the
+     * new segment either way.
+     *
+     * @throws IOException If the snapshot cannot be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (log == null) {
+            return;
+        }
+        long sealed = activeSegment;
+        Lock journalLock = registrationManager.getJournalLock().writeLock();
+        journalLock.lock();
+        try {
+            log.rotate(segmentPath(sealed + 1));
+            activeSegment = sealed + 1;
+        } finally {
+            journalLock.unlock();
+        }
+        // Everything in the sealed segment is already applied in memory, so the snapshot covers it.
+        // write forces the directory after renaming the snapshot, so the deletes below cannot outlive it.
+        Snapshot.write(directory.resolve(SNAPSHOT_FILE), sealed, studentManager, courseManager,
+                registrationManager, adminManager);
+        for (long segment : listSegments()) {
+            if (segment <= sealed) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        replayedSegments = false;
+    }
+
+    /**
+     * Checkpoints if the active log segment has grown past the threshold.
+     * Must be called from the thread that makes student, course and admin changes.
+     *
+     * @throws IOException If the snapshot cannot be written
+     */
+    public void maybeCheckpoint() throws IOException {
+        if (log != null && log.size() >= checkpointBytes) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Checkpoints any outstanding changes, stops journaling and closes the log.
+     *
+     * @throws IOException If the log cannot be flushed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (log == null) {
+            return;
+        }
+        if (replayedSegments || log.size() > 0) {
+            checkpoint();
+        }
+        studentManager.setJournal(Journal.NONE);
+        courseManager.setJournal(Journal.NONE);
+        registrationManager.setJournal(Journal.NONE);
+        adminManager.setJournal(Journal.NONE);
+        log.close();
+        log = null;
+        Files.deleteIfExists(segmentPath(activeSegment));
+    }
+
+    /**
+     * Restores one entity from its latest PUT record.
+     *
+     * @param r The record holding the entity state
+     */
+    private void restore(LogRecord r) {
+        switch (r.getType()) {
+            case ADMIN_PUT:
+                adminManager.restoreAdmin(new Admin(r.field(0), r.field(1), r.field(2)));
+                break;
+            case STUDENT_PUT:
+                studentManager.restoreStudent(new Student(r.field(0), r.field(1), r.field(2), r.field(3)));
+                break;
+            case COURSE_PUT:
+                // Records written before meeting times or prerequisites existed lack those fields
+                courseManager.restoreCourse(new Course(r.field(0), r.field(1), r.field(2), r.field(3), r.field(4),
+                        Integer.parseInt(r.field(5)),
+                        r.fieldCount() > 6 ? MeetingSlot.parseSchedule(r.field(6)) : Collections.emptyList(),
+                        r.fieldCount() > 7 ? Ids.split(r.field(7)) : Collections.emptyList()));
+                break;
+            case REGISTRATION_PUT:
+                registrationManager.restoreRegistration(new Registration(r.field(0), r.field(1), r.field(2),
+                        LocalDate.parse(r.field(3))));
+                break;
+            default:
+                throw new IllegalArgumentException("Not a PUT record: " + r.getType());
+        }
+    }
+
+    /**
+     * Lists the log segment numbers present in the data directory.
+     * @return The segment numbers in ascending order
+     * @throws IOException If the directory cannot be listed
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String number = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segments.add(Long.parseLong(number));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Resolves the file for a log segment.
+     *
+     * @param segment The segment number
+     * @return The segment path
+     */
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Latest PUT per entity and the set of deleted IDs for one entity type.
+     */
+    private static final class Changes {
+        private final LinkedHashMap<String, LogRecord> puts = new LinkedHashMap<>();
+        private final Set<String> deleted = new HashSet<>();
+        private int highestId;
+
+        void put(LogRecord r) {
+            puts.put(r.getEntityId(), r);
+            deleted.remove(r.getEntityId());
+            highestId = Math.max(highestId, Ids.number(r.getEntityId()));
+        }
+
+        void delete(LogRecord r) {
+            puts.remove(r.getEntityId());
+            deleted.add(r.getEntityId());
+            highestId = Math.max(highestId, Ids.number(r.getEntityId()));
+        }
+
+        LogRecord take(String id) {
+            return puts.isEmpty() ? null : puts.remove(id);
+        }
+
+        boolean isDeleted(String id) {
+            return !deleted.isEmpty() && deleted.contains(id);
+        }
+
+        BitSet sequences() {
+            BitSet sequences = new BitSet();
+            for (String id : puts.keySet()) {
+                sequences.set(Math.max(0, Ids.number(id)));
+            }
+            for (String id : deleted) {
+                sequences.set(Math.max(0, Ids.number(id)));
+            }
+            return sequences;
+        }
+
+        Iterable<LogRecord> remaining() {
+            return puts.values();
+        }
+    }
+
+    /**
+     * Folded view of every log record newer than the snapshot.
+     */
+    private static final class ChangeSet {
+        private final Changes admins = new Changes();
+        private final Changes students = new Changes();
+        private final Changes courses = new Changes();
+        private final Changes registrations = new Changes();
+        private final List<LogRecord> waitlists = new ArrayList<>();
+        private long count;
+
+        void apply(LogRecord r) {
+            count++;
+            switch (r.getType()) {
+                case ADMIN_PUT:
+                    admins.put(r);
+                    break;
+                case ADMIN_DELETE:
+                    admins.delete(r);
+                    break;
+                case STUDENT_PUT:
+                    students.put(r);
+                    break;
+                case STUDENT_DELETE:
+                    students.delete(r);
+                    break;
+                case COURSE_PUT:
+                    courses.put(r);
+                    break;
+                case COURSE_DELETE:
+                    courses.delete(r);
+                    break;
+                case REGISTRATION_PUT:
+                    registrations.put(r);
+                    break;
+                case REGISTRATION_DELETE:
+                    registrations.delete(r);
+                    break;
+                case WAITLIST_JOIN:
+                case WAITLIST_LEAVE:
+                    waitlists.add(r);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package persistence;
+
+import admin.Admin;
+import admin.AdminManager;
+import common.Ids;
+import course.Course;
+import course.CourseManager;
+import course.MeetingSlot;
+import registration.Registration;
+import registration.RegistrationManager;
+import student.Student;
+import student.StudentManager;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the full system state.
+ *
+ * Layout: magic, version, last log segment covered, the course, student and
+ * registration ID counters, then admins, students, courses, registrations
+ * and waitlists, each section as a count followed by its records. Strings
+ * are length-prefixed UTF-8 and dates are epoch days. A trailing CRC32
+ * covers everything before it. Each course carries its meeting times as a
+ * schedule string and its prerequisite IDs as a comma-separated string.
+ *
+ * Registrations are stored as rows of four ints (sequence number, student
+ * index, course index, epoch day) followed by the distinct student and
+ * course IDs the indexes refer to, so the rows are copied out of the
+ * mapped buffer in one bulk read and each ID string is decoded once rather
+ * than once per registration. Each waitlist is its course ID followed by
+ * the waiting student IDs in promotion order.
+ * Snapshots are read through a memory-mapped buffer; only the current
+ * version is accepted.
+ */
+final class Snapshot {
+    private static final int MAGIC = 0x43525353;
+    private static final int VERSION = 5;
+
+    /**
+     * Receives the contents of a snapshot as it is decoded.
+     */
+    interface Visitor {
+        void counters(int courseCounter, int studentCounter, int regCounter);
+
+        void admin(Admin admin);
+
+        void student(Student student);
+
+        void course(Course course);
+
+        /**
+         * Receives every registration at once.
+         *
+         * @param studentIds The distinct student IDs the rows refer to
+         * @param courseIds The distinct course IDs the rows refer to
+         * @param rows Four ints per registration: sequence number, index into studentIds,
+         *             index into courseIds and epoch day
+         */
+        void registrations(String[] studentIds, String[] courseIds, int[] rows);
+
+        /**
+         * Receives one course's waitlist.
+         *
+         * @param courseId The course ID
+         * @param studentIds The waiting student IDs, longest-waiting first
+         */
+        void waitlist(String courseId, List<String> studentIds);
+    }
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, forces it, then moves it into place atomically.
+     * The directory is forced after the move, so once this returns the new
+     * snapshot survives a crash and the log segments it covers may be deleted.
+     *
+     * @param file The snapshot file
+     * @param lastSegment The newest log segment whose records are included
+     * @param studentManager The student store
+     * @param courseManager The course store
+     * @param registrationManager The registration store
+     * @param adminManager The admin store
+     * @throws IOException If the snapshot cannot be written
+     */
+    static void write(Path file, long lastSegment, StudentManager studentManager, CourseManager courseManager,
+                      RegistrationManager registrationManager, AdminManager adminManager) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSegment);
+            out.writeInt(courseManager.getIdCounter());
+            out.writeInt(studentManager.getIdCounter());
+            out.writeInt(registrationManager.getIdCounter());
+
+            Collection<Admin> admins = adminManager.getAllAdmins();
+            out.writeInt(admins.size());
+            for (Admin a : admins) {
+                writeString(out, a.getId());
+                writeString(out, a.getName());
+                writeString(out, a.getPassword());
+            }
+
+            Collection<Student> students = studentManager.getAllStudents();
+            out.writeInt(students.size());
+            for (Student s : students) {
+                writeString(out, s.getId());
+                writeString(out, s.getName());
+                writeString(out, s.getEmail());
+                writeString(out, s.getPassword());
+            }
+
+            Collection<Course> courses = courseManager.getAllCourses();
+            out.writeInt(courses.size());
+            for (Course c : courses) {
+                writeString(out, c.getId());
+                writeString(out, c.getName());
+                writeString(out, c.getTeacher());
+                writeString(out, c.getDuration());
+                writeString(out, c.getDescription());
+                out.writeInt(c.getMaxSeats());
+                writeString(out, MeetingSlot.formatSchedule(c.getSchedule()));
+                writeString(out, String.join(",", c.getPrerequisites()));
+            }
+
+            // Registrations are a concurrent view, so count what is actually written
+            Collection<Registration> registrations = registrationManager.getAllRegistrations();
+            out.flush();
+            long countPosition = channel.position();
+            out.writeInt(0);
+            int written = 0;
+            HashMap<String, Integer> studentIndex = new HashMap<>();
+            HashMap<String, Integer> courseIndex = new HashMap<>();
+            for (Registration r : registrations) {
+                out.writeInt(r.getSequence());
+                out.writeInt(studentIndex.computeIfAbsent(r.getStudentId(), k -> studentIndex.size()));
+                out.writeInt(courseIndex.computeIfAbsent(r.getCourseId(), k -> courseIndex.size()));
+                out.writeInt((int) r.getDate().toEpochDay());
+                written++;
+            }
+            writeStrings(out, studentIndex);
+            writeStrings(out, courseIndex);
+
+            Map<String, List<String>> waitlists = registrationManager.getWaitlists();
+            out.writeInt(waitlists.size());
+            for (Map.Entry<String, List<String>> e : waitlists.entrySet()) {
+                writeString(out, e.getKey());
+                out.writeInt(e.getValue().size());
+                for (String studentId : e.getValue()) {
+                    writeString(out, studentId);
+                }
+            }
+            out.flush();
+            long end = channel.position();
+            ByteBuffer count = ByteBuffer.allocate(4).putInt(0, written);
+            channel.write(count, countPosition);
+
+            // Checksum the finished body, including the patched count
+            CRC32 crc = new CRC32();
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+            long position = 0;
+            while (position < end) {
+                chunk.clear();
+                if (end - position < chunk.capacity()) {
+                    chunk.limit((int) (end - position));
+                }
+                int n = channel.read(chunk, position);
+                chunk.flip();
+                crc.update(chunk);
+                position += n;
+            }
+            channel.write(ByteBuffer.allocate(8).putLong(0, crc.getValue()), end);
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        WriteAheadLog.syncDirectory(file);
+    }
+
+    /**
+     * Reads the newest log segment covered by a snapshot without loading it.
+     *
+     * @param file The snapshot file
+     * @return The last segment number recorded in the header
+     * @throws IOException If the file is not a readable snapshot
+     */
+    static long readLastSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            checkHeader(header, file);
+            return header.getLong();
+        }
+    }
+
+    /**
+     * Memory-maps a snapshot, verifies its checksum and decodes it.
+     *
+     * @param file The snapshot file
+     * @param visitor Receives the decoded contents
+     * @throws IOException If the file cannot be read or fails verification
+     */
+    static void read(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + file);
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < 24 + 8) {
+                throw new IOException("Truncated snapshot: " + file);
+            }
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buf.duplicate();
+            body.limit((int) size - 8);
+            crc.update(body);
+            if (buf.getLong((int) size - 8) != crc.getValue()) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+
+            checkHeader(buf, file);
+            buf.getLong();
+            visitor.counters(buf.getInt(), buf.getInt(), buf.getInt());
+
+            for (int i = buf.getInt(); i > 0; i--) {
+                visitor.admin(new Admin(readString(buf), readString(buf), readString(buf)));
+            }
+            for (int i = buf.getInt(); i > 0; i--) {
+                visitor.student(new Student(readString(buf), readString(buf), readString(buf), readString(buf)));
+            }
+            for (int i = buf.getInt(); i > 0; i--) {
+                visitor.course(new Course(readString(buf), readString(buf), readString(buf), readString(buf),
+                        readString(buf), buf.getInt(), MeetingSlot.parseSchedule(readString(buf)),
+                        Ids.split(readString(buf))));
+            }
+            int[] rows = new int[buf.getInt() * 4];
+            buf.asIntBuffer().get(rows);
+            buf.position(buf.position() + rows.length * Integer.BYTES);
+            String[] studentIds = readStrings(buf);
+            String[] courseIds = readStrings(buf);
+            visitor.registrations(studentIds, courseIds, rows);
+            for (int i = buf.getInt(); i > 0; i--) {
+                String courseId = readString(buf);
+                List<String> waiting = Arrays.asList(new String[buf.getInt()]);
+                for (int j = 0; j < waiting.size(); j++) {
+                    waiting.set(j, readString(buf));
+                }
+                visitor.waitlist(courseId, waiting);
+            }
+        }
+    }
+
+    /**
+     * Validates the magic number and version at the buffer's position.
+     *
+     * @param buf The buffer holding the header
+     * @param file The snapshot file, for error messages
+     * @throws IOException If the header is not recognized
+     */
+    private static void checkHeader(ByteBuffer buf, Path file) throws IOException {
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file);
+        }
+        int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        }
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string; null is written as length -1.
+     *
+     * @param out The output stream
+     * @param value The string to write
+     * @throws IOException If the write fails
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the keys of a dictionary as a count followed by the strings, in index order.
+     *
+     * @param out The output stream
+     * @param index Each string mapped to its index, numbered from 0 without gaps
+     * @throws IOException If the write fails
+     */
+    private static void writeStrings(DataOutputStream out, Map<String, Integer> index) throws IOException {
+        String[] values = new String[index.size()];
+        for (Map.Entry<String, Integer> e : index.entrySet()) {
+            values[e.getValue()] = e.getKey();
+        }
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    /**
+     * Reads a count followed by that many strings, as written by writeStrings.
+     *
+     * @param buf The buffer positioned at the count
+     * @return The strings, in index order
+     */
+    private static String[] readStrings(ByteBuffer buf) {
+        String[] values = new String[buf.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(buf);
+        }
+        return values;
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param buf The buffer positioned at the string
+     * @return The decoded string, possibly null
+     */
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
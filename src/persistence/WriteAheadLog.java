@@ -0,0 +1,335 @@
+package persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log backed by a NIO FileChannel.
+ *
+ * Every record is framed as [payload length][CRC32][payload]. Appending
+ * threads hand their frame to a background flusher and wait; the flusher
+ * writes everything queued so far with one gathering write and one fsync,
+ * so concurrent writers share the cost of each force (group commit).
+ * A log is split into segments; rotate starts a new one so older segments
+ * can be dropped once a snapshot covers them.
+ */
+public class WriteAheadLog implements Journal, AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+
+    private FileChannel channel;
+    private final Object lock = new Object();
+    private final Thread flusher;
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long appendedSeq = 0;
+    private long durableSeq = 0;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens a log segment for appending, creating it if needed.
+     * The segment's directory entry is made durable before any append can
+     * be acknowledged.
+     *
+     * @param file The log file
+     * @throws IOException If the file cannot be opened
+     */
+    public WriteAheadLog(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            syncDirectory(file);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Forces the directory holding a file to disk, so that a file just
+     * created or renamed there survives a crash along with its contents.
+     *
+     * @param file The file whose directory entry must be durable
+     * @throws IOException If the directory cannot be forced
+     */
+    static void syncDirectory(Path file) throws IOException {
+        FileChannel directory;
+        try {
+            directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            // Windows cannot open a directory as a channel; NTFS journals its directory entries itself
+            return;
+        }
+        try (directory) {
+            directory.force(true);
+        }
+    }
+
+    /**
+     * Reads every intact record from a closed log segment.
+     *
+     * @param file The log segment
+     * @param consumer Receives each record in log order
+     * @throws IOException If the segment cannot be read
+     */
+    public static void read(Path file, Consumer<LogRecord> consumer) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            readRecords(in, consumer);
+        }
+    }
+
+    /**
+     * Decodes records from the start of a channel until the data ends or stops verifying.
+     *
+     * @param in The channel to read
+     * @param consumer Receives each record in log order
+     * @return The offset just past the last intact record
+     * @throws IOException If the channel cannot be read
+     */
+    private static long readRecords(FileChannel in, Consumer<LogRecord> consumer) throws IOException {
+        long size = in.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(in, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(in, payload, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            payload.flip();
+            consumer.accept(LogRecord.decode(payload));
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * Appends a record and waits until it has been forced to disk.
+     *
+     * @param record The mutation to record
+     * @throws UncheckedIOException If the log can no longer be written
+     */
+    @Override
+    public void append(LogRecord record) {
+        appendAll(Collections.singletonList(record));
+    }
+
+    /**
+     * Appends a batch of records and waits once until all of them have been forced to disk.
+     *
+     * @param records The mutations to record, in order
+     * @throws UncheckedIOException If the log can no longer be written
+     */
+    @Override
+    public void appendAll(List<LogRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<ByteBuffer> frames = new ArrayList<>(records.size());
+        CRC32 crc = new CRC32();
+        for (LogRecord record : records) {
+            byte[] payload = record.encode();
+            crc.reset();
+            crc.update(payload);
+            ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+            frames.add(frame);
+        }
+
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log is closed");
+            }
+            checkUsable();
+            pending.addAll(frames);
+            appendedSeq += frames.size();
+            long ticket = appendedSeq;
+            lock.notifyAll();
+            boolean interrupted = false;
+            while (durableSeq < ticket) {
+                checkUsable();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Switches appends to a new segment file.
+     * Waits for every record already appended to become durable first, so
+     * the previous segment is complete once this returns. The new segment's
+     * directory entry is made durable before anything is appended to it.
+     *
+     * @param next The new segment file
+     * @throws IOException If the new segment cannot be opened
+     */
+    public void rotate(Path next) throws IOException {
+        FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            syncDirectory(next);
+        } catch (IOException e) {
+            nextChannel.close();
+            throw e;
+        }
+        synchronized (lock) {
+            while (durableSeq < appendedSeq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    nextChannel.close();
+                    throw new IOException("Interrupted while rotating the log", e);
+                }
+            }
+            checkUsable();
+            // The flusher only touches the channel while pending frames exist, and none do now
+            channel.close();
+            channel = nextChannel;
+        }
+    }
+
+    /**
+     * Gets the current size of the log.
+     * @return The log size in bytes
+     * @throws IOException If the size cannot be read
+     */
+    public long size() throws IOException {
+        synchronized (lock) {
+            return channel.size();
+        }
+    }
+
+    /**
+     * Flushes outstanding records and closes the log.
+     *
+     * @throws IOException If the final flush or close fails
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Background loop that writes and forces queued frames in batches.
+     */
+    private void flushLoop() {
+        while (true) {
+            List<ByteBuffer> batch;
+            long batchSeq;
+            FileChannel target;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                batchSeq = appendedSeq;
+                target = channel;
+                pending = new ArrayList<>();
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                long remaining = 0;
+                for (ByteBuffer b : buffers) {
+                    remaining += b.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= target.write(buffers);
+                }
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (lock) {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSeq = batchSeq;
+                }
+                lock.notifyAll();
+                if (error != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Throws if a previous flush failed.
+     * Must be called while holding the lock.
+     */
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log is unavailable", failure);
+        }
+    }
+
+    /**
+     * Reads until the buffer is full or the file ends.
+     *
+     * @param in The channel to read
+     * @param buf The buffer to fill
+     * @param position The file offset to read from
+     * @throws IOException If the read fails
+     */
+    private static void readFully(FileChannel in, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = in.read(buf, position);
+            if (n < 0) {
+                break;
+            }
+            position += n;
+        }
+    }
+}
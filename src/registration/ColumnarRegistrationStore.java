@@ -0,0 +1,512 @@
+package registration;
+
+import common.IdDictionary;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compact column-oriented storage for registrations.
+ *
+ * Instead of one Registration object per row (three String references and a
+ * LocalDate), each row is four ints in parallel arrays: the student ordinal,
+ * the course ordinal, the registration sequence number (the XXXX in R-XXXX)
+ * and the enrollment date as an epoch day. Student and course IDs are
+ * dictionary-encoded so each distinct ID string is stored once. Registration
+ * objects are materialized only when a caller asks for a row.
+ *
+ * Rows are appended by one thread, then the store is sealed: seal orders the
+ * rows by sequence number and builds a per-student and a per-course index as
+ * two flat int arrays each (an offset per ordinal and the row numbers
+ * grouped by ordinal, in sequence order). A sealed store takes no more rows;
+ * its only change is removing rows, which claims a bit atomically, so it can
+ * be read and removed from by many threads at once. RegistrationManager
+ * keeps every restored registration in one.
+ */
+public class ColumnarRegistrationStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] studentOrdinals = new int[INITIAL_CAPACITY];
+    private int[] courseOrdinals = new int[INITIAL_CAPACITY];
+    private int[] sequences = new int[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int rows = 0;
+    private boolean sequencesAscending = true;
+
+    // Built by seal
+    private boolean sealed;
+    private AtomicLongArray removed = new AtomicLongArray(0);
+    private final AtomicInteger removedCount = new AtomicInteger();
+    private int[] studentStart = new int[1];
+    private int[] studentRows = new int[0];
+    private int[] courseStart = new int[1];
+    private int[] courseRows = new int[0];
+
+    private final IdDictionary studentIds;
+    private final IdDictionary courseIds;
+
+    /**
+     * Constructor to create a store with its own ID dictionaries.
+     */
+    public ColumnarRegistrationStore() {
+        this(new IdDictionary(), new IdDictionary());
+    }
+
+    /**
+     * Constructor to create a store that shares ID dictionaries with other
+     * indexes, so the same ID has the same ordinal in all of them.
+     *
+     * @param studentIds The student ID dictionary
+     * @param courseIds The course ID dictionary
+     */
+    public ColumnarRegistrationStore(IdDictionary studentIds, IdDictionary courseIds) {
+        this.studentIds = studentIds;
+        this.courseIds = courseIds;
+    }
+
+    /**
+     * Appends a registration.
+     *
+     * @param sequence The registration sequence number
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @param date The enrollment date
+     * @return The row number of the new registration; seal may renumber rows
+     * @throws IllegalStateException If the store has been sealed
+     */
+    public int add(int sequence, String studentId, String courseId, LocalDate date) {
+        return add(sequence, studentIds.encode(studentId), courseIds.encode(courseId), date.toEpochDay());
+    }
+
+    /**
+     * Appends an existing registration.
+     *
+     * @param r The registration to store
+     * @return The row number of the new registration; seal may renumber rows
+     * @throws IllegalStateException If the store has been sealed
+     */
+    public int add(Registration r) {
+        return add(r.getSequence(), r.getStudentId(), r.getCourseId(), r.getDate());
+    }
+
+    /**
+     * Appends a registration whose IDs are already encoded.
+     *
+     * @param sequence The registration sequence number
+     * @param student The student ordinal
+     * @param course The course ordinal
+     * @param epochDay The enrollment date as an epoch day
+     * @return The row number of the new registration; seal may renumber rows
+     * @throws IllegalStateException If the store has been sealed
+     */
+    int add(int sequence, int student, int course, long epochDay) {
+        if (sealed) {
+            throw new IllegalStateException("Store is sealed");
+        }
+        if (rows == sequences.length) {
+            resize(Math.max(INITIAL_CAPACITY, rows + (rows >> 1)));
+        }
+        if (rows > 0 && sequence <= sequences[rows - 1]) {
+            sequencesAscending = false;
+        }
+        studentOrdinals[rows] = student;
+        courseOrdinals[rows] = course;
+        sequences[rows] = sequence;
+        epochDays[rows] = (int) epochDay;
+        return rows++;
+    }
+
+    /**
+     * Appends rows in bulk, translating their student and course indexes into ordinals.
+     *
+     * @param batch Four ints per registration: sequence number, student index, course index and epoch day
+     * @param count The number of registrations at the start of batch
+     * @param students The student ordinal for each student index
+     * @param courses The course ordinal for each course index
+     * @throws IllegalStateException If the store has been sealed
+     */
+    void addAll(int[] batch, int count, int[] students, int[] courses) {
+        if (sealed) {
+            throw new IllegalStateException("Store is sealed");
+        }
+        if (rows + count > sequences.length) {
+            resize(rows + count);
+        }
+        int last = rows > 0 ? sequences[rows - 1] : Integer.MIN_VALUE;
+        boolean ascending = sequencesAscending;
+        for (int i = 0; i < count * 4; i += 4) {
+            int sequence = batch[i];
+            ascending &= sequence > last;
+            last = sequence;
+            sequences[rows] = sequence;
+            studentOrdinals[rows] = students[batch[i + 1]];
+            courseOrdinals[rows] = courses[batch[i + 2]];
+            epochDays[rows] = batch[i + 3];
+            rows++;
+        }
+        sequencesAscending = ascending;
+    }
+
+    /**
+     * Stops accepting rows: sorts them by sequence number, trims the columns
+     * and builds the student and course indexes. Sealing twice does nothing.
+     */
+    public void seal() {
+        if (sealed) {
+            return;
+        }
+        if (!sequencesAscending) {
+            sortBySequence();
+        }
+        trimToSize();
+        int[][] byStudent = group(studentOrdinals);
+        studentStart = byStudent[0];
+        studentRows = byStudent[1];
+        int[][] byCourse = group(courseOrdinals);
+        courseStart = byCourse[0];
+        courseRows = byCourse[1];
+        removed = new AtomicLongArray((rows + 63) >>> 6);
+        sealed = true;
+    }
+
+    /**
+     * Checks whether the store has been sealed.
+     * @return true if no more rows can be added, false otherwise
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Materializes one row as a Registration.
+     *
+     * @param row The row number
+     * @return A new Registration view of the row
+     * @throws NoSuchElementException If the row does not exist or was removed
+     */
+    public Registration get(int row) {
+        if (row < 0 || row >= rows || isRemoved(row)) {
+            throw new NoSuchElementException("No registration at row " + row);
+        }
+        return materialize(row);
+    }
+
+    /**
+     * Materializes a row found by findRow even if another thread has removed it since.
+     *
+     * @param row A row number returned by findRow
+     * @return A new Registration view of the row
+     */
+    Registration read(int row) {
+        return materialize(row);
+    }
+
+    /**
+     * Finds the row holding a registration sequence number.
+     * Uses binary search once sealed or while rows were appended in sequence order, and a scan otherwise.
+     *
+     * @param sequence The registration sequence number
+     * @return The row number, or -1 if not found or removed
+     */
+    public int findRow(int sequence) {
+        int row = -1;
+        if (sealed || sequencesAscending) {
+            int found = Arrays.binarySearch(sequences, 0, rows, sequence);
+            row = found >= 0 ? found : -1;
+        } else {
+            for (int i = 0; i < rows; i++) {
+                if (sequences[i] == sequence) {
+                    row = i;
+                    break;
+                }
+            }
+        }
+        return row >= 0 && !isRemoved(row) ? row : -1;
+    }
+
+    /**
+     * Removes a row. The slot is not reused. Of several threads removing
+     * the same row, exactly one succeeds.
+     *
+     * @param row The row number
+     * @return true if this call removed the row, false if it was already removed
+     * @throws IllegalStateException If the store has not been sealed
+     * @throws NoSuchElementException If the row does not exist
+     */
+    public boolean remove(int row) {
+        if (!sealed) {
+            throw new IllegalStateException("Store is not sealed");
+        }
+        if (row < 0 || row >= rows) {
+            throw new NoSuchElementException("No registration at row " + row);
+        }
+        long bit = 1L << row;
+        long previous = removed.getAndAccumulate(row >>> 6, bit, (bits, b) -> bits | b);
+        if ((previous & bit) != 0) {
+            return false;
+        }
+        removedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks whether a student holds a live registration for a course.
+     * Only the student's own rows are read.
+     *
+     * @param student The student ordinal
+     * @param course The course ordinal
+     * @return true if the pair has a live row, false otherwise
+     */
+    boolean contains(int student, int course) {
+        if (student < 0 || student >= studentStart.length - 1) {
+            return false;
+        }
+        for (int i = studentStart[student]; i < studentStart[student + 1]; i++) {
+            int row = studentRows[i];
+            if (courseOrdinals[row] == course && !isRemoved(row)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the student ordinal of a row.
+     * @param row The row number
+     * @return The student ordinal
+     */
+    int studentOf(int row) {
+        return studentOrdinals[row];
+    }
+
+    /**
+     * Gets the course ordinal of a row.
+     * @param row The row number
+     * @return The course ordinal
+     */
+    int courseOf(int row) {
+        return courseOrdinals[row];
+    }
+
+    /**
+     * Iterates the live rows after a sequence number, in sequence order.
+     * Requires a sealed store.
+     *
+     * @param afterSequence The sequence number to start after, or -1 for all rows
+     * @return A weakly consistent iterator that materializes each row as it is reached
+     */
+    Iterator<Registration> iterator(int afterSequence) {
+        return new RowIterator(null, after(sequences, 0, rows, afterSequence), rows);
+    }
+
+    /**
+     * Iterates a student's live rows in sequence order. Requires a sealed store.
+     *
+     * @param student The student ordinal
+     * @return A weakly consistent iterator that materializes each row as it is reached
+     */
+    Iterator<Registration> studentIterator(int student) {
+        if (student < 0 || student >= studentStart.length - 1) {
+            return Collections.emptyIterator();
+        }
+        return new RowIterator(studentRows, studentStart[student], studentStart[student + 1]);
+    }
+
+    /**
+     * Iterates a course's live rows after a sequence number, in sequence
+     * order. Requires a sealed store.
+     *
+     * @param course The course ordinal
+     * @param afterSequence The sequence number to start after, or -1 for the whole roster
+     * @return A weakly consistent iterator that materializes each row as it is reached
+     */
+    Iterator<Registration> courseIterator(int course, int afterSequence) {
+        if (course < 0 || course >= courseStart.length - 1) {
+            return Collections.emptyIterator();
+        }
+        int from = courseStart[course];
+        int to = courseStart[course + 1];
+        // Binary search the course's rows by the sequence numbers they point at
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sequences[courseRows[mid]] <= afterSequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new RowIterator(courseRows, low, to);
+    }
+
+    /**
+     * Gets the number of live registrations.
+     * @return The registration count
+     */
+    public int size() {
+        return rows - removedCount.get();
+    }
+
+    /**
+     * Trims the column arrays to the number of rows stored.
+     */
+    public void trimToSize() {
+        if (rows < sequences.length) {
+            resize(rows);
+        }
+    }
+
+    /**
+     * Copies every column into arrays of a new length.
+     *
+     * @param capacity The new length, at least the number of rows
+     */
+    private void resize(int capacity) {
+        studentOrdinals = Arrays.copyOf(studentOrdinals, capacity);
+        courseOrdinals = Arrays.copyOf(courseOrdinals, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+    }
+
+    /**
+     * Creates a Registration for a row without checking whether it was removed.
+     *
+     * @param row The row number
+     * @return The registration
+     */
+    private Registration materialize(int row) {
+        return new Registration(sequences[row], studentIds.decode(studentOrdinals[row]),
+                courseIds.decode(courseOrdinals[row]), LocalDate.ofEpochDay(epochDays[row]));
+    }
+
+    /**
+     * Checks a row's removal bit; rows of an unsealed store are never removed.
+     *
+     * @param row The row number
+     * @return true if the row was removed
+     */
+    private boolean isRemoved(int row) {
+        int word = row >>> 6;
+        return word < removed.length() && (removed.get(word) & (1L << row)) != 0;
+    }
+
+    /**
+     * Reorders every column so rows are in ascending sequence order.
+     */
+    private void sortBySequence() {
+        long[] order = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = ((long) sequences[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        int[] s = new int[rows];
+        int[] c = new int[rows];
+        int[] q = new int[rows];
+        int[] d = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            int from = (int) order[i];
+            s[i] = studentOrdinals[from];
+            c[i] = courseOrdinals[from];
+            q[i] = sequences[from];
+            d[i] = epochDays[from];
+        }
+        studentOrdinals = s;
+        courseOrdinals = c;
+        sequences = q;
+        epochDays = d;
+        sequencesAscending = true;
+    }
+
+    /**
+     * Groups the rows by one ordinal column with a counting sort. Rows keep
+     * their relative order within a group, so each group is in sequence order.
+     *
+     * @param ordinals The column to group by
+     * @return The offsets, where group g spans [offsets[g], offsets[g + 1]), and the grouped row numbers
+     */
+    private int[][] group(int[] ordinals) {
+        int groups = 0;
+        for (int i = 0; i < rows; i++) {
+            groups = Math.max(groups, ordinals[i] + 1);
+        }
+        int[] start = new int[groups + 1];
+        for (int i = 0; i < rows; i++) {
+            start[ordinals[i] + 1]++;
+        }
+        for (int g = 0; g < groups; g++) {
+            start[g + 1] += start[g];
+        }
+        int[] next = Arrays.copyOf(start, groups);
+        int[] grouped = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            grouped[next[ordinals[i]]++] = i;
+        }
+        return new int[][] {start, grouped};
+    }
+
+    /**
+     * Finds the first index whose sequence number is after a given one.
+     *
+     * @param sorted Sequence numbers in ascending order
+     * @param from The first index to consider
+     * @param to The index after the last one to consider
+     * @param afterSequence The sequence number to start after
+     * @return The first index in [from, to] whose sequence number is greater
+     */
+    private static int after(int[] sorted, int from, int to, int afterSequence) {
+        int found = Arrays.binarySearch(sorted, from, to, afterSequence);
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    /**
+     * Walks a range of rows, either directly or through an index of row
+     * numbers, skipping removed ones.
+     */
+    private final class RowIterator implements Iterator<Registration> {
+        private final int[] index;
+        private final int end;
+        private int position;
+        private int nextRow = -1;
+
+        /**
+         * Constructor to create a RowIterator.
+         *
+         * @param index Row numbers to walk, or null to walk the rows themselves
+         * @param from The first position, inclusive
+         * @param to The last position, exclusive
+         */
+        RowIterator(int[] index, int from, int to) {
+            this.index = index;
+            this.position = from;
+            this.end = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextRow < 0 && position < end) {
+                int row = index == null ? position : index[position];
+                position++;
+                if (!isRemoved(row)) {
+                    nextRow = row;
+                }
+            }
+            return nextRow >= 0;
+        }
+
+        @Override
+        public Registration next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Registration r = materialize(nextRow);
+            nextRow = -1;
+            return r;
+        }
+    }
+}
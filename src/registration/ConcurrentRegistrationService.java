@@ -0,0 +1,197 @@
+package registration;
+
+import common.Result;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe enrollment front end over a RegistrationManager.
+ * Enrollments are serialized per course through a fixed array of lock stripes,
+ * so sign-ups for different courses proceed in parallel while seats and the
+ * waitlist of one course change under a single lock. Stripes are chosen
+ * by the catalog's spelling of the course ID, so every spelling a caller
+ * may use for one course takes the same lock.
+ * A course stripe alone does not make an enrollment atomic, since its
+ * prerequisite and timetable checks read the student's other courses; the
+ * manager also locks the student, always after the course stripe taken here.
+ * Nothing is printed, which keeps console I/O off the concurrent path.
+ */
+public class ConcurrentRegistrationService {
+    private final RegistrationManager registrationManager;
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * Constructor to create a service with one stripe group per available core.
+     *
+     * @param registrationManager The registration store to operate on
+     */
+    public ConcurrentRegistrationService(RegistrationManager registrationManager) {
+        this(registrationManager, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Constructor to create a service with a chosen number of lock stripes.
+     * The stripe count is rounded up to the next power of two.
+     *
+     * @param registrationManager The registration store to operate on
+     * @param stripeCount The minimum number of lock stripes
+     */
+    public ConcurrentRegistrationService(RegistrationManager registrationManager, int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.registrationManager = registrationManager;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Enrolls a student in a course.
+     * If the course is full the student joins its waitlist instead.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The outcome, as returned by RegistrationManager.enroll
+     */
+    public EnrollmentResult enroll(String studentId, String courseId) {
+        ReentrantLock lock = stripeFor(registrationManager.canonicalCourseId(courseId));
+        lock.lock();
+        try {
+            return registrationManager.enroll(studentId, courseId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Enrolls a batch of (studentId, courseId) pairs in one operation.
+     * The stripes of every course in the batch are taken in ascending order,
+     * so batches never deadlock with each other, and the batch then runs as
+     * one RegistrationManager.enrollAll call.
+     *
+     * @param pairs The enrollments to make, each as {studentId, courseId}
+     * @return One result per pair, in the same order
+     */
+    public List<EnrollmentResult> enrollAll(List<String[]> pairs) {
+        BitSet needed = new BitSet(stripes.length);
+        for (String[] pair : pairs) {
+            needed.set(stripeIndex(registrationManager.canonicalCourseId(pair[1])));
+        }
+        int locked = 0;
+        try {
+            for (int i = needed.nextSetBit(0); i >= 0; i = needed.nextSetBit(i + 1)) {
+                stripes[i].lock();
+                locked = i + 1;
+            }
+            return registrationManager.enrollAll(pairs);
+        } finally {
+            for (int i = needed.nextSetBit(0); i >= 0 && i < locked; i = needed.nextSetBit(i + 1)) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a registration and hands its seat to the head of the course's waitlist.
+     * Both steps run under the course's stripe, so no direct enrollment can
+     * take the freed seat ahead of a waiting student. A registration that
+     * another of the student's courses requires is kept.
+     *
+     * @param registrationId The registration ID to remove
+     * @return SUCCESS, NOT_FOUND for an unknown registration, or HAS_DEPENDENTS if the
+     *         student is registered for a course that requires this one
+     */
+    public Result drop(String registrationId) {
+        Registration r = registrationManager.getRegistrationById(registrationId);
+        if (r == null) {
+            return Result.NOT_FOUND;
+        }
+        ReentrantLock lock = stripeFor(r.getCourseId());
+        lock.lock();
+        try {
+            Result result = registrationManager.unenroll(registrationId);
+            if (result == Result.SUCCESS) {
+                registrationManager.promoteFromWaitlist(r.getCourseId());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a student is enrolled in a course.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return true if the student is enrolled in the course, false otherwise
+     */
+    public boolean isEnrolled(String studentId, String courseId) {
+        return registrationManager.isEnrolled(studentId, courseId);
+    }
+
+    /**
+     * Checks whether a student is on a course's waitlist.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return true if the student is waiting for a seat, false otherwise
+     */
+    public boolean isWaitlisted(String studentId, String courseId) {
+        return registrationManager.isWaitlisted(studentId, courseId);
+    }
+
+    /**
+     * Finds which of a student's courses a course would clash with.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The ID of a clashing course the student is enrolled in, or null if there is none
+     */
+    public String findScheduleConflict(String studentId, String courseId) {
+        return registrationManager.findScheduleConflict(studentId, courseId);
+    }
+
+    /**
+     * Finds the prerequisites of a course that a student has not taken.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The IDs of the missing direct and indirect prerequisites, in ID order; empty if none
+     */
+    public List<String> findMissingPrerequisites(String studentId, String courseId) {
+        return registrationManager.findMissingPrerequisites(studentId, courseId);
+    }
+
+    /**
+     * Gets the lock stripe guarding a course.
+     *
+     * @param courseId The course ID, as stored in the catalog
+     * @return The lock for that course's stripe
+     */
+    private ReentrantLock stripeFor(String courseId) {
+        return stripes[stripeIndex(courseId)];
+    }
+
+    /**
+     * Gets the index of the lock stripe guarding a course.
+     *
+     * @param courseId The course ID, as stored in the catalog
+     * @return The stripe index
+     */
+    private int stripeIndex(String courseId) {
+        int h = courseId.hashCode();
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+}
@@ -0,0 +1,45 @@
+package registration;
+
+/**
+ * The number of students enrolled in one course at the moment it was read.
+ */
+public class EnrollmentCount {
+    private final String courseId;
+    private final long count;
+
+    /**
+     * Constructor to create a new EnrollmentCount object.
+     *
+     * @param courseId The course ID
+     * @param count The number of enrolled students
+     */
+    public EnrollmentCount(String courseId, long count) {
+        this.courseId = courseId;
+        this.count = count;
+    }
+
+    /**
+     * Gets the course ID.
+     * @return The course ID
+     */
+    public String getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Gets the number of enrolled students.
+     * @return The enrollment count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns a string representation of the enrollment count.
+     * @return Formatted string with the course ID and count
+     */
+    @Override
+    public String toString() {
+        return "Course: " + courseId + " | Enrolled: " + count;
+    }
+}
@@ -0,0 +1,104 @@
+package registration;
+
+/**
+ * The outcome of enrolling one (student, course) pair, alone or in a batch.
+ */
+public class EnrollmentResult {
+    /**
+     * What happened to the pair.
+     */
+    public enum Status {
+        ENROLLED("Enrolled"),
+        WAITLISTED("Course is full; student added to the waitlist"),
+        ALREADY_ENROLLED("Student is already registered for this course"),
+        ALREADY_WAITLISTED("Student is already on the waitlist for this course"),
+        DUPLICATE("Pair appears earlier in the same batch"),
+        SCHEDULE_CONFLICT("Meeting times clash with another of the student's courses"),
+        MISSING_PREREQUISITES("Student has not taken every prerequisite of this course"),
+        COURSE_NOT_FOUND("Course not found");
+
+        private final String message;
+
+        Status(String message) {
+            this.message = message;
+        }
+
+        /**
+         * Gets a user-facing description of the status.
+         * @return The message
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final String studentId;
+    private final String courseId;
+    private final Status status;
+    private final Registration registration;
+
+    /**
+     * Constructor to create a new EnrollmentResult object.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as given
+     * @param status What happened to the pair
+     * @param registration The new registration, or null unless the status is ENROLLED
+     */
+    public EnrollmentResult(String studentId, String courseId, Status status, Registration registration) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.status = status;
+        this.registration = registration;
+    }
+
+    /**
+     * Gets the student ID.
+     * @return The student ID
+     */
+    public String getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * Gets the course ID.
+     * @return The course ID, as given
+     */
+    public String getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Gets the outcome.
+     * @return The status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the registration created for the pair.
+     * @return The registration, or null if the student was not enrolled
+     */
+    public Registration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * Checks whether the student was enrolled.
+     * @return true if a registration was created, false otherwise
+     */
+    public boolean isEnrolled() {
+        return status == Status.ENROLLED;
+    }
+
+    /**
+     * Returns a string representation of the result.
+     * @return Formatted string with the pair and its outcome
+     */
+    @Override
+    public String toString() {
+        String outcome = registration != null ? "Enrolled as " + registration.getId() : status.getMessage();
+        return "StudentID: " + studentId + " | CourseID: " + courseId + " | " + outcome;
+    }
+}
@@ -1,12 +1,16 @@
 package registration;
 
+import common.Ids;
+
 import java.time.LocalDate;
 
 /**
  * Represents a course registration (enrollment) in the Course Registration System.
  * This class stores information about a student's enrollment in a course.
+ * The ID is held as its sequence number and only formatted as R-XXXX when read.
  */
 public class Registration {
+    private final int sequence;
     private String id;
     private String studentId;
     private String courseId;
@@ -21,7 +25,23 @@ public class Registration {
      * @param date The date of enrollment
      */
     public Registration(String id, String studentId, String courseId, LocalDate date) {
+        this(Ids.number(id), studentId, courseId, date);
+        if (sequence < 0) {
+            throw new IllegalArgumentException("Not a registration ID: " + id);
+        }
         this.id = id;
+    }
+
+    /**
+     * Constructor to create a new Registration object from its sequence number.
+     *
+     * @param sequence The registration sequence number (the XXXX in R-XXXX)
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @param date The date of enrollment
+     */
+    public Registration(int sequence, String studentId, String courseId, LocalDate date) {
+        this.sequence = sequence;
         this.studentId = studentId;
         this.courseId = courseId;
         this.date = date;
@@ -29,10 +49,23 @@ public class Registration {
 
     /**
      * Gets the registration ID.
-     * @return The registration ID
+     * @return The registration ID in format R-XXXX
      */
     public String getId() {
-        return id;
+        String value = id;
+        if (value == null) {
+            value = Ids.format("R-", sequence, 4);
+            id = value;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the registration sequence number.
+     * @return The numeric part of the registration ID
+     */
+    public int getSequence() {
+        return sequence;
     }
 
     /**
@@ -66,6 +99,6 @@ public class Registration {
     @Override
     public String toString() {
         return String.format("RegID: %s | StudentID: %s | CourseID: %s | Date: %s",
-                id, studentId, courseId, date);
+                getId(), studentId, courseId, date);
     }
 }
\ No newline at end of file
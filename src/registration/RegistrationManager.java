@@ -1,100 +1,2258 @@
 package registration;
 
+import common.IdDictionary;
+import common.Ids;
+import common.Page;
+import common.Result;
+import course.Course;
+import course.CourseManager;
+import course.MeetingSlot;
+import events.Event;
+import events.EventSink;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.Metrics;
+import metrics.Operation;
+import output.Output;
+import persistence.Journal;
+import persistence.LogRecord;
+
 import java.time.LocalDate;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Manages all registration operations in the Course Registration System.
  * This class handles student enrollments, enrollment queries, and registration deletion.
+ *
+ * Registrations are indexed by ID, by (studentId, courseId) pair, by student
+ * and by course, so duplicate detection and per-student queries never scan
+ * the full registration list. All indexes are concurrent collections and the
+ * enrollment pair is claimed atomically, so the manager is safe to share
+ * between threads; see ConcurrentRegistrationService for the striped front end.
+ * An enrollment's checks read the student's other courses, for prerequisites
+ * and meeting times, so each student's enrollments and promotions run one at
+ * a time under a lock stripe chosen by student ID. So do their drops, which
+ * check that no other course of theirs requires the one dropped. No thread
+ * holds two student stripes except a batch, which takes them in ascending order.
+ * Internally, student and course IDs are dictionary-encoded to dense ints and
+ * registrations are keyed by sequence number; textual IDs appear only in the
+ * public API.
+ *
+ * When constructed with a CourseManager, enrollment also claims a seat on the
+ * course. Students who find a course full join its FIFO waitlist and are
+ * promoted as seats are freed by removeRegistration.
+ *
+ * Registrations restored from saved data are kept in a sealed
+ * ColumnarRegistrationStore that shares this manager's ID dictionaries,
+ * about a tenth of the memory of the object indexes; only registrations
+ * made since startup live in the indexes above. Queries read both, merged
+ * in sequence order, and removing a restored registration marks its row.
+ *
+ * Deleting students or courses cascades through the per-student and
+ * per-course indexes, so the cost is proportional to the rows removed
+ * rather than to the total number of registrations.
+ *
+ * Each course also has an enrollment counter, a LongAdder updated on every
+ * enrollment and removal and held in an array indexed by course ordinal, so
+ * course sizes and the fullest courses are answered from one counter per
+ * course instead of from the registrations. A total counter beside them
+ * answers getRegistrationCount the same way.
+ *
+ * Students with courses that have meeting times get a Timetable of their
+ * booked slots, so an enrollment that would clash with another of the
+ * student's courses is rejected with an O(log n) lookup. findTermConflicts
+ * re-checks every student's courses against the current meeting times in
+ * parallel, for clashes introduced by rescheduling a course.
+ *
+ * A course with prerequisites only admits students registered for every
+ * course in its transitive prerequisite closure; the check is answered by
+ * the CourseManager's cached closures from the courses the student holds.
+ * For the same reason a student cannot drop a course while still registered
+ * for a course that requires it.
+ *
+ * Enrollments, removals, waitlist joins and promotions are published as
+ * Events; cascading removals are covered by the student or course event
+ * that caused them.
+ *
+ * Every public operation is timed into the process-wide Metrics registry,
+ * along with waitlist joins, promotions and batch sizes.
+ *
+ * Each change is journaled before it is applied, and holds the read side of
+ * the journal lock from its append until it is visible in memory; see
+ * getJournalLock.
  */
 public class RegistrationManager {
-    private ArrayList<Registration> registrations = new ArrayList<>();
-    private int regCounter = 0;
+    private static final Comparator<Registration> REGISTRATION_ORDER =
+            Comparator.comparingInt(Registration::getSequence);
+
+    private static final Operation REGISTER = Metrics.operation("registration.registerStudentToCourse");
+    private static final Operation ENROLL = Metrics.operation("registration.enroll");
+    private static final Operation ENROLL_ALL = Metrics.operation("registration.enrollAll");
+    private static final Histogram BATCH_SIZE = Metrics.histogram("registration.enrollAll.batchSize");
+    private static final Operation LIST = Metrics.operation("registration.listRegistrations");
+    private static final Operation STUDENT_REGISTRATIONS = Metrics.operation("registration.getStudentRegistrations",
+            Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation COURSE_REGISTRATIONS = Metrics.operation("registration.getCourseRegistrations",
+            Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation GET_BY_ID = Metrics.operation("registration.getRegistrationById",
+            Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation REMOVE = Metrics.operation("registration.removeRegistration");
+    private static final Operation UNENROLL = Metrics.operation("registration.unenroll");
+    private static final Operation REMOVE_FOR_STUDENTS = Metrics.operation("registration.removeStudentRegistrations");
+    private static final Operation REMOVE_FOR_COURSES = Metrics.operation("registration.removeCourseRegistrations");
+    private static final Operation ENROLLMENT_COUNT = Metrics.operation("registration.getEnrollmentCount",
+            Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation TOP_COURSES = Metrics.operation("registration.getTopCoursesByEnrollment");
+    private static final Operation ROSTER = Metrics.operation("registration.listCourseRoster");
+    private static final Counter WAITLIST_JOINS = Metrics.counter("registration.waitlist.joins");
+    private static final Counter WAITLIST_PROMOTIONS = Metrics.counter("registration.waitlist.promotions");
+    private static final Operation TERM_CONFLICTS = Metrics.operation("registration.findTermConflicts");
+    private static final Counter SCHEDULE_CONFLICTS = Metrics.counter("registration.scheduleConflicts");
+    private static final Counter PREREQUISITE_REJECTIONS = Metrics.counter("registration.prerequisiteRejections");
+    private static final int STUDENT_STRIPES = 256;
+    private static final Comparator<ScheduleConflict> CONFLICT_ORDER =
+            Comparator.comparing(ScheduleConflict::getStudentId, Ids.ORDER)
+                    .thenComparing(ScheduleConflict::getCourseId, Ids.ORDER)
+                    .thenComparing(ScheduleConflict::getOtherCourseId, Ids.ORDER);
+
+    private ConcurrentSkipListMap<Integer, Registration> registrations = new ConcurrentSkipListMap<>();
+    private ConcurrentHashMap<Long, Registration> byEnrollment = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Integer, NavigableSet<Registration>> byStudent = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Integer, NavigableSet<Registration>> byCourse = new ConcurrentHashMap<>();
+    private volatile LongAdder[] enrollmentCounts = new LongAdder[64];
+    private final LongAdder registrationCount = new LongAdder();
+    private final ConcurrentHashMap<Integer, Timetable> timetables = new ConcurrentHashMap<>();
+    private final IdDictionary studentIds = new IdDictionary();
+    private final IdDictionary courseIds = new IdDictionary();
+    // Restored registrations; rows are appended until the first query seals it, see archive()
+    private final ColumnarRegistrationStore archive = new ColumnarRegistrationStore(studentIds, courseIds);
+    private volatile boolean archiveSealed;
+    private ConcurrentHashMap<String, Waitlist> waitlists = new ConcurrentHashMap<>();
+    // Student ID to the courses whose waitlists they may be on, so removing a student skips the other waitlists
+    private final ConcurrentHashMap<String, Set<String>> waitingFor = new ConcurrentHashMap<>();
+    private final AtomicInteger regCounter = new AtomicInteger(0);
+    private final CourseManager courseManager;
+    private volatile Journal journal = Journal.NONE;
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    // Serializes each student's check-then-act; see studentLock
+    private final ReentrantLock[] studentLocks = new ReentrantLock[STUDENT_STRIPES];
+    private volatile EventSink events = EventSink.NONE;
+    private volatile Output output = Output.STDOUT;
+
+    /**
+     * Constructor to create a RegistrationManager without seat limits.
+     */
+    public RegistrationManager() {
+        this(null);
+    }
+
+    /**
+     * Constructor to create a RegistrationManager that enforces course seat limits.
+     *
+     * @param courseManager The course catalog used to look up seat limits, or null for none
+     */
+    public RegistrationManager(CourseManager courseManager) {
+        this.courseManager = courseManager;
+        for (int i = 0; i < STUDENT_STRIPES; i++) {
+            studentLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Sets the journal that records every registration change.
+     * @param journal The journal to append to
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the lock that orders journal appends against checkpoints. Every
+     * change holds its read lock from appending its record until the change
+     * is applied in memory, so once the write lock is held every record in
+     * the journal is reflected in memory. Hold the write lock while sealing a
+     * log segment that a snapshot will replace.
+     * @return The journal lock
+     */
+    public ReadWriteLock getJournalLock() {
+        return journalLock;
+    }
+
+    /**
+     * Sets the sink that receives an event for every registration change.
+     * @param events The sink to publish to
+     */
+    public void setEvents(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Sets where messages for the user are printed; Output.QUIET for callers
+     * that only read the returned results.
+     * @param output The output to print to
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+    }
 
     /**
      * Generates a unique registration ID.
      * @return A new registration ID in format R-XXXX
      */
     public String generateRegistrationId() {
-        regCounter++;
-        return String.format("R-%04d", regCounter);
+        return Ids.format("R-", regCounter.incrementAndGet(), 4);
+    }
+
+    /**
+     * Gets the lock stripe that serializes a student's enrollments, promotions and drops.
+     * Callers holding a ConcurrentRegistrationService course stripe take this
+     * one second, and never hold another student's stripe while waiting for it.
+     *
+     * @param studentId The ID of the student
+     * @return The student's lock
+     */
+    private ReentrantLock studentLock(String studentId) {
+        return studentLocks[studentStripe(studentId)];
+    }
+
+    /**
+     * Gets the index of a student's lock stripe.
+     *
+     * @param studentId The ID of the student
+     * @return The stripe index
+     */
+    private static int studentStripe(String studentId) {
+        int h = studentId.hashCode();
+        h ^= (h >>> 16);
+        return h & (STUDENT_STRIPES - 1);
+    }
+
+    /**
+     * Packs a (student, course) ordinal pair into one enrollment key.
+     *
+     * @param studentOrdinal The student's dictionary ordinal
+     * @param courseOrdinal The course's dictionary ordinal
+     * @return The composite key
+     */
+    private static long enrollmentKey(int studentOrdinal, int courseOrdinal) {
+        return ((long) studentOrdinal << 32) | (courseOrdinal & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Checks whether a student is enrolled in a course.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return true if the student is enrolled in the course, false otherwise
+     */
+    public boolean isEnrolled(String studentId, String courseId) {
+        return enrolled(studentId, canonicalCourseId(courseId));
+    }
+
+    /**
+     * Checks whether a student is enrolled in a course, by the catalog's spelling of its ID.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as stored in the catalog
+     * @return true if the student is enrolled in the course, false otherwise
+     */
+    private boolean enrolled(String studentId, String courseId) {
+        int student = studentIds.lookup(studentId);
+        int course = courseIds.lookup(courseId);
+        if (student < 0 || course < 0) {
+            return false;
+        }
+        return byEnrollment.containsKey(enrollmentKey(student, course)) || archive().contains(student, course);
+    }
+
+    /**
+     * Checks whether a student is on a course's waitlist.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return true if the student is waiting for a seat, false otherwise
+     */
+    public boolean isWaitlisted(String studentId, String courseId) {
+        return waitlisted(studentId, canonicalCourseId(courseId));
+    }
+
+    /**
+     * Checks whether a student is on a course's waitlist, by the catalog's spelling of its ID.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as stored in the catalog
+     * @return true if the student is waiting for a seat, false otherwise
+     */
+    private boolean waitlisted(String studentId, String courseId) {
+        Waitlist waitlist = courseId == null ? null : waitlists.get(courseId);
+        return waitlist != null && waitlist.contains(studentId);
+    }
+
+    /**
+     * Retrieves a course's waitlist.
+     *
+     * @param courseId The course ID
+     * @return The waiting student IDs in promotion order
+     */
+    public List<String> getWaitlist(String courseId) {
+        String id = canonicalCourseId(courseId);
+        Waitlist waitlist = id == null ? null : waitlists.get(id);
+        return waitlist == null ? Collections.emptyList() : waitlist.toList();
+    }
+
+    /**
+     * Retrieves every non-empty waitlist.
+     * @return Each course ID mapped to its waiting student IDs in promotion order
+     */
+    public Map<String, List<String>> getWaitlists() {
+        Map<String, List<String>> all = new HashMap<>();
+        for (Map.Entry<String, Waitlist> e : waitlists.entrySet()) {
+            List<String> waiting = e.getValue().toList();
+            if (!waiting.isEmpty()) {
+                all.put(e.getKey(), waiting);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Finds a course in the catalog.
+     *
+     * @param courseId The course ID, in any case
+     * @return The course, or null if it is unknown or seat limits are not enforced
+     */
+    private Course findCourse(String courseId) {
+        return courseId == null || courseManager == null ? null : courseManager.getCourseById(courseId);
+    }
+
+    /**
+     * Resolves a course ID to the catalog's spelling of it. Course IDs match
+     * ignoring case, but the dictionary, indexes and waitlists are keyed by
+     * exact text, so every entry point resolves the ID before using them.
+     *
+     * @param courseId The course ID, in any case
+     * @return The ID as stored in the catalog, or courseId itself if the course is unknown
+     */
+    String canonicalCourseId(String courseId) {
+        Course course = findCourse(courseId);
+        return course == null ? courseId : course.getId();
     }
 
     /**
      * Registers a student to a course.
      * Prevents duplicate enrollments for the same student-course pair.
+     * If the course is full the student is placed on its waitlist instead.
      *
      * @param studentId The ID of the student
      * @param courseId The ID of the course
+     * @return The outcome, ALREADY_ENROLLED or ALREADY_WAITLISTED if the student already holds a place,
+     *         or COURSE_NOT_FOUND if a course catalog is in use and has no such course
      */
-    public void registerStudentToCourse(String studentId, String courseId) {
-        // Check duplicate registration
-        for (Registration r : registrations) {
-            if (r.getStudentId().equals(studentId) && r.getCourseId().equals(courseId)) {
-                System.out.println("Error: Student already enrolled in this course!");
-                return;
+    public EnrollmentResult registerStudentToCourse(String studentId, String courseId) {
+        long start = REGISTER.start();
+        boolean ok = false;
+        try {
+            Course course = findCourse(courseId);
+            if (course != null) {
+                courseId = course.getId();
+            } else if (courseManager != null) {
+                output.println("Error: Course not found!");
+                return new EnrollmentResult(studentId, courseId, EnrollmentResult.Status.COURSE_NOT_FOUND, null);
+            }
+
+            EnrollmentResult result = enroll(studentId, courseId, course);
+            EnrollmentResult.Status status = result.getStatus();
+            ok = status == EnrollmentResult.Status.ENROLLED || status == EnrollmentResult.Status.WAITLISTED;
+            if (output.isEnabled()) {
+                printOutcome(result);
             }
+            return result;
+        } finally {
+            REGISTER.record(start, ok);
         }
+    }
 
-        String regId = generateRegistrationId();
-        Registration r = new Registration(regId, studentId, courseId, LocalDate.now());
-        registrations.add(r);
-        System.out.println("Success: Enrollment successful! Registration ID: " + regId);
+    /**
+     * Prints the message for the outcome of a single enrollment.
+     * @param result The outcome
+     */
+    private void printOutcome(EnrollmentResult result) {
+        switch (result.getStatus()) {
+            case ENROLLED:
+                output.println("Success: Enrollment successful! Registration ID: " + result.getRegistration().getId());
+                break;
+            case WAITLISTED:
+                output.println("Success: Course is full. You have been added to the waitlist.");
+                break;
+            case SCHEDULE_CONFLICT:
+                String other = findScheduleConflict(result.getStudentId(), result.getCourseId());
+                output.println("Error: This course's meeting times clash with "
+                        + (other == null ? "another of your courses" : "course " + other) + "!");
+                break;
+            case MISSING_PREREQUISITES:
+                output.println("Error: Complete the prerequisites first: "
+                        + String.join(", ", findMissingPrerequisites(result.getStudentId(), result.getCourseId()))
+                        + "!");
+                break;
+            case ALREADY_WAITLISTED:
+                output.println("Error: Student is already on the waitlist for this course!");
+                break;
+            default:
+                output.println("Error: Student already enrolled in this course!");
+        }
     }
 
     /**
-     * Displays all registrations in the system.
+     * Registers a batch of (studentId, courseId) pairs and prints each outcome.
+     * Validation, ID allocation and journaling happen once for the whole
+     * batch; see enrollAll.
+     *
+     * @param pairs The enrollments to make, each as {studentId, courseId}
+     * @return One result per pair, in the same order
      */
-    public void viewRegistrations() {
-        if (registrations.isEmpty()) {
-            System.out.println("Error: No registrations found.");
-            return;
+    public List<EnrollmentResult> registerBatch(List<String[]> pairs) {
+        List<EnrollmentResult> results = enrollAll(pairs);
+        if (!output.isEnabled()) {
+            return results;
+        }
+        int enrolled = 0;
+        output.println("\n===== Batch Enrollment =====");
+        for (EnrollmentResult result : results) {
+            output.println(result.toString());
+            if (result.isEnrolled()) {
+                enrolled++;
+            }
         }
-        System.out.println("\n========== ALL REGISTRATIONS ==========");
-        for (Registration r : registrations) {
-            System.out.println(r);
+        output.println("============================");
+        if (enrolled > 0) {
+            output.println("Success: " + enrolled + " of " + results.size() + " enrollments completed!");
+        } else {
+            output.println("Error: None of the " + results.size() + " enrollments could be completed.");
         }
-        System.out.println("========================================\n");
+        return results;
     }
 
     /**
-     * Displays all registrations for a specific student.
+     * Enrolls a student in a course without printing.
+     * The (studentId, courseId) pair is claimed atomically, so two concurrent
+     * calls for the same pair can never both succeed. If the course is full
+     * the student joins its waitlist instead.
      *
-     * @param studentId The student ID to search for
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The outcome: ENROLLED with the new registration, WAITLISTED, ALREADY_ENROLLED,
+     *         ALREADY_WAITLISTED, SCHEDULE_CONFLICT, MISSING_PREREQUISITES, or COURSE_NOT_FOUND if a
+     *         course catalog is in use and has no such course
      */
-    public void viewStudentRegistrations(String studentId) {
-        ArrayList<Registration> studentRegs = new ArrayList<>();
-        for (Registration r : registrations) {
-            if (r.getStudentId().equals(studentId)) {
-                studentRegs.add(r);
+    public EnrollmentResult enroll(String studentId, String courseId) {
+        long start = ENROLL.start();
+        EnrollmentResult result = null;
+        try {
+            Course course = findCourse(courseId);
+            if (course == null && courseManager != null) {
+                result = new EnrollmentResult(studentId, courseId, EnrollmentResult.Status.COURSE_NOT_FOUND, null);
+                return result;
             }
+            result = enroll(studentId, course == null ? courseId : course.getId(), course);
+            return result;
+        } finally {
+            ENROLL.record(start, result != null && result.isEnrolled());
         }
+    }
 
-        if (studentRegs.isEmpty()) {
-            System.out.println("Error: No registrations found for this student.");
+    /**
+     * Enrolls a batch of (studentId, courseId) pairs without printing, in order.
+     * Every pair is validated in one pass against the indexes: each distinct
+     * course is looked up once, and repeats within the batch are caught by a
+     * hash set rather than by rescanning. Pairs that secure a seat then take
+     * consecutive registration IDs from a single block, and the whole batch
+     * is journaled together so it costs a single durable write. Seat limits,
+     * waitlists and meeting time clashes apply exactly as for enroll, with
+     * earlier pairs in the batch counting against later ones. Prerequisites
+     * must be held before the batch; a prerequisite enrolled earlier in the
+     * same batch does not count. Nothing in the batch is visible until it
+     * has been journaled; if the journal write fails, the pairs, seats and
+     * meeting times it reserved are given back and no events are published.
+     * Student IDs are not checked; callers that accept input from users
+     * filter unknown students first. The batch holds the lock stripes of all
+     * its students throughout.
+     *
+     * @param pairs The enrollments to make, each as {studentId, courseId}
+     * @return One result per pair, in the same order
+     */
+    public List<EnrollmentResult> enrollAll(List<String[]> pairs) {
+        long start = ENROLL_ALL.start();
+        boolean ok = false;
+        BitSet stripes = new BitSet(STUDENT_STRIPES);
+        for (String[] pair : pairs) {
+            stripes.set(studentStripe(pair[0]));
+        }
+        for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+            studentLocks[i].lock();
+        }
+        try {
+            int n = pairs.size();
+            EnrollmentResult[] results = new EnrollmentResult[n];
+            String[] resolvedCourses = new String[n];
+            Course[] seats = new Course[n];
+            HashMap<String, Course> courses = new HashMap<>();
+            HashSet<String> seen = new HashSet<>();
+            List<LogRecord> records = new ArrayList<>();
+            int claimed = 0;
+            for (int i = 0; i < n; i++) {
+                String studentId = pairs.get(i)[0];
+                String courseId = pairs.get(i)[1];
+                Course course = null;
+                if (courseManager != null) {
+                    course = courses.computeIfAbsent(courseId, courseManager::getCourseById);
+                    if (course == null) {
+                        results[i] = new EnrollmentResult(studentId, courseId,
+                                EnrollmentResult.Status.COURSE_NOT_FOUND, null);
+                        continue;
+                    }
+                    courseId = course.getId();
+                }
+                EnrollmentResult.Status status = seen.add(studentId + ',' + courseId)
+                        ? claim(studentId, courseId, course, false)
+                        : EnrollmentResult.Status.DUPLICATE;
+                if (status == EnrollmentResult.Status.WAITLISTED) {
+                    // The student joins once the batch is journaled
+                    records.add(new LogRecord(LogRecord.Type.WAITLIST_JOIN, studentId, courseId));
+                }
+                if (status != null) {
+                    results[i] = new EnrollmentResult(studentId, courseId, status, null);
+                    continue;
+                }
+                resolvedCourses[i] = courseId;
+                seats[i] = course;
+                claimed++;
+            }
+
+            // One block of IDs for every pair holding a seat; a pair lost to a concurrent enroll leaves a gap
+            int next = regCounter.getAndAdd(claimed) + 1;
+            for (int i = 0; i < n; i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                String studentId = pairs.get(i)[0];
+                Registration r = reserve(next++, studentId, resolvedCourses[i]);
+                if (r != null) {
+                    records.add(registrationRecord(r));
+                    results[i] = new EnrollmentResult(studentId, resolvedCourses[i],
+                            EnrollmentResult.Status.ENROLLED, r);
+                } else {
+                    unclaim(studentId, resolvedCourses[i], seats[i]);
+                    results[i] = new EnrollmentResult(studentId, resolvedCourses[i],
+                            EnrollmentResult.Status.ALREADY_ENROLLED, null);
+                }
+            }
+            journalLock.readLock().lock();
+            try {
+                try {
+                    journal.appendAll(records);
+                } catch (RuntimeException e) {
+                    // None of the batch reached the disk, so give back every pair, seat and booking it reserved
+                    for (int i = 0; i < n; i++) {
+                        if (results[i].isEnrolled()) {
+                            release(results[i].getRegistration());
+                            unclaim(results[i].getStudentId(), results[i].getCourseId(), seats[i]);
+                        }
+                    }
+                    throw e;
+                }
+                for (int i = 0; i < n; i++) {
+                    EnrollmentResult result = results[i];
+                    if (result.isEnrolled()) {
+                        index(result.getRegistration());
+                    } else if (result.getStatus() == EnrollmentResult.Status.WAITLISTED
+                            && !joinWaitlist(result.getStudentId(), result.getCourseId())) {
+                        // A concurrent enroll put the student on the waitlist since the check; replay ignores the repeat
+                        results[i] = new EnrollmentResult(result.getStudentId(), result.getCourseId(),
+                                EnrollmentResult.Status.ALREADY_WAITLISTED, null);
+                    }
+                }
+            } finally {
+                journalLock.readLock().unlock();
+            }
+            for (EnrollmentResult result : results) {
+                if (result.getStatus() == EnrollmentResult.Status.WAITLISTED) {
+                    WAITLIST_JOINS.increment();
+                }
+                publish(result);
+            }
+            ok = true;
+            return Arrays.asList(results);
+        } finally {
+            for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+                studentLocks[i].unlock();
+            }
+            ENROLL_ALL.record(start, ok);
+            BATCH_SIZE.record(pairs.size());
+        }
+    }
+
+    /**
+     * Enrolls a student, journaling the change before applying it, under the student's lock stripe.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as stored in the catalog
+     * @param course The course, or null if seat limits are not enforced
+     * @return The outcome: ENROLLED, WAITLISTED, ALREADY_ENROLLED, ALREADY_WAITLISTED, SCHEDULE_CONFLICT
+     *         or MISSING_PREREQUISITES
+     */
+    private EnrollmentResult enroll(String studentId, String courseId, Course course) {
+        ReentrantLock lock = studentLock(studentId);
+        lock.lock();
+        try {
+            EnrollmentResult.Status status = claim(studentId, courseId, course, false);
+            if (status == EnrollmentResult.Status.WAITLISTED) {
+                if (!journalWaitlistJoin(studentId, courseId)) {
+                    return new EnrollmentResult(studentId, courseId, EnrollmentResult.Status.ALREADY_WAITLISTED,
+                            null);
+                }
+                WAITLIST_JOINS.increment();
+                return publish(new EnrollmentResult(studentId, courseId, EnrollmentResult.Status.WAITLISTED, null));
+            }
+            if (status != null) {
+                return new EnrollmentResult(studentId, courseId, status, null);
+            }
+            Registration r = insertClaimed(studentId, courseId, course);
+            if (r == null) {
+                return new EnrollmentResult(studentId, courseId, EnrollmentResult.Status.ALREADY_ENROLLED, null);
+            }
+            return publish(new EnrollmentResult(studentId, courseId, EnrollmentResult.Status.ENROLLED, r));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Validates an enrollment and claims what it needs, for enroll, enrollAll
+     * and promoteFromWaitlist alike. Prerequisites are checked and the
+     * course's meeting times booked before its seat is claimed, so a student
+     * who lacks one or clashes neither takes a seat nor joins the waitlist.
+     * Once this returns null the caller owns the booking and the seat, and
+     * gives them back with unclaim if the enrollment goes no further.
+     * The caller holds the student's lock stripe until the enrollment is
+     * indexed or given back, so no drop can change what was checked.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as stored in the catalog
+     * @param course The course, or null if seat limits are not enforced
+     * @param promotion true if the student has just left the course's waitlist and the caller
+     *                  already holds a seat for them
+     * @return null if the times were booked and a seat claimed; otherwise ALREADY_ENROLLED,
+     *         ALREADY_WAITLISTED, MISSING_PREREQUISITES, SCHEDULE_CONFLICT, or WAITLISTED if the
+     *         course is full and the student should join its waitlist
+     */
+    private EnrollmentResult.Status claim(String studentId, String courseId, Course course, boolean promotion) {
+        if (enrolled(studentId, courseId)) {
+            return EnrollmentResult.Status.ALREADY_ENROLLED;
+        }
+        if (!promotion && waitlisted(studentId, courseId)) {
+            return EnrollmentResult.Status.ALREADY_WAITLISTED;
+        }
+        if (!hasPrerequisites(studentId, course)) {
+            return EnrollmentResult.Status.MISSING_PREREQUISITES;
+        }
+        EnrollmentResult.Status status = bookSchedule(studentId, courseId, course);
+        if (status != null) {
+            return status;
+        }
+        if (!promotion && course != null && !course.tryClaimSeat()) {
+            releaseSchedule(studentId, courseId);
+            return EnrollmentResult.Status.WAITLISTED;
+        }
+        return null;
+    }
+
+    /**
+     * Gives back the booking and seat taken by claim for an enrollment that did not go ahead.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as stored in the catalog
+     * @param seat The course whose seat to give back, or null if the caller keeps it
+     */
+    private void unclaim(String studentId, String courseId, Course seat) {
+        if (seat != null) {
+            seat.releaseSeat();
+        }
+        releaseSchedule(studentId, courseId);
+    }
+
+    /**
+     * Creates, journals and indexes a registration for a claimed enrollment,
+     * giving back the claim if it cannot be made.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as stored in the catalog
+     * @param seat The course whose seat to give back on failure, or null if the caller keeps it
+     * @return The new registration, or null if the pair was claimed concurrently
+     * @throws java.io.UncheckedIOException If the record cannot be appended; the claim is given back
+     */
+    private Registration insertClaimed(String studentId, String courseId, Course seat) {
+        Registration r = null;
+        try {
+            r = insert(regCounter.incrementAndGet(), studentId, courseId);
+        } finally {
+            if (r == null) {
+                unclaim(studentId, courseId, seat);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Publishes the event for an enrollment that enrolled or waitlisted the student.
+     *
+     * @param result The outcome
+     * @return The same outcome
+     */
+    private EnrollmentResult publish(EnrollmentResult result) {
+        if (result.getStatus() == EnrollmentResult.Status.ENROLLED) {
+            publish(Event.Type.REGISTRATION_ADDED, result.getRegistration());
+        } else if (result.getStatus() == EnrollmentResult.Status.WAITLISTED) {
+            events.publish(new Event(Event.Type.WAITLIST_JOINED, result.getStudentId(), result.getCourseId(), null));
+        }
+        return result;
+    }
+
+    /**
+     * Publishes an event about one registration.
+     *
+     * @param type What happened to it
+     * @param r The registration
+     */
+    private void publish(Event.Type type, Registration r) {
+        events.publish(new Event(type, r.getStudentId(), r.getCourseId(), r.getId()));
+    }
+
+    /**
+     * Books a course's meeting times into a student's timetable.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course, as it will be registered
+     * @param course The course, or null if seat limits are not enforced
+     * @return null if the times were booked or the course has none, ALREADY_ENROLLED
+     *         if they are booked already, or SCHEDULE_CONFLICT if they clash
+     */
+    private EnrollmentResult.Status bookSchedule(String studentId, String courseId, Course course) {
+        List<MeetingSlot> schedule = course == null ? Collections.emptyList() : course.getSchedule();
+        if (schedule.isEmpty()) {
+            return null;
+        }
+        Timetable timetable = timetables.computeIfAbsent(studentIds.encode(studentId), k -> new Timetable());
+        int clash = timetable.book(courseIds.encode(courseId), schedule);
+        if (clash == Timetable.FREE) {
+            return null;
+        }
+        if (clash == Timetable.ALREADY_BOOKED) {
+            return EnrollmentResult.Status.ALREADY_ENROLLED;
+        }
+        SCHEDULE_CONFLICTS.increment();
+        return EnrollmentResult.Status.SCHEDULE_CONFLICT;
+    }
+
+    /**
+     * Removes a course's meeting times from a student's timetable.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     */
+    private void releaseSchedule(String studentId, String courseId) {
+        int student = studentIds.lookup(studentId);
+        int course = courseIds.lookup(courseId);
+        Timetable timetable = student < 0 || course < 0 ? null : timetables.get(student);
+        if (timetable != null) {
+            timetable.release(course);
+        }
+    }
+
+    /**
+     * Finds which of a student's courses a course would clash with.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The ID of a clashing course the student is enrolled in, or null if there is none
+     */
+    public String findScheduleConflict(String studentId, String courseId) {
+        Course course = findCourse(courseId);
+        int student = studentIds.lookup(studentId);
+        Timetable timetable = course == null || student < 0 ? null : timetables.get(student);
+        if (timetable == null) {
+            return null;
+        }
+        int clash = timetable.findClash(courseIds.lookup(course.getId()), course.getSchedule());
+        return clash == Timetable.FREE ? null : courseIds.decode(clash);
+    }
+
+    /**
+     * Checks that a student holds every direct and indirect prerequisite of a course.
+     *
+     * @param studentId The ID of the student
+     * @param course The course, or null if prerequisites are not enforced
+     * @return true if the student may take the course, false otherwise
+     */
+    private boolean hasPrerequisites(String studentId, Course course) {
+        if (course == null || course.getPrerequisites().isEmpty()
+                || courseManager.hasPrerequisites(course.getId(), takenCourseIds(studentId))) {
+            return true;
+        }
+        PREREQUISITE_REJECTIONS.increment();
+        return false;
+    }
+
+    /**
+     * Finds the prerequisites of a course that a student has not taken.
+     * A course counts as taken while the student is registered for it.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The IDs of the missing direct and indirect prerequisites, in ID order; empty if none
+     */
+    public List<String> findMissingPrerequisites(String studentId, String courseId) {
+        Course course = courseManager == null ? null : courseManager.getCourseById(courseId);
+        if (course == null || course.getPrerequisites().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> missing = new ArrayList<>();
+        for (Course prerequisite : courseManager.findMissingPrerequisites(course.getId(), takenCourseIds(studentId))) {
+            missing.add(prerequisite.getId());
+        }
+        return missing;
+    }
+
+    /**
+     * Lists the IDs of the courses a student is registered for.
+     *
+     * @param studentId The ID of the student
+     * @return The course IDs
+     */
+    private List<String> takenCourseIds(String studentId) {
+        Collection<Registration> regs = studentRegistrations(studentIds.lookup(studentId));
+        if (regs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> taken = new ArrayList<>(regs.size());
+        for (Registration r : regs) {
+            taken.add(r.getCourseId());
+        }
+        return taken;
+    }
+
+    /**
+     * Rebooks the timetables of every student enrolled in a course after its
+     * meeting times change. Enrolled students keep their places even if the
+     * new times clash; findTermConflicts reports those students.
+     *
+     * @param courseId The ID of the rescheduled course
+     */
+    public void rescheduleCourse(String courseId) {
+        Course course = findCourse(courseId);
+        int courseOrdinal = course == null ? -1 : courseIds.lookup(course.getId());
+        Collection<Registration> regs = courseRegistrations(courseOrdinal);
+        if (regs.isEmpty()) {
             return;
         }
+        List<MeetingSlot> schedule = course.getSchedule();
+        for (Registration r : regs) {
+            int student = studentIds.lookup(r.getStudentId());
+            Timetable timetable = timetables.computeIfAbsent(student, k -> new Timetable());
+            timetable.release(courseOrdinal);
+            timetable.add(courseOrdinal, schedule);
+        }
+    }
 
-        System.out.println("\n===== Student's Registrations =====");
-        for (Registration r : studentRegs) {
-            System.out.println(r);
+    /**
+     * Checks every student's courses for clashing meeting times.
+     * Meeting times are read from the course catalog once, then students are
+     * checked in parallel, each by sorting their booked slots and sweeping
+     * them in week order. Each clashing pair of courses is reported once per
+     * student, with the first slot where they overlap.
+     *
+     * @return The clashes, ordered by student and course ID
+     */
+    public List<ScheduleConflict> findTermConflicts() {
+        long start = TERM_CONFLICTS.start();
+        boolean ok = false;
+        try {
+            HashMap<String, List<MeetingSlot>> schedules = new HashMap<>();
+            if (courseManager != null) {
+                for (Course c : courseManager.getAllCourses()) {
+                    if (!c.getSchedule().isEmpty()) {
+                        schedules.put(c.getId(), c.getSchedule());
+                    }
+                }
+            }
+            List<ScheduleConflict> conflicts = IntStream.range(0, studentIds.size()).parallel()
+                    .mapToObj(this::studentRegistrations)
+                    .filter(regs -> regs.size() > 1)
+                    .flatMap(regs -> studentConflicts(regs, schedules))
+                    .sorted(CONFLICT_ORDER)
+                    .collect(Collectors.toList());
+            ok = true;
+            return conflicts;
+        } finally {
+            TERM_CONFLICTS.record(start, ok);
         }
-        System.out.println("===================================\n");
     }
 
     /**
-     * Removes a registration from the system.
+     * Displays every schedule clash among enrolled students.
+     */
+    public void viewTermConflicts() {
+        if (!output.isEnabled()) {
+            return;
+        }
+        List<ScheduleConflict> conflicts = findTermConflicts();
+        if (conflicts.isEmpty()) {
+            output.println("Success: No schedule conflicts found.");
+            return;
+        }
+        output.println("\n========== SCHEDULE CONFLICTS ==========");
+        for (ScheduleConflict c : conflicts) {
+            output.println(c.toString());
+        }
+        output.println("========================================");
+        output.println("Error: " + conflicts.size() + " schedule conflict(s) found.\n");
+    }
+
+    /**
+     * Finds the clashing course pairs of one student.
+     * Each booked slot is packed into a long as (start, end, course index),
+     * so sorting by start is a primitive sort and the sweep allocates nothing
+     * unless a clash is found.
      *
-     * @param registrationId The registration ID to remove
+     * @param regs The student's registrations
+     * @param schedules Meeting times by course ID, for courses that have any
+     * @return The student's clashes
      */
-    public void removeRegistration(String registrationId) {
-        for (Registration r : registrations) {
-            if (r.getId().equals(registrationId)) {
-                registrations.remove(r);
-                System.out.println("Success: Registration removed successfully!");
-                return;
+    private static Stream<ScheduleConflict> studentConflicts(Collection<Registration> regs,
+                                                             Map<String, List<MeetingSlot>> schedules) {
+        String[] courses = new String[regs.size()];
+        long[] booked = new long[regs.size() * 2];
+        int n = 0;
+        int index = 0;
+        String studentId = null;
+        for (Registration r : regs) {
+            studentId = r.getStudentId();
+            List<MeetingSlot> schedule = schedules.get(r.getCourseId());
+            if (schedule == null) {
+                continue;
+            }
+            courses[index] = r.getCourseId();
+            for (MeetingSlot slot : schedule) {
+                if (n == booked.length) {
+                    booked = Arrays.copyOf(booked, n * 2);
+                }
+                booked[n++] = ((long) slot.getStart() << 40) | ((long) slot.getEnd() << 20) | index;
+            }
+            index++;
+        }
+        if (index < 2) {
+            return Stream.empty();
+        }
+        Arrays.sort(booked, 0, n);
+        List<ScheduleConflict> conflicts = null;
+        Set<String> reported = null;
+        // The slot that ends last so far; any later slot starting before that end overlaps it
+        long latest = booked[0];
+        for (int i = 1; i < n; i++) {
+            long b = booked[i];
+            if (slotEnd(latest) > slotStart(b)) {
+                // Some earlier slot is still running; report every one that is
+                for (int j = 0; j < i; j++) {
+                    long o = booked[j];
+                    if (slotEnd(o) <= slotStart(b) || slotCourse(o) == slotCourse(b)) {
+                        continue;
+                    }
+                    if (conflicts == null) {
+                        conflicts = new ArrayList<>();
+                        reported = new HashSet<>();
+                    }
+                    String courseId = courses[slotCourse(o)];
+                    String otherCourseId = courses[slotCourse(b)];
+                    if (reported.add(courseId + ',' + otherCourseId)) {
+                        conflicts.add(new ScheduleConflict(studentId, courseId, otherCourseId,
+                                slotOf(schedules.get(courseId), slotStart(o))));
+                    }
+                }
+            }
+            if (slotEnd(b) > slotEnd(latest)) {
+                latest = b;
             }
         }
-        System.out.println("Error: Registration not found!");
+        return conflicts == null ? Stream.empty() : conflicts.stream();
+    }
+
+    /**
+     * Unpacks the start minute of a slot packed by studentConflicts.
+     * @param packed The packed slot
+     * @return The start minute
+     */
+    private static int slotStart(long packed) {
+        return (int) (packed >>> 40);
+    }
+
+    /**
+     * Unpacks the end minute of a slot packed by studentConflicts.
+     * @param packed The packed slot
+     * @return The end minute
+     */
+    private static int slotEnd(long packed) {
+        return (int) (packed >>> 20) & 0xFFFFF;
+    }
+
+    /**
+     * Unpacks the course index of a slot packed by studentConflicts.
+     * @param packed The packed slot
+     * @return The index into the student's course array
+     */
+    private static int slotCourse(long packed) {
+        return (int) packed & 0xFFFFF;
+    }
+
+    /**
+     * Finds the slot of a schedule that starts at a given minute.
+     *
+     * @param schedule The schedule
+     * @param start The start minute
+     * @return The slot
+     */
+    private static MeetingSlot slotOf(List<MeetingSlot> schedule, int start) {
+        for (MeetingSlot slot : schedule) {
+            if (slot.getStart() == start) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("No slot starts at minute " + start);
+    }
+
+    /**
+     * Creates, journals and indexes a registration once its seat has been secured.
+     *
+     * @param sequence The registration number, already taken from the ID counter
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The new registration, or null if the pair was claimed concurrently
+     * @throws java.io.UncheckedIOException If the record cannot be appended; nothing is indexed
+     */
+    private Registration insert(int sequence, String studentId, String courseId) {
+        Registration r = reserve(sequence, studentId, courseId);
+        if (r == null) {
+            return null;
+        }
+        journalLock.readLock().lock();
+        try {
+            try {
+                journal.append(registrationRecord(r));
+            } catch (RuntimeException e) {
+                // Not on disk, so not enrolled: give the pair back before it is indexed
+                release(r);
+                throw e;
+            }
+            index(r);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        return r;
+    }
+
+    /**
+     * Creates a registration and claims its (student, course) pair, without indexing it.
+     * A claimed pair counts as enrolled for duplicate checks, so no other
+     * enrollment can take it while its record is being journaled.
+     *
+     * @param sequence The registration number, already taken from the ID counter
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The new registration, or null if the pair was claimed concurrently
+     */
+    private Registration reserve(int sequence, String studentId, String courseId) {
+        Registration r = new Registration(sequence, studentId, courseId, LocalDate.now());
+        long key = enrollmentKey(studentIds.encode(studentId), courseIds.encode(courseId));
+        return byEnrollment.putIfAbsent(key, r) == null ? r : null;
+    }
+
+    /**
+     * Gives back the pair claimed by reserve for a registration that was never journaled.
+     * @param r The reserved registration
+     */
+    private void release(Registration r) {
+        byEnrollment.remove(enrollmentKey(studentIds.lookup(r.getStudentId()), courseIds.lookup(r.getCourseId())), r);
+    }
+
+    /**
+     * Makes a reserved and journaled registration visible in the indexes and counters.
+     * @param r The registration
+     */
+    private void index(Registration r) {
+        int student = studentIds.lookup(r.getStudentId());
+        int course = courseIds.lookup(r.getCourseId());
+        registrations.put(r.getSequence(), r);
+        addToIndex(byStudent, student, r);
+        addToIndex(byCourse, course, r);
+        enrollmentCounter(course).increment();
+        registrationCount.increment();
+    }
+
+    /**
+     * Builds the journal record for a new registration.
+     *
+     * @param r The registration
+     * @return The REGISTRATION_PUT record
+     */
+    private static LogRecord registrationRecord(Registration r) {
+        return new LogRecord(LogRecord.Type.REGISTRATION_PUT, r.getId(), r.getStudentId(), r.getCourseId(),
+                r.getDate().toString());
+    }
+
+    /**
+     * Gets the current value of the registration ID counter.
+     * @return The number used by the most recently generated registration ID
+     */
+    public int getIdCounter() {
+        return regCounter.get();
+    }
+
+    /**
+     * Moves the registration ID counter forward so restored IDs are never reissued.
+     * @param value The highest number known to be in use
+     */
+    public void restoreIdCounter(int value) {
+        regCounter.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Restores a previously persisted registration without validation, output or journaling.
+     * The course seat is claimed even if the limit has since been lowered,
+     * and the ID counter is advanced past the restored ID. Until the first
+     * query, restored registrations are stored as columns rather than objects.
+     *
+     * @param r The registration to restore
+     */
+    public void restoreRegistration(Registration r) {
+        Course course = findCourse(r.getCourseId());
+        if (course != null && !course.getId().equals(r.getCourseId())) {
+            // Logs written before IDs were resolved may spell the course differently
+            r = new Registration(r.getSequence(), r.getStudentId(), course.getId(), r.getDate());
+        }
+        int student = studentIds.encode(r.getStudentId());
+        int courseOrdinal = courseIds.encode(r.getCourseId());
+        if (!archive(student, courseOrdinal, r)) {
+            byEnrollment.put(enrollmentKey(student, courseOrdinal), r);
+            registrations.put(r.getSequence(), r);
+            addToIndex(byStudent, student, r);
+            addToIndex(byCourse, courseOrdinal, r);
+        }
+        enrollmentCounter(courseOrdinal).increment();
+        registrationCount.increment();
+        if (course != null) {
+            course.claimSeat();
+            if (!course.getSchedule().isEmpty()) {
+                timetables.computeIfAbsent(student, k -> new Timetable()).add(courseOrdinal, course.getSchedule());
+            }
+        }
+        regCounter.accumulateAndGet(r.getSequence(), Math::max);
+    }
+
+    /**
+     * Restores registrations in bulk, as decoded from a snapshot, without
+     * validation, output or journaling. Each distinct student and course ID
+     * is looked up once, and while the columnar store is open every row is
+     * appended to it directly, so no Registration objects are created.
+     * Otherwise behaves like restoreRegistration for each row.
+     *
+     * @param studentIds The distinct student IDs the rows refer to
+     * @param courseIds The distinct course IDs the rows refer to
+     * @param rows Four ints per registration: sequence number, index into studentIds,
+     *             index into courseIds and epoch day
+     * @param count The number of registrations at the start of rows
+     */
+    public void restoreRegistrations(String[] studentIds, String[] courseIds, int[] rows, int count) {
+        int[] students = new int[studentIds.length];
+        for (int i = 0; i < studentIds.length; i++) {
+            students[i] = this.studentIds.encode(studentIds[i]);
+        }
+        Course[] courses = new Course[courseIds.length];
+        int[] courseOrdinals = new int[courseIds.length];
+        for (int i = 0; i < courseIds.length; i++) {
+            courses[i] = findCourse(courseIds[i]);
+            courseOrdinals[i] = this.courseIds.encode(courses[i] == null ? courseIds[i] : courses[i].getId());
+        }
+        synchronized (this) {
+            if (archiveSealed) {
+                for (int i = 0; i < count * 4; i += 4) {
+                    restoreRegistration(new Registration(rows[i], studentIds[rows[i + 1]], courseIds[rows[i + 2]],
+                            LocalDate.ofEpochDay(rows[i + 3])));
+                }
+                return;
+            }
+            archive.addAll(rows, count, students, courseOrdinals);
+        }
+        registrationCount.add(count);
+        int[] perCourse = new int[courseIds.length];
+        int highest = 0;
+        for (int i = 0; i < count * 4; i += 4) {
+            perCourse[rows[i + 2]]++;
+            highest = Math.max(highest, rows[i]);
+        }
+        for (int i = 0; i < count * 4; i += 4) {
+            Course course = courses[rows[i + 2]];
+            if (course != null && !course.getSchedule().isEmpty()) {
+                timetables.computeIfAbsent(students[rows[i + 1]], k -> new Timetable())
+                        .add(courseOrdinals[rows[i + 2]], course.getSchedule());
+            }
+        }
+        for (int i = 0; i < courseIds.length; i++) {
+            if (perCourse[i] > 0) {
+                enrollmentCounter(courseOrdinals[i]).add(perCourse[i]);
+                if (courses[i] != null) {
+                    courses[i].claimSeats(perCourse[i]);
+                }
+            }
+        }
+        regCounter.accumulateAndGet(highest, Math::max);
+    }
+
+    /**
+     * Restores students to a course's waitlist without validation, output or
+     * journaling, appending them behind anyone already waiting. Students
+     * already on the waitlist keep their place, and entries for a course no
+     * longer in the catalog are dropped.
+     *
+     * @param courseId The ID of the course
+     * @param studentIds The waiting student IDs, longest-waiting first
+     */
+    public void restoreWaitlist(String courseId, List<String> studentIds) {
+        Course course = findCourse(courseId);
+        if (courseManager != null && course == null) {
+            return;
+        }
+        String id = course == null ? courseId : course.getId();
+        for (String studentId : studentIds) {
+            joinWaitlist(studentId, id);
+        }
+    }
+
+    /**
+     * Takes a student off a course's waitlist without output or journaling,
+     * as when replaying a logged departure.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     */
+    public void restoreWaitlistLeave(String studentId, String courseId) {
+        String id = canonicalCourseId(courseId);
+        Waitlist waitlist = id == null ? null : waitlists.get(id);
+        if (waitlist != null && waitlist.remove(studentId)) {
+            leftWaitlist(studentId, id, waitlist);
+        }
+    }
+
+    /**
+     * Retrieves all registrations in ID order.
+     * @return A read-only, weakly consistent view of every registration
+     */
+    public Collection<Registration> getAllRegistrations() {
+        ColumnarRegistrationStore restored = archive();
+        return new AbstractCollection<Registration>() {
+            @Override
+            public Iterator<Registration> iterator() {
+                return merge(restored.iterator(-1), registrations.values().iterator());
+            }
+
+            @Override
+            public int size() {
+                return restored.size() + registrations.size();
+            }
+        };
+    }
+
+    /**
+     * Displays one page of registrations.
+     * The header is printed with the first page and the footer with the last.
+     *
+     * @param afterId The cursor returned by the previous call, or null for the first page
+     * @param limit The maximum number of registrations to print
+     * @return The cursor for the next page, or null if there are no more registrations
+     */
+    public String viewRegistrations(String afterId, int limit) {
+        Page<Registration> page = listRegistrations(afterId, limit);
+        if (!output.isEnabled()) {
+            return page.getNextCursor();
+        }
+        if (page.getItems().isEmpty()) {
+            if (afterId == null) {
+                output.println("Error: No registrations found.");
+            }
+            return null;
+        }
+        if (afterId == null) {
+            output.println("\n========== ALL REGISTRATIONS ==========");
+        }
+        for (Registration r : page.getItems()) {
+            output.println(r.toString());
+        }
+        if (!page.hasNext()) {
+            output.println("========================================\n");
+        }
+        return page.getNextCursor();
+    }
+
+    /**
+     * Lists one page of registrations in ID order.
+     * The page starts at the cursor's position in the sorted index, and
+     * concurrent enrollments never shift it.
+     *
+     * @param afterId The cursor returned with the previous page, or null for the first page
+     * @param limit The maximum number of registrations on the page
+     * @return The page of registrations
+     */
+    public Page<Registration> listRegistrations(String afterId, int limit) {
+        long start = LIST.start();
+        boolean ok = false;
+        try {
+            int after = afterId == null ? -1 : Ids.number(afterId);
+            Collection<Registration> tail = afterId == null ? registrations.values()
+                    : registrations.tailMap(after, false).values();
+            Page<Registration> page = Page.of(merge(archive().iterator(after), tail.iterator()), limit,
+                    Registration::getId);
+            ok = true;
+            return page;
+        } finally {
+            LIST.record(start, ok);
+        }
+    }
+
+    /**
+     * Streams every registration in ID order without copying the index.
+     * @return A lazy, weakly consistent stream over the live registrations
+     */
+    public Stream<Registration> streamRegistrations() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(getAllRegistrations().iterator(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Displays all registrations for a specific student.
+     *
+     * @param studentId The student ID to search for
+     */
+    public void viewStudentRegistrations(String studentId) {
+        if (!output.isEnabled()) {
+            return;
+        }
+        Set<Registration> studentRegs = getStudentRegistrations(studentId);
+
+        if (studentRegs.isEmpty()) {
+            output.println("Error: No registrations found for this student.");
+            return;
+        }
+
+        output.println("\n===== Student's Registrations =====");
+        for (Registration r : studentRegs) {
+            output.println(r.toString());
+        }
+        output.println("===================================\n");
+    }
+
+    /**
+     * Retrieves all registrations for a specific student.
+     *
+     * @param studentId The student ID to search for
+     * @return A read-only set of the student's registrations in enrollment order
+     */
+    public Set<Registration> getStudentRegistrations(String studentId) {
+        long start = STUDENT_REGISTRATIONS.start();
+        Set<Registration> regs = studentRegistrations(studentIds.lookup(studentId));
+        STUDENT_REGISTRATIONS.record(start, true);
+        return Collections.unmodifiableSet(regs);
+    }
+
+    /**
+     * Retrieves all registrations for a specific course.
+     *
+     * @param courseId The course ID to search for
+     * @return A read-only set of the course's registrations in enrollment order
+     */
+    public Set<Registration> getCourseRegistrations(String courseId) {
+        long start = COURSE_REGISTRATIONS.start();
+        Set<Registration> regs = courseRegistrations(courseOrdinal(courseId));
+        COURSE_REGISTRATIONS.record(start, true);
+        return Collections.unmodifiableSet(regs);
+    }
+
+    /**
+     * Gets the total number of registrations.
+     * Reads a counter kept on every enrollment, removal and restore, so the
+     * cost does not depend on how many registrations there are.
+     *
+     * @return The registration count
+     */
+    public long getRegistrationCount() {
+        return registrationCount.sum();
+    }
+
+    /**
+     * Gets the number of students enrolled in a course.
+     * Reads the course's counter, so the cost does not depend on the course size.
+     *
+     * @param courseId The course ID
+     * @return The enrollment count, or 0 if nobody has enrolled
+     */
+    public long getEnrollmentCount(String courseId) {
+        long start = ENROLLMENT_COUNT.start();
+        int course = courseOrdinal(courseId);
+        LongAdder[] counts = enrollmentCounts;
+        LongAdder count = course < 0 || course >= counts.length ? null : counts[course];
+        long value = count == null ? 0 : count.sum();
+        ENROLLMENT_COUNT.record(start, true);
+        return value;
+    }
+
+    /**
+     * Finds the courses with the most enrolled students.
+     * Visits one counter per course with a bounded min-heap, never the
+     * registrations themselves. Under concurrent enrollment each count is a
+     * moment-in-time reading.
+     *
+     * @param n The maximum number of courses to return
+     * @return The fullest courses, largest first, ties in course ID order
+     */
+    public List<EnrollmentCount> getTopCoursesByEnrollment(int n) {
+        long start = TOP_COURSES.start();
+        boolean ok = false;
+        try {
+            List<EnrollmentCount> top = topCoursesByEnrollment(n);
+            ok = true;
+            return top;
+        } finally {
+            TOP_COURSES.record(start, ok);
+        }
+    }
+
+    /**
+     * Finds the fullest courses; see getTopCoursesByEnrollment.
+     *
+     * @param n The maximum number of courses to return
+     * @return The fullest courses, largest first, ties in course ID order
+     */
+    private List<EnrollmentCount> topCoursesByEnrollment(int n) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        Comparator<EnrollmentCount> fullestFirst = Comparator.comparingLong(EnrollmentCount::getCount).reversed()
+                .thenComparing(EnrollmentCount::getCourseId, Ids.ORDER);
+        // Worst-ranked at the head, so it is the one evicted
+        PriorityQueue<EnrollmentCount> top = new PriorityQueue<>(n + 1, fullestFirst.reversed());
+        LongAdder[] counts = enrollmentCounts;
+        long floor = 1;
+        int floorNumber = Integer.MAX_VALUE;
+        for (int course = 0; course < counts.length; course++) {
+            LongAdder counter = counts[course];
+            long count = counter == null ? 0 : counter.sum();
+            // Most courses lose on count alone, before anything is allocated
+            if (count < floor) {
+                continue;
+            }
+            String courseId = courseIds.decode(course);
+            if (top.size() == n) {
+                // On a tie the ID numbers decide, parsed once rather than per comparison
+                int number = count == floor ? Ids.number(courseId) : Integer.MIN_VALUE;
+                if (number > floorNumber
+                        || number == floorNumber && Ids.ORDER.compare(courseId, top.peek().getCourseId()) > 0) {
+                    continue;
+                }
+                top.poll();
+            }
+            top.add(new EnrollmentCount(courseId, count));
+            if (top.size() == n) {
+                EnrollmentCount worst = top.peek();
+                floor = worst.getCount();
+                floorNumber = Ids.number(worst.getCourseId());
+            }
+        }
+        List<EnrollmentCount> result = new ArrayList<>(top);
+        result.sort(fullestFirst);
+        return result;
+    }
+
+    /**
+     * Displays the courses with the most enrolled students.
+     *
+     * @param n The maximum number of courses to print
+     */
+    public void viewTopCourses(int n) {
+        if (!output.isEnabled()) {
+            return;
+        }
+        List<EnrollmentCount> top = getTopCoursesByEnrollment(n);
+        if (top.isEmpty()) {
+            output.println("Error: No enrollments found.");
+            return;
+        }
+        output.println("\n===== Top " + top.size() + " Courses by Enrollment =====");
+        for (EnrollmentCount c : top) {
+            output.println(c.toString());
+        }
+        output.println("=========================================\n");
+    }
+
+    /**
+     * Lists one page of a course's roster in enrollment order.
+     * The page starts at the cursor's position in the course's own index,
+     * so neither other courses' registrations nor earlier pages are visited.
+     *
+     * @param courseId The course ID
+     * @param afterId The cursor returned with the previous page, or null for the first page
+     * @param limit The maximum number of registrations on the page
+     * @return The page of the course's registrations
+     */
+    public Page<Registration> listCourseRoster(String courseId, String afterId, int limit) {
+        long start = ROSTER.start();
+        boolean ok = false;
+        try {
+            int course = courseOrdinal(courseId);
+            int after = afterId == null ? -1 : Ids.number(afterId);
+            NavigableSet<Registration> regs = course < 0 ? null : byCourse.get(course);
+            Set<Registration> tail;
+            if (regs == null) {
+                tail = Collections.emptySet();
+            } else {
+                tail = afterId == null ? regs : regs.tailSet(new Registration(after, null, null, null), false);
+            }
+            Iterator<Registration> restored = course < 0 ? Collections.emptyIterator()
+                    : archive().courseIterator(course, after);
+            Page<Registration> page = Page.of(merge(restored, tail.iterator()), limit, Registration::getId);
+            ok = true;
+            return page;
+        } finally {
+            ROSTER.record(start, ok);
+        }
+    }
+
+    /**
+     * Displays one page of a course's roster.
+     * The header, with the enrollment count, is printed with the first page
+     * and the footer with the last.
+     *
+     * @param courseId The course ID
+     * @param afterId The cursor returned by the previous call, or null for the first page
+     * @param limit The maximum number of registrations to print
+     * @return The cursor for the next page, or null if there are no more registrations
+     */
+    public String viewCourseRoster(String courseId, String afterId, int limit) {
+        Page<Registration> page = listCourseRoster(courseId, afterId, limit);
+        if (!output.isEnabled()) {
+            return page.getNextCursor();
+        }
+        if (page.getItems().isEmpty()) {
+            if (afterId == null) {
+                output.println("Error: No registrations found for this course.");
+            }
+            return null;
+        }
+        if (afterId == null) {
+            output.println("\n===== Roster of " + courseId + " (" + getEnrollmentCount(courseId)
+                    + " enrolled) =====");
+        }
+        for (Registration r : page.getItems()) {
+            output.println(r.toString());
+        }
+        if (!page.hasNext()) {
+            output.println("===================================\n");
+        }
+        return page.getNextCursor();
+    }
+
+    /**
+     * Retrieves a registration by ID.
+     *
+     * @param registrationId The registration ID to search for
+     * @return The Registration object if found, null otherwise
+     */
+    public Registration getRegistrationById(String registrationId) {
+        long start = GET_BY_ID.start();
+        int sequence = Ids.number(registrationId);
+        Registration r = sequence < 0 ? null : registrations.get(sequence);
+        if (r == null && sequence >= 0) {
+            ColumnarRegistrationStore restored = archive();
+            int row = restored.findRow(sequence);
+            r = row < 0 ? null : restored.get(row);
+        }
+        GET_BY_ID.record(start, r != null);
+        return r;
+    }
+
+    /**
+     * Finds a student's registrations for courses that require a course,
+     * directly or indirectly, and so would lose a prerequisite if it were dropped.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of the course
+     * @return The dependent registrations in enrollment order; empty if there are none
+     */
+    public List<Registration> findDependentRegistrations(String studentId, String courseId) {
+        String id = canonicalCourseId(courseId);
+        List<Registration> dependents = new ArrayList<>();
+        if (courseManager == null || id == null) {
+            return dependents;
+        }
+        for (Registration r : studentRegistrations(studentIds.lookup(studentId))) {
+            Course course = findCourse(r.getCourseId());
+            if (course == null || course.getPrerequisites().isEmpty()) {
+                continue;
+            }
+            for (Course prerequisite : courseManager.getAllPrerequisites(course.getId())) {
+                if (prerequisite.getId().equals(id)) {
+                    dependents.add(r);
+                    break;
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Removes a registration from the system.
+     * A registration for a course that another of the student's courses
+     * requires is kept; the dependent registrations must be removed first.
+     *
+     * @param registrationId The registration ID to remove
+     * @return SUCCESS, NOT_FOUND for an unknown registration, or HAS_DEPENDENTS if the
+     *         student is registered for a course that requires this one
+     */
+    public Result removeRegistration(String registrationId) {
+        long start = REMOVE.start();
+        Registration r = null;
+        try {
+            r = getRegistrationById(registrationId);
+            if (r != null) {
+                List<Registration> dependents = new ArrayList<>();
+                r = unenrollUnlessRequired(r, dependents);
+                if (!dependents.isEmpty()) {
+                    if (output.isEnabled()) {
+                        output.println("Error: Drop the courses that require this one first: " + dependents.stream()
+                                .map(Registration::getCourseId).collect(Collectors.joining(", ")) + "!");
+                    }
+                    return Result.HAS_DEPENDENTS;
+                }
+            }
+            if (r == null) {
+                output.println("Error: Registration not found!");
+                return Result.NOT_FOUND;
+            }
+            publish(Event.Type.REGISTRATION_REMOVED, r);
+            output.println("Success: Registration removed successfully!");
+
+            Registration promoted = promoteFromWaitlist(r.getCourseId());
+            if (promoted != null && output.isEnabled()) {
+                output.println("Success: Waitlisted student " + promoted.getStudentId()
+                        + " enrolled! Registration ID: " + promoted.getId());
+            }
+            return Result.SUCCESS;
+        } finally {
+            REMOVE.record(start, r != null);
+        }
+    }
+
+    /**
+     * Fills a freed seat from the head of a course's waitlist.
+     * Each student is taken off with poll, so concurrent promotions never
+     * contend for the same head and each journaled departure is a real one.
+     * Students who have since enrolled some other way, whose timetable now
+     * clashes with the course, or who have dropped one of its prerequisites,
+     * are skipped.
+     *
+     * @param courseId The course whose seat was freed
+     * @return The promoted student's registration, or null if nobody was promoted
+     */
+    Registration promoteFromWaitlist(String courseId) {
+        Course course = findCourse(courseId);
+        if (course != null) {
+            courseId = course.getId();
+        }
+        Waitlist waitlist = waitlists.get(courseId);
+        if (waitlist == null || waitlist.size() == 0) {
+            return null;
+        }
+        if (course != null && !course.tryClaimSeat()) {
+            return null;
+        }
+        Registration r = null;
+        try {
+            while (true) {
+                String studentId;
+                // Take the head off and journal that they left under one read lock, so no checkpoint sees between
+                journalLock.readLock().lock();
+                try {
+                    studentId = waitlist.poll();
+                    if (studentId == null) {
+                        return null;
+                    }
+                    try {
+                        journal.append(new LogRecord(LogRecord.Type.WAITLIST_LEAVE, studentId, courseId));
+                    } catch (RuntimeException e) {
+                        // Not on disk, so the student never left
+                        waitlist.putBack(studentId);
+                        throw e;
+                    }
+                } finally {
+                    journalLock.readLock().unlock();
+                }
+                leftWaitlist(studentId, courseId, waitlist);
+                ReentrantLock lock = studentLock(studentId);
+                lock.lock();
+                try {
+                    if (claim(studentId, courseId, course, true) != null) {
+                        continue;
+                    }
+                    // The seat stays held for the next waiting student if this one cannot be inserted
+                    r = insertClaimed(studentId, courseId, null);
+                } finally {
+                    lock.unlock();
+                }
+                if (r != null) {
+                    WAITLIST_PROMOTIONS.increment();
+                    publish(Event.Type.WAITLIST_PROMOTED, r);
+                    return r;
+                }
+            }
+        } finally {
+            if (r == null && course != null) {
+                course.releaseSeat();
+            }
+        }
+    }
+
+    /**
+     * Removes a registration without printing and releases its seat.
+     * As with removeRegistration, a registration that another of the
+     * student's courses depends on is kept.
+     *
+     * @param registrationId The registration ID to remove
+     * @return SUCCESS, NOT_FOUND for an unknown registration, or HAS_DEPENDENTS if the
+     *         student is registered for a course that requires this one
+     */
+    Result unenroll(String registrationId) {
+        long start = UNENROLL.start();
+        Registration r = null;
+        try {
+            r = getRegistrationById(registrationId);
+            if (r != null) {
+                List<Registration> dependents = new ArrayList<>();
+                r = unenrollUnlessRequired(r, dependents);
+                if (!dependents.isEmpty()) {
+                    return Result.HAS_DEPENDENTS;
+                }
+            }
+            if (r == null) {
+                return Result.NOT_FOUND;
+            }
+            publish(Event.Type.REGISTRATION_REMOVED, r);
+            return Result.SUCCESS;
+        } finally {
+            UNENROLL.record(start, r != null);
+        }
+    }
+
+    /**
+     * Removes a registration unless another of the student's courses requires it.
+     * The check and the removal run under the student's lock stripe, so no
+     * enrollment in a dependent course can pass its prerequisite check in between.
+     *
+     * @param r The registration to remove
+     * @param dependents Receives the registrations that require it, if any
+     * @return The removed registration, or null if it was kept or not found
+     */
+    private Registration unenrollUnlessRequired(Registration r, List<Registration> dependents) {
+        ReentrantLock lock = studentLock(r.getStudentId());
+        lock.lock();
+        try {
+            dependents.addAll(findDependentRegistrations(r.getStudentId(), r.getCourseId()));
+            return dependents.isEmpty() ? unenroll(r.getId(), true) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a registration, journaling the removal first unless the caller already has.
+     * Of several threads removing the same registration, one succeeds; the
+     * others may leave a repeated delete in the journal, which replay ignores.
+     *
+     * @param registrationId The registration ID to remove
+     * @param append true to journal the removal before making it, false if the caller
+     *               journaled it or is undoing an insert that never reached the journal
+     * @return The removed registration, or null if not found
+     */
+    private Registration unenroll(String registrationId, boolean append) {
+        int sequence = Ids.number(registrationId);
+        if (sequence < 0) {
+            return null;
+        }
+        Registration r = registrations.get(sequence);
+        ColumnarRegistrationStore restored = null;
+        int row = -1;
+        if (r == null) {
+            restored = archive();
+            row = restored.findRow(sequence);
+            if (row < 0) {
+                return null;
+            }
+            r = restored.read(row);
+        }
+        int student;
+        int courseOrdinal;
+        journalLock.readLock().lock();
+        try {
+            if (append) {
+                journal.append(new LogRecord(LogRecord.Type.REGISTRATION_DELETE, r.getId()));
+            }
+            if (restored == null) {
+                if (!registrations.remove(sequence, r)) {
+                    return null;
+                }
+                student = studentIds.lookup(r.getStudentId());
+                courseOrdinal = courseIds.lookup(r.getCourseId());
+                byEnrollment.remove(enrollmentKey(student, courseOrdinal), r);
+                removeFromIndex(byStudent, student, r);
+                removeFromIndex(byCourse, courseOrdinal, r);
+            } else {
+                if (!restored.remove(row)) {
+                    return null;
+                }
+                student = restored.studentOf(row);
+                courseOrdinal = restored.courseOf(row);
+            }
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        enrollmentCounter(courseOrdinal).decrement();
+        registrationCount.decrement();
+        Timetable timetable = timetables.get(student);
+        if (timetable != null) {
+            timetable.release(courseOrdinal);
+        }
+        Course course = courseManager == null ? null : courseManager.getCourseById(r.getCourseId());
+        if (course != null) {
+            course.releaseSeat();
+        }
+        return r;
+    }
+
+    /**
+     * Removes every registration and waitlist entry belonging to the given students.
+     * Called when students are deleted. The removals, including leaving each
+     * waitlist, are journaled as one batch before any is made; each freed
+     * seat then goes to the head of its course's waitlist, and each promotion
+     * is journaled as it happens.
+     *
+     * @param studentIds The IDs of the deleted students
+     * @return The removed registrations
+     */
+    public List<Registration> removeStudentRegistrations(Collection<String> studentIds) {
+        long start = REMOVE_FOR_STUDENTS.start();
+        boolean ok = false;
+        try {
+            List<Registration> doomed = new ArrayList<>();
+            List<LogRecord> records = new ArrayList<>();
+            for (String studentId : studentIds) {
+                doomed.addAll(getStudentRegistrations(studentId));
+                for (String courseId : waitingFor.getOrDefault(studentId, Collections.emptySet())) {
+                    records.add(new LogRecord(LogRecord.Type.WAITLIST_LEAVE, studentId, courseId));
+                }
+            }
+            records.addAll(deleteRecords(doomed));
+
+            List<Registration> removed = new ArrayList<>();
+            Set<String> freedCourses = new LinkedHashSet<>();
+            journalLock.readLock().lock();
+            try {
+                journal.appendAll(records);
+                for (String studentId : studentIds) {
+                    Set<String> waiting = waitingFor.remove(studentId);
+                    if (waiting != null) {
+                        for (String courseId : waiting) {
+                            Waitlist waitlist = waitlists.get(courseId);
+                            if (waitlist != null) {
+                                waitlist.remove(studentId);
+                            }
+                        }
+                    }
+                    int student = this.studentIds.lookup(studentId);
+                    if (student >= 0) {
+                        timetables.remove(student);
+                    }
+                }
+                for (Registration r : doomed) {
+                    if (unenroll(r.getId(), false) != null) {
+                        removed.add(r);
+                        freedCourses.add(r.getCourseId());
+                    }
+                }
+            } finally {
+                journalLock.readLock().unlock();
+            }
+            for (String courseId : freedCourses) {
+                while (promoteFromWaitlist(courseId) != null) {
+                    // Keep filling until the course is full again or nobody is waiting
+                }
+            }
+            ok = true;
+            return removed;
+        } finally {
+            REMOVE_FOR_STUDENTS.record(start, ok);
+        }
+    }
+
+    /**
+     * Removes every registration and the waitlist of the given courses.
+     * Called when courses are deleted; the removals and every waiting
+     * student leaving are journaled as one batch before any is made.
+     *
+     * @param courseIds The IDs of the deleted courses
+     * @return The removed registrations
+     */
+    public List<Registration> removeCourseRegistrations(Collection<String> courseIds) {
+        long start = REMOVE_FOR_COURSES.start();
+        boolean ok = false;
+        try {
+            List<Registration> doomed = new ArrayList<>();
+            List<LogRecord> records = new ArrayList<>();
+            for (String courseId : courseIds) {
+                doomed.addAll(getCourseRegistrations(courseId));
+                String canonicalId = canonicalCourseId(courseId);
+                Waitlist waitlist = canonicalId == null ? null : waitlists.get(canonicalId);
+                if (waitlist != null) {
+                    for (String studentId : waitlist.toList()) {
+                        records.add(new LogRecord(LogRecord.Type.WAITLIST_LEAVE, studentId, canonicalId));
+                    }
+                }
+            }
+            records.addAll(deleteRecords(doomed));
+
+            List<Registration> removed = new ArrayList<>();
+            journalLock.readLock().lock();
+            try {
+                journal.appendAll(records);
+                for (String courseId : courseIds) {
+                    String canonicalId = canonicalCourseId(courseId);
+                    Waitlist waitlist = waitlists.remove(canonicalId);
+                    if (waitlist != null) {
+                        for (String studentId : waitlist.toList()) {
+                            leftWaitlist(studentId, canonicalId, null);
+                        }
+                    }
+                }
+                for (Registration r : doomed) {
+                    if (unenroll(r.getId(), false) != null) {
+                        removed.add(r);
+                    }
+                }
+            } finally {
+                journalLock.readLock().unlock();
+            }
+            ok = true;
+            return removed;
+        } finally {
+            REMOVE_FOR_COURSES.record(start, ok);
+        }
+    }
+
+    /**
+     * Builds the journal records for removing registrations.
+     *
+     * @param doomed The registrations about to be removed
+     * @return One REGISTRATION_DELETE record per registration
+     */
+    private static List<LogRecord> deleteRecords(List<Registration> doomed) {
+        List<LogRecord> records = new ArrayList<>(doomed.size());
+        for (Registration r : doomed) {
+            records.add(new LogRecord(LogRecord.Type.REGISTRATION_DELETE, r.getId()));
+        }
+        return records;
+    }
+
+    /**
+     * Journals a student joining a course's waitlist, then puts them on it.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The canonical ID of the course
+     * @return true if the student joined, false if they were already waiting
+     * @throws java.io.UncheckedIOException If the record cannot be appended; the student does not join
+     */
+    private boolean journalWaitlistJoin(String studentId, String courseId) {
+        journalLock.readLock().lock();
+        try {
+            journal.append(new LogRecord(LogRecord.Type.WAITLIST_JOIN, studentId, courseId));
+            return joinWaitlist(studentId, courseId);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts a student on a course's waitlist and records it in the student's reverse index entry.
+     * The entry is added first, so it may briefly list a course the student is not yet waiting for.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The canonical ID of the course
+     * @return true if the student joined, false if they were already waiting
+     */
+    private boolean joinWaitlist(String studentId, String courseId) {
+        waitingFor.computeIfAbsent(studentId, k -> ConcurrentHashMap.newKeySet()).add(courseId);
+        return waitlists.computeIfAbsent(courseId, k -> new Waitlist()).offer(studentId);
+    }
+
+    /**
+     * Drops a course from a student's reverse index entry once they have left its waitlist.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The canonical ID of the course
+     * @param waitlist The course's waitlist, or null if it was deleted
+     */
+    private void leftWaitlist(String studentId, String courseId, Waitlist waitlist) {
+        waitingFor.computeIfPresent(studentId, (k, courses) -> {
+            // The student may have joined again since being taken off
+            if (waitlist == null || !waitlist.contains(studentId)) {
+                courses.remove(courseId);
+            }
+            return courses.isEmpty() ? null : courses;
+        });
+    }
+
+    /**
+     * Gets the store of restored registrations, sealing it on first use so
+     * its indexes are built once every registration has been restored.
+     * @return The sealed store
+     */
+    private ColumnarRegistrationStore archive() {
+        if (!archiveSealed) {
+            sealArchive();
+        }
+        return archive;
+    }
+
+    /**
+     * Seals the store of restored registrations; later restores go to the object indexes.
+     */
+    private synchronized void sealArchive() {
+        if (!archiveSealed) {
+            archive.seal();
+            archiveSealed = true;
+        }
+    }
+
+    /**
+     * Appends a restored registration to the columnar store while it is still open.
+     *
+     * @param student The student ordinal
+     * @param course The course ordinal
+     * @param r The registration
+     * @return true if it was stored as a row, false if the store is sealed already
+     */
+    private boolean archive(int student, int course, Registration r) {
+        if (archiveSealed) {
+            return false;
+        }
+        synchronized (this) {
+            if (archiveSealed) {
+                return false;
+            }
+            archive.add(r.getSequence(), student, course, r.getDate().toEpochDay());
+            return true;
+        }
+    }
+
+    /**
+     * Collects a student's registrations from the restored rows and the object index.
+     *
+     * @param student The student ordinal, or -1
+     * @return The registrations in enrollment order; the live index itself if none were restored
+     */
+    private NavigableSet<Registration> studentRegistrations(int student) {
+        NavigableSet<Registration> recent = student < 0 ? null : byStudent.get(student);
+        return withRestored(archive().studentIterator(student), recent);
+    }
+
+    /**
+     * Collects a course's registrations from the restored rows and the object index.
+     *
+     * @param course The course ordinal, or -1
+     * @return The registrations in enrollment order; the live index itself if none were restored
+     */
+    private NavigableSet<Registration> courseRegistrations(int course) {
+        NavigableSet<Registration> recent = course < 0 ? null : byCourse.get(course);
+        return withRestored(archive().courseIterator(course, -1), recent);
+    }
+
+    /**
+     * Adds restored registrations to a set from an object index.
+     *
+     * @param restored The restored registrations
+     * @param recent The index's set, or null if it has none
+     * @return recent itself (or an empty set) when nothing was restored, otherwise a new set holding both
+     */
+    private static NavigableSet<Registration> withRestored(Iterator<Registration> restored,
+                                                           NavigableSet<Registration> recent) {
+        if (!restored.hasNext()) {
+            return recent == null ? Collections.emptyNavigableSet() : recent;
+        }
+        NavigableSet<Registration> all = new TreeSet<>(REGISTRATION_ORDER);
+        restored.forEachRemaining(all::add);
+        if (recent != null) {
+            all.addAll(recent);
+        }
+        return all;
+    }
+
+    /**
+     * Merges two iterators that each return registrations in sequence order.
+     *
+     * @param a The first iterator
+     * @param b The second iterator
+     * @return An iterator over both, in sequence order
+     */
+    private static Iterator<Registration> merge(Iterator<Registration> a, Iterator<Registration> b) {
+        if (!a.hasNext()) {
+            return b;
+        }
+        if (!b.hasNext()) {
+            return a;
+        }
+        return new Iterator<Registration>() {
+            private Registration nextA = a.next();
+            private Registration nextB = b.next();
+
+            @Override
+            public boolean hasNext() {
+                return nextA != null || nextB != null;
+            }
+
+            @Override
+            public Registration next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Registration r;
+                if (nextB == null || nextA != null && nextA.getSequence() < nextB.getSequence()) {
+                    r = nextA;
+                    nextA = a.hasNext() ? a.next() : null;
+                } else {
+                    r = nextB;
+                    nextB = b.hasNext() ? b.next() : null;
+                }
+                return r;
+            }
+        };
+    }
+
+    /**
+     * Finds a course's dictionary ordinal. The ID is only resolved through
+     * the catalog when its exact text is not already in the dictionary,
+     * which only ever holds the catalog's spellings.
+     *
+     * @param courseId The course ID, in any case
+     * @return The ordinal, or -1 if no registration has used the course
+     */
+    private int courseOrdinal(String courseId) {
+        int course = courseIds.lookup(courseId);
+        return course >= 0 ? course : courseIds.lookup(canonicalCourseId(courseId));
+    }
+
+    /**
+     * Gets the enrollment counter of a course, creating it on first use.
+     * Counters are never dropped, even when a course empties or is deleted,
+     * so an increment can never land on a counter that was just discarded.
+     * Creating or growing takes a short lock; reads are lock-free.
+     *
+     * @param course The course ordinal
+     * @return The course's counter
+     */
+    private LongAdder enrollmentCounter(int course) {
+        LongAdder[] counts = enrollmentCounts;
+        LongAdder count = course < counts.length ? counts[course] : null;
+        if (count != null) {
+            return count;
+        }
+        synchronized (this) {
+            counts = enrollmentCounts;
+            if (course >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(course + 1, counts.length * 2));
+            }
+            if (counts[course] == null) {
+                counts[course] = new LongAdder();
+            }
+            enrollmentCounts = counts;
+            return counts[course];
+        }
+    }
+
+    /**
+     * Adds a registration to one secondary index.
+     * The bucket is created and updated atomically so a concurrent removal
+     * can never drop it while the registration is being added.
+     *
+     * @param index The secondary index
+     * @param key The bucket key
+     * @param r The registration to add
+     */
+    private static void addToIndex(ConcurrentHashMap<Integer, NavigableSet<Registration>> index, int key,
+                                   Registration r) {
+        index.compute(key, (k, regs) -> {
+            if (regs == null) {
+                regs = new ConcurrentSkipListSet<>(REGISTRATION_ORDER);
+            }
+            regs.add(r);
+            return regs;
+        });
+    }
+
+    /**
+     * Removes a registration from one secondary index, dropping empty buckets.
+     *
+     * @param index The secondary index
+     * @param key The bucket key
+     * @param r The registration to remove
+     */
+    private static void removeFromIndex(ConcurrentHashMap<Integer, NavigableSet<Registration>> index, int key,
+                                        Registration r) {
+        index.computeIfPresent(key, (k, regs) -> {
+            regs.remove(r);
+            return regs.isEmpty() ? null : regs;
+        });
     }
-}
\ No newline at end of file
+}
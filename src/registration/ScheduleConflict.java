@@ -0,0 +1,69 @@
+package registration;
+
+import course.MeetingSlot;
+
+/**
+ * Two courses of one student that meet at the same time.
+ */
+public class ScheduleConflict {
+    private final String studentId;
+    private final String courseId;
+    private final String otherCourseId;
+    private final MeetingSlot slot;
+
+    /**
+     * Constructor to create a new ScheduleConflict object.
+     *
+     * @param studentId The ID of the student
+     * @param courseId The ID of one clashing course
+     * @param otherCourseId The ID of the course it clashes with
+     * @param slot The meeting time of the first course that overlaps the other
+     */
+    public ScheduleConflict(String studentId, String courseId, String otherCourseId, MeetingSlot slot) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.otherCourseId = otherCourseId;
+        this.slot = slot;
+    }
+
+    /**
+     * Gets the student ID.
+     * @return The student ID
+     */
+    public String getStudentId() {
+        return studentId;
+    }
+
+    /**
+     * Gets the ID of the first clashing course.
+     * @return The course ID
+     */
+    public String getCourseId() {
+        return courseId;
+    }
+
+    /**
+     * Gets the ID of the course it clashes with.
+     * @return The other course ID
+     */
+    public String getOtherCourseId() {
+        return otherCourseId;
+    }
+
+    /**
+     * Gets the overlapping meeting time of the first course.
+     * @return The slot
+     */
+    public MeetingSlot getSlot() {
+        return slot;
+    }
+
+    /**
+     * Returns a string representation of the conflict.
+     * @return Formatted string with the student, both courses and the slot
+     */
+    @Override
+    public String toString() {
+        return "Student: " + studentId + " | " + courseId + " (" + slot + ") clashes with " + otherCourseId;
+    }
+}
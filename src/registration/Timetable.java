@@ -0,0 +1,132 @@
+package registration;
+
+import course.MeetingSlot;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The booked meeting times of one student, for clash checks on enrollment.
+ *
+ * Each booked slot is a map entry keyed by its start minute, with the
+ * course ordinal in the low bits so two courses can start at the same
+ * time, and valued by its end minute. A new slot [start, end) can only
+ * clash with a booking that starts before end and no more than the
+ * longest booked slot before start, so a check is one O(log n) descent
+ * into the map plus a walk over that short window. This stays correct
+ * when bookings overlap, as they can after restoring older data or
+ * rescheduling a course. Methods are synchronized, since one student may
+ * enroll in several courses at once under different course locks.
+ */
+class Timetable {
+    static final int FREE = -1;
+    static final int ALREADY_BOOKED = -2;
+
+    private final TreeMap<Long, Integer> slots = new TreeMap<>();
+    private int longest;
+
+    /**
+     * Books a course's slots if none clash with the slots already booked.
+     *
+     * @param course The course ordinal
+     * @param schedule The course's meeting times
+     * @return FREE if the slots were booked, ALREADY_BOOKED if this course
+     *         already is, or the ordinal of the course they clash with
+     */
+    synchronized int book(int course, List<MeetingSlot> schedule) {
+        for (MeetingSlot slot : schedule) {
+            if (slots.containsKey(key(slot.getStart(), course))) {
+                return ALREADY_BOOKED;
+            }
+            int clash = clashWith(slot, course);
+            if (clash != FREE) {
+                return clash;
+            }
+        }
+        add(course, schedule);
+        return FREE;
+    }
+
+    /**
+     * Books a course's slots without checking for clashes.
+     * Used when restoring and rescheduling existing enrollments.
+     *
+     * @param course The course ordinal
+     * @param schedule The course's meeting times
+     */
+    synchronized void add(int course, List<MeetingSlot> schedule) {
+        for (MeetingSlot slot : schedule) {
+            slots.put(key(slot.getStart(), course), slot.getEnd());
+            longest = Math.max(longest, slot.getEnd() - slot.getStart());
+        }
+    }
+
+    /**
+     * Finds a booked course that clashes with a set of slots.
+     *
+     * @param course The ordinal of the course being checked, whose own bookings are ignored
+     * @param schedule The slots to check
+     * @return The ordinal of a clashing course, or FREE if there is none
+     */
+    synchronized int findClash(int course, List<MeetingSlot> schedule) {
+        for (MeetingSlot slot : schedule) {
+            int clash = clashWith(slot, course);
+            if (clash != FREE) {
+                return clash;
+            }
+        }
+        return FREE;
+    }
+
+    /**
+     * Removes every slot booked for a course.
+     * @param course The course ordinal
+     */
+    synchronized void release(int course) {
+        for (Iterator<Long> it = slots.keySet().iterator(); it.hasNext(); ) {
+            if ((int) (it.next() & 0xFFFFFFFFL) == course) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks whether nothing is booked.
+     * @return true if the timetable is empty, false otherwise
+     */
+    synchronized boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * Finds a booking of another course that overlaps one slot.
+     *
+     * @param slot The slot
+     * @param course The course ordinal to ignore
+     * @return The clashing course ordinal, or FREE
+     */
+    private int clashWith(MeetingSlot slot, int course) {
+        long from = key(Math.max(0, slot.getStart() - longest), 0);
+        long to = key(slot.getEnd(), 0);
+        for (Map.Entry<Long, Integer> e : slots.subMap(from, true, to, false).entrySet()) {
+            int other = (int) (e.getKey() & 0xFFFFFFFFL);
+            if (other != course && e.getValue() > slot.getStart()) {
+                return other;
+            }
+        }
+        return FREE;
+    }
+
+    /**
+     * Packs a start minute and course ordinal into one map key, ordered by start.
+     *
+     * @param start The start minute
+     * @param course The course ordinal
+     * @return The key
+     */
+    private static long key(int start, int course) {
+        return ((long) start << 32) | (course & 0xFFFFFFFFL);
+    }
+}
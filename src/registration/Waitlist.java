@@ -0,0 +1,103 @@
+package registration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * FIFO waitlist of students for one full course.
+ * Backed by a queue plus a membership set so a student can only appear once
+ * and membership checks stay constant time.
+ *
+ * Every method is synchronized, so the queue and the set always hold the
+ * same students: nobody is ever queued without being a member, or a member
+ * without being queued. promoteFromWaitlist relies on this; a student
+ * returned by poll was really waiting and has really left, so every
+ * departure it journals is one that happened.
+ */
+class Waitlist {
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private final HashSet<String> members = new HashSet<>();
+
+    /**
+     * Appends a student to the end of the waitlist.
+     *
+     * @param studentId The ID of the student
+     * @return true if the student was added, false if already waiting
+     */
+    synchronized boolean offer(String studentId) {
+        if (!members.add(studentId)) {
+            return false;
+        }
+        queue.addLast(studentId);
+        return true;
+    }
+
+    /**
+     * Puts a student taken by poll back at the head of the waitlist, as when
+     * their departure could not be journaled.
+     *
+     * @param studentId The ID of the student
+     * @return true if the student was put back, false if they have joined again since
+     */
+    synchronized boolean putBack(String studentId) {
+        if (!members.add(studentId)) {
+            return false;
+        }
+        queue.addFirst(studentId);
+        return true;
+    }
+
+    /**
+     * Removes and returns the student at the head of the waitlist.
+     * @return The longest-waiting student ID, or null if the waitlist is empty
+     */
+    synchronized String poll() {
+        String studentId = queue.pollFirst();
+        if (studentId != null) {
+            members.remove(studentId);
+        }
+        return studentId;
+    }
+
+    /**
+     * Takes a student off the waitlist wherever they are in it.
+     *
+     * @param studentId The ID of the student
+     * @return true if the student was waiting, false otherwise
+     */
+    synchronized boolean remove(String studentId) {
+        if (!members.remove(studentId)) {
+            return false;
+        }
+        queue.remove(studentId);
+        return true;
+    }
+
+    /**
+     * Checks whether a student is waiting.
+     *
+     * @param studentId The ID of the student
+     * @return true if the student is on the waitlist, false otherwise
+     */
+    synchronized boolean contains(String studentId) {
+        return members.contains(studentId);
+    }
+
+    /**
+     * Gets the number of waiting students.
+     * @return The waitlist length
+     */
+    synchronized int size() {
+        return members.size();
+    }
+
+    /**
+     * Copies the waitlist in promotion order.
+     * @return The waiting student IDs, longest-waiting first
+     */
+    synchronized List<String> toList() {
+        return new ArrayList<>(queue);
+    }
+}
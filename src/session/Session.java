@@ -0,0 +1,107 @@
+package session;
+
+import admin.Admin;
+import student.Student;
+
+/**
+ * A logged-in user, identified by an opaque token.
+ * Holds either a student or an admin and the time it was last used.
+ */
+public class Session {
+
+    /**
+     * The kind of user a session belongs to.
+     */
+    public enum Role {
+        STUDENT,
+        ADMIN
+    }
+
+    private final String token;
+    private final Role role;
+    private final Student student;
+    private final Admin admin;
+    private final long createdAt;
+    private volatile long lastAccess;
+
+    /**
+     * Constructor to create a new Session.
+     *
+     * @param token The session token
+     * @param student The logged-in student, or null for an admin session
+     * @param admin The logged-in admin, or null for a student session
+     * @param now The creation time in milliseconds
+     */
+    Session(String token, Student student, Admin admin, long now) {
+        this.token = token;
+        this.role = student != null ? Role.STUDENT : Role.ADMIN;
+        this.student = student;
+        this.admin = admin;
+        this.createdAt = now;
+        this.lastAccess = now;
+    }
+
+    /**
+     * Gets the session token.
+     * @return The token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Gets the kind of user.
+     * @return STUDENT or ADMIN
+     */
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Gets the logged-in student.
+     * @return The student, or null for an admin session
+     */
+    public Student getStudent() {
+        return student;
+    }
+
+    /**
+     * Gets the logged-in admin.
+     * @return The admin, or null for a student session
+     */
+    public Admin getAdmin() {
+        return admin;
+    }
+
+    /**
+     * Gets the ID of the logged-in user.
+     * @return The student or admin ID
+     */
+    public String getPrincipalId() {
+        return student != null ? student.getId() : admin.getId();
+    }
+
+    /**
+     * Gets the time the session was created.
+     * @return The creation time in milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the time the session was last used.
+     * @return The last access time in milliseconds
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Records a use of the session.
+     * @param now The current time in milliseconds
+     */
+    void touch(long now) {
+        lastAccess = now;
+    }
+}
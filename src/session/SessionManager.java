@@ -0,0 +1,222 @@
+package session;
+
+import admin.Admin;
+import metrics.Counter;
+import metrics.Metrics;
+import metrics.Operation;
+import student.Student;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and resolves session tokens for logged-in students and admins.
+ *
+ * Sessions live in a concurrent map keyed by token, so resolving a token is
+ * a single hash lookup from any thread. A session ends on logout or after
+ * it has been idle for the timeout; idle sessions are swept by a timer
+ * wheel that a background thread advances once per tick, and a session
+ * found idle on lookup is ended immediately even if the sweep has not
+ * reached it yet.
+ *
+ * Opening, resolving and ending sessions are timed into the Metrics registry.
+ */
+public class SessionManager implements AutoCloseable {
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+    private static final int TOKEN_BYTES = 32;
+
+    private static final Operation OPEN = Metrics.operation("session.open");
+    private static final Operation RESOLVE = Metrics.operation("session.resolve", Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation LOGOUT = Metrics.operation("session.logout");
+    private static final Counter EXPIRED = Metrics.counter("session.expired");
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final TimerWheel<Session> wheel;
+    private final ScheduledExecutorService ticker;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructor to create a SessionManager with the default idle timeout.
+     */
+    public SessionManager() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor to create a SessionManager.
+     *
+     * @param idleTimeoutMillis How long a session may go unused before it ends
+     */
+    public SessionManager(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.wheel = new TimerWheel<>(WHEEL_SLOTS, TICK_MILLIS,
+                s -> s.getLastAccess() + idleTimeoutMillis, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::expireIdle, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a session for a student.
+     *
+     * @param student The authenticated student
+     * @return The new session token
+     */
+    public String openStudentSession(Student student) {
+        return open(student, null);
+    }
+
+    /**
+     * Starts a session for an admin.
+     *
+     * @param admin The authenticated admin
+     * @return The new session token
+     */
+    public String openAdminSession(Admin admin) {
+        return open(null, admin);
+    }
+
+    /**
+     * Resolves a token to its session and records the access.
+     *
+     * @param token The session token
+     * @return The session, or null if the token is unknown, logged out or idle too long
+     */
+    public Session resolve(String token) {
+        long start = RESOLVE.start();
+        Session session = token == null ? null : sessions.get(token);
+        if (session != null) {
+            long now = System.currentTimeMillis();
+            if (now - session.getLastAccess() >= idleTimeoutMillis) {
+                if (sessions.remove(token, session)) {
+                    EXPIRED.increment();
+                }
+                session = null;
+            } else {
+                session.touch(now);
+            }
+        }
+        RESOLVE.record(start, session != null);
+        return session;
+    }
+
+    /**
+     * Resolves a token to the logged-in student.
+     *
+     * @param token The session token
+     * @return The student, or null if the token is not a live student session
+     */
+    public Student getStudent(String token) {
+        Session session = resolve(token);
+        return session == null ? null : session.getStudent();
+    }
+
+    /**
+     * Resolves a token to the logged-in admin.
+     *
+     * @param token The session token
+     * @return The admin, or null if the token is not a live admin session
+     */
+    public Admin getAdmin(String token) {
+        Session session = resolve(token);
+        return session == null ? null : session.getAdmin();
+    }
+
+    /**
+     * Ends a session.
+     *
+     * @param token The session token
+     * @return true if a live session was ended, false otherwise
+     */
+    public boolean logout(String token) {
+        long start = LOGOUT.start();
+        boolean ended = token != null && sessions.remove(token) != null;
+        LOGOUT.record(start, ended);
+        return ended;
+    }
+
+    /**
+     * Ends every session of one user, for example after the account is removed.
+     * Scans all live sessions.
+     *
+     * @param principalId The student or admin ID
+     * @return The number of sessions ended
+     */
+    public int endSessionsFor(String principalId) {
+        int ended = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (it.next().getPrincipalId().equals(principalId)) {
+                it.remove();
+                ended++;
+            }
+        }
+        return ended;
+    }
+
+    /**
+     * Gets the number of sessions not yet ended or swept.
+     * @return The session count
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Sweeps sessions whose idle timeout has passed.
+     * Runs once per tick on the background thread; may also be called directly.
+     */
+    public synchronized void expireIdle() {
+        wheel.advance(System.currentTimeMillis(), s -> {
+            if (sessions.remove(s.getToken(), s)) {
+                EXPIRED.increment();
+            }
+        });
+    }
+
+    /**
+     * Stops the background sweep. Existing sessions can still be resolved.
+     */
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Creates, registers and schedules a session.
+     *
+     * @param student The student, or null
+     * @param admin The admin, or null
+     * @return The new session token
+     */
+    private String open(Student student, Admin admin) {
+        long start = OPEN.start();
+        Session session;
+        do {
+            session = new Session(newToken(), student, admin, System.currentTimeMillis());
+        } while (sessions.putIfAbsent(session.getToken(), session) != null);
+        wheel.schedule(session);
+        OPEN.record(start, true);
+        return session.getToken();
+    }
+
+    /**
+     * Generates an unguessable URL-safe token.
+     * @return The token
+     */
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
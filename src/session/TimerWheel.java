@@ -0,0 +1,95 @@
+package session;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hashed timer wheel for idle-session expiry.
+ *
+ * Time is divided into ticks and each item sits in the slot for the tick of
+ * its deadline, modulo the wheel size. Advancing the wheel visits only the
+ * slots whose ticks have passed, so expiry costs time proportional to the
+ * sessions due rather than to all sessions. Deadlines are re-read when a
+ * slot is visited: an item whose deadline moved later (because the session
+ * was used) is simply re-slotted, so touching a session never has to find
+ * and move its entry. Items are never cancelled; the expiry callback is
+ * expected to ignore items that have already been removed elsewhere.
+ *
+ * @param <T> The type of scheduled item
+ */
+final class TimerWheel<T> {
+    private final List<Set<T>> slots;
+    private final long tickMillis;
+    private final ToLongFunction<T> deadline;
+    private long currentTick;
+
+    /**
+     * Constructor to create a new TimerWheel.
+     *
+     * @param slotCount The number of slots
+     * @param tickMillis The duration of one tick
+     * @param deadline Reads an item's current deadline in milliseconds
+     * @param startMillis The current time
+     */
+    TimerWheel(int slotCount, long tickMillis, ToLongFunction<T> deadline, long startMillis) {
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+        this.tickMillis = tickMillis;
+        this.deadline = deadline;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item at its current deadline. Safe to call from any thread.
+     * @param item The item to schedule
+     */
+    void schedule(T item) {
+        slots.get(slotFor(deadline.applyAsLong(item))).add(item);
+    }
+
+    /**
+     * Visits every slot whose tick has passed, expiring due items and re-slotting the rest.
+     * Must be called from a single thread.
+     *
+     * @param nowMillis The current time
+     * @param expired Receives each item whose deadline has passed
+     */
+    void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        // Visit at most one full revolution; later ticks map onto the same slots
+        long from = Math.max(currentTick, targetTick - slots.size() + 1);
+        for (long tick = from; tick <= targetTick; tick++) {
+            Set<T> slot = slots.get((int) (tick % slots.size()));
+            for (Iterator<T> it = slot.iterator(); it.hasNext(); ) {
+                T item = it.next();
+                long due = deadline.applyAsLong(item);
+                if (due <= nowMillis) {
+                    it.remove();
+                    expired.accept(item);
+                } else if (slotFor(due) != (int) (tick % slots.size())) {
+                    it.remove();
+                    slots.get(slotFor(due)).add(item);
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+    }
+
+    /**
+     * Maps a deadline to the slot of the first tick at or after it,
+     * so an item is always due by the time its slot is visited.
+     *
+     * @param deadlineMillis The deadline
+     * @return The slot index
+     */
+    private int slotFor(long deadlineMillis) {
+        return (int) (((deadlineMillis + tickMillis - 1) / tickMillis) % slots.size());
+    }
+}
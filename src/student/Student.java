@@ -51,7 +51,7 @@ public class Student {
 
     /**
      * Gets the student password.
-     * @return The student password
+     * @return The stored password hash, or a legacy plaintext password not yet upgraded
      */
     public String getPassword() {
         return password;
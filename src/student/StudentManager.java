@@ -1,22 +1,111 @@
 package student;
 
+import common.CredentialCache;
+import common.EntityStore;
+import common.Ids;
+import common.Page;
+import common.PasswordHasher;
+import common.Result;
+import events.Event;
+import events.EventSink;
+import metrics.Counter;
+import metrics.Metrics;
+import metrics.Operation;
+import output.Output;
+import persistence.Journal;
+import persistence.LogRecord;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Manages all student operations in the Course Registration System.
  * This class handles student registration, login, updates, and deletion.
+ *
+ * Students are kept in an EntityStore in ID order, so lookups and removals
+ * by ID take constant time and listings resume from a cursor by binary search.
+ * A hash index on the lowercase email serves logins and duplicate checks.
+ * Passwords are stored as salted hashes; recently verified logins are
+ * remembered in a bounded cache so repeat logins skip the hash.
+ * Removals are reported to a listener so dependent records, such as the
+ * students' registrations, can be deleted with them.
+ * Every change is published as an Event, and every public operation is
+ * timed into the process-wide Metrics registry.
  */
 public class StudentManager {
-    private ArrayList<Student> students = new ArrayList<>();
-    private static int studentCounter = 0;
+    private static final int LOGIN_CACHE_SIZE = 10_000;
+    private static final long LOGIN_CACHE_TTL_MILLIS = 15 * 60 * 1000L;
+
+    private static final Operation REGISTER = Metrics.operation("student.registerStudent");
+    private static final Operation IMPORT = Metrics.operation("student.importStudents");
+    private static final Operation LOGIN = Metrics.operation("student.login");
+    private static final Counter LOGIN_CACHE_HITS = Metrics.counter("student.login.cacheHits");
+    private static final Operation LIST = Metrics.operation("student.listStudents");
+    private static final Operation GET_BY_ID = Metrics.operation("student.getStudentById", Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation GET_BY_EMAIL = Metrics.operation("student.getStudentByEmail",
+            Metrics.LOOKUP_SAMPLE_EVERY);
+    private static final Operation UPDATE = Metrics.operation("student.updateStudent");
+    private static final Operation REMOVE = Metrics.operation("student.removeStudent");
+    private static final Operation REMOVE_BATCH = Metrics.operation("student.removeStudents");
+
+    private final EntityStore<Student> students = new EntityStore<>(Student::getId, Ids.ORDER);
+    private final HashMap<String, Student> byEmail = new HashMap<>();
+    private final CredentialCache verifiedLogins = new CredentialCache(LOGIN_CACHE_SIZE, LOGIN_CACHE_TTL_MILLIS);
+    private static final AtomicInteger studentCounter = new AtomicInteger(0);
+    private volatile Journal journal = Journal.NONE;
+    private volatile EventSink events = EventSink.NONE;
+    private volatile Output output = Output.STDOUT;
+    private Consumer<List<String>> removalListener = ids -> { };
+
+    /**
+     * Sets the journal that records every student change.
+     * @param journal The journal to append to
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the sink that receives an event for every student change.
+     * @param events The sink to publish to
+     */
+    public void setEvents(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Sets where messages for the user are printed; Output.QUIET for callers
+     * that only read the returned Result.
+     * @param output The output to print to
+     */
+    public void setOutput(Output output) {
+        this.output = output;
+    }
+
+    /**
+     * Sets the callback that cascades student removals, typically
+     * RegistrationManager.removeStudentRegistrations.
+     *
+     * @param listener Receives the IDs of the students removed by each call
+     */
+    public void setRemovalListener(Consumer<List<String>> listener) {
+        this.removalListener = listener;
+    }
 
     /**
      * Generates a unique student ID.
      * @return A new student ID in format S-2025-XXX
      */
     public String generateStudentId() {
-        studentCounter++;
-        return String.format("S-2025-%03d", studentCounter);
+        return Ids.format("S-2025-", studentCounter.incrementAndGet(), 3);
     }
 
     /**
@@ -26,7 +115,7 @@ public class StudentManager {
      * @param email The email to validate
      * @return true if email is valid, false otherwise
      */
-    private boolean isValidEmail(String email) {
+    public static boolean isValidEmail(String email) {
         return email != null && email.contains("@") && email.contains(".") && !email.isEmpty();
     }
 
@@ -37,69 +126,199 @@ public class StudentManager {
      * @param password The password to validate
      * @return true if password is valid, false otherwise
      */
-    private boolean isValidPassword(String password) {
+    public static boolean isValidPassword(String password) {
         return password != null && password.length() >= 6;
     }
 
     /**
      * Registers a new student in the system.
      * Validates email and password, and checks for duplicates.
+     * The plaintext password on the student is replaced by its hash.
      *
      * @param student The student object to register
+     * @return SUCCESS, INVALID for a bad email or password, or DUPLICATE for a taken email
      */
-    public void registerStudent(Student student) {
-        // Email validation
-        if (!isValidEmail(student.getEmail())) {
-            System.out.println("Error: Invalid email format! Must contain @ and .");
-            return;
-        }
+    public Result registerStudent(Student student) {
+        long start = REGISTER.start();
+        boolean ok = false;
+        try {
+            // Email validation
+            if (!isValidEmail(student.getEmail())) {
+                output.println("Error: Invalid email format! Must contain @ and .");
+                return Result.INVALID;
+            }
 
-        // Password validation
-        if (!isValidPassword(student.getPassword())) {
-            System.out.println("Error: Password must be at least 6 characters long!");
-            return;
+            // Password validation
+            if (!isValidPassword(student.getPassword())) {
+                output.println("Error: Password must be at least 6 characters long!");
+                return Result.INVALID;
+            }
+
+            // Duplicate check
+            if (byEmail.containsKey(emailKey(student.getEmail()))) {
+                output.println("Error: Student with this email already exists!");
+                return Result.DUPLICATE;
+            }
+            student.setPassword(PasswordHasher.hash(student.getPassword()));
+            journalStudent(student);
+            students.add(student);
+            byEmail.put(emailKey(student.getEmail()), student);
+            events.publish(Event.student(Event.Type.STUDENT_ADDED, student.getId()));
+            ok = true;
+            if (output.isEnabled()) {
+                output.println("Success: Registration successful! Your ID: " + student.getId());
+            }
+            return Result.SUCCESS;
+        } finally {
+            REGISTER.record(start, ok);
         }
+    }
 
-        // Duplicate check
-        for (Student s : students) {
-            if (s.getEmail().equalsIgnoreCase(student.getEmail())) {
-                System.out.println("Error: Student with this email already exists!");
-                return;
+    /**
+     * Adds a batch of already validated students without output.
+     * The caller is responsible for validation, duplicate checks and hashing
+     * the passwords; the whole batch is journaled together so it costs a
+     * single durable write.
+     *
+     * @param batch The students to add, with hashed passwords
+     */
+    public void importStudents(List<Student> batch) {
+        long start = IMPORT.start();
+        boolean ok = false;
+        try {
+            List<LogRecord> records = new ArrayList<>(batch.size());
+            for (Student s : batch) {
+                records.add(studentRecord(s));
             }
+            journal.appendAll(records);
+            for (Student s : batch) {
+                students.add(s);
+                byEmail.put(emailKey(s.getEmail()), s);
+            }
+            for (Student s : batch) {
+                events.publish(Event.student(Event.Type.STUDENT_ADDED, s.getId()));
+            }
+            ok = true;
+        } finally {
+            IMPORT.record(start, ok);
         }
-        students.add(student);
-        System.out.println("Success: Registration successful! Your ID: " + student.getId());
+    }
+
+    /**
+     * Checks whether a student's stored password predates hashing, in which
+     * case a successful login rehashes it and journals the student.
+     *
+     * @param email The student email
+     * @return true if the student exists and has a plaintext password, false otherwise
+     */
+    public boolean hasLegacyPassword(String email) {
+        Student s = email == null ? null : byEmail.get(emailKey(email));
+        return s != null && !PasswordHasher.isHash(s.getPassword());
     }
 
     /**
      * Authenticates student login credentials.
+     * The email is looked up in the index; the password is checked against
+     * the login cache first and the stored hash only on a miss. A legacy
+     * plaintext password is upgraded to a hash on its first successful login.
      *
      * @param email The student email
      * @param password The student password
      * @return The Student object if credentials are valid, null otherwise
      */
     public Student login(String email, String password) {
-        for (Student s : students) {
-            if (s.getEmail().equalsIgnoreCase(email) && s.getPassword().equals(password)) {
+        long start = LOGIN.start();
+        Student result = null;
+        try {
+            if (email == null || password == null) {
+                return null;
+            }
+            String key = emailKey(email);
+            Student s = byEmail.get(key);
+            if (s == null) {
+                return null;
+            }
+            String stored = s.getPassword();
+            if (verifiedLogins.matches(key, password, stored)) {
+                LOGIN_CACHE_HITS.increment();
+                result = s;
                 return s;
             }
+            if (!PasswordHasher.verify(password, stored)) {
+                return null;
+            }
+            if (!PasswordHasher.isHash(stored)) {
+                String hash = PasswordHasher.hash(password);
+                journal.append(new LogRecord(LogRecord.Type.STUDENT_PUT, s.getId(), s.getName(), s.getEmail(),
+                        hash));
+                s.setPassword(hash);
+            }
+            verifiedLogins.put(key, password, s.getPassword());
+            result = s;
+            return s;
+        } finally {
+            LOGIN.record(start, result != null);
         }
-        return null;
     }
 
     /**
-     * Displays all students in the system.
+     * Displays one page of students.
+     * The header is printed with the first page and the footer with the last.
+     *
+     * @param afterId The cursor returned by the previous call, or null for the first page
+     * @param limit The maximum number of students to print
+     * @return The cursor for the next page, or null if there are no more students
      */
-    public void viewAllStudents() {
-        if (students.isEmpty()) {
-            System.out.println("Error: No students found.");
-            return;
+    public String viewAllStudents(String afterId, int limit) {
+        Page<Student> page = listStudents(afterId, limit);
+        if (!output.isEnabled()) {
+            return page.getNextCursor();
         }
-        System.out.println("\n========== ALL STUDENTS ==========");
-        for (Student s : students) {
-            System.out.println(s);
+        if (page.getItems().isEmpty()) {
+            if (afterId == null) {
+                output.println("Error: No students found.");
+            }
+            return null;
+        }
+        if (afterId == null) {
+            output.println("\n========== ALL STUDENTS ==========");
+        }
+        for (Student s : page.getItems()) {
+            output.println(s.toString());
+        }
+        if (!page.hasNext()) {
+            output.println("==================================\n");
+        }
+        return page.getNextCursor();
+    }
+
+    /**
+     * Lists one page of students in ID order.
+     * The start of the page is found by binary search, so no earlier student is visited.
+     * A cursor naming a since-deleted student still resumes at the right place.
+     *
+     * @param afterId The cursor returned with the previous page, or null for the first page
+     * @param limit The maximum number of students on the page
+     * @return The page of students
+     */
+    public Page<Student> listStudents(String afterId, int limit) {
+        long start = LIST.start();
+        boolean ok = false;
+        try {
+            Page<Student> page = Page.of(students.after(afterId), limit, Student::getId);
+            ok = true;
+            return page;
+        } finally {
+            LIST.record(start, ok);
         }
-        System.out.println("==================================\n");
+    }
+
+    /**
+     * Streams every student in ID order without copying the list.
+     * @return A lazy stream over the live student list
+     */
+    public Stream<Student> streamStudents() {
+        return students.stream();
     }
 
     /**
@@ -109,12 +328,23 @@ public class StudentManager {
      * @return The Student object if found, null otherwise
      */
     public Student getStudentById(String id) {
-        for (Student s : students) {
-            if (s.getId().equals(id)) {
-                return s;
-            }
-        }
-        return null;
+        long start = GET_BY_ID.start();
+        Student s = students.get(id);
+        GET_BY_ID.record(start, s != null);
+        return s;
+    }
+
+    /**
+     * Retrieves a student by email, ignoring case.
+     *
+     * @param email The email to search for
+     * @return The Student object if found, null otherwise
+     */
+    public Student getStudentByEmail(String email) {
+        long start = GET_BY_EMAIL.start();
+        Student s = email == null ? null : byEmail.get(emailKey(email));
+        GET_BY_EMAIL.record(start, s != null);
+        return s;
     }
 
     /**
@@ -124,45 +354,186 @@ public class StudentManager {
      * @param id The student ID to update
      * @param name The new name
      * @param email The new email
+     * @return SUCCESS, NOT_FOUND for an unknown student, INVALID for a bad email,
+     *         or DUPLICATE for an email in use
      */
-    public void updateStudent(String id, String name, String email) {
-        Student student = getStudentById(id);
-        if (student == null) {
-            System.out.println("Error: Student not found!");
-            return;
-        }
+    public Result updateStudent(String id, String name, String email) {
+        long start = UPDATE.start();
+        boolean ok = false;
+        try {
+            Student student = students.get(id);
+            if (student == null) {
+                output.println("Error: Student not found!");
+                return Result.NOT_FOUND;
+            }
 
-        if (!isValidEmail(email)) {
-            System.out.println("Error: Invalid email format!");
-            return;
-        }
+            if (!isValidEmail(email)) {
+                output.println("Error: Invalid email format!");
+                return Result.INVALID;
+            }
 
-        // Check if email already exists (excluding current student)
-        for (Student s : students) {
-            if (!s.getId().equals(id) && s.getEmail().equalsIgnoreCase(email)) {
-                System.out.println("Error: Email already in use!");
-                return;
+            // Check if email already exists (excluding current student)
+            Student owner = byEmail.get(emailKey(email));
+            if (owner != null && owner != student) {
+                output.println("Error: Email already in use!");
+                return Result.DUPLICATE;
             }
-        }
 
-        student.setName(name);
-        student.setEmail(email);
-        System.out.println("Success: Student updated successfully!");
+            journal.append(new LogRecord(LogRecord.Type.STUDENT_PUT, student.getId(), name, email,
+                    student.getPassword()));
+            String oldKey = emailKey(student.getEmail());
+            byEmail.remove(oldKey);
+            verifiedLogins.invalidate(oldKey);
+            student.setName(name);
+            student.setEmail(email);
+            byEmail.put(emailKey(email), student);
+            events.publish(Event.student(Event.Type.STUDENT_UPDATED, student.getId()));
+            ok = true;
+            output.println("Success: Student updated successfully!");
+            return Result.SUCCESS;
+        } finally {
+            UPDATE.record(start, ok);
+        }
     }
 
     /**
      * Removes a student from the system.
      *
      * @param id The student ID to remove
+     * @return SUCCESS, or NOT_FOUND for an unknown student
      */
-    public void removeStudent(String id) {
-        for (Student s : students) {
-            if (s.getId().equals(id)) {
-                students.remove(s);
-                System.out.println("Success: Student removed successfully!");
-                return;
+    public Result removeStudent(String id) {
+        long start = REMOVE.start();
+        boolean ok = false;
+        try {
+            Student s = students.get(id);
+            if (s == null) {
+                output.println("Error: Student not found!");
+                return Result.NOT_FOUND;
             }
+            journal.append(new LogRecord(LogRecord.Type.STUDENT_DELETE, s.getId()));
+            students.remove(id);
+            byEmail.remove(emailKey(s.getEmail()));
+            verifiedLogins.invalidate(emailKey(s.getEmail()));
+            removalListener.accept(Collections.singletonList(s.getId()));
+            events.publish(Event.student(Event.Type.STUDENT_REMOVED, s.getId()));
+            ok = true;
+            output.println("Success: Student removed successfully!");
+            return Result.SUCCESS;
+        } finally {
+            REMOVE.record(start, ok);
         }
-        System.out.println("Error: Student not found!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Removes many students at once, such as a graduating cohort.
+     * Each removal leaves a tombstone, all deletions are journaled together,
+     * and the removal listener is called once for the batch.
+     * IDs that do not match a student are ignored.
+     *
+     * @param ids The IDs of the students to remove
+     * @return The removed students
+     */
+    public List<Student> removeStudents(Collection<String> ids) {
+        long start = REMOVE_BATCH.start();
+        boolean ok = false;
+        try {
+            List<String> removedIds = new ArrayList<>();
+            List<LogRecord> records = new ArrayList<>();
+            for (String id : new LinkedHashSet<>(ids)) {
+                Student s = students.get(id);
+                if (s != null) {
+                    removedIds.add(s.getId());
+                    records.add(new LogRecord(LogRecord.Type.STUDENT_DELETE, s.getId()));
+                }
+            }
+            if (removedIds.isEmpty()) {
+                output.println("Error: No matching students found!");
+                return Collections.emptyList();
+            }
+
+            journal.appendAll(records);
+            List<Student> removed = students.removeAll(removedIds);
+            for (Student s : removed) {
+                byEmail.remove(emailKey(s.getEmail()));
+                verifiedLogins.invalidate(emailKey(s.getEmail()));
+            }
+            removalListener.accept(removedIds);
+            for (String removedId : removedIds) {
+                events.publish(Event.student(Event.Type.STUDENT_REMOVED, removedId));
+            }
+            ok = true;
+            if (output.isEnabled()) {
+                output.println("Success: " + removed.size() + " students removed successfully!");
+            }
+            return removed;
+        } finally {
+            REMOVE_BATCH.record(start, ok);
+        }
+    }
+
+    /**
+     * Retrieves all students in ID order.
+     * @return A read-only view of every student
+     */
+    public Collection<Student> getAllStudents() {
+        return students.values();
+    }
+
+    /**
+     * Gets the current value of the student ID counter.
+     * @return The number used by the most recently generated student ID
+     */
+    public int getIdCounter() {
+        return studentCounter.get();
+    }
+
+    /**
+     * Moves the student ID counter forward so restored IDs are never reissued.
+     * @param value The highest number known to be in use
+     */
+    public void restoreIdCounter(int value) {
+        studentCounter.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Restores a previously persisted student without validation, output or journaling.
+     * Advances the ID counter past the restored ID.
+     *
+     * @param student The student to restore
+     */
+    public void restoreStudent(Student student) {
+        students.add(student);
+        byEmail.put(emailKey(student.getEmail()), student);
+        studentCounter.accumulateAndGet(Ids.number(student.getId()), Math::max);
+    }
+
+    /**
+     * Normalizes an email into its index key.
+     *
+     * @param email The email address
+     * @return The lowercase key
+     */
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Appends the full state of a student to the journal.
+     * @param student The registered or updated student
+     */
+    private void journalStudent(Student student) {
+        journal.append(studentRecord(student));
+    }
+
+    /**
+     * Builds the journal record holding the full state of a student.
+     *
+     * @param student The student
+     * @return The STUDENT_PUT record
+     */
+    private static LogRecord studentRecord(Student student) {
+        return new LogRecord(LogRecord.Type.STUDENT_PUT, student.getId(), student.getName(),
+                student.getEmail(), student.getPassword());
+    }
+}